@@ -110,6 +110,42 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 */
 	@Parameter(property = "jacoco.dumpOnExit")
 	Boolean dumpOnExit;
+	/**
+	 * Interval in seconds in which the agent periodically dumps coverage data
+	 * to new files. The files are created next to the destination file with a
+	 * time stamp added to their names. When not specified no periodic dumps
+	 * are written.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.dumpInterval")
+	Integer dumpInterval;
+	/**
+	 * Maximum number of files created by periodic dumps. If more files are
+	 * written the oldest ones of the current VM are deleted, files of other
+	 * VMs or of previous runs are never deleted. When not specified all files
+	 * are kept. Can't be combined with dumpReset.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.dumpFiles")
+	Integer dumpFiles;
+	/**
+	 * If set to true coverage data is reset after every periodic dump. Can't
+	 * be combined with dumpFiles.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.dumpReset")
+	Boolean dumpReset;
+	/**
+	 * If set to true execution data is written compressed. Compressed data
+	 * can't be read by JaCoCo versions which do not support this option.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.compress")
+	Boolean compress;
 	/**
 	 * Output method to use for writing coverage data. Valid options are:
 	 * <ul>
@@ -153,6 +189,16 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 */
 	@Parameter(property = "jacoco.jmx")
 	Boolean jmx;
+	/**
+	 * A list of class names which are instrumented with additional probes for
+	 * boundary value checks of compare instructions. May use wildcard
+	 * characters (* and ?). When not specified no boundary checks are
+	 * instrumented. Reports must be created with the same list.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter
+	List<String> boundaryIncludes;
 
 	@Override
 	public void executeMojo() {
@@ -213,6 +259,18 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 		if (dumpOnExit != null) {
 			agentOptions.setDumpOnExit(dumpOnExit.booleanValue());
 		}
+		if (dumpInterval != null) {
+			agentOptions.setDumpInterval(dumpInterval.intValue());
+		}
+		if (dumpFiles != null) {
+			agentOptions.setDumpFiles(dumpFiles.intValue());
+		}
+		if (dumpReset != null) {
+			agentOptions.setDumpReset(dumpReset.booleanValue());
+		}
+		if (compress != null) {
+			agentOptions.setCompress(compress.booleanValue());
+		}
 		if (output != null) {
 			agentOptions.setOutput(output);
 		}
@@ -228,6 +286,10 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 		if (jmx != null) {
 			agentOptions.setJmx(jmx.booleanValue());
 		}
+		if (boundaryIncludes != null && !boundaryIncludes.isEmpty()) {
+			agentOptions.setBoundaryIncludes(
+					StringUtils.join(boundaryIncludes.iterator(), ":"));
+		}
 		return agentOptions;
 	}
 
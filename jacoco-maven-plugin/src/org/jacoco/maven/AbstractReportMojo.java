@@ -12,9 +12,12 @@
  *******************************************************************************/
 package org.jacoco.maven;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.maven.doxia.siterenderer.Renderer;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -23,6 +26,7 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.reporting.AbstractMavenReport;
 import org.apache.maven.reporting.MavenReportException;
+import org.jacoco.core.tools.ThreadPool;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 
@@ -74,6 +78,123 @@ public abstract class AbstractReportMojo extends AbstractMavenReport {
 	@Parameter
 	List<String> excludes;
 
+	/**
+	 * A list of class names which have been instrumented with additional
+	 * probes for boundary value checks. May use wildcard characters (* and ?).
+	 * Must be the same list as used for the <code>prepare-agent</code> or
+	 * <code>instrument</code> goal. When not specified no boundary checks are
+	 * analyzed.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter
+	List<String> boundaryIncludes;
+
+	/**
+	 * Number of threads used to analyze class files. With the default value
+	 * of 1 all class files are analyzed sequentially. The generated reports
+	 * do not depend on this setting.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.analysisThreads", defaultValue = "1")
+	int analysisThreads;
+
+	/**
+	 * Directory to cache the analysis results of class files. Class files
+	 * which have not changed since a previous report are not analyzed again.
+	 * The cache can be shared between builds and modules but must not be
+	 * shared between different JaCoCo versions.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.analysisCache")
+	File analysisCache;
+
+	/**
+	 * Creates the reports package by package to reduce memory consumption.
+	 * Only the summary counters of the analyzed bundles are kept in memory,
+	 * the analysis results are stored in the {@link #analysisCache} or in a
+	 * temporary directory. The coverage data in the reports does not depend
+	 * on this setting, only the order of packages in the XML and CSV reports
+	 * may differ.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.streaming", defaultValue = "false")
+	boolean streaming;
+
+	/**
+	 * File for a binary snapshot of the coverage model. If the file does not
+	 * exist, is older than the execution data files or has been created with
+	 * different settings or from different class files, the class files are
+	 * analyzed and the snapshot is written in addition to the reports.
+	 * Otherwise the reports are created from the snapshot without analyzing
+	 * class files again. With the default title the <code>report</code> goal
+	 * and the <code>check</code> goal can share the same snapshot file.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.snapshotFile")
+	File snapshotFile;
+
+	/**
+	 * Writes only those files of the HTML report whose content changed since
+	 * the last report. Files of the last HTML report which are not part of
+	 * the current report are deleted. The content hashes of the written files
+	 * are kept in the file <code>.jacoco-files</code> in the output
+	 * directory.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.incremental", defaultValue = "false")
+	boolean incremental;
+
+	/**
+	 * Number of lines above which source files are not highlighted in the
+	 * HTML report. The source pages of such files contain the source text and
+	 * the line coverage as data and only the visible lines are rendered by
+	 * the browser. With the default value of 0 all source files are
+	 * highlighted.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.virtualSourceThreshold", defaultValue = "0")
+	int virtualSourceThreshold;
+
+	/**
+	 * Number of rows above which the coverage tables of the HTML report are
+	 * paged. Only the first page is contained in the HTML page, all rows are
+	 * provided as data which is sorted and paged by the browser. This keeps
+	 * reports of packages with thousands of classes responsive. With the
+	 * default value of 0 all rows are rendered.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.tablePageSize", defaultValue = "0")
+	int tablePageSize;
+
+	/**
+	 * If set to <code>true</code> the XML report is compressed with gzip and
+	 * written to the file <code>jacoco.xml.gz</code> instead of
+	 * <code>jacoco.xml</code>.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.xmlGzip", defaultValue = "false")
+	boolean xmlGzip;
+
+	/**
+	 * If set to <code>true</code> the XML report does not contain the
+	 * <code>line</code> elements of source files, only the counters of all
+	 * elements. This reduces the size of the XML report considerably for
+	 * consumers which don't need line coverage.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.xmlCompact", defaultValue = "false")
+	boolean xmlCompact;
+
 	/**
 	 * Flag used to suppress execution.
 	 */
@@ -173,25 +294,55 @@ public abstract class AbstractReportMojo extends AbstractMavenReport {
 	@Override
 	protected void executeReport(final Locale locale)
 			throws MavenReportException {
+		final ExecutorService executor = ThreadPool.create(analysisThreads);
 		try {
 			final ReportSupport support = new ReportSupport(getLog());
+			support.setBoundaryIncludes(boundaryIncludes);
+			support.setExecutor(executor);
+			support.setAnalysisCache(analysisCache);
+			support.setStreaming(streaming);
+			support.setSnapshotFile(snapshotFile);
+			support.setIncremental(incremental);
+			support.setVirtualSourceThreshold(virtualSourceThreshold);
+			support.setTablePageSize(tablePageSize);
+			support.setXmlGzip(xmlGzip);
+			support.setXmlCompact(xmlCompact);
 			loadExecutionData(support);
+			addSnapshotBundles(support);
 			addFormatters(support, locale);
-			final IReportVisitor visitor = support.initRootVisitor();
-			createReport(visitor, support);
-			visitor.visitEnd();
+			if (support.isSnapshotUpToDate()) {
+				support.replaySnapshot(getSourceProjects(), sourceEncoding);
+			} else {
+				final IReportVisitor visitor = support.initRootVisitor();
+				createReport(visitor, support);
+				visitor.visitEnd();
+			}
 		} catch (final IOException e) {
 			throw new MavenReportException("Error while creating report: "
 					+ e.getMessage(), e);
+		} finally {
+			ThreadPool.shutdown(executor);
 		}
 	}
 
+	/**
+	 * Returns the projects which contain the source files of the report.
+	 * 
+	 * @return projects with source files
+	 */
+	List<MavenProject> getSourceProjects() {
+		return Collections.singletonList(project);
+	}
+
 	abstract void loadExecutionData(final ReportSupport support)
 			throws IOException;
 
 	abstract void addFormatters(final ReportSupport support, final Locale locale)
 			throws IOException;
 
+	abstract void addSnapshotBundles(final ReportSupport support)
+			throws IOException;
+
 	abstract void createReport(final IReportGroupVisitor visitor,
 			final ReportSupport support) throws IOException;
 
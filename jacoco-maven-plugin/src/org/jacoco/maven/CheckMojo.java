@@ -24,10 +24,12 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.check.IViolationsOutput;
 import org.jacoco.report.check.Limit;
 import org.jacoco.report.check.Rule;
+import org.jacoco.report.check.RulesChecker;
 
 /**
  * Checks that the code coverage metrics are being met.
@@ -143,6 +145,43 @@ public class CheckMojo extends AbstractJacocoMojo implements IViolationsOutput {
 	@Parameter
 	private List<String> excludes;
 
+	/**
+	 * A list of class names which have been instrumented with additional
+	 * probes for boundary value checks. May use wildcard characters (* and ?).
+	 * Must be the same list as used for the <code>prepare-agent</code> or
+	 * <code>instrument</code> goal. When not specified no boundary checks are
+	 * analyzed.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter
+	private List<String> boundaryIncludes;
+
+	/**
+	 * File for a binary snapshot of the coverage model. If the file does not
+	 * exist, is older than the execution data file or has been created with
+	 * different settings or from different class files, the class files are
+	 * analyzed and the snapshot is written. Otherwise the rules are checked
+	 * against the snapshot without analyzing class files again. The same file
+	 * can be used by the <code>report</code> goal, so coverage is only
+	 * calculated once for both goals.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.snapshotFile")
+	private File snapshotFile;
+
+	/**
+	 * Stop checking at the first violated rule. Only the first violation is
+	 * reported and the coverage of the remaining elements is not checked.
+	 * This option only has an effect if <code>haltOnFailure</code> is
+	 * enabled.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.failFast", defaultValue = "false")
+	private boolean failFast;
+
 	private boolean violations;
 
 	private boolean canCheckCoverage() {
@@ -173,18 +212,35 @@ public class CheckMojo extends AbstractJacocoMojo implements IViolationsOutput {
 		violations = false;
 
 		final ReportSupport support = new ReportSupport(getLog());
+		support.setBoundaryIncludes(boundaryIncludes);
+		support.setSnapshotFile(snapshotFile);
 
 		final List<Rule> checkerrules = new ArrayList<Rule>();
 		for (final RuleConfiguration r : rules) {
 			checkerrules.add(r.rule);
 		}
-		support.addRulesChecker(checkerrules, this);
+		support.addRulesChecker(checkerrules, this, failFast && haltOnFailure);
+
+		// Without snapshot class and method details are only required if
+		// they are checked by a rule:
+		if (snapshotFile == null
+				&& !RulesChecker.appliesTo(checkerrules, ElementType.CLASS)
+				&& !RulesChecker.appliesTo(checkerrules, ElementType.METHOD)) {
+			support.setSummaryOnly(true);
+		}
 
 		try {
-			final IReportVisitor visitor = support.initRootVisitor();
 			support.loadExecutionData(dataFile);
-			support.processProject(visitor, getProject(), includes, excludes);
-			visitor.visitEnd();
+			support.addSnapshotBundle(getProject().getName(), getProject(),
+					includes, excludes);
+			if (support.isSnapshotUpToDate()) {
+				support.replaySnapshot();
+			} else {
+				final IReportVisitor visitor = support.initRootVisitor();
+				support.processProject(visitor, getProject(), includes,
+						excludes);
+				visitor.visitEnd();
+			}
 		} catch (final IOException e) {
 			throw new MojoExecutionException(
 					"Error while checking code coverage: " + e.getMessage(), e);
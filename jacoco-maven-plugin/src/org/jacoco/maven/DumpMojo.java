@@ -69,6 +69,19 @@ public class DumpMojo extends AbstractJacocoMojo {
 	@Parameter(property = "jacoco.reset", defaultValue = "false")
 	private boolean reset;
 
+	/**
+	 * If set to true only the classes executed since the previous delta dump
+	 * to the same execution data file are requested and appended to the file.
+	 * The runtime identifier and sequence number of the last delta dump are
+	 * kept in a file next to the execution data file with the additional
+	 * extension <code>.delta</code>. If append is set to false all executed
+	 * classes are requested.
+	 * 
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.delta", defaultValue = "false")
+	private boolean delta;
+
 	/**
 	 * IP address or hostname to connect to.
 	 */
@@ -110,12 +123,19 @@ public class DumpMojo extends AbstractJacocoMojo {
 		client.setRetryCount(retryCount);
 
 		try {
+			client.setDelta(delta);
+			if (delta && append && dump) {
+				client.loadDeltaState(destFile);
+			}
 			final ExecFileLoader loader = client.dump(address, port);
 			if (dump) {
 				getLog().info(
 						format("Dumping execution data to %s",
 								destFile.getAbsolutePath()));
 				loader.save(destFile, append);
+				if (delta) {
+					client.saveDeltaState(destFile);
+				}
 			}
 		} catch (final IOException e) {
 			throw new MojoExecutionException("Unable to dump coverage data", e);
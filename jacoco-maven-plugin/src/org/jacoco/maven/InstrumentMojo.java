@@ -18,7 +18,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -27,8 +32,10 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.StringUtils;
 import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
+import org.jacoco.core.tools.ThreadPool;
 
 /**
  * Performs offline instrumentation. Note that after execution of test you must
@@ -60,6 +67,27 @@ public class InstrumentMojo extends AbstractJacocoMojo {
 	@Parameter
 	private List<String> excludes;
 
+	/**
+	 * A list of class names which are instrumented with additional probes for
+	 * boundary value checks of compare instructions. May use wildcard
+	 * characters (* and ?). When not specified no boundary checks are
+	 * instrumented. Reports must be created with the same list.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter
+	private List<String> boundaryIncludes;
+
+	/**
+	 * Number of threads used to instrument class files. With the default
+	 * value of 1 all class files are instrumented sequentially. The
+	 * instrumented class files do not depend on this setting.
+	 *
+	 * @since 0.8.5
+	 */
+	@Parameter(property = "jacoco.instrumentThreads", defaultValue = "1")
+	private int threads;
+
 	@Override
 	public void executeMojo() throws MojoExecutionException,
 			MojoFailureException {
@@ -86,25 +114,76 @@ public class InstrumentMojo extends AbstractJacocoMojo {
 
 		final Instrumenter instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
-		for (final String fileName : fileNames) {
-			if (fileName.endsWith(".class")) {
-				final File source = new File(classesDir, fileName);
-				final File backup = new File(originalClassesDir, fileName);
-				InputStream input = null;
-				OutputStream output = null;
-				try {
-					FileUtils.copyFile(source, backup);
-					input = new FileInputStream(backup);
-					output = new FileOutputStream(source);
-					instrumenter.instrument(input, output, source.getPath());
-				} catch (final IOException e2) {
-					throw new MojoExecutionException(
-							"Unable to instrument file.", e2);
-				} finally {
-					IOUtil.close(input);
-					IOUtil.close(output);
+		if (boundaryIncludes != null) {
+			instrumenter.setBoundaryChecks(
+					StringUtils.join(boundaryIncludes.iterator(), ":"));
+		}
+		if (threads > 1) {
+			instrumentConcurrently(instrumenter, classesDir,
+					originalClassesDir, fileNames);
+		} else {
+			for (final String fileName : fileNames) {
+				if (fileName.endsWith(".class")) {
+					instrument(instrumenter, classesDir, originalClassesDir,
+							fileName);
+				}
+			}
+		}
+	}
+
+	private void instrumentConcurrently(final Instrumenter instrumenter,
+			final File classesDir, final File originalClassesDir,
+			final List<String> fileNames) throws MojoExecutionException {
+		final ExecutorService executor = ThreadPool.create(threads);
+		try {
+			final List<Future<Void>> tasks = new ArrayList<Future<Void>>();
+			for (final String fileName : fileNames) {
+				if (fileName.endsWith(".class")) {
+					tasks.add(executor.submit(new Callable<Void>() {
+						public Void call() throws MojoExecutionException {
+							instrument(instrumenter, classesDir,
+									originalClassesDir, fileName);
+							return null;
+						}
+					}));
 				}
 			}
+			for (final Future<Void> task : tasks) {
+				task.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Instrumentation interrupted.",
+					e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof MojoExecutionException) {
+				throw (MojoExecutionException) cause;
+			}
+			throw new MojoExecutionException("Unable to instrument file.",
+					cause);
+		} finally {
+			ThreadPool.shutdown(executor);
+		}
+	}
+
+	private static void instrument(final Instrumenter instrumenter,
+			final File classesDir, final File originalClassesDir,
+			final String fileName) throws MojoExecutionException {
+		final File source = new File(classesDir, fileName);
+		final File backup = new File(originalClassesDir, fileName);
+		InputStream input = null;
+		OutputStream output = null;
+		try {
+			FileUtils.copyFile(source, backup);
+			input = new FileInputStream(backup);
+			output = new FileOutputStream(source);
+			instrumenter.instrument(input, output, source.getPath());
+		} catch (final IOException e) {
+			throw new MojoExecutionException("Unable to instrument file.", e);
+		} finally {
+			IOUtil.close(input);
+			IOUtil.close(output);
 		}
 	}
 
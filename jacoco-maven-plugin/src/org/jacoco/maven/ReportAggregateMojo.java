@@ -129,6 +129,16 @@ public class ReportAggregateMojo extends AbstractReportMojo {
 				locale);
 	}
 
+	@Override
+	void addSnapshotBundles(final ReportSupport support) throws IOException {
+		for (final MavenProject dependency : findDependencies(
+				Artifact.SCOPE_COMPILE, Artifact.SCOPE_RUNTIME,
+				Artifact.SCOPE_PROVIDED)) {
+			support.addSnapshotBundle(title + "/" + dependency.getArtifactId(),
+					dependency, getIncludes(), getExcludes());
+		}
+	}
+
 	@Override
 	void createReport(final IReportGroupVisitor visitor,
 			final ReportSupport support) throws IOException {
@@ -141,6 +151,12 @@ public class ReportAggregateMojo extends AbstractReportMojo {
 		}
 	}
 
+	@Override
+	List<MavenProject> getSourceProjects() {
+		return findDependencies(Artifact.SCOPE_COMPILE, Artifact.SCOPE_RUNTIME,
+				Artifact.SCOPE_PROVIDED);
+	}
+
 	@Override
 	protected String getOutputDirectory() {
 		return outputDirectory.getAbsolutePath();
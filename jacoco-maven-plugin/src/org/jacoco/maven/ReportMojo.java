@@ -68,6 +68,12 @@ public class ReportMojo extends AbstractReportMojo {
 				locale);
 	}
 
+	@Override
+	void addSnapshotBundles(final ReportSupport support) throws IOException {
+		support.addSnapshotBundle(title, getProject(), getIncludes(),
+				getExcludes());
+	}
+
 	@Override
 	void createReport(final IReportGroupVisitor visitor,
 			final ReportSupport support) throws IOException {
@@ -19,30 +19,44 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.StringUtils;
+import org.jacoco.core.analysis.AnalysisCache;
 import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.StreamingCoverageBuilder;
+import org.jacoco.core.analysis.SummaryCoverageBuilder;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.IndexedSourceFileLocator;
 import org.jacoco.report.MultiReportVisitor;
 import org.jacoco.report.check.IViolationsOutput;
 import org.jacoco.report.check.Rule;
 import org.jacoco.report.check.RulesChecker;
 import org.jacoco.report.csv.CSVFormatter;
 import org.jacoco.report.html.HTMLFormatter;
+import org.jacoco.report.snapshot.SnapshotFormatter;
+import org.jacoco.report.snapshot.SnapshotLoader;
 import org.jacoco.report.xml.XMLFormatter;
 
 /**
@@ -56,12 +70,31 @@ import org.jacoco.report.xml.XMLFormatter;
  * <li>Create the root visitor with <code>initRootVisitor()</code></li>
  * <li>Process one or multiple projects with <code>processProject()</code></li>
  * </ol>
+ * 
+ * If a snapshot file is set, all bundles are described with
+ * <code>addSnapshotBundle()</code> and <code>isSnapshotUpToDate()</code> the
+ * last two steps can be replaced by <code>replaySnapshot()</code>. As the
+ * fingerprint of a snapshot does not depend on the goal, a snapshot written
+ * by a report goal can be replayed by the check goal and vice versa.
  */
 final class ReportSupport {
 
 	private final Log log;
 	private final ExecFileLoader loader;
 	private final List<IReportVisitor> formatters;
+	private String boundaryIncludes;
+	private Executor executor;
+	private AnalysisCache analysisCache;
+	private boolean streaming;
+	private boolean summaryOnly;
+	private File snapshotFile;
+	private boolean incremental;
+	private int virtualSourceThreshold;
+	private int tablePageSize;
+	private boolean xmlGzip;
+	private boolean xmlCompact;
+	private long dataLastModified;
+	private final StringBuilder snapshotInputs;
 
 	/**
 	 * Construct a new instance with the given log output.
@@ -73,6 +106,142 @@ final class ReportSupport {
 		this.log = log;
 		this.loader = new ExecFileLoader();
 		this.formatters = new ArrayList<IReportVisitor>();
+		this.boundaryIncludes = "";
+		this.snapshotInputs = new StringBuilder();
+	}
+
+	/**
+	 * Sets the executor used to analyze class files of all projects.
+	 * 
+	 * @param executor
+	 *            executor or <code>null</code> to analyze all classes in the
+	 *            calling thread
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the directory to cache analysis results of class files.
+	 * 
+	 * @param directory
+	 *            cache directory or <code>null</code> to analyze all class
+	 *            files
+	 */
+	public void setAnalysisCache(final File directory) {
+		this.analysisCache = directory == null ? null
+				: new AnalysisCache(directory);
+	}
+
+	/**
+	 * Sets whether bundles are provided package by package to the formatters.
+	 * In this mode the analysis results are stored in the analysis cache or in
+	 * a temporary directory if no cache is set.
+	 * 
+	 * @param streaming
+	 *            <code>true</code> to keep only the summary of a bundle in
+	 *            memory
+	 */
+	public void setStreaming(final boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * Sets whether only the coverage of bundles, packages and source files is
+	 * calculated. Bundles created in this mode do not contain classes and
+	 * methods and can only be used for checks which do not refer to these
+	 * elements.
+	 * 
+	 * @param summaryOnly
+	 *            <code>true</code> to calculate summary counters only
+	 */
+	public void setSummaryOnly(final boolean summaryOnly) {
+		this.summaryOnly = summaryOnly;
+	}
+
+	/**
+	 * Sets the file for the coverage snapshot. If the snapshot is not up to
+	 * date it is written by the root visitor, otherwise the report can be
+	 * replayed from it with {@link #replaySnapshot(List, String)}.
+	 * 
+	 * @param snapshotFile
+	 *            snapshot file or <code>null</code> to always analyze the
+	 *            class files
+	 */
+	public void setSnapshotFile(final File snapshotFile) {
+		this.snapshotFile = snapshotFile;
+	}
+
+	/**
+	 * Sets whether only changed files of the HTML report are written. Files
+	 * of the previous HTML report which are not created again are deleted.
+	 * 
+	 * @param incremental
+	 *            <code>true</code> to write changed files only
+	 */
+	public void setIncremental(final boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * Sets the number of lines above which HTML source pages are rendered on
+	 * demand in the browser without syntax highlighting.
+	 * 
+	 * @param lines
+	 *            line threshold or 0 to highlight all source files
+	 */
+	public void setVirtualSourceThreshold(final int lines) {
+		this.virtualSourceThreshold = lines;
+	}
+
+	/**
+	 * Sets the number of rows above which HTML coverage tables are sorted and
+	 * paged in the browser.
+	 * 
+	 * @param rows
+	 *            rows per page or 0 to render all rows
+	 */
+	public void setTablePageSize(final int rows) {
+		this.tablePageSize = rows;
+	}
+
+	/**
+	 * Sets whether the XML report is compressed with gzip. In this case the
+	 * report file created by
+	 * {@link #addAllFormatters(File, String, String, Locale)} is called
+	 * <code>jacoco.xml.gz</code>.
+	 * 
+	 * @param xmlGzip
+	 *            <code>true</code> to compress the XML report
+	 */
+	public void setXmlGzip(final boolean xmlGzip) {
+		this.xmlGzip = xmlGzip;
+	}
+
+	/**
+	 * Sets whether the XML report omits the line elements of source files.
+	 * 
+	 * @param xmlCompact
+	 *            <code>true</code> to omit line elements
+	 */
+	public void setXmlCompact(final boolean xmlCompact) {
+		this.xmlCompact = xmlCompact;
+	}
+
+	/**
+	 * Sets the classes which have been instrumented with boundary value
+	 * checks.
+	 * 
+	 * @param boundaryIncludes
+	 *            list of class name patterns or <code>null</code>
+	 */
+	public void setBoundaryIncludes(final List<String> boundaryIncludes) {
+		if (boundaryIncludes == null) {
+			this.boundaryIncludes = "";
+		} else {
+			this.boundaryIncludes = StringUtils
+					.join(boundaryIncludes.iterator(), ":");
+		}
 	}
 
 	/**
@@ -86,12 +255,147 @@ final class ReportSupport {
 	public void loadExecutionData(final File execFile) throws IOException {
 		log.info("Loading execution data file " + execFile);
 		loader.load(execFile);
+		dataLastModified = Math.max(dataLastModified,
+				execFile.lastModified());
+		snapshotInputs.append("exec=").append(execFile.getAbsolutePath())
+				.append('\n');
+	}
+
+	/**
+	 * Adds a bundle to the fingerprint of the snapshot. Must be called for
+	 * every bundle of the report in the same order as
+	 * <code>processProject()</code> before
+	 * {@link #isSnapshotUpToDate()}. Besides the settings of the bundle the
+	 * fingerprint contains the number of class files and the time of the most
+	 * recent modification.
+	 * 
+	 * @param bundleName
+	 *            name of the bundle including the names of its groups
+	 * @param project
+	 *            the MavenProject
+	 * @param includes
+	 *            list of includes patterns
+	 * @param excludes
+	 *            list of excludes patterns
+	 * @throws IOException
+	 *             if the class files can't be listed
+	 */
+	public void addSnapshotBundle(final String bundleName,
+			final MavenProject project, final List<String> includes,
+			final List<String> excludes) throws IOException {
+		if (snapshotFile == null) {
+			return;
+		}
+		final File classesDir = new File(
+				project.getBuild().getOutputDirectory());
+		final FileFilter filter = new FileFilter(includes, excludes);
+		int count = 0;
+		long lastModified = 0;
+		if (classesDir.isDirectory()) {
+			for (final File file : filter.getFiles(classesDir)) {
+				count++;
+				lastModified = Math.max(lastModified, file.lastModified());
+			}
+		}
+		snapshotInputs.append("bundle=").append(bundleName).append('\n');
+		snapshotInputs.append("classes=")
+				.append(classesDir.getAbsolutePath()).append('\n');
+		snapshotInputs.append("includes=").append(filter.getIncludes())
+				.append('\n');
+		snapshotInputs.append("excludes=").append(filter.getExcludes())
+				.append('\n');
+		snapshotInputs.append("files=").append(count).append('/')
+				.append(lastModified).append('\n');
+	}
+
+	private String getSnapshotFingerprint(final boolean summary) {
+		return "summaryOnly=" + summary + '\n' + "boundaryIncludes="
+				+ boundaryIncludes + '\n' + snapshotInputs;
+	}
+
+	/**
+	 * Checks whether the snapshot file exists, is not older than the
+	 * execution data files loaded so far and has been created with the same
+	 * settings and class files. If only summary counters are required, a
+	 * snapshot with the complete coverage model is also accepted.
+	 * 
+	 * @return <code>true</code> if the report can be replayed from the
+	 *         snapshot
+	 */
+	public boolean isSnapshotUpToDate() {
+		if (snapshotFile == null || !snapshotFile.isFile()
+				|| snapshotFile.lastModified() < dataLastModified) {
+			return false;
+		}
+		final String fingerprint;
+		try {
+			final InputStream in = new FileInputStream(snapshotFile);
+			try {
+				fingerprint = new SnapshotLoader(in).readFingerprint();
+			} finally {
+				in.close();
+			}
+		} catch (final IOException e) {
+			log.info(format("Ignoring coverage snapshot %s: %s", snapshotFile,
+					e.getMessage()));
+			return false;
+		}
+		if (!fingerprint.equals(getSnapshotFingerprint(summaryOnly))
+				&& !(summaryOnly
+						&& fingerprint.equals(getSnapshotFingerprint(false)))) {
+			log.info(format(
+					"Ignoring coverage snapshot %s created with different settings or class files",
+					snapshotFile));
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Replays the complete report from the snapshot file into all formatters
+	 * without analyzing class files.
+	 * 
+	 * @param projects
+	 *            projects to look up source files
+	 * @param srcEncoding
+	 *            encoding of the source files
+	 * @throws IOException
+	 *             if the snapshot can't be read
+	 */
+	public void replaySnapshot(final List<MavenProject> projects,
+			final String srcEncoding) throws IOException {
+		replaySnapshot(createSourceLocator(projects, srcEncoding));
+	}
+
+	/**
+	 * Replays the complete report from the snapshot file into all formatters
+	 * without analyzing class files and without source references.
+	 * 
+	 * @throws IOException
+	 *             if the snapshot can't be read
+	 */
+	public void replaySnapshot() throws IOException {
+		replaySnapshot(new NoSourceLocator());
+	}
+
+	private void replaySnapshot(final ISourceFileLocator locator)
+			throws IOException {
+		log.info("Replaying coverage snapshot " + snapshotFile);
+		final InputStream in = new FileInputStream(snapshotFile);
+		try {
+			new SnapshotLoader(in).replay(new MultiReportVisitor(formatters),
+					locator);
+		} finally {
+			in.close();
+		}
 	}
 
 	public void addXmlFormatter(final File targetfile, final String encoding)
 			throws IOException {
 		final XMLFormatter xml = new XMLFormatter();
 		xml.setOutputEncoding(encoding);
+		xml.setGzip(xmlGzip);
+		xml.setCompact(xmlCompact);
 		formatters.add(xml.createVisitor(new FileOutputStream(targetfile)));
 	}
 
@@ -107,38 +411,94 @@ final class ReportSupport {
 		final HTMLFormatter htmlFormatter = new HTMLFormatter();
 		htmlFormatter.setOutputEncoding(encoding);
 		htmlFormatter.setLocale(locale);
+		htmlFormatter.setVirtualSourceThreshold(virtualSourceThreshold);
+		htmlFormatter.setTablePageSize(tablePageSize);
 		if (footer != null) {
 			htmlFormatter.setFooterText(footer);
 		}
-		formatters.add(htmlFormatter.createVisitor(new FileMultiReportOutput(
-				targetdir)));
+		formatters.add(htmlFormatter.createVisitor(createHtmlOutput(targetdir)));
+	}
+
+	private IMultiReportOutput createHtmlOutput(final File targetdir) {
+		final FileMultiReportOutput output = new FileMultiReportOutput(
+				targetdir);
+		if (!incremental) {
+			return output;
+		}
+		output.setIncremental(true);
+		return new IMultiReportOutput() {
+
+			public OutputStream createFile(final String path)
+					throws IOException {
+				return output.createFile(path);
+			}
+
+			public void close() throws IOException {
+				output.close();
+				log.info(format(
+						"HTML report: %s files written, %s unchanged, %s deleted",
+						Integer.valueOf(output.getWrittenFiles()),
+						Integer.valueOf(output.getUnchangedFiles()),
+						Integer.valueOf(output.getDeletedFiles())));
+			}
+		};
 	}
 
 	public void addAllFormatters(final File targetdir, final String encoding,
 			final String footer, final Locale locale) throws IOException {
 		targetdir.mkdirs();
-		addXmlFormatter(new File(targetdir, "jacoco.xml"), encoding);
+		addXmlFormatter(
+				new File(targetdir, xmlGzip ? "jacoco.xml.gz" : "jacoco.xml"),
+				encoding);
 		addCsvFormatter(new File(targetdir, "jacoco.csv"), encoding);
 		addHtmlFormatter(targetdir, encoding, footer, locale);
 	}
 
 	public void addRulesChecker(final List<Rule> rules,
-			final IViolationsOutput output) {
+			final IViolationsOutput output, final boolean failFast) {
 		final RulesChecker checker = new RulesChecker();
 		checker.setRules(rules);
+		checker.setFailFast(failFast);
 		formatters.add(checker.createVisitor(output));
 	}
 
 	public IReportVisitor initRootVisitor() throws IOException {
+		if (snapshotFile != null) {
+			log.info("Writing coverage snapshot " + snapshotFile);
+			snapshotFile.getParentFile().mkdirs();
+			final SnapshotFormatter snapshot = new SnapshotFormatter();
+			snapshot.setFingerprint(getSnapshotFingerprint(summaryOnly));
+			formatters.add(snapshot.createVisitor(createSnapshotOutput()));
+		}
 		final IReportVisitor visitor = new MultiReportVisitor(formatters);
 		visitor.visitInfo(loader.getSessionInfoStore().getInfos(), loader
 				.getExecutionDataStore().getContents());
 		return visitor;
 	}
 
+	/**
+	 * The snapshot is written to a temporary file first, so incomplete
+	 * snapshots are never considered up to date.
+	 */
+	private OutputStream createSnapshotOutput() throws IOException {
+		final File temp = new File(snapshotFile.getPath() + ".tmp");
+		return new FileOutputStream(temp) {
+			@Override
+			public void close() throws IOException {
+				super.close();
+				snapshotFile.delete();
+				if (!temp.renameTo(snapshotFile)) {
+					throw new IOException(
+							"Unable to write coverage snapshot " + snapshotFile);
+				}
+			}
+		};
+	}
+
 	/**
 	 * Calculates coverage for the given project and emits it to the report
-	 * group without source references
+	 * group without source references. The bundle is named after the project
+	 * like with the default title of the report goals.
 	 * 
 	 * @param visitor
 	 *            group visitor to emit the project's coverage to
@@ -154,7 +514,7 @@ final class ReportSupport {
 	public void processProject(final IReportGroupVisitor visitor,
 			final MavenProject project, final List<String> includes,
 			final List<String> excludes) throws IOException {
-		processProject(visitor, project.getArtifactId(), project, includes,
+		processProject(visitor, project.getName(), project, includes,
 				excludes, new NoSourceLocator());
 	}
 
@@ -182,34 +542,87 @@ final class ReportSupport {
 			final List<String> includes, final List<String> excludes,
 			final String srcEncoding) throws IOException {
 		processProject(visitor, bundeName, project, includes, excludes,
-				new SourceFileCollection(project, srcEncoding));
+				createSourceLocator(Collections.singletonList(project),
+						srcEncoding));
 	}
 
 	private void processProject(final IReportGroupVisitor visitor,
 			final String bundeName, final MavenProject project,
 			final List<String> includes, final List<String> excludes,
 			final ISourceFileLocator locator) throws IOException {
-		final CoverageBuilder builder = new CoverageBuilder();
 		final File classesDir = new File(project.getBuild()
 				.getOutputDirectory());
-
-		if (classesDir.isDirectory()) {
-			final Analyzer analyzer = new Analyzer(
-					loader.getExecutionDataStore(), builder);
-			final FileFilter filter = new FileFilter(includes, excludes);
-			for (final File file : filter.getFiles(classesDir)) {
-				analyzer.analyzeAll(file);
+		final AnalysisCache cache = streaming && analysisCache == null
+				? AnalysisCache.createTemporary()
+				: analysisCache;
+		try {
+			if (streaming && !summaryOnly) {
+				processStreaming(visitor, bundeName, classesDir, includes,
+						excludes, locator, cache);
+				return;
+			}
+			final IBundleCoverage bundle;
+			final Collection<String> nomatch;
+			if (summaryOnly) {
+				final SummaryCoverageBuilder builder = new SummaryCoverageBuilder();
+				analyze(classesDir, includes, excludes, cache, builder);
+				bundle = builder.getBundle(bundeName);
+				nomatch = builder.getNoMatchClassNames();
+			} else {
+				final CoverageBuilder builder = new CoverageBuilder();
+				analyze(classesDir, includes, excludes, cache, builder);
+				bundle = builder.getBundle(bundeName);
+				nomatch = new ArrayList<String>();
+				for (final IClassCoverage c : builder.getNoMatchClasses()) {
+					nomatch.add(c.getName());
+				}
+			}
+			logBundleInfo(bundle, nomatch);
+			visitor.visitBundle(bundle, locator);
+		} finally {
+			if (cache != analysisCache) {
+				cache.clear();
 			}
 		}
+	}
 
-		final IBundleCoverage bundle = builder.getBundle(bundeName);
-		logBundleInfo(bundle, builder.getNoMatchClasses());
+	private void processStreaming(final IReportGroupVisitor visitor,
+			final String bundeName, final File classesDir,
+			final List<String> includes, final List<String> excludes,
+			final ISourceFileLocator locator, final AnalysisCache cache)
+			throws IOException {
+		final StreamingCoverageBuilder builder = new StreamingCoverageBuilder(
+				loader.getExecutionDataStore(), cache);
+		analyze(classesDir, includes, excludes, cache, builder);
+		// Every package is calculated once and emitted to all formatters:
+		final IReportBundleVisitor bundleVisitor = visitor
+				.visitBundle(bundeName, locator);
+		final ICoverageNode bundle = builder.visitPackages(bundeName,
+				bundleVisitor);
+		bundleVisitor.visitEnd(bundle);
+		logBundleInfo(bundle, builder.getNoMatchClassNames());
+	}
 
-		visitor.visitBundle(bundle, locator);
+	private void analyze(final File classesDir, final List<String> includes,
+			final List<String> excludes, final AnalysisCache cache,
+			final ICoverageVisitor builder) throws IOException {
+		if (!classesDir.isDirectory()) {
+			return;
+		}
+		final Analyzer analyzer = new Analyzer(loader.getExecutionDataStore(),
+				builder);
+		analyzer.setBoundaryChecks(boundaryIncludes);
+		analyzer.setExecutor(executor);
+		analyzer.setCache(cache);
+		final FileFilter filter = new FileFilter(includes, excludes);
+		for (final File file : filter.getFiles(classesDir)) {
+			analyzer.analyzeAll(file);
+		}
+		analyzer.finish();
 	}
 
-	private void logBundleInfo(final IBundleCoverage bundle,
-			final Collection<IClassCoverage> nomatch) {
+	private void logBundleInfo(final ICoverageNode bundle,
+			final Collection<String> nomatch) {
 		log.info(format("Analyzed bundle '%s' with %s classes",
 				bundle.getName(),
 				Integer.valueOf(bundle.getClassCounter().getTotalCount())));
@@ -218,9 +631,9 @@ final class ReportSupport {
 					"Classes in bundle '%s' do no match with execution data. "
 							+ "For report generation the same class files must be used as at runtime.",
 					bundle.getName()));
-			for (final IClassCoverage c : nomatch) {
+			for (final String c : nomatch) {
 				log.warn(format("Execution data for class %s does not match.",
-						c.getName()));
+						c));
 			}
 		}
 		if (bundle.containsCode()
@@ -242,38 +655,16 @@ final class ReportSupport {
 		}
 	}
 
-	private class SourceFileCollection implements ISourceFileLocator {
-
-		private final List<File> sourceRoots;
-		private final String encoding;
-
-		public SourceFileCollection(final MavenProject project,
-				final String encoding) {
-			this.sourceRoots = getCompileSourceRoots(project);
-			this.encoding = encoding;
-		}
-
-		public Reader getSourceFile(final String packageName,
-				final String fileName) throws IOException {
-			final String r;
-			if (packageName.length() > 0) {
-				r = packageName + '/' + fileName;
-			} else {
-				r = fileName;
-			}
-			for (final File sourceRoot : sourceRoots) {
-				final File file = new File(sourceRoot, r);
-				if (file.exists() && file.isFile()) {
-					return new InputStreamReader(new FileInputStream(file),
-							encoding);
-				}
+	private static ISourceFileLocator createSourceLocator(
+			final List<MavenProject> projects, final String encoding) {
+		final IndexedSourceFileLocator locator = new IndexedSourceFileLocator(
+				encoding, 4);
+		for (final MavenProject project : projects) {
+			for (final File sourceRoot : getCompileSourceRoots(project)) {
+				locator.addDirectory(sourceRoot);
 			}
-			return null;
-		}
-
-		public int getTabWidth() {
-			return 4;
 		}
+		return locator;
 	}
 
 	private static List<File> getCompileSourceRoots(final MavenProject project) {
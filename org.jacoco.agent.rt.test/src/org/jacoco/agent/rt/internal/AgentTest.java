@@ -193,6 +193,30 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		assertNull(loggedException);
 	}
 
+	@Test
+	public void startup_should_start_periodic_dumps_when_enabled()
+			throws Exception {
+		options.setDumpInterval(3600);
+		Agent agent = createAgent();
+		agent.startup();
+
+		assertTrue(isPeriodicDumpAlive());
+
+		agent.shutdown();
+
+		assertFalse(isPeriodicDumpAlive());
+		assertNull(loggedException);
+	}
+
+	private static boolean isPeriodicDumpAlive() {
+		for (final Thread t : Thread.getAllStackTraces().keySet()) {
+			if ("JaCoCo periodic dump".equals(t.getName()) && t.isAlive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Test
 	public void shutdown_should_log_exception() throws Exception {
 		final Exception expected = new Exception();
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link PeriodicDump}.
+ */
+public class PeriodicDumpTest implements IExceptionLogger {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private AgentOptions options;
+
+	private RuntimeData data;
+
+	private Exception loggedException;
+
+	@Before
+	public void setup() {
+		options = new AgentOptions();
+		options.setDestfile(
+				new File(folder.getRoot(), "jacoco.exec").getAbsolutePath());
+		options.setDumpInterval(1);
+		data = new RuntimeData();
+	}
+
+	@Test
+	public void getFile_should_insert_timestamp_and_vm_before_extension() {
+		final PeriodicDump dump = new PeriodicDump(options, data, this);
+
+		assertEquals(
+				new File(folder.getRoot(),
+						"jacoco-20191123-143005-" + vmId() + ".exec"),
+				dump.getFile(time(2019, 11, 23, 14, 30, 5), 0));
+	}
+
+	@Test
+	public void getFile_should_append_timestamp_and_vm_without_extension() {
+		options.setDestfile(
+				new File(folder.getRoot(), "coverage").getAbsolutePath());
+		final PeriodicDump dump = new PeriodicDump(options, data, this);
+
+		assertEquals(
+				new File(folder.getRoot(),
+						"coverage-20191123-143005-" + vmId()),
+				dump.getFile(time(2019, 11, 23, 14, 30, 5), 0));
+	}
+
+	@Test
+	public void getFile_should_append_index() {
+		final PeriodicDump dump = new PeriodicDump(options, data, this);
+
+		assertEquals(
+				new File(folder.getRoot(),
+						"jacoco-20191123-143005-" + vmId() + "-2.exec"),
+				dump.getFile(time(2019, 11, 23, 14, 30, 5), 2));
+	}
+
+	@Test
+	public void dump_should_write_execution_data() throws Exception {
+		data.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes()[0] = true;
+		final PeriodicDump dump = new PeriodicDump(options, data, this);
+
+		final long time = time(2019, 11, 23, 14, 30, 5);
+		dump.dump(time);
+
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(dump.getFile(time, 0));
+		assertTrue(loader.getExecutionDataStore().get(1).getProbes()[0]);
+		assertTrue(data.getExecutionData(Long.valueOf(1), "Foo", 1)
+				.getProbes()[0]);
+	}
+
+	@Test
+	public void dump_should_reset_execution_data_when_enabled()
+			throws Exception {
+		options.setDumpReset(true);
+		data.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes()[0] = true;
+		final PeriodicDump dump = new PeriodicDump(options, data, this);
+
+		dump.dump(time(2019, 11, 23, 14, 30, 5));
+
+		assertFalse(data.getExecutionData(Long.valueOf(1), "Foo", 1)
+				.getProbes()[0]);
+	}
+
+	@Test
+	public void dump_should_delete_oldest_files() throws Exception {
+		options.setDumpFiles(2);
+		final PeriodicDump dump = new PeriodicDump(options, data, this);
+
+		dump.dump(time(2019, 11, 23, 14, 30, 1));
+		dump.dump(time(2019, 11, 23, 14, 30, 2));
+		dump.dump(time(2019, 11, 23, 14, 30, 3));
+
+		assertEquals(
+				new HashSet<String>(Arrays.asList(
+						"jacoco-20191123-143002-" + vmId() + ".exec",
+						"jacoco-20191123-143003-" + vmId() + ".exec")),
+				new HashSet<String>(Arrays.asList(folder.getRoot().list())));
+	}
+
+	@Test
+	public void dump_should_not_overwrite_existing_files() throws Exception {
+		final PeriodicDump dump = new PeriodicDump(options, data, this);
+		final long time = time(2019, 11, 23, 14, 30, 5);
+		final File existing = dump.getFile(time, 0);
+		existing.createNewFile();
+
+		dump.dump(time);
+		dump.dump(time);
+
+		assertEquals(0, existing.length());
+		assertTrue(dump.getFile(time, 1).length() > 0);
+		assertTrue(dump.getFile(time, 2).length() > 0);
+	}
+
+	@Test
+	public void dump_should_keep_files_of_other_vms() throws Exception {
+		options.setDumpFiles(1);
+		final PeriodicDump dump1 = new PeriodicDump(options, data, this);
+		final PeriodicDump dump2 = new PeriodicDump(options,
+				new RuntimeData(), this);
+
+		dump1.dump(time(2019, 11, 23, 14, 30, 1));
+		dump2.dump(time(2019, 11, 23, 14, 30, 1));
+		dump2.dump(time(2019, 11, 23, 14, 30, 2));
+
+		assertEquals(
+				new HashSet<String>(Arrays.asList(
+						dump1.getFile(time(2019, 11, 23, 14, 30, 1), 0)
+								.getName(),
+						dump2.getFile(time(2019, 11, 23, 14, 30, 2), 0)
+								.getName())),
+				new HashSet<String>(Arrays.asList(folder.getRoot().list())));
+	}
+
+	@Test
+	public void dump_should_keep_all_files_by_default() throws Exception {
+		final PeriodicDump dump = new PeriodicDump(options, data, this);
+
+		dump.dump(time(2019, 11, 23, 14, 30, 1));
+		dump.dump(time(2019, 11, 23, 14, 30, 2));
+		dump.dump(time(2019, 11, 23, 14, 30, 3));
+
+		assertEquals(3, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void stop_should_terminate_thread() throws Exception {
+		options.setDumpInterval(3600);
+		final PeriodicDump dump = new PeriodicDump(options, data, this);
+		dump.start();
+
+		dump.stop();
+
+		assertEquals(0, folder.getRoot().list().length);
+		assertNull(loggedException);
+	}
+
+	private String vmId() {
+		return String.format("%08x",
+				Integer.valueOf((int) data.getRuntimeId()));
+	}
+
+	private static long time(int year, int month, int day, int hour,
+			int minute, int second) {
+		final Calendar c = Calendar.getInstance();
+		c.clear();
+		c.set(year, month - 1, day, hour, minute, second);
+		return c.getTimeInMillis();
+	}
+
+	// === IExceptionLogger ===
+
+	public void logExeption(Exception ex) {
+		loggedException = ex;
+	}
+
+}
@@ -16,9 +16,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.jacoco.agent.rt.internal.output.FileOutput;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
 import org.junit.Rule;
@@ -63,6 +68,53 @@ public class FileOutputTest {
 				destFile.length() > 0);
 	}
 
+	@Test
+	public void testWriteDataToGivenFile() throws Exception {
+		File destFile = new File(folder.getRoot(), "sub/other.exec");
+
+		FileOutput controller = new FileOutput();
+		controller.startup(destFile, false, new RuntimeData());
+		controller.writeExecutionData(false);
+		controller.writeExecutionData(false);
+		final long length = destFile.length();
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		assertTrue("Execution data file should have contents", length > 0);
+		assertEquals("Execution data file should be overwritten", length,
+				destFile.length());
+	}
+
+	@Test
+	public void testWriteCompressedData() throws Exception {
+		File destFile = folder.newFile("jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setCompress(true);
+		RuntimeData data = new RuntimeData();
+		data.getExecutionData(Long.valueOf(0x12345678),
+				"org/jacoco/example/Foo", 3).getProbes()[1] = true;
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		ExecutionDataStore store = new ExecutionDataStore();
+		InputStream in = new FileInputStream(destFile);
+		try {
+			ExecutionDataReader reader = new ExecutionDataReader(in);
+			reader.setExecutionDataVisitor(store);
+			reader.setSessionInfoVisitor(new SessionInfoStore());
+			reader.read();
+		} finally {
+			in.close();
+		}
+		assertEquals("org/jacoco/example/Foo",
+				store.get(0x12345678).getName());
+		assertTrue(store.get(0x12345678).getProbes()[1]);
+	}
+
 	@Test(expected = IOException.class)
 	public void testInvalidDestFile() throws Exception {
 		AgentOptions options = new AgentOptions();
@@ -158,6 +158,35 @@ public class TcpConnectionTest extends ExecutorTestBase {
 		f.get();
 	}
 
+	@Test
+	public void testRemoteDumpCompressed() throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0] = true;
+		data.setSessionId("stubid");
+
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				mockConnection.getSocketB().getOutputStream());
+
+		final TcpConnection con = new TcpConnection(mockConnection.getSocketA(),
+				data, true);
+		con.init();
+
+		final Future<Void> f = executor.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				con.run();
+				return null;
+			}
+		});
+
+		assertBlocks(f);
+
+		remoteWriter.visitDumpCommand(true, false);
+		readAndAssertData();
+
+		con.close();
+		f.get();
+	}
+
 	@Test
 	public void testLocalDump() throws Exception {
 		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
@@ -256,4 +285,51 @@ public class TcpConnectionTest extends ExecutorTestBase {
 		f.get();
 	}
 
+	@Test
+	public void testRemoteDeltaDump() throws Exception {
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 2).getProbes();
+		probes[0] = true;
+
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				mockConnection.getSocketB().getOutputStream());
+
+		final TcpConnection con = new TcpConnection(mockConnection.getSocketA(),
+				data);
+		con.init();
+
+		final Future<Void> f = executor.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				con.run();
+				return null;
+			}
+		});
+
+		assertBlocks(f);
+
+		final RemoteControlReader remoteReader = new RemoteControlReader(
+				mockConnection.getSocketB().getInputStream());
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		final SessionInfoStore infoStore = new SessionInfoStore();
+		remoteReader.setSessionInfoVisitor(infoStore);
+
+		remoteWriter.visitDeltaDumpCommand(0, 0, false);
+		assertTrue(remoteReader.read());
+		assertEquals(1, execStore.getContents().size());
+		assertEquals(data.getRuntimeId(), remoteReader.getDeltaRuntimeId());
+		final long sequence = remoteReader.getDeltaSequence();
+
+		final ExecutionDataStore deltaStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(deltaStore);
+		remoteWriter.visitDeltaDumpCommand(data.getRuntimeId(), sequence,
+				false);
+		assertTrue(remoteReader.read());
+		assertTrue(deltaStore.getContents().isEmpty());
+		assertEquals(sequence + 1, remoteReader.getDeltaSequence());
+
+		con.close();
+		f.get();
+	}
+
 }
@@ -14,15 +14,19 @@
 package org.jacoco.agent.rt.internal.output;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.List;
 
 import org.jacoco.agent.rt.internal.ExceptionRecorder;
@@ -34,6 +38,7 @@ import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 import org.jacoco.core.runtime.RuntimeData;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -46,40 +51,51 @@ public class TcpServerOutputTest {
 
 	private AgentOptions options;
 
-	private MockServerSocket serverSocket;
+	private ServerSocketChannel serverChannel;
 
 	private TcpServerOutput controller;
 
 	private RuntimeData data;
 
+	private boolean shutdown;
+
 	@Before
 	public void setup() throws Exception {
 		options = new AgentOptions();
 		logger = new ExceptionRecorder();
-		serverSocket = new MockServerSocket();
 		controller = new TcpServerOutput(logger) {
 			@Override
-			protected ServerSocket createServerSocket(AgentOptions options)
-					throws IOException {
-				return serverSocket;
+			protected ServerSocketChannel createServerChannel(
+					AgentOptions options) throws IOException {
+				serverChannel = ServerSocketChannel.open();
+				serverChannel.socket().bind(new InetSocketAddress(
+						InetAddress.getByName(null), 0));
+				return serverChannel;
 			}
 		};
 		data = new RuntimeData();
 		controller.startup(options, data);
 	}
 
+	@After
+	public void teardown() throws Exception {
+		if (!shutdown) {
+			shutdown();
+		}
+	}
+
 	@Test
 	public void testShutdownWithoutConnection() throws Exception {
-		serverSocket.waitForAccept();
-		controller.shutdown();
+		shutdown();
+		assertFalse(serverChannel.isOpen());
 		logger.assertNoException();
 	}
 
 	@Test
 	public void testShutdownWithConnection() throws Exception {
-		serverSocket.waitForAccept();
-		new ExecutionDataWriter(serverSocket.connect().getOutputStream());
-		controller.shutdown();
+		final Socket socket = connect();
+		new ExecutionDataWriter(socket.getOutputStream());
+		shutdown();
 		logger.assertNoException();
 	}
 
@@ -88,7 +104,7 @@ public class TcpServerOutputTest {
 		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42).getProbes()[0] = true;
 		data.setSessionId("stubid");
 
-		final Socket socket = serverSocket.connect();
+		final Socket socket = connect();
 		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
 				socket.getOutputStream());
 		final RemoteControlReader remoteReader = new RemoteControlReader(
@@ -114,21 +130,174 @@ public class TcpServerOutputTest {
 		assertEquals("stubid", infos.get(0).getId());
 
 		logger.assertNoException();
-		controller.shutdown();
+	}
+
+	@Test
+	public void testWriteExecutionDataWithoutConnection() throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42).getProbes()[0] = true;
+
+		controller.writeExecutionData(true);
+
+		// Without connection execution data is not reset:
+		assertTrue(data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0]);
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testWriteExecutionDataOnShutdown() throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42).getProbes()[0] = true;
+
+		final Socket socket = connect();
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				socket.getOutputStream());
+		final RemoteControlReader remoteReader = new RemoteControlReader(
+				socket.getInputStream());
+		remoteWriter.visitDumpCommand(false, false);
+		remoteReader.read();
+
+		controller.writeExecutionData(false);
+		shutdown();
+
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		remoteReader.setSessionInfoVisitor(new SessionInfoStore());
+		assertTrue(remoteReader.read());
+		assertEquals("Foo", execStore.get(0x12345678).getName());
+		assertFalse(remoteReader.read());
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testMultipleConnections() throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42).getProbes()[0] = true;
+
+		final Socket socket1 = connect();
+		final RemoteControlWriter remoteWriter1 = new RemoteControlWriter(
+				socket1.getOutputStream());
+		final RemoteControlReader remoteReader1 = new RemoteControlReader(
+				socket1.getInputStream());
+		final Socket socket2 = connect();
+		final RemoteControlWriter remoteWriter2 = new RemoteControlWriter(
+				socket2.getOutputStream());
+		final RemoteControlReader remoteReader2 = new RemoteControlReader(
+				socket2.getInputStream());
+
+		// Dump and reset from the second client while the first one is idle:
+		final ExecutionDataStore execStore2 = new ExecutionDataStore();
+		remoteReader2.setExecutionDataVisitor(execStore2);
+		remoteReader2.setSessionInfoVisitor(new SessionInfoStore());
+		remoteWriter2.visitDumpCommand(true, true);
+		assertTrue(remoteReader2.read());
+		assertTrue(execStore2.get(0x12345678).getProbes()[0]);
+
+		// The first client sees the reset data without hits:
+		final ExecutionDataStore execStore1 = new ExecutionDataStore();
+		remoteReader1.setExecutionDataVisitor(execStore1);
+		remoteReader1.setSessionInfoVisitor(new SessionInfoStore());
+		remoteWriter1.visitDumpCommand(true, false);
+		assertTrue(remoteReader1.read());
+		assertNull(execStore1.get(0x12345678));
+
+		// Closing one client does not affect the other:
+		socket2.close();
+		remoteWriter1.visitDumpCommand(false, false);
+		assertTrue(remoteReader1.read());
+
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testWriteExecutionDataToMultipleConnections()
+			throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42).getProbes()[0] = true;
+
+		final Socket socket1 = connect();
+		final RemoteControlReader remoteReader1 = nopCommand(socket1);
+		final Socket socket2 = connect();
+		final RemoteControlReader remoteReader2 = nopCommand(socket2);
+
+		controller.writeExecutionData(true);
+
+		for (final RemoteControlReader reader : new RemoteControlReader[] {
+				remoteReader1, remoteReader2 }) {
+			final ExecutionDataStore execStore = new ExecutionDataStore();
+			reader.setExecutionDataVisitor(execStore);
+			reader.setSessionInfoVisitor(new SessionInfoStore());
+			assertTrue(reader.read());
+			assertTrue(execStore.get(0x12345678).getProbes()[0]);
+		}
+		assertFalse(data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0]);
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testFragmentedCommand() throws Exception {
+		final Socket socket = connect();
+		final OutputStream out = socket.getOutputStream();
+		final RemoteControlReader remoteReader = new RemoteControlReader(
+				socket.getInputStream());
+		remoteReader.setExecutionDataVisitor(new ExecutionDataStore());
+		remoteReader.setSessionInfoVisitor(new SessionInfoStore());
+
+		final byte[] header = ExecutionDataWriter.getFileHeader();
+		final byte[] command = new byte[] { RemoteControlWriter.BLOCK_CMDDUMP,
+				1, 0 };
+		for (final byte b : header) {
+			out.write(b);
+			out.flush();
+		}
+		for (final byte b : command) {
+			out.write(b);
+			out.flush();
+			Thread.sleep(10);
+		}
+
+		assertTrue(remoteReader.read());
+		logger.assertNoException();
 	}
 
 	@Test
 	public void testInvalidHeader() throws Exception {
-		final Socket socket = serverSocket.connect();
+		final Socket socket = connect();
 		final OutputStream out = socket.getOutputStream();
 		out.write(0xca);
 		out.write(0xfe);
 		out.write(0xba);
 		out.write(0xbe);
-		serverSocket.waitForAccept();
+		out.flush();
+
+		// Wait until the server has closed the connection:
+		final InputStream in = socket.getInputStream();
+		while (in.read() != -1) {
+		}
 		logger.assertException(IOException.class,
 				"Invalid execution data file.");
-		controller.shutdown();
+		logger.clear();
+	}
+
+	@Test
+	public void testPendingOutputExceeded() throws Exception {
+		controller.setMaxPendingOutput(10);
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42).getProbes()[0] = true;
+		final Socket socket = connect();
+
+		// Both commands are processed before the output can be written:
+		final ByteArrayOutputStream commands = new ByteArrayOutputStream();
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				commands);
+		remoteWriter.visitDumpCommand(true, false);
+		remoteWriter.visitDumpCommand(true, false);
+		socket.getOutputStream().write(commands.toByteArray());
+
+		// Wait until the server has closed the connection:
+		final InputStream in = socket.getInputStream();
+		while (in.read() != -1) {
+		}
+		logger.assertException(IOException.class,
+				"Pending output exceeds 10 bytes, client does not read.");
+		logger.clear();
 	}
 
 	@Test
@@ -143,4 +312,40 @@ public class TcpServerOutputTest {
 		assertNull(addr);
 	}
 
+	@Test
+	public void testCreateServerChannel() throws Exception {
+		final TcpServerOutput output = new TcpServerOutput(logger);
+		options.setAddress("localhost");
+		options.setPort(0);
+		final ServerSocketChannel channel = output
+				.createServerChannel(options);
+		try {
+			assertTrue(channel.socket().isBound());
+			assertTrue(channel.socket().getInetAddress().isLoopbackAddress());
+		} finally {
+			channel.close();
+		}
+	}
+
+	private Socket connect() throws IOException {
+		return new Socket(InetAddress.getByName(null),
+				serverChannel.socket().getLocalPort());
+	}
+
+	private RemoteControlReader nopCommand(final Socket socket)
+			throws IOException {
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				socket.getOutputStream());
+		final RemoteControlReader remoteReader = new RemoteControlReader(
+				socket.getInputStream());
+		remoteWriter.visitDumpCommand(false, false);
+		remoteReader.read();
+		return remoteReader;
+	}
+
+	private void shutdown() throws Exception {
+		shutdown = true;
+		controller.shutdown();
+	}
+
 }
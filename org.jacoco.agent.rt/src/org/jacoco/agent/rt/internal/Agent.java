@@ -89,6 +89,8 @@ public class Agent implements IAgent {
 
 	private Callable<Void> jmxRegistration;
 
+	private PeriodicDump periodicDump;
+
 	/**
 	 * Creates a new agent with the given agent options.
 	 * 
@@ -127,6 +129,10 @@ public class Agent implements IAgent {
 			data.setSessionId(sessionId);
 			output = createAgentOutput();
 			output.startup(options, data);
+			if (options.getDumpInterval() > 0) {
+				periodicDump = new PeriodicDump(options, data, logger);
+				periodicDump.start();
+			}
 			if (options.getJmx()) {
 				jmxRegistration = new JmxRegistration(this);
 			}
@@ -141,6 +147,9 @@ public class Agent implements IAgent {
 	 */
 	public void shutdown() {
 		try {
+			if (periodicDump != null) {
+				periodicDump.stop();
+			}
 			if (options.getDumpOnExit()) {
 				output.writeExecutionData(false);
 			}
@@ -207,8 +216,10 @@ public class Agent implements IAgent {
 	public byte[] getExecutionData(final boolean reset) {
 		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 		try {
-			final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
-			data.collect(writer, writer, reset);
+			final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+					options.getCompress());
+			data.snapshot(reset).accept(writer, writer);
+			writer.flush();
 		} catch (final IOException e) {
 			// Must not happen with ByteArrayOutputStream
 			throw new AssertionError(e);
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedList;
+
+import org.jacoco.agent.rt.internal.output.FileOutput;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Daemon thread which periodically dumps execution data to new files. The
+ * files are created next to the configured destination file with a time stamp
+ * and an identifier of the VM added to their names, so VMs sharing the same
+ * destination file never write or delete the files of each other. This
+ * controller uses the following agent options:
+ * <ul>
+ * <li>destfile</li>
+ * <li>dumpinterval</li>
+ * <li>dumpfiles</li>
+ * <li>dumpreset</li>
+ * <li>compress</li>
+ * </ul>
+ */
+class PeriodicDump implements Runnable {
+
+	private final RuntimeData data;
+
+	private final IExceptionLogger logger;
+
+	private final File destFile;
+
+	private final long interval;
+
+	private final int maxFiles;
+
+	private final boolean reset;
+
+	private final boolean compress;
+
+	/** files written by this VM so far, oldest first */
+	private final LinkedList<File> files;
+
+	private final DateFormat timestamp;
+
+	/** distinguishes the files of this VM from files of other VMs */
+	private final String vmId;
+
+	private Thread thread;
+
+	private boolean stopped;
+
+	/**
+	 * Creates a new periodic dump for the given runtime data.
+	 * 
+	 * @param options
+	 *            agent options
+	 * @param data
+	 *            runtime data to dump
+	 * @param logger
+	 *            logger for problems during dumps
+	 */
+	PeriodicDump(final AgentOptions options, final RuntimeData data,
+			final IExceptionLogger logger) {
+		this.data = data;
+		this.logger = logger;
+		this.destFile = new File(options.getDestfile()).getAbsoluteFile();
+		this.interval = options.getDumpInterval() * 1000L;
+		this.maxFiles = options.getDumpFiles();
+		this.reset = options.getDumpReset();
+		this.compress = options.getCompress();
+		this.files = new LinkedList<File>();
+		this.timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss");
+		this.vmId = String.format("%08x",
+				Integer.valueOf((int) data.getRuntimeId()));
+		this.stopped = false;
+	}
+
+	/**
+	 * Starts the background thread.
+	 */
+	void start() {
+		thread = new Thread(this, "JaCoCo periodic dump");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the background thread and waits until a dump in progress has
+	 * been completed.
+	 * 
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	void stop() throws InterruptedException {
+		synchronized (this) {
+			stopped = true;
+			notifyAll();
+		}
+		thread.join();
+	}
+
+	public void run() {
+		while (waitForInterval()) {
+			try {
+				dump(System.currentTimeMillis());
+			} catch (final IOException e) {
+				logger.logExeption(e);
+			}
+		}
+	}
+
+	private synchronized boolean waitForInterval() {
+		final long end = System.currentTimeMillis() + interval;
+		long remaining = interval;
+		while (!stopped && remaining > 0) {
+			try {
+				wait(remaining);
+			} catch (final InterruptedException e) {
+				return false;
+			}
+			remaining = end - System.currentTimeMillis();
+		}
+		return !stopped;
+	}
+
+	/**
+	 * Writes the execution data to a new file and deletes the oldest files if
+	 * more than the maximum number of files have been written. As the agent
+	 * options don't allow to combine a maximum number of files with resetting
+	 * coverage data, deleted files are always covered by newer dumps.
+	 * 
+	 * @param time
+	 *            time stamp for the file name
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	void dump(final long time) throws IOException {
+		final File file = createFile(time);
+		final FileOutput output = new FileOutput();
+		output.setCompress(compress);
+		output.startup(file, false, data);
+		output.writeExecutionData(reset);
+		output.shutdown();
+		files.add(file);
+		while (maxFiles > 0 && files.size() > maxFiles) {
+			files.removeFirst().delete();
+		}
+	}
+
+	/**
+	 * Creates a new empty file for a dump at the given time. Existing files
+	 * are never overwritten, instead a counter is added to the file name.
+	 */
+	private File createFile(final long time) throws IOException {
+		destFile.getParentFile().mkdirs();
+		for (int index = 0;; index++) {
+			final File file = getFile(time, index);
+			if (file.createNewFile()) {
+				return file;
+			}
+		}
+	}
+
+	/**
+	 * Returns the file for a dump at the given time. The time stamp, the
+	 * identifier of this VM and the index if greater than 0 are inserted
+	 * before the extension of the destination file.
+	 * 
+	 * @param time
+	 *            time of the dump
+	 * @param index
+	 *            index to distinguish dumps with the same name
+	 * @return file for the dump
+	 */
+	File getFile(final long time, final int index) {
+		final String name = destFile.getName();
+		final StringBuilder suffix = new StringBuilder();
+		suffix.append('-').append(timestamp.format(new Date(time)));
+		suffix.append('-').append(vmId);
+		if (index > 0) {
+			suffix.append('-').append(index);
+		}
+		final int ext = name.lastIndexOf('.');
+		final String fileName = ext > 0
+				? name.substring(0, ext) + suffix + name.substring(ext)
+				: name + suffix;
+		return new File(destFile.getParentFile(), fileName);
+	}
+
+}
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal.output;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -20,6 +21,7 @@ import java.io.OutputStream;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.runtime.RuntimeSnapshot;
 
 /**
  * Local only agent output that will write coverage data to the filesystem. This
@@ -27,6 +29,7 @@ import org.jacoco.core.runtime.RuntimeData;
  * <ul>
  * <li>destfile</li>
  * <li>append</li>
+ * <li>compress</li>
  * </ul>
  */
 public class FileOutput implements IAgentOutput {
@@ -37,11 +40,45 @@ public class FileOutput implements IAgentOutput {
 
 	private boolean append;
 
+	private boolean compress;
+
 	public final void startup(final AgentOptions options, final RuntimeData data)
 			throws IOException {
+		setCompress(options.getCompress());
+		startup(new File(options.getDestfile()), options.getAppend(), data);
+	}
+
+	/**
+	 * Sets whether the execution data is written compressed. Must be called
+	 * before {@link #startup(File, boolean, RuntimeData)} if the agent options
+	 * are not used.
+	 * 
+	 * @param compress
+	 *            <code>true</code> to compress the execution data
+	 */
+	public void setCompress(final boolean compress) {
+		this.compress = compress;
+	}
+
+	/**
+	 * Configuration independent from the agent options, e.g. for periodic
+	 * dumps to different files.
+	 * 
+	 * @param destFile
+	 *            file to write execution data to
+	 * @param append
+	 *            <code>true</code> if execution data should be appended to
+	 *            an existing file
+	 * @param data
+	 *            runtime data to dump
+	 * @throws IOException
+	 *             if the file can't be created
+	 */
+	public final void startup(final File destFile, final boolean append,
+			final RuntimeData data) throws IOException {
 		this.data = data;
-		this.destFile = new File(options.getDestfile()).getAbsoluteFile();
-		this.append = options.getAppend();
+		this.destFile = destFile.getAbsoluteFile();
+		this.append = append;
 		final File folder = destFile.getParentFile();
 		if (folder != null) {
 			folder.mkdirs();
@@ -50,11 +87,17 @@ public class FileOutput implements IAgentOutput {
 		openFile().close();
 	}
 
-	public void writeExecutionData(final boolean reset) throws IOException {
-		final OutputStream output = openFile();
+	public synchronized void writeExecutionData(final boolean reset)
+			throws IOException {
+		// Take a snapshot first to keep the runtime data unlocked while
+		// waiting for the file lock and writing the file:
+		final RuntimeSnapshot snapshot = data.snapshot(reset);
+		final OutputStream output = new BufferedOutputStream(openFile());
 		try {
-			final ExecutionDataWriter writer = new ExecutionDataWriter(output);
-			data.collect(writer, writer, reset);
+			final ExecutionDataWriter writer = new ExecutionDataWriter(output,
+					compress);
+			snapshot.accept(writer, writer);
+			writer.flush();
 		} finally {
 			output.close();
 		}
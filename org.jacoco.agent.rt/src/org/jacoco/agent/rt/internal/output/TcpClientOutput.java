@@ -25,6 +25,7 @@ import org.jacoco.core.runtime.RuntimeData;
  * <ul>
  * <li>address</li>
  * <li>port</li>
+ * <li>compress</li>
  * </ul>
  */
 public class TcpClientOutput implements IAgentOutput {
@@ -48,7 +49,7 @@ public class TcpClientOutput implements IAgentOutput {
 	public void startup(final AgentOptions options, final RuntimeData data)
 			throws IOException {
 		final Socket socket = createSocket(options);
-		connection = new TcpConnection(socket, data);
+		connection = new TcpConnection(socket, data, options.getCompress());
 		connection.init();
 		worker = new Thread(new Runnable() {
 			public void run() {
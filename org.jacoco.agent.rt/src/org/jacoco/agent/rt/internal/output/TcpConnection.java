@@ -34,16 +34,25 @@ class TcpConnection implements IRemoteCommandVisitor {
 
 	private RemoteControlReader reader;
 
+	private final boolean compress;
+
 	private boolean initialized;
 
 	public TcpConnection(final Socket socket, final RuntimeData data) {
+		this(socket, data, false);
+	}
+
+	public TcpConnection(final Socket socket, final RuntimeData data,
+			final boolean compress) {
 		this.socket = socket;
 		this.data = data;
+		this.compress = compress;
 		this.initialized = false;
 	}
 
 	public void init() throws IOException {
-		this.writer = new RemoteControlWriter(socket.getOutputStream());
+		this.writer = new RemoteControlWriter(socket.getOutputStream(),
+				compress);
 		this.reader = new RemoteControlReader(socket.getInputStream());
 		this.reader.setRemoteCommandVisitor(this);
 		this.initialized = true;
@@ -97,10 +106,10 @@ class TcpConnection implements IRemoteCommandVisitor {
 
 	// === IRemoteCommandVisitor ===
 
-	public void visitDumpCommand(final boolean dump, final boolean reset)
-			throws IOException {
+	public synchronized void visitDumpCommand(final boolean dump,
+			final boolean reset) throws IOException {
 		if (dump) {
-			data.collect(writer, writer, reset);
+			data.snapshot(reset).accept(writer, writer);
 		} else {
 			if (reset) {
 				data.reset();
@@ -109,4 +118,12 @@ class TcpConnection implements IRemoteCommandVisitor {
 		writer.sendCmdOk();
 	}
 
+	public synchronized void visitDeltaDumpCommand(final long runtimeId,
+			final long sequence, final boolean reset) throws IOException {
+		final long current = data.collectDelta(runtimeId, sequence, writer,
+				writer, reset);
+		writer.sendDelta(data.getRuntimeId(), current);
+		writer.sendCmdOk();
+	}
+
 }
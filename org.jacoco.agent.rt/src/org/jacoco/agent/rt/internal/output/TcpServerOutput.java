@@ -12,14 +12,25 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal.output;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RemoteControlWriter;
 import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.runtime.RuntimeSnapshot;
 
 /**
  * Output that opens TCP server socket. This controller uses the following agent
@@ -27,18 +38,35 @@ import org.jacoco.core.runtime.RuntimeData;
  * <ul>
  * <li>address</li>
  * <li>port</li>
+ * <li>compress</li>
  * </ul>
+ * Any number of clients can be connected at the same time. All connections are
+ * served by a single thread with non-blocking channels, every client can
+ * request dumps and resets independently of the others. Clients which do not
+ * read their responses are disconnected once their pending output exceeds a
+ * limit, so the memory of the target VM is not exhausted.
  */
 public class TcpServerOutput implements IAgentOutput {
 
-	private TcpConnection connection;
-
 	private final IExceptionLogger logger;
 
-	private ServerSocket serverSocket;
+	/** open sessions, also used as lock for the session list */
+	private final List<TcpSession> sessions;
+
+	private ServerSocketChannel serverChannel;
+
+	private Selector selector;
+
+	private RuntimeData data;
+
+	private boolean compress;
+
+	private int maxPendingOutput;
 
 	private Thread worker;
 
+	private volatile boolean closing;
+
 	/**
 	 * New controller instance.
 	 * 
@@ -47,29 +75,32 @@ public class TcpServerOutput implements IAgentOutput {
 	 */
 	public TcpServerOutput(final IExceptionLogger logger) {
 		this.logger = logger;
+		this.sessions = new ArrayList<TcpSession>();
+		this.maxPendingOutput = TcpSession.MAX_PENDING_OUTPUT;
+	}
+
+	/**
+	 * Sets the maximum number of bytes buffered for a client which does not
+	 * read its responses before the client is disconnected.
+	 * 
+	 * @param maxPendingOutput
+	 *            limit in bytes, a single response may exceed this limit
+	 */
+	void setMaxPendingOutput(final int maxPendingOutput) {
+		this.maxPendingOutput = maxPendingOutput;
 	}
 
 	public void startup(final AgentOptions options, final RuntimeData data)
 			throws IOException {
-		serverSocket = createServerSocket(options);
+		this.data = data;
+		this.compress = options.getCompress();
+		serverChannel = createServerChannel(options);
+		serverChannel.configureBlocking(false);
+		selector = Selector.open();
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
 		worker = new Thread(new Runnable() {
 			public void run() {
-				while (!serverSocket.isClosed()) {
-					try {
-						synchronized (serverSocket) {
-							connection = new TcpConnection(
-									serverSocket.accept(), data);
-						}
-						connection.init();
-						connection.run();
-					} catch (final IOException e) {
-						// If the serverSocket is closed while accepting
-						// connections a SocketException is expected.
-						if (!serverSocket.isClosed()) {
-							logger.logExeption(e);
-						}
-					}
-				}
+				serve();
 			}
 		});
 		worker.setName(getClass().getName());
@@ -77,34 +108,165 @@ public class TcpServerOutput implements IAgentOutput {
 		worker.start();
 	}
 
-	public void shutdown() throws Exception {
-		serverSocket.close();
-		synchronized (serverSocket) {
-			if (connection != null) {
-				connection.close();
+	private void serve() {
+		try {
+			while (!closing) {
+				updateInterests();
+				selector.select();
+				final Iterator<SelectionKey> keys = selector.selectedKeys()
+						.iterator();
+				while (keys.hasNext()) {
+					final SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+					} else {
+						handle(key);
+					}
+				}
 			}
+		} catch (final IOException e) {
+			if (!closing) {
+				logger.logExeption(e);
+			}
+		} finally {
+			closeAll();
 		}
+	}
+
+	private void updateInterests() {
+		final List<TcpSession> overflows = new ArrayList<TcpSession>();
+		synchronized (sessions) {
+			for (final TcpSession session : sessions) {
+				if (session.isOverflow()) {
+					overflows.add(session);
+					continue;
+				}
+				final SelectionKey key = session.getChannel().keyFor(selector);
+				if (key != null && key.isValid()) {
+					key.interestOps(session.hasOutput()
+							? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+							: SelectionKey.OP_READ);
+				}
+			}
+		}
+		for (final TcpSession session : overflows) {
+			logger.logExeption(session.createOverflowException());
+			close(session);
+		}
+	}
+
+	private void accept() throws IOException {
+		final SocketChannel channel = serverChannel.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		final TcpSession session = new TcpSession(channel, data, compress,
+				maxPendingOutput);
+		synchronized (sessions) {
+			sessions.add(session);
+		}
+		channel.register(selector, SelectionKey.OP_READ, session);
+	}
+
+	private void handle(final SelectionKey key) {
+		final TcpSession session = (TcpSession) key.attachment();
+		try {
+			if (key.isReadable() && !session.read()) {
+				close(session);
+				return;
+			}
+			if (key.isValid() && key.isWritable()) {
+				session.write();
+			}
+		} catch (final IOException e) {
+			logger.logExeption(e);
+			close(session);
+		}
+	}
+
+	private void close(final TcpSession session) {
+		synchronized (sessions) {
+			sessions.remove(session);
+		}
+		try {
+			session.close();
+		} catch (final IOException e) {
+			logger.logExeption(e);
+		}
+	}
+
+	private void closeAll() {
+		try {
+			serverChannel.close();
+			selector.close();
+		} catch (final IOException e) {
+			logger.logExeption(e);
+		}
+		synchronized (sessions) {
+			for (final TcpSession session : sessions) {
+				try {
+					session.flushAndClose();
+				} catch (final IOException e) {
+					logger.logExeption(e);
+				}
+			}
+			sessions.clear();
+		}
+	}
+
+	public void shutdown() throws Exception {
+		closing = true;
+		selector.wakeup();
 		worker.join();
 	}
 
+	/**
+	 * Sends the current execution data to all connected clients. The data is
+	 * collected only once, so all clients receive the same content even if
+	 * the execution data is reset.
+	 */
 	public void writeExecutionData(final boolean reset) throws IOException {
-		if (connection != null) {
-			connection.writeExecutionData(reset);
+		synchronized (sessions) {
+			if (sessions.isEmpty()) {
+				return;
+			}
+			final RuntimeSnapshot snapshot = data.snapshot(reset);
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			final RemoteControlWriter writer = new RemoteControlWriter(buffer,
+					compress);
+			snapshot.accept(writer, writer);
+			writer.sendCmdOk();
+			final byte[] blocks = buffer.toByteArray();
+			// The sessions have already sent their own header:
+			final int offset = ExecutionDataWriter.getFileHeader().length;
+			for (final TcpSession session : sessions) {
+				// Sessions which drop the blocks are closed by the worker:
+				session.append(blocks, offset, blocks.length - offset);
+			}
 		}
+		selector.wakeup();
 	}
 
 	/**
-	 * Open a server socket based on the given configuration.
+	 * Open a server socket channel based on the given configuration.
 	 * 
 	 * @param options
 	 *            address and port configuration
-	 * @return opened server socket
+	 * @return opened and bound server socket channel
 	 * @throws IOException
 	 */
-	protected ServerSocket createServerSocket(final AgentOptions options)
-			throws IOException {
+	protected ServerSocketChannel createServerChannel(
+			final AgentOptions options) throws IOException {
 		final InetAddress inetAddr = getInetAddress(options.getAddress());
-		return new ServerSocket(options.getPort(), 1, inetAddr);
+		final ServerSocketChannel channel = ServerSocketChannel.open();
+		channel.socket().bind(
+				new InetSocketAddress(inetAddr, options.getPort()));
+		return channel;
 	}
 
 	/**
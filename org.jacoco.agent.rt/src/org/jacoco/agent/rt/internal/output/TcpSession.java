@@ -0,0 +1,394 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.runtime.IRemoteCommandVisitor;
+import org.jacoco.core.runtime.RemoteControlReader;
+import org.jacoco.core.runtime.RemoteControlWriter;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Handler for a single non-blocking remote connection of
+ * {@link TcpServerOutput}. Received data is decoded as soon as complete
+ * command blocks are available, responses are buffered in memory until the
+ * channel is ready to take them. Therefore the handler never blocks the
+ * thread serving all connections. To protect the target VM from clients which
+ * do not read their responses, no more output is accepted once the buffered
+ * output exceeds a limit. Such sessions have to be closed.
+ */
+class TcpSession implements IRemoteCommandVisitor {
+
+	private static final int READ_BUFFER_SIZE = 1024;
+
+	/** Default limit for the output buffered for a single session */
+	static final int MAX_PENDING_OUTPUT = 0x1000000;
+
+	private final SocketChannel channel;
+
+	private final RuntimeData data;
+
+	private final ByteBuffer readBuffer;
+
+	private final Input input;
+
+	private final RemoteControlReader reader;
+
+	private final Output output;
+
+	private final RemoteControlWriter writer;
+
+	private final int maxPendingOutput;
+
+	private boolean overflow;
+
+	/**
+	 * Creates a new session for the given channel and writes the header of
+	 * the execution data stream to the output buffer.
+	 *
+	 * @param channel
+	 *            non-blocking channel of the connection
+	 * @param data
+	 *            runtime data to dump
+	 * @param compress
+	 *            if <code>true</code> execution data is sent compressed
+	 * @param maxPendingOutput
+	 *            maximum number of bytes buffered before further output is
+	 *            rejected, a single response may exceed this limit
+	 * @throws IOException
+	 *             never thrown by the in-memory output
+	 */
+	TcpSession(final SocketChannel channel, final RuntimeData data,
+			final boolean compress, final int maxPendingOutput)
+			throws IOException {
+		this.channel = channel;
+		this.data = data;
+		this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		this.input = new Input();
+		this.reader = new RemoteControlReader(input);
+		this.reader.setRemoteCommandVisitor(this);
+		this.output = new Output();
+		this.writer = new RemoteControlWriter(output, compress);
+		this.maxPendingOutput = maxPendingOutput;
+		this.overflow = false;
+	}
+
+	/**
+	 * @return channel of this session
+	 */
+	SocketChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Reads the data currently available from the channel and executes all
+	 * commands which have been received completely.
+	 *
+	 * @return <code>false</code> if the connection has been closed by the
+	 *         remote end
+	 * @throws IOException
+	 *             in case of problems with the connection or the protocol
+	 */
+	boolean read() throws IOException {
+		// Buffer type avoids the covariant overloads of Java 9:
+		((Buffer) readBuffer).clear();
+		final int n = channel.read(readBuffer);
+		if (n == -1) {
+			return false;
+		}
+		input.append(readBuffer.array(), n);
+		while (reader.read()) {
+		}
+		return true;
+	}
+
+	/**
+	 * Writes as much of the buffered output to the channel as it accepts
+	 * without blocking.
+	 *
+	 * @throws IOException
+	 *             in case of problems with the connection
+	 */
+	synchronized void write() throws IOException {
+		output.writeTo(channel);
+	}
+
+	/**
+	 * @return <code>true</code> if there is buffered output which has not
+	 *         been written to the channel yet
+	 */
+	synchronized boolean hasOutput() {
+		return !output.isEmpty();
+	}
+
+	/**
+	 * @return <code>true</code> if output has been rejected because the
+	 *         client did not read the buffered output, the session should be
+	 *         closed then
+	 */
+	synchronized boolean isOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * Appends the given blocks to the output of this session. The blocks are
+	 * dropped if the output buffered so far already exceeds the limit.
+	 *
+	 * @param blocks
+	 *            buffer containing encoded blocks
+	 * @param off
+	 *            offset of the first block
+	 * @param len
+	 *            number of bytes to append
+	 * @return <code>false</code> if the blocks have been dropped
+	 */
+	synchronized boolean append(final byte[] blocks, final int off,
+			final int len) {
+		if (!acceptOutput()) {
+			return false;
+		}
+		output.write(blocks, off, len);
+		return true;
+	}
+
+	private boolean acceptOutput() {
+		if (output.size() > maxPendingOutput) {
+			overflow = true;
+		}
+		return !overflow;
+	}
+
+	private void checkOutput() throws IOException {
+		if (!acceptOutput()) {
+			throw createOverflowException();
+		}
+	}
+
+	/**
+	 * @return exception describing why output has been rejected
+	 */
+	IOException createOverflowException() {
+		return new IOException(String.format(
+				"Pending output exceeds %s bytes, client does not read.",
+				Integer.valueOf(maxPendingOutput)));
+	}
+
+	/**
+	 * Writes the remaining output in blocking mode and closes the channel
+	 * afterwards. The channel must not be registered with an open selector
+	 * any more.
+	 *
+	 * @throws IOException
+	 *             in case of problems with the connection
+	 */
+	synchronized void flushAndClose() throws IOException {
+		try {
+			// A client which does not read would block the shutdown:
+			if (!overflow && !output.isEmpty() && channel.isOpen()) {
+				channel.configureBlocking(true);
+				output.writeTo(channel);
+			}
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * Closes the underlying channel if not closed yet.
+	 *
+	 * @throws IOException
+	 *             in case of problems with the connection
+	 */
+	void close() throws IOException {
+		channel.close();
+	}
+
+	// === IRemoteCommandVisitor ===
+
+	public synchronized void visitDumpCommand(final boolean dump,
+			final boolean reset) throws IOException {
+		checkOutput();
+		if (dump) {
+			data.snapshot(reset).accept(writer, writer);
+		} else {
+			if (reset) {
+				data.reset();
+			}
+		}
+		writer.sendCmdOk();
+	}
+
+	public synchronized void visitDeltaDumpCommand(final long runtimeId,
+			final long sequence, final boolean reset) throws IOException {
+		checkOutput();
+		final long current = data.collectDelta(runtimeId, sequence, writer,
+				writer, reset);
+		writer.sendDelta(data.getRuntimeId(), current);
+		writer.sendCmdOk();
+	}
+
+	/**
+	 * Returns the number of bytes of the block with the given type as sent by
+	 * remote clients. For blocks which are not expected from clients only the
+	 * type is considered, the reader will then report the protocol error.
+	 */
+	static int getBlockSize(final byte type) {
+		switch (type) {
+		case ExecutionDataWriter.BLOCK_HEADER:
+			// type, magic number, version
+			return 5;
+		case RemoteControlWriter.BLOCK_CMDDUMP:
+			// type, dump, reset
+			return 3;
+		case RemoteControlWriter.BLOCK_CMDDELTADUMP:
+			// type, runtime id, sequence, reset
+			return 18;
+		default:
+			return 1;
+		}
+	}
+
+	/**
+	 * Input stream over the data received so far which only provides complete
+	 * blocks. At the end of the complete blocks <code>-1</code> is returned,
+	 * which lets the reader return until more data is available.
+	 */
+	private static class Input extends InputStream {
+
+		private byte[] buffer = new byte[64];
+
+		private int pos;
+
+		private int limit;
+
+		private int count;
+
+		void append(final byte[] b, final int len) {
+			if (pos > 0) {
+				System.arraycopy(buffer, pos, buffer, 0, count - pos);
+				limit -= pos;
+				count -= pos;
+				pos = 0;
+			}
+			if (count + len > buffer.length) {
+				final byte[] newBuffer = new byte[Math.max(buffer.length * 2,
+						count + len)];
+				System.arraycopy(buffer, 0, newBuffer, 0, count);
+				buffer = newBuffer;
+			}
+			System.arraycopy(b, 0, buffer, count, len);
+			count += len;
+			while (limit < count) {
+				final int size = getBlockSize(buffer[limit]);
+				if (limit + size > count) {
+					break;
+				}
+				limit += size;
+			}
+		}
+
+		@Override
+		public int read() {
+			if (pos == limit) {
+				return -1;
+			}
+			return buffer[pos++] & 0xFF;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) {
+			if (pos == limit) {
+				return -1;
+			}
+			final int n = Math.min(len, limit - pos);
+			System.arraycopy(buffer, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+	}
+
+	/**
+	 * In-memory output which is written to the channel chunk by chunk.
+	 */
+	private static class Output extends OutputStream {
+
+		/** Buffers above this size are released once they have been written */
+		private static final int MAX_RETAINED = 0x10000;
+
+		private byte[] buffer = new byte[256];
+
+		private int pos;
+
+		private int count;
+
+		boolean isEmpty() {
+			return pos == count;
+		}
+
+		int size() {
+			return count - pos;
+		}
+
+		void writeTo(final SocketChannel channel) throws IOException {
+			final ByteBuffer b = ByteBuffer.wrap(buffer, pos, count - pos);
+			while (b.hasRemaining()) {
+				if (channel.write(b) == 0 && !channel.isBlocking()) {
+					break;
+				}
+			}
+			pos = b.position();
+			if (pos == count) {
+				pos = count = 0;
+				if (buffer.length > MAX_RETAINED) {
+					buffer = new byte[256];
+				}
+			}
+		}
+
+		@Override
+		public void write(final int b) {
+			ensureCapacity(1);
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			ensureCapacity(len);
+			System.arraycopy(b, off, buffer, count, len);
+			count += len;
+		}
+
+		private void ensureCapacity(final int len) {
+			if (count + len <= buffer.length) {
+				return;
+			}
+			final int size = count - pos;
+			final byte[] target = size + len > buffer.length ? new byte[Math
+					.max(buffer.length * 2, size + len)] : buffer;
+			System.arraycopy(buffer, pos, target, 0, size);
+			buffer = target;
+			pos = 0;
+			count = size;
+		}
+
+	}
+
+}
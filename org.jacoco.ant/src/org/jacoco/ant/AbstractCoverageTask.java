@@ -157,6 +157,52 @@ public class AbstractCoverageTask extends Task {
 		agentOptions.setDumpOnExit(dumpOnExit);
 	}
 
+	/**
+	 * Sets the interval in seconds for periodic dumps to files with a time
+	 * stamp in their name. Default is <code>0</code> (no periodic dumps).
+	 * 
+	 * @param seconds
+	 *            interval in seconds
+	 */
+	public void setDumpInterval(final int seconds) {
+		agentOptions.setDumpInterval(seconds);
+	}
+
+	/**
+	 * Sets the maximum number of files created by periodic dumps. The limit
+	 * applies to the files of the current VM only and can't be combined with
+	 * resetting coverage data. Default is <code>0</code> (keep all files).
+	 * 
+	 * @param files
+	 *            maximum number of files
+	 */
+	public void setDumpFiles(final int files) {
+		agentOptions.setDumpFiles(files);
+	}
+
+	/**
+	 * Sets whether coverage data is reset after every periodic dump. Can't be
+	 * combined with a maximum number of files. Default is <code>false</code>.
+	 * 
+	 * @param reset
+	 *            <code>true</code> to reset coverage data after every
+	 *            periodic dump
+	 */
+	public void setDumpReset(final boolean reset) {
+		agentOptions.setDumpReset(reset);
+	}
+
+	/**
+	 * Sets whether execution data is written compressed. Default is
+	 * <code>false</code>.
+	 * 
+	 * @param compress
+	 *            <code>true</code> to write compressed execution data
+	 */
+	public void setCompress(final boolean compress) {
+		agentOptions.setCompress(compress);
+	}
+
 	/**
 	 * Sets the output method. Default is <code>file</code>
 	 * 
@@ -211,6 +257,17 @@ public class AbstractCoverageTask extends Task {
 		agentOptions.setJmx(jmx);
 	}
 
+	/**
+	 * Sets the wildcard expression of class names which should be instrumented
+	 * with additional probes for boundary value checks.
+	 * 
+	 * @param boundaryincludes
+	 *            wildcard expression for classes with boundary value checks
+	 */
+	public void setBoundaryincludes(final String boundaryincludes) {
+		agentOptions.setBoundaryIncludes(boundaryincludes);
+	}
+
 	/**
 	 * Creates JVM argument to launch with the specified JaCoCo agent jar and
 	 * the current options
@@ -37,6 +37,7 @@ public class DumpTask extends Task {
 	private int port = AgentOptions.DEFAULT_PORT;
 	private int retryCount = 10;
 	private boolean append = true;
+	private boolean delta = false;
 
 	/**
 	 * Sets the location of the execution data file to write. This parameter is
@@ -115,6 +116,21 @@ public class DumpTask extends Task {
 		this.reset = reset;
 	}
 
+	/**
+	 * Sets whether only the classes executed since the previous delta dump to
+	 * the same execution data file should be requested and appended to the
+	 * file. The state of the last delta dump is kept in a file next to the
+	 * execution data file with the additional extension <code>.delta</code>.
+	 * If the file is not appended to, all executed classes are requested.
+	 * Defaults to <code>false</code>
+	 * 
+	 * @param delta
+	 *            <code>true</code> to request delta dumps
+	 */
+	public void setDelta(final boolean delta) {
+		this.delta = delta;
+	}
+
 	@Override
 	public void execute() throws BuildException {
 
@@ -145,11 +161,18 @@ public class DumpTask extends Task {
 		client.setRetryCount(retryCount);
 
 		try {
+			client.setDelta(delta);
+			if (delta && append && dump) {
+				client.loadDeltaState(destfile);
+			}
 			final ExecFileLoader loader = client.dump(address, port);
 			if (dump) {
 				log(format("Dumping execution data to %s",
 						destfile.getAbsolutePath()));
 				loader.save(destfile, append);
+				if (delta) {
+					client.saveDeltaState(destfile);
+				}
 			}
 		} catch (final IOException e) {
 			throw new BuildException("Unable to dump coverage data", e,
@@ -40,6 +40,8 @@ public class InstrumentTask extends Task {
 
 	private boolean removesignatures = true;
 
+	private String boundaryincludes = "";
+
 	/**
 	 * Sets the location of the instrumented classes.
 	 * 
@@ -60,6 +62,17 @@ public class InstrumentTask extends Task {
 		this.removesignatures = removesignatures;
 	}
 
+	/**
+	 * Sets the wildcard expression of class names which should be instrumented
+	 * with additional probes for boundary value checks.
+	 * 
+	 * @param boundaryincludes
+	 *            wildcard expression for classes with boundary value checks
+	 */
+	public void setBoundaryincludes(final String boundaryincludes) {
+		this.boundaryincludes = boundaryincludes;
+	}
+
 	/**
 	 * This task accepts any number of class file resources.
 	 * 
@@ -80,6 +93,7 @@ public class InstrumentTask extends Task {
 		final Instrumenter instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
 		instrumenter.setRemoveSignatures(removesignatures);
+		instrumenter.setBoundaryChecks(boundaryincludes);
 		final Iterator<?> resourceIterator = files.iterator();
 		while (resourceIterator.hasNext()) {
 			final Resource resource = (Resource) resourceIterator.next();
@@ -14,16 +14,20 @@ package org.jacoco.ant;
 
 import static java.lang.String.format;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
@@ -32,19 +36,27 @@ import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.resources.FileResource;
 import org.apache.tools.ant.types.resources.Union;
 import org.apache.tools.ant.util.FileUtils;
+import org.jacoco.core.analysis.AnalysisCache;
 import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.StreamingCoverageBuilder;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.SessionInfoStore;
 import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.ThreadPool;
 import org.jacoco.report.FileMultiReportOutput;
 import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.MultiReportVisitor;
+import org.jacoco.report.MultiSourceFileLocator;
+import org.jacoco.report.ParallelZipMultiReportOutput;
 import org.jacoco.report.ZipMultiReportOutput;
 import org.jacoco.report.check.IViolationsOutput;
 import org.jacoco.report.check.Limit;
@@ -52,6 +64,8 @@ import org.jacoco.report.check.Rule;
 import org.jacoco.report.check.RulesChecker;
 import org.jacoco.report.csv.CSVFormatter;
 import org.jacoco.report.html.HTMLFormatter;
+import org.jacoco.report.snapshot.SnapshotFormatter;
+import org.jacoco.report.snapshot.SnapshotLoader;
 import org.jacoco.report.xml.XMLFormatter;
 
 /**
@@ -175,6 +189,12 @@ public class ReportTask extends Task {
 
 		private Locale locale = Locale.getDefault();
 
+		private boolean incremental = false;
+
+		private int virtualSourceThreshold = 0;
+
+		private int tablePageSize = 0;
+
 		/**
 		 * Sets the output directory for the report.
 		 * 
@@ -227,6 +247,41 @@ public class ReportTask extends Task {
 			this.locale = parseLocale(locale);
 		}
 
+		/**
+		 * Sets whether only changed files are written to the output
+		 * directory. Files of the previous report which are not created again
+		 * are deleted. Default is <code>false</code>.
+		 * 
+		 * @param incremental
+		 *            <code>true</code> to write changed files only
+		 */
+		public void setIncremental(final boolean incremental) {
+			this.incremental = incremental;
+		}
+
+		/**
+		 * Sets the number of lines above which source files are rendered on
+		 * demand in the browser without syntax highlighting. Default is 0,
+		 * which highlights all source files.
+		 * 
+		 * @param lines
+		 *            line threshold
+		 */
+		public void setVirtualSourceThreshold(final int lines) {
+			this.virtualSourceThreshold = lines;
+		}
+
+		/**
+		 * Sets the number of rows above which coverage tables are paged in
+		 * the browser. Default is 0, which renders all rows.
+		 * 
+		 * @param rows
+		 *            rows per page
+		 */
+		public void setTablePageSize(final int rows) {
+			this.tablePageSize = rows;
+		}
+
 		@Override
 		public IReportVisitor createVisitor() throws IOException {
 			final IMultiReportOutput output;
@@ -236,8 +291,7 @@ public class ReportTask extends Task {
 							"Either destination directory or file must be supplied, not both",
 							getLocation());
 				}
-				final FileOutputStream stream = new FileOutputStream(destfile);
-				output = new ZipMultiReportOutput(stream);
+				output = createZipOutput();
 
 			} else {
 				if (destdir == null) {
@@ -245,15 +299,51 @@ public class ReportTask extends Task {
 							"Destination directory or file must be supplied for html report",
 							getLocation());
 				}
-				output = new FileMultiReportOutput(destdir);
+				output = createDirectoryOutput();
 			}
 			final HTMLFormatter formatter = new HTMLFormatter();
 			formatter.setFooterText(footer);
 			formatter.setOutputEncoding(encoding);
 			formatter.setLocale(locale);
+			formatter.setVirtualSourceThreshold(virtualSourceThreshold);
+			formatter.setTablePageSize(tablePageSize);
 			return formatter.createVisitor(output);
 		}
 
+		private IMultiReportOutput createZipOutput() throws IOException {
+			final FileOutputStream stream = new FileOutputStream(destfile);
+			if (executor == null) {
+				return new ZipMultiReportOutput(stream);
+			}
+			return new ParallelZipMultiReportOutput(
+					new BufferedOutputStream(stream), executor);
+		}
+
+		private IMultiReportOutput createDirectoryOutput() {
+			final FileMultiReportOutput output = new FileMultiReportOutput(
+					destdir);
+			if (!incremental) {
+				return output;
+			}
+			output.setIncremental(true);
+			return new IMultiReportOutput() {
+
+				public OutputStream createFile(final String path)
+						throws IOException {
+					return output.createFile(path);
+				}
+
+				public void close() throws IOException {
+					output.close();
+					log(format(
+							"HTML report: %s files written, %s unchanged, %s deleted",
+							Integer.valueOf(output.getWrittenFiles()),
+							Integer.valueOf(output.getUnchangedFiles()),
+							Integer.valueOf(output.getDeletedFiles())));
+				}
+			};
+		}
+
 	}
 
 	/**
@@ -308,6 +398,10 @@ public class ReportTask extends Task {
 
 		private String encoding = "UTF-8";
 
+		private boolean gzip = false;
+
+		private boolean compact = false;
+
 		/**
 		 * Sets the output file for the report.
 		 * 
@@ -328,6 +422,28 @@ public class ReportTask extends Task {
 			this.encoding = encoding;
 		}
 
+		/**
+		 * Sets whether the XML file is compressed with gzip. Default is
+		 * <code>false</code>.
+		 * 
+		 * @param gzip
+		 *            <code>true</code> to compress the report
+		 */
+		public void setGzip(final boolean gzip) {
+			this.gzip = gzip;
+		}
+
+		/**
+		 * Sets whether the line elements of source files are omitted.
+		 * Default is <code>false</code>.
+		 * 
+		 * @param compact
+		 *            <code>true</code> to omit line elements
+		 */
+		public void setCompact(final boolean compact) {
+			this.compact = compact;
+		}
+
 		@Override
 		public IReportVisitor createVisitor() throws IOException {
 			if (destfile == null) {
@@ -337,6 +453,8 @@ public class ReportTask extends Task {
 			}
 			final XMLFormatter formatter = new XMLFormatter();
 			formatter.setOutputEncoding(encoding);
+			formatter.setGzip(gzip);
+			formatter.setCompact(compact);
 			return formatter.createVisitor(new FileOutputStream(destfile));
 		}
 
@@ -351,6 +469,7 @@ public class ReportTask extends Task {
 		private final List<Rule> rules = new ArrayList<Rule>();
 		private boolean violations = false;
 		private boolean failOnViolation = true;
+		private boolean failFast = false;
 		private String violationsPropery = null;
 
 		/**
@@ -375,6 +494,18 @@ public class ReportTask extends Task {
 			this.failOnViolation = flag;
 		}
 
+		/**
+		 * Sets whether checking stops at the first violation. This only has
+		 * an effect if the build fails on violations. Default is
+		 * <code>false</code>.
+		 * 
+		 * @param flag
+		 *            if <code>true</code> only the first violation is reported
+		 */
+		public void setFailFast(final boolean flag) {
+			this.failFast = flag;
+		}
+
 		/**
 		 * Sets the name of a property to append the violation messages to.
 		 * 
@@ -389,6 +520,7 @@ public class ReportTask extends Task {
 		public IReportVisitor createVisitor() throws IOException {
 			final RulesChecker formatter = new RulesChecker();
 			formatter.setRules(rules);
+			formatter.setFailFast(failFast && failOnViolation);
 			return formatter.createVisitor(this);
 		}
 
@@ -424,6 +556,86 @@ public class ReportTask extends Task {
 
 	private final List<FormatterElement> formatters = new ArrayList<FormatterElement>();
 
+	private String boundaryincludes = "";
+
+	private int threads = 1;
+
+	/** executor of the current execution, <code>null</code> for one thread */
+	private ExecutorService executor;
+
+	private AnalysisCache cache;
+
+	private boolean streaming = false;
+
+	private File snapshotfile;
+
+	private long dataLastModified;
+
+	private final StringBuilder executionDataFingerprint = new StringBuilder();
+
+	/**
+	 * Sets the wildcard expression of class names which have been instrumented
+	 * with boundary value checks. Must be the same expression as used for
+	 * instrumentation. Default is the empty string (no boundary checks).
+	 * 
+	 * @param boundaryincludes
+	 *            wildcard expression for classes with boundary value checks
+	 */
+	public void setBoundaryincludes(final String boundaryincludes) {
+		this.boundaryincludes = boundaryincludes;
+	}
+
+	/**
+	 * Sets the number of threads used to analyze class files and to compress
+	 * HTML reports written to a zip file. Default is 1 (sequential analysis
+	 * and compression).
+	 * 
+	 * @param threads
+	 *            number of threads
+	 */
+	public void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets the directory to cache analysis results of class files. By default
+	 * no cache is used and all class files are analyzed.
+	 * 
+	 * @param cachedir
+	 *            cache directory
+	 */
+	public void setCachedir(final File cachedir) {
+		this.cache = new AnalysisCache(cachedir);
+	}
+
+	/**
+	 * Sets whether the report should be created package by package to reduce
+	 * memory consumption. If no cache directory is specified a temporary cache
+	 * is used for every bundle. Default is <code>false</code>.
+	 * 
+	 * @param streaming
+	 *            <code>true</code> to create the report package by package
+	 */
+	public void setStreaming(final boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * Sets the file for a binary snapshot of the coverage model. If the file
+	 * does not exist, is older than the execution data files or has been
+	 * created with a different structure, different settings or from
+	 * different class files the class files are analyzed and the snapshot is
+	 * written in addition to the reports. Otherwise the reports are created
+	 * from the snapshot without analyzing class files. By default no snapshot
+	 * is used.
+	 * 
+	 * @param snapshotfile
+	 *            snapshot file
+	 */
+	public void setSnapshotfile(final File snapshotfile) {
+		this.snapshotfile = snapshotfile;
+	}
+
 	/**
 	 * Returns the nested resource collection for execution data files.
 	 * 
@@ -489,18 +701,32 @@ public class ReportTask extends Task {
 	@Override
 	public void execute() throws BuildException {
 		loadExecutionData();
+		executor = ThreadPool.create(threads);
 		try {
-			final IReportVisitor visitor = createVisitor();
-			visitor.visitInfo(sessionInfoStore.getInfos(),
-					executionDataStore.getContents());
-			createReport(visitor, structure);
-			visitor.visitEnd();
+			if (isSnapshotUpToDate()) {
+				replaySnapshot();
+			} else {
+				final IReportVisitor visitor = createVisitor(
+						snapshotfile != null);
+				visitor.visitInfo(sessionInfoStore.getInfos(),
+						executionDataStore.getContents());
+				createReport(visitor, structure);
+				visitor.visitEnd();
+				if (cache != null) {
+					log(format("Analysis cache: %s hits, %s misses",
+							Integer.valueOf(cache.getHitCount()),
+							Integer.valueOf(cache.getMissCount())));
+				}
+			}
 			for (final FormatterElement f : formatters) {
 				f.finish();
 			}
 		} catch (final IOException e) {
 			throw new BuildException("Error while creating report", e,
 					getLocation());
+		} finally {
+			ThreadPool.shutdown(executor);
+			executor = null;
 		}
 	}
 
@@ -509,6 +735,10 @@ public class ReportTask extends Task {
 		for (final Iterator<?> i = executiondataElement.iterator(); i.hasNext();) {
 			final Resource resource = (Resource) i.next();
 			log(format("Loading execution data file %s", resource));
+			dataLastModified = Math.max(dataLastModified,
+					resource.getLastModified());
+			executionDataFingerprint.append("exec=").append(resource)
+					.append('\n');
 			InputStream in = null;
 			try {
 				in = resource.getInputStream();
@@ -525,14 +755,158 @@ public class ReportTask extends Task {
 		executionDataStore = loader.getExecutionDataStore();
 	}
 
-	private IReportVisitor createVisitor() throws IOException {
+	private IReportVisitor createVisitor(final boolean writeSnapshot)
+			throws IOException {
 		final List<IReportVisitor> visitors = new ArrayList<IReportVisitor>();
 		for (final FormatterElement f : formatters) {
 			visitors.add(f.createVisitor());
 		}
+		if (writeSnapshot) {
+			log(format("Writing coverage snapshot %s", snapshotfile));
+			final SnapshotFormatter snapshot = new SnapshotFormatter();
+			snapshot.setFingerprint(getSnapshotFingerprint());
+			visitors.add(snapshot.createVisitor(createSnapshotOutput()));
+		}
 		return new MultiReportVisitor(visitors);
 	}
 
+	/**
+	 * The snapshot is written to a temporary file first, so incomplete
+	 * snapshots are never considered up to date.
+	 */
+	private OutputStream createSnapshotOutput() throws IOException {
+		final File temp = new File(snapshotfile.getPath() + ".tmp");
+		return new FileOutputStream(temp) {
+			@Override
+			public void close() throws IOException {
+				super.close();
+				snapshotfile.delete();
+				if (!temp.renameTo(snapshotfile)) {
+					throw new IOException(format(
+							"Unable to write coverage snapshot %s",
+							snapshotfile));
+				}
+			}
+		};
+	}
+
+	private boolean isSnapshotUpToDate() {
+		if (snapshotfile == null || !snapshotfile.isFile()
+				|| snapshotfile.lastModified() < dataLastModified) {
+			return false;
+		}
+		final String fingerprint;
+		try {
+			final InputStream in = new FileInputStream(snapshotfile);
+			try {
+				fingerprint = new SnapshotLoader(in).readFingerprint();
+			} finally {
+				in.close();
+			}
+		} catch (final IOException e) {
+			log(format("Ignoring coverage snapshot %s: %s", snapshotfile,
+					e.getMessage()));
+			return false;
+		}
+		if (!fingerprint.equals(getSnapshotFingerprint())) {
+			log(format(
+					"Ignoring coverage snapshot %s created with different settings or class files",
+					snapshotfile));
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * The fingerprint of a snapshot describes the report structure, the
+	 * settings and the class files of every bundle by their number and most
+	 * recent modification.
+	 */
+	private String getSnapshotFingerprint() {
+		final StringBuilder fingerprint = new StringBuilder();
+		fingerprint.append("boundaryincludes=").append(boundaryincludes)
+				.append('\n');
+		fingerprint.append(executionDataFingerprint);
+		appendFingerprint(fingerprint, structure);
+		return fingerprint.toString();
+	}
+
+	private void appendFingerprint(final StringBuilder fingerprint,
+			final GroupElement group) {
+		if (group.children.isEmpty()) {
+			fingerprint.append("bundle=").append(group.name).append('\n');
+			for (final Iterator<?> i = group.classfiles.iterator(); i
+					.hasNext();) {
+				final Resource resource = (Resource) i.next();
+				fingerprint.append("classes=").append(resource);
+				if (resource.isDirectory()
+						&& resource instanceof FileResource) {
+					final long[] stats = new long[2];
+					collectFileStats(((FileResource) resource).getFile(),
+							stats);
+					fingerprint.append(':').append(stats[0]).append('/')
+							.append(stats[1]);
+				} else {
+					fingerprint.append(':').append(resource.getSize())
+							.append('/').append(resource.getLastModified());
+				}
+				fingerprint.append('\n');
+			}
+		} else {
+			fingerprint.append("group=").append(group.name).append('\n');
+			for (final GroupElement child : group.children) {
+				appendFingerprint(fingerprint, child);
+			}
+			fingerprint.append("end\n");
+		}
+	}
+
+	/**
+	 * Counts the files below the given directory and determines the time of
+	 * their most recent modification.
+	 */
+	private static void collectFileStats(final File directory,
+			final long[] stats) {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (final File file : files) {
+			if (file.isDirectory()) {
+				collectFileStats(file, stats);
+			} else {
+				stats[0]++;
+				stats[1] = Math.max(stats[1], file.lastModified());
+			}
+		}
+	}
+
+	private void replaySnapshot() throws IOException {
+		log(format("Replaying coverage snapshot %s", snapshotfile));
+		final MultiSourceFileLocator locator = new MultiSourceFileLocator(4);
+		addSourceLocators(locator, structure);
+		final InputStream in = new FileInputStream(snapshotfile);
+		try {
+			new SnapshotLoader(in).replay(createVisitor(false), locator);
+		} finally {
+			in.close();
+		}
+	}
+
+	private void addSourceLocators(final MultiSourceFileLocator locator,
+			final GroupElement group) {
+		final SourceFilesElement sourcefiles = group.sourcefiles;
+		final AntResourcesLocator groupLocator = new AntResourcesLocator(
+				sourcefiles.encoding, sourcefiles.tabWidth);
+		groupLocator.addAll(sourcefiles.iterator());
+		if (!groupLocator.isEmpty()) {
+			locator.add(groupLocator);
+		}
+		for (final GroupElement child : group.children) {
+			addSourceLocators(locator, child);
+		}
+	}
+
 	private void createReport(final IReportGroupVisitor visitor,
 			final GroupElement group) throws IOException {
 		if (group.name == null) {
@@ -540,15 +914,31 @@ public class ReportTask extends Task {
 					getLocation());
 		}
 		if (group.children.isEmpty()) {
-			final IBundleCoverage bundle = createBundle(group);
-			final SourceFilesElement sourcefiles = group.sourcefiles;
-			final AntResourcesLocator locator = new AntResourcesLocator(
-					sourcefiles.encoding, sourcefiles.tabWidth);
-			locator.addAll(sourcefiles.iterator());
-			if (!locator.isEmpty()) {
-				checkForMissingDebugInformation(bundle);
+			final AnalysisCache bundleCache = streaming && cache == null
+					? AnalysisCache.createTemporary()
+					: cache;
+			try {
+				final SourceFilesElement sourcefiles = group.sourcefiles;
+				final AntResourcesLocator locator = new AntResourcesLocator(
+						sourcefiles.encoding, sourcefiles.tabWidth);
+				locator.addAll(sourcefiles.iterator());
+				final ICoverageNode bundle;
+				if (streaming) {
+					bundle = createStreamingBundle(visitor, group, locator,
+							bundleCache);
+				} else {
+					final IBundleCoverage b = createBundle(group, bundleCache);
+					visitor.visitBundle(b, locator);
+					bundle = b;
+				}
+				if (!locator.isEmpty()) {
+					checkForMissingDebugInformation(bundle);
+				}
+			} finally {
+				if (bundleCache != cache) {
+					bundleCache.clear();
+				}
 			}
-			visitor.visitBundle(bundle, locator);
 		} else {
 			final IReportGroupVisitor groupVisitor = visitor
 					.visitGroup(group.name);
@@ -558,10 +948,43 @@ public class ReportTask extends Task {
 		}
 	}
 
-	private IBundleCoverage createBundle(final GroupElement group)
+	private ICoverageNode createStreamingBundle(
+			final IReportGroupVisitor visitor, final GroupElement group,
+			final ISourceFileLocator locator, final AnalysisCache bundleCache)
 			throws IOException {
+		final StreamingCoverageBuilder builder = new StreamingCoverageBuilder(
+				executionDataStore, bundleCache);
+		analyze(group, bundleCache, builder);
+		// Every package is calculated once and emitted to all formatters:
+		final IReportBundleVisitor bundleVisitor = visitor
+				.visitBundle(group.name, locator);
+		final ICoverageNode bundle = builder.visitPackages(group.name,
+				bundleVisitor);
+		bundleVisitor.visitEnd(bundle);
+		logBundleInfo(bundle, builder.getNoMatchClassNames());
+		return bundle;
+	}
+
+	private IBundleCoverage createBundle(final GroupElement group,
+			final AnalysisCache bundleCache) throws IOException {
 		final CoverageBuilder builder = new CoverageBuilder();
+		analyze(group, bundleCache, builder);
+		final IBundleCoverage bundle = builder.getBundle(group.name);
+		final Collection<String> nomatch = new ArrayList<String>();
+		for (final IClassCoverage c : builder.getNoMatchClasses()) {
+			nomatch.add(c.getName());
+		}
+		logBundleInfo(bundle, nomatch);
+		return bundle;
+	}
+
+	private void analyze(final GroupElement group,
+			final AnalysisCache bundleCache, final ICoverageVisitor builder)
+			throws IOException {
 		final Analyzer analyzer = new Analyzer(executionDataStore, builder);
+		analyzer.setBoundaryChecks(boundaryincludes);
+		analyzer.setExecutor(executor);
+		analyzer.setCache(bundleCache);
 		for (final Iterator<?> i = group.classfiles.iterator(); i.hasNext();) {
 			final Resource resource = (Resource) i.next();
 			if (resource.isDirectory() && resource instanceof FileResource) {
@@ -572,13 +995,11 @@ public class ReportTask extends Task {
 				in.close();
 			}
 		}
-		final IBundleCoverage bundle = builder.getBundle(group.name);
-		logBundleInfo(bundle, builder.getNoMatchClasses());
-		return bundle;
+		analyzer.finish();
 	}
 
-	private void logBundleInfo(final IBundleCoverage bundle,
-			final Collection<IClassCoverage> nomatch) {
+	private void logBundleInfo(final ICoverageNode bundle,
+			final Collection<String> nomatch) {
 		log(format("Writing bundle '%s' with %s classes", bundle.getName(),
 				Integer.valueOf(bundle.getClassCounter().getTotalCount())));
 		if (!nomatch.isEmpty()) {
@@ -586,9 +1007,9 @@ public class ReportTask extends Task {
 					"Classes in bundle '%s' do no match with execution data. "
 							+ "For report generation the same class files must be used as at runtime.",
 					bundle.getName()), Project.MSG_WARN);
-			for (final IClassCoverage c : nomatch) {
+			for (final String name : nomatch) {
 				log(format("Execution data for class %s does not match.",
-						c.getName()), Project.MSG_WARN);
+						name), Project.MSG_WARN);
 			}
 		}
 	}
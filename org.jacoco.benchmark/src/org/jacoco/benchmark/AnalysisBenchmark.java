@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.tools.ThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Analysis time of all JaCoCo core class files with random execution data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+
+	/** Upper bound for the number of probes of a single class. */
+	private static final int MAX_PROBES = 4096;
+
+	@Param({ "1", "4" })
+	public int threads;
+
+	private List<byte[]> classes;
+
+	private ExecutionDataStore executionData;
+
+	private ExecutorService executor;
+
+	@Setup
+	public void setup() throws IOException {
+		classes = ClassFiles.load(Analyzer.class, "org/jacoco/core/");
+		executionData = createExecutionData(classes);
+		executor = ThreadPool.create(threads);
+	}
+
+	/**
+	 * Creates random probes for the given classes. Probe arrays may be larger
+	 * than required, the analyzer only reads the probes of the actual class.
+	 */
+	static ExecutionDataStore createExecutionData(final List<byte[]> classes) {
+		final Random random = new Random(0);
+		final ExecutionDataStore store = new ExecutionDataStore();
+		int i = 0;
+		for (final byte[] bytes : classes) {
+			final boolean[] probes = store
+					.get(Long.valueOf(CRC64.classId(bytes)),
+							"org/jacoco/benchmark/Class" + i++, MAX_PROBES)
+					.getProbes();
+			for (int p = 0; p < probes.length; p++) {
+				probes[p] = random.nextBoolean();
+			}
+		}
+		return store;
+	}
+
+	@TearDown
+	public void teardown() {
+		ThreadPool.shutdown(executor);
+	}
+
+	@Benchmark
+	public CoverageBuilder analyze() throws IOException {
+		final CoverageBuilder builder = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(executionData, builder);
+		analyzer.setExecutor(executor);
+		for (final byte[] bytes : classes) {
+			analyzer.analyzeClass(bytes, "benchmark");
+		}
+		analyzer.finish();
+		return builder;
+	}
+
+}
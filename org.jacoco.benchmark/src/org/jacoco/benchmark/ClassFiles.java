@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jacoco.core.internal.InputStreams;
+
+/**
+ * Loads the class files used as benchmark input. As realistic input the class
+ * files of JaCoCo itself are used, either from a directory or from a JAR file
+ * (e.g. the self-contained benchmarks JAR).
+ */
+final class ClassFiles {
+
+	private ClassFiles() {
+	}
+
+	/**
+	 * Loads all class files below the given path prefix from the location the
+	 * given type has been loaded from.
+	 * 
+	 * @param type
+	 *            type to locate the class files
+	 * @param prefix
+	 *            path prefix of the class files, e.g.
+	 *            <code>org/jacoco/core/</code>
+	 * @return class file contents ordered by their path
+	 * @throws IOException
+	 *             if the class files can't be read
+	 */
+	static List<byte[]> load(final Class<?> type, final String prefix)
+			throws IOException {
+		final File location;
+		try {
+			location = new File(type.getProtectionDomain().getCodeSource()
+					.getLocation().toURI());
+		} catch (final URISyntaxException e) {
+			throw new IOException(e);
+		}
+		final SortedMap<String, byte[]> classes = new TreeMap<String, byte[]>();
+		if (location.isDirectory()) {
+			collect(new File(location, prefix), prefix, classes);
+		} else {
+			final ZipFile zip = new ZipFile(location);
+			try {
+				final Enumeration<? extends ZipEntry> entries = zip.entries();
+				while (entries.hasMoreElements()) {
+					final ZipEntry entry = entries.nextElement();
+					if (isClassFile(entry.getName(), prefix)) {
+						classes.put(entry.getName(),
+								read(zip.getInputStream(entry)));
+					}
+				}
+			} finally {
+				zip.close();
+			}
+		}
+		if (classes.isEmpty()) {
+			throw new IOException(String.format(
+					"No class files found for %s in %s.", prefix, location));
+		}
+		return new ArrayList<byte[]>(classes.values());
+	}
+
+	private static void collect(final File directory, final String path,
+			final SortedMap<String, byte[]> classes) throws IOException {
+		final String[] names = directory.list();
+		if (names == null) {
+			return;
+		}
+		for (final String name : names) {
+			final File file = new File(directory, name);
+			if (file.isDirectory()) {
+				collect(file, path + name + "/", classes);
+			} else if (isClassFile(path + name, path)) {
+				classes.put(path + name, read(new FileInputStream(file)));
+			}
+		}
+	}
+
+	private static boolean isClassFile(final String path,
+			final String prefix) {
+		return path.startsWith(prefix) && path.endsWith(".class")
+				&& !path.endsWith("module-info.class");
+	}
+
+	private static byte[] read(final InputStream in) throws IOException {
+		try {
+			return InputStreams.readFully(in);
+		} finally {
+			in.close();
+		}
+	}
+
+}
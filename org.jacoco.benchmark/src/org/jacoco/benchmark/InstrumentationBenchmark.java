@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Instrumentation time of all JaCoCo core class files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+	@Param({ "", "*" })
+	public String boundaryChecks;
+
+	private List<byte[]> classes;
+
+	private Instrumenter instrumenter;
+
+	@Setup
+	public void setup() throws IOException {
+		classes = ClassFiles.load(Instrumenter.class, "org/jacoco/core/");
+		instrumenter = new Instrumenter(
+				new OfflineInstrumentationAccessGenerator());
+		instrumenter.setBoundaryChecks(boundaryChecks);
+	}
+
+	@Benchmark
+	public int instrument() throws IOException {
+		int size = 0;
+		for (final byte[] bytes : classes) {
+			size += instrumenter.instrument(bytes, "benchmark").length;
+		}
+		return size;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading and initialization time of an interface without methods, which is
+ * instrumented with the local probe array strategy: The probe array is only
+ * used within the static initializer. As the initializer runs only once, every
+ * operation loads the type in a new class loader, the original interface
+ * serves as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalProbeArrayBenchmark {
+
+	private static final String NAME = "org/jacoco/benchmark/LocalTarget";
+
+	@Param({ "false", "true" })
+	public boolean instrumented;
+
+	@Param({ "1000" })
+	public int iterations;
+
+	private IRuntime runtime;
+
+	private byte[] bytes;
+
+	@Setup
+	public void setup() throws Exception {
+		bytes = Targets.createInitializer(NAME, Opcodes.V1_7, iterations);
+		if (instrumented) {
+			runtime = new LoggerRuntime();
+			runtime.startup(new RuntimeData());
+			bytes = new Instrumenter(runtime).instrument(bytes, NAME);
+		}
+	}
+
+	@TearDown
+	public void teardown() {
+		if (runtime != null) {
+			runtime.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Class<?> initialize() throws Exception {
+		return Targets.load(NAME, bytes);
+	}
+
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Execution time of instrumented code for the different probe array
+ * strategies compared to the original code. The executed method runs a loop
+ * with a branch, so most of the time is spent on probe updates.
+ * <p>
+ * The {@link Strategy#CONDY} strategy uses Java 11 class files and requires
+ * the benchmark to run on Java 11 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProbeArrayStrategyBenchmark {
+
+	/**
+	 * Type of target and the probe array strategy the instrumenter selects for
+	 * it.
+	 */
+	public enum Strategy {
+
+		/** Original class without instrumentation. */
+		NONE(Opcodes.V1_8, false, false),
+
+		/** Class with a field for the probe array. */
+		CLASS_FIELD(Opcodes.V1_8, false, true),
+
+		/** Java 8 interface with a field in a synthetic nested class. */
+		INTERFACE_FIELD(Opcodes.V1_8, true, true),
+
+		/** Java 11 class using a dynamic constant for the probe array. */
+		CONDY(Opcodes.V11, false, true);
+
+		final int version;
+
+		final boolean isInterface;
+
+		final boolean instrumented;
+
+		Strategy(final int version, final boolean isInterface,
+				final boolean instrumented) {
+			this.version = version;
+			this.isInterface = isInterface;
+			this.instrumented = instrumented;
+		}
+
+	}
+
+	private static final String NAME = "org/jacoco/benchmark/Target";
+
+	@Param
+	public Strategy strategy;
+
+	@Param({ "1000" })
+	public int iterations;
+
+	private IRuntime runtime;
+
+	private MethodHandle target;
+
+	@Setup
+	public void setup() throws Exception {
+		byte[] bytes = Targets.create(NAME, strategy.version,
+				strategy.isInterface);
+		if (strategy.instrumented) {
+			runtime = new LoggerRuntime();
+			runtime.startup(new RuntimeData());
+			bytes = new Instrumenter(runtime).instrument(bytes, NAME);
+		}
+		target = MethodHandles.lookup().findStatic(Targets.load(NAME, bytes),
+				Targets.METHOD, MethodType.methodType(int.class, int.class));
+	}
+
+	@TearDown
+	public void teardown() {
+		if (runtime != null) {
+			runtime.shutdown();
+		}
+	}
+
+	@Benchmark
+	public int execute() throws Throwable {
+		return (int) target.invokeExact(iterations);
+	}
+
+}
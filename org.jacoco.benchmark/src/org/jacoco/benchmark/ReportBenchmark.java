@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ThreadPool;
+import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.ParallelZipMultiReportOutput;
+import org.jacoco.report.ZipMultiReportOutput;
+import org.jacoco.report.html.HTMLFormatter;
+import org.jacoco.report.xml.XMLFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering time of HTML and XML reports for the JaCoCo core and report class
+ * files with random execution data. The report output is discarded. As the
+ * source files are not available on the class path, every source file is
+ * rendered with the same generated content. HTML reports written to zip files
+ * are compressed sequentially and concurrently with one thread per available
+ * processor, the speedup of the concurrent variant depends on the number of
+ * processors of the machine running the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+	private static final int SOURCE_LINES = 1000;
+
+	private IBundleCoverage bundle;
+
+	private List<SessionInfo> sessions;
+
+	private String source;
+
+	private ExecutorService executor;
+
+	@Setup
+	public void setup() throws IOException {
+		final List<byte[]> classes = ClassFiles.load(Analyzer.class,
+				"org/jacoco/core/");
+		classes.addAll(
+				ClassFiles.load(HTMLFormatter.class, "org/jacoco/report/"));
+		final ExecutionDataStore executionData = AnalysisBenchmark
+				.createExecutionData(classes);
+		final CoverageBuilder builder = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(executionData, builder);
+		for (final byte[] bytes : classes) {
+			analyzer.analyzeClass(bytes, "benchmark");
+		}
+		bundle = builder.getBundle("benchmark");
+		sessions = Collections
+				.singletonList(new SessionInfo("benchmark", 0, 0));
+
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 1; i <= SOURCE_LINES; i++) {
+			sb.append("\t\tif (value < ").append(i)
+					.append(") { return \"line\"; } // comment\n");
+		}
+		source = sb.toString();
+
+		executor = ThreadPool
+				.create(Runtime.getRuntime().availableProcessors());
+	}
+
+	@TearDown
+	public void tearDown() {
+		ThreadPool.shutdown(executor);
+	}
+
+	@Benchmark
+	public long html() throws IOException {
+		final NullMultiReportOutput output = new NullMultiReportOutput();
+		render(new HTMLFormatter().createVisitor(output));
+		return output.size;
+	}
+
+	@Benchmark
+	public long htmlZip() throws IOException {
+		final NullOutputStream output = new NullOutputStream();
+		render(new HTMLFormatter()
+				.createVisitor(new ZipMultiReportOutput(output)));
+		return output.size;
+	}
+
+	@Benchmark
+	public long htmlParallelZip() throws IOException {
+		final NullOutputStream output = new NullOutputStream();
+		render(new HTMLFormatter().createVisitor(
+				new ParallelZipMultiReportOutput(output, executor)));
+		return output.size;
+	}
+
+	@Benchmark
+	public long xml() throws IOException {
+		final NullOutputStream output = new NullOutputStream();
+		render(new XMLFormatter().createVisitor(output));
+		return output.size;
+	}
+
+	private void render(final IReportVisitor visitor) throws IOException {
+		visitor.visitInfo(sessions, Collections.<ExecutionData> emptyList());
+		visitor.visitBundle(bundle, new ISourceFileLocator() {
+			public Reader getSourceFile(final String packageName,
+					final String fileName) {
+				return new StringReader(source);
+			}
+
+			public int getTabWidth() {
+				return 4;
+			}
+		});
+		visitor.visitEnd();
+	}
+
+	/**
+	 * Discards all content and counts the number of bytes.
+	 */
+	private static class NullOutputStream extends OutputStream {
+
+		long size;
+
+		@Override
+		public void write(final int b) {
+			size++;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			size += len;
+		}
+
+	}
+
+	/**
+	 * Discards all files and counts the total number of bytes.
+	 */
+	private static class NullMultiReportOutput implements IMultiReportOutput {
+
+		long size;
+
+		public OutputStream createFile(final String path) {
+			return new NullOutputStream() {
+				@Override
+				public void close() {
+					NullMultiReportOutput.this.size += size;
+				}
+			};
+		}
+
+		public void close() {
+		}
+
+	}
+
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.benchmark;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates the target types executed by the runtime benchmarks. The class
+ * file version and the type kind (class or interface) determine the probe
+ * array strategy selected by the instrumenter.
+ */
+final class Targets {
+
+	/** Name of the static method of types created by {@link #create}. */
+	static final String METHOD = "run";
+
+	/** Descriptor of the static method of types created by {@link #create}. */
+	static final String METHOD_DESC = "(I)I";
+
+	/** Name of the field set by types created by {@link #createInitializer}. */
+	static final String FIELD = "VALUE";
+
+	private Targets() {
+	}
+
+	/**
+	 * Creates a type with a public static method <code>int run(int n)</code>
+	 * which executes a loop with a branch <code>n</code> times.
+	 * 
+	 * @param name
+	 *            VM name of the type
+	 * @param version
+	 *            class file version
+	 * @param isInterface
+	 *            whether an interface should be created, requires Java 8 class
+	 *            files at least
+	 * @return class file
+	 */
+	static byte[] create(final String name, final int version,
+			final boolean isInterface) {
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		final int access = isInterface
+				? Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE
+						| Opcodes.ACC_ABSTRACT
+				: Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER;
+		cw.visit(version, access, name, null, "java/lang/Object", null);
+		final MethodVisitor mv = cw.visitMethod(
+				Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, METHOD, METHOD_DESC,
+				null, null);
+		mv.visitCode();
+		loop(mv);
+		mv.visitInsn(Opcodes.IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Creates an interface without methods which sets the public static field
+	 * <code>VALUE</code> in its static initializer with the same loop as
+	 * {@link #create} executed <code>n</code> times.
+	 * 
+	 * @param name
+	 *            VM name of the type
+	 * @param version
+	 *            class file version
+	 * @param n
+	 *            number of loop iterations
+	 * @return class file
+	 */
+	static byte[] createInitializer(final String name, final int version,
+			final int n) {
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		cw.visit(version,
+				Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE
+						| Opcodes.ACC_ABSTRACT,
+				name, null, "java/lang/Object", null);
+		cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC
+				| Opcodes.ACC_FINAL, FIELD, "I", null, null).visitEnd();
+		final MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC,
+				"<clinit>", "()V", null, null);
+		mv.visitCode();
+		mv.visitLdcInsn(Integer.valueOf(n));
+		mv.visitVarInsn(Opcodes.ISTORE, 0);
+		loop(mv);
+		mv.visitFieldInsn(Opcodes.PUTSTATIC, name, FIELD, "I");
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Loads and initializes the given type in a new class loader.
+	 * 
+	 * @param name
+	 *            VM name of the type
+	 * @param bytes
+	 *            class file
+	 * @return initialized type
+	 * @throws ClassNotFoundException
+	 *             if the type can't be defined
+	 */
+	static Class<?> load(final String name, final byte[] bytes)
+			throws ClassNotFoundException {
+		final String className = name.replace('/', '.');
+		return Class.forName(className, true,
+				new TargetClassLoader(className, bytes));
+	}
+
+	private static class TargetClassLoader extends ClassLoader {
+
+		private final String name;
+
+		private final byte[] bytes;
+
+		TargetClassLoader(final String name, final byte[] bytes) {
+			super(Targets.class.getClassLoader());
+			this.name = name;
+			this.bytes = bytes;
+		}
+
+		@Override
+		protected Class<?> findClass(final String name)
+				throws ClassNotFoundException {
+			if (this.name.equals(name)) {
+				return defineClass(name, bytes, 0, bytes.length);
+			}
+			return super.findClass(name);
+		}
+
+	}
+
+	/**
+	 * Emits <code>s = 0; for (i = 0; i &lt; n; i++) { if ((i &amp; 1) == 0)
+	 * s += i; else s--; }</code> with <code>n</code> in local 0 and leaves
+	 * <code>s</code> on the stack.
+	 */
+	private static void loop(final MethodVisitor mv) {
+		final Label condition = new Label();
+		final Label odd = new Label();
+		final Label next = new Label();
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitVarInsn(Opcodes.ISTORE, 1);
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitVarInsn(Opcodes.ISTORE, 2);
+		mv.visitJumpInsn(Opcodes.GOTO, condition);
+		final Label body = new Label();
+		mv.visitLabel(body);
+		mv.visitVarInsn(Opcodes.ILOAD, 2);
+		mv.visitInsn(Opcodes.ICONST_1);
+		mv.visitInsn(Opcodes.IAND);
+		mv.visitJumpInsn(Opcodes.IFNE, odd);
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		mv.visitVarInsn(Opcodes.ILOAD, 2);
+		mv.visitInsn(Opcodes.IADD);
+		mv.visitVarInsn(Opcodes.ISTORE, 1);
+		mv.visitJumpInsn(Opcodes.GOTO, next);
+		mv.visitLabel(odd);
+		mv.visitIincInsn(1, -1);
+		mv.visitLabel(next);
+		mv.visitIincInsn(2, 1);
+		mv.visitLabel(condition);
+		mv.visitVarInsn(Opcodes.ILOAD, 2);
+		mv.visitVarInsn(Opcodes.ILOAD, 0);
+		mv.visitJumpInsn(Opcodes.IF_ICMPLT, body);
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+	}
+
+}
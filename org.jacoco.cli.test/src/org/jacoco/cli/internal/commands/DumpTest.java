@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -20,6 +21,10 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.jacoco.cli.internal.CommandTestBase;
 import org.jacoco.core.runtime.IRemoteCommandVisitor;
@@ -40,6 +45,9 @@ public class DumpTest extends CommandTestBase {
 
 	private ServerSocket serverSocket;
 
+	private final List<String> commands = Collections
+			.synchronizedList(new ArrayList<String>());
+
 	@After
 	public void after() throws IOException {
 		if (serverSocket != null) {
@@ -73,6 +81,24 @@ public class DumpTest extends CommandTestBase {
 		assertTrue(execfile.exists());
 	}
 
+	@Test
+	public void should_continue_delta_dumps_when_delta_option_is_specified()
+			throws Exception {
+		File execfile = new File(tmp.getRoot(), "jacoco.exec");
+
+		execute("dump", "--destfile", execfile.getAbsolutePath(), "--port",
+				String.valueOf(startMockServer()), "--delta");
+		assertOk();
+		assertEquals(Arrays.asList("delta 0 0"), commands);
+		assertTrue(new File(tmp.getRoot(), "jacoco.exec.delta").isFile());
+
+		serverSocket.close();
+		execute("dump", "--destfile", execfile.getAbsolutePath(), "--port",
+				String.valueOf(startMockServer()), "--delta");
+		assertOk();
+		assertEquals(Arrays.asList("delta 0 0", "delta 42 1"), commands);
+	}
+
 	@Test
 	public void should_log_connection_error_when_retry_is_specified()
 			throws Exception {
@@ -116,6 +142,13 @@ public class DumpTest extends CommandTestBase {
 					throws IOException {
 				writer.sendCmdOk();
 			}
+
+			public void visitDeltaDumpCommand(long runtimeId, long sequence,
+					boolean reset) throws IOException {
+				commands.add("delta " + runtimeId + " " + sequence);
+				writer.sendDelta(42, sequence + 1);
+				writer.sendCmdOk();
+			}
 		});
 		while (reader.read()) {
 		}
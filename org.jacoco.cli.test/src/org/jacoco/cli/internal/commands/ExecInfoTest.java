@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import static org.junit.Assert.assertFalse;
+
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -66,6 +68,19 @@ public class ExecInfoTest extends CommandTestBase {
 		assertContains("0000000000001234    2 of   3   foo/MyClass", out);
 	}
 
+	@Test
+	public void should_print_only_given_classes_when_class_option_is_given()
+			throws Exception {
+		File execfile = createExecFile();
+
+		execute("execinfo", "--class", "foo.MyClass", execfile.getAbsolutePath());
+
+		assertOk();
+		assertContains("Session \"testid\":", out);
+		assertContains("0000000000001234    2 of   3   foo/MyClass", out);
+		assertFalse(out.toString().contains("foo/OtherClass"));
+	}
+
 	private File createExecFile() throws IOException {
 		File f = new File(tmp.getRoot(), "test.exec");
 		final FileOutputStream out = new FileOutputStream(f);
@@ -73,6 +88,8 @@ public class ExecInfoTest extends CommandTestBase {
 		writer.visitSessionInfo(new SessionInfo("testid", 1, 2));
 		writer.visitClassExecution(new ExecutionData(0x1234, "foo/MyClass",
 				new boolean[] { false, true, true }));
+		writer.visitClassExecution(new ExecutionData(0x5678, "foo/OtherClass",
+				new boolean[] { true }));
 		out.close();
 		return f;
 	}
@@ -64,7 +64,7 @@ public class InstrumentTest extends CommandTestBase {
 				getClassPath());
 
 		assertOk();
-		assertContains("[INFO] 14 classes instrumented to "
+		assertContains("[INFO] 15 classes instrumented to "
 				+ destdir.getAbsolutePath(), out);
 
 		// non class-file resources are copied:
@@ -136,6 +136,60 @@ public class InstrumentTest extends CommandTestBase {
 		assertFalse(new File(destdir, "Broken.class").exists());
 	}
 
+	@Test
+	public void should_create_same_files_when_threads_option_is_given()
+			throws Exception {
+		File destdir1 = new File(tmp.getRoot(), "dest1");
+		File destdir2 = new File(tmp.getRoot(), "dest2");
+
+		execute("instrument", "--dest", destdir1.getAbsolutePath(),
+				getClassPath());
+		execute("instrument", "--dest", destdir2.getAbsolutePath(),
+				"--threads", "4", getClassPath());
+
+		assertOk();
+		assertContains("[INFO] 15 classes instrumented to "
+				+ destdir2.getAbsolutePath(), out);
+		File class1 = new File(destdir1,
+				"org/jacoco/cli/internal/commands/InstrumentTest.class");
+		File class2 = new File(destdir2,
+				"org/jacoco/cli/internal/commands/InstrumentTest.class");
+		assertArrayEquals(readFile(class1), readFile(class2));
+	}
+
+	@Test
+	public void should_not_create_dest_file_when_source_class_is_broken_and_threads_option_is_given()
+			throws Exception {
+		File srcdir = new File(tmp.getRoot(), "src");
+		srcdir.mkdir();
+		File destdir = new File(tmp.getRoot(), "dest");
+		destdir.mkdir();
+
+		OutputStream out = new FileOutputStream(
+				new File(srcdir, "Broken.class"));
+		out.write(new byte[] { (byte) 0xca, (byte) 0xfe, (byte) 0xba,
+				(byte) 0xbe, 0x00, 0x00, 0x00, 50 });
+		out.close();
+
+		try {
+			execute("instrument", "--dest", destdir.getAbsolutePath(),
+					"--threads", "2", srcdir.getAbsolutePath());
+			fail("exception expected");
+		} catch (IOException expected) {
+		}
+
+		assertFalse(new File(destdir, "Broken.class").exists());
+	}
+
+	private static byte[] readFile(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return InputStreams.readFully(in);
+		} finally {
+			in.close();
+		}
+	}
+
 	private void assertInstrumented(File classfile) throws IOException {
 		InputStream in = new FileInputStream(classfile);
 		final ClassReader reader = InstrSupport
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+
+import org.jacoco.cli.internal.CommandTestBase;
+import org.jacoco.core.internal.InputStreams;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link Replay}.
+ */
+public class ReplayTest extends CommandTestBase {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void should_print_usage_when_no_snapshot_is_given()
+			throws Exception {
+		execute("replay");
+
+		assertFailure();
+		assertContains("Usage: java -jar jacococli.jar replay <snapshot>",
+				err);
+	}
+
+	@Test
+	public void should_create_same_reports_as_report_command()
+			throws Exception {
+		File snapshot = new File(tmp.getRoot(), "coverage.snapshot");
+		File xml1 = new File(tmp.getRoot(), "coverage1.xml");
+		File xml2 = new File(tmp.getRoot(), "coverage2.xml");
+		File csv1 = new File(tmp.getRoot(), "coverage1.csv");
+		File csv2 = new File(tmp.getRoot(), "coverage2.csv");
+		execute("report", "--classfiles", getClassPath(), "--xml",
+				xml1.getAbsolutePath(), "--csv", csv1.getAbsolutePath(),
+				"--snapshot", snapshot.getAbsolutePath());
+		assertOk();
+
+		execute("replay", snapshot.getAbsolutePath(), "--xml",
+				xml2.getAbsolutePath(), "--csv", csv2.getAbsolutePath());
+
+		assertOk();
+		assertContains("[INFO] Loading coverage snapshot "
+				+ snapshot.getAbsolutePath(), out);
+		assertEquals(readFile(xml1), readFile(xml2));
+		assertEquals(readFile(csv1), readFile(csv2));
+	}
+
+	@Test
+	public void should_create_html_report_with_sources() throws Exception {
+		File snapshot = new File(tmp.getRoot(), "coverage.snapshot");
+		File html = new File(tmp.getRoot(), "coverage");
+		execute("report", "--classfiles", getClassPath(), "--snapshot",
+				snapshot.getAbsolutePath());
+
+		execute("replay", snapshot.getAbsolutePath(), "--sourcefiles",
+				"./src", "--html", html.getAbsolutePath(), "--threads", "2");
+
+		assertOk();
+		assertTrue(new File(html, "index.html").isFile());
+		assertTrue(new File(html,
+				"org.jacoco.cli.internal.commands/ReplayTest.java.html")
+						.isFile());
+	}
+
+	private static String readFile(final File file) throws Exception {
+		final FileInputStream in = new FileInputStream(file);
+		try {
+			return new String(InputStreams.readFully(in), "UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+}
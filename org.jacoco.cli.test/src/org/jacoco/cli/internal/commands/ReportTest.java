@@ -12,14 +12,23 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import org.jacoco.cli.internal.CommandTestBase;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.internal.InputStreams;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -57,7 +66,7 @@ public class ReportTest extends CommandTestBase {
 		execute("report", "--classfiles", getClassPath());
 
 		assertOk();
-		assertContains("[INFO] Analyzing 14 classes.", out);
+		assertContains("[INFO] Analyzing 15 classes.", out);
 	}
 
 	@Test
@@ -98,6 +107,105 @@ public class ReportTest extends CommandTestBase {
 		assertTrue(xml.isFile());
 	}
 
+	@Test
+	public void should_create_compressed_compact_xml_report_when_xmlgzip_and_xmlcompact_options_are_provided()
+			throws Exception {
+		File xml = new File(tmp.getRoot(), "coverage.xml.gz");
+
+		execute("report", "--classfiles", getClassPath(), "--xml",
+				xml.getAbsolutePath(), "--xmlgzip", "--xmlcompact");
+
+		assertOk();
+		final GZIPInputStream in = new GZIPInputStream(
+				new FileInputStream(xml));
+		final String content;
+		try {
+			content = new String(InputStreams.readFully(in), "UTF-8");
+		} finally {
+			in.close();
+		}
+		assertTrue(content.contains("<sourcefile name=\"ReportTest.java\">"));
+		assertFalse(content.contains("<line "));
+	}
+
+	@Test
+	public void should_analyze_boundary_checks_when_boundaryincludes_option_is_provided()
+			throws Exception {
+		File xml = new File(tmp.getRoot(), "coverage.xml");
+
+		execute("report", "--classfiles", getClassPath(), "--xml",
+				xml.getAbsolutePath(), "--boundaryincludes",
+				"org.jacoco.cli.*");
+
+		assertOk();
+		assertTrue(readFile(xml).contains("type=\"BOUNDARY\""));
+	}
+
+	@Test
+	public void should_not_analyze_boundary_checks_by_default()
+			throws Exception {
+		File xml = new File(tmp.getRoot(), "coverage.xml");
+
+		execute("report", "--classfiles", getClassPath(), "--xml",
+				xml.getAbsolutePath());
+
+		assertOk();
+		assertFalse(readFile(xml).contains("type=\"BOUNDARY\""));
+	}
+
+	@Test
+	public void should_create_same_report_when_threads_option_is_provided()
+			throws Exception {
+		File xml1 = new File(tmp.getRoot(), "coverage1.xml");
+		File xml2 = new File(tmp.getRoot(), "coverage2.xml");
+
+		execute("report", "--classfiles", getClassPath(), "--xml",
+				xml1.getAbsolutePath());
+		execute("report", "--classfiles", getClassPath(), "--xml",
+				xml2.getAbsolutePath(), "--threads", "4");
+
+		assertOk();
+		assertEquals(readFile(xml1), readFile(xml2));
+	}
+
+	@Test
+	public void should_use_analysis_cache_when_cachedir_option_is_provided()
+			throws Exception {
+		File cachedir = new File(tmp.getRoot(), "cache");
+		File xml1 = new File(tmp.getRoot(), "coverage1.xml");
+		File xml2 = new File(tmp.getRoot(), "coverage2.xml");
+
+		execute("report", "--classfiles", getClassPath(), "--xml",
+				xml1.getAbsolutePath(), "--cachedir",
+				cachedir.getAbsolutePath());
+		assertOk();
+		assertContains("[INFO] Analysis cache: 0 hits, 15 misses.", out);
+		assertEquals(15, cachedir.list().length);
+
+		execute("report", "--classfiles", getClassPath(), "--xml",
+				xml2.getAbsolutePath(), "--cachedir",
+				cachedir.getAbsolutePath());
+		assertOk();
+		assertContains("[INFO] Analysis cache: 15 hits, 0 misses.", out);
+		assertEquals(readFile(xml1), readFile(xml2));
+	}
+
+	private static List<String> sortLines(final String text) {
+		final List<String> lines = new ArrayList<String>(
+				Arrays.asList(text.split("\n")));
+		Collections.sort(lines);
+		return lines;
+	}
+
+	private static String readFile(final File file) throws Exception {
+		final FileInputStream in = new FileInputStream(file);
+		try {
+			return new String(InputStreams.readFully(in), "UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
 	@Test
 	public void should_create_csv_report_when_csv_option_is_provided()
 			throws Exception {
@@ -127,6 +235,96 @@ public class ReportTest extends CommandTestBase {
 						.isFile());
 	}
 
+	@Test
+	public void should_page_html_tables_when_tablepagesize_option_is_provided()
+			throws Exception {
+		File html = new File(tmp.getRoot(), "coverage");
+
+		execute("report", "--classfiles", getClassPath(), "--html",
+				html.getAbsolutePath(), "--tablepagesize", "2");
+
+		assertOk();
+		final String page = readFile(
+				new File(html, "org.jacoco.cli.internal.commands/index.html"));
+		assertTrue(page.contains("id=\"coveragedata\""));
+		assertTrue(page.contains("table.js"));
+	}
+
+	@Test
+	public void should_write_source_index_when_sourceindex_option_is_provided()
+			throws Exception {
+		File index = new File(tmp.getRoot(), "sources.idx");
+		File html = new File(tmp.getRoot(), "coverage");
+
+		execute("report", "--classfiles", getClassPath(), "--sourcefiles",
+				"./src", "--sourceindex", index.getAbsolutePath(), "--html",
+				html.getAbsolutePath());
+		execute("report", "--classfiles", getClassPath(), "--sourcefiles",
+				"./src", "--sourceindex", index.getAbsolutePath(), "--html",
+				html.getAbsolutePath());
+
+		assertOk();
+		assertTrue(index.isFile());
+		assertTrue(new File(html,
+				"org.jacoco.cli.internal.commands/ReportTest.java.html")
+						.isFile());
+	}
+
+	@Test
+	public void should_create_same_report_when_streaming_option_is_provided()
+			throws Exception {
+		File csv1 = new File(tmp.getRoot(), "coverage1.csv");
+		File csv2 = new File(tmp.getRoot(), "coverage2.csv");
+		File html = new File(tmp.getRoot(), "coverage");
+
+		execute("report", "--classfiles", getClassPath(), "--csv",
+				csv1.getAbsolutePath());
+		execute("report", "--classfiles", getClassPath(), "--csv",
+				csv2.getAbsolutePath(), "--sourcefiles", "./src", "--html",
+				html.getAbsolutePath(), "--streaming");
+
+		assertOk();
+		assertEquals(sortLines(readFile(csv1)), sortLines(readFile(csv2)));
+		assertTrue(new File(html,
+				"org.jacoco.cli.internal.commands/ReportTest.java.html")
+						.isFile());
+		assertFalse(out.toString().contains("Analysis cache"));
+	}
+
+	@Test
+	public void should_skip_unchanged_files_when_incremental_option_is_provided()
+			throws Exception {
+		File html = new File(tmp.getRoot(), "coverage");
+
+		execute("report", "--classfiles", getClassPath(), "--html",
+				html.getAbsolutePath(), "--incremental");
+		execute("report", "--classfiles", getClassPath(), "--html",
+				html.getAbsolutePath(), "--incremental");
+
+		assertOk();
+		assertContains("[INFO] HTML report: 0 files written, ", out);
+		assertTrue(new File(html, "index.html").isFile());
+	}
+
+	@Test
+	public void should_create_same_html_report_when_threads_option_is_provided()
+			throws Exception {
+		File html1 = new File(tmp.getRoot(), "coverage1");
+		File html2 = new File(tmp.getRoot(), "coverage2");
+
+		execute("report", "--classfiles", getClassPath(), "--sourcefiles",
+				"./src", "--html", html1.getAbsolutePath());
+		execute("report", "--classfiles", getClassPath(), "--sourcefiles",
+				"./src", "--html", html2.getAbsolutePath(), "--threads", "4");
+
+		assertOk();
+		final String page = "org.jacoco.cli.internal.commands/ReportTest.java.html";
+		assertEquals(readFile(new File(html1, page)),
+				readFile(new File(html2, page)));
+		assertEquals(readFile(new File(html1, "index.html")),
+				readFile(new File(html2, "index.html")));
+	}
+
 	@Test
 	public void should_use_all_values_when_multiple_classfiles_options_are_provided()
 			throws Exception {
@@ -40,6 +40,9 @@ public class Dump extends Command {
 	@Option(name = "--reset", usage = "reset execution data on test target after dump")
 	boolean reset = false;
 
+	@Option(name = "--delta", usage = "only request classes executed since the previous delta dump to destfile, the state is kept in <destfile>.delta")
+	boolean delta = false;
+
 	@Option(name = "--retry", usage = "number of retries (default 10)", metaVar = "<count>")
 	int retrycount = 10;
 
@@ -66,11 +69,17 @@ public class Dump extends Command {
 		};
 		client.setReset(reset);
 		client.setRetryCount(retrycount);
+		if (delta) {
+			client.loadDeltaState(destfile);
+		}
 
 		final ExecFileLoader loader = client.dump(address, port);
 		out.printf("[INFO] Writing execution data to %s.%n",
 				destfile.getAbsolutePath());
 		loader.save(destfile, true);
+		if (delta) {
+			client.saveDeltaState(destfile);
+		}
 
 		return 0;
 	}
@@ -25,8 +25,10 @@ import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.IndexedExecutionDataReader;
 import org.jacoco.core.data.SessionInfo;
 import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
 
 /**
  * The <code>execinfo</code> command.
@@ -36,6 +38,9 @@ public class ExecInfo extends Command {
 	@Argument(usage = "list of JaCoCo *.exec files to read", metaVar = "<execfiles>")
 	List<File> execfiles = new ArrayList<File>();
 
+	@Option(name = "--class", usage = "only print the given classes, the file is accessed randomly", metaVar = "<name>")
+	List<String> classes = new ArrayList<String>();
+
 	@Override
 	public String description() {
 		return "Print exec file content in human readable format.";
@@ -59,16 +64,14 @@ public class ExecInfo extends Command {
 		out.printf("[INFO] Loading exec file %s.%n", file);
 		out.println("CLASS ID         HITS/PROBES   CLASS NAME");
 
-		final FileInputStream in = new FileInputStream(file);
-		final ExecutionDataReader reader = new ExecutionDataReader(in);
-		reader.setSessionInfoVisitor(new ISessionInfoVisitor() {
+		final ISessionInfoVisitor sessionInfoVisitor = new ISessionInfoVisitor() {
 			public void visitSessionInfo(final SessionInfo info) {
 				out.printf("Session \"%s\": %s - %s%n", info.getId(),
 						new Date(info.getStartTimeStamp()),
 						new Date(info.getDumpTimeStamp()));
 			}
-		});
-		reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+		};
+		final IExecutionDataVisitor executionDataVisitor = new IExecutionDataVisitor() {
 			public void visitClassExecution(final ExecutionData data) {
 				out.printf("%016x  %3d of %3d   %s%n",
 						Long.valueOf(data.getId()),
@@ -76,9 +79,30 @@ public class ExecInfo extends Command {
 						Integer.valueOf(data.getProbes().length),
 						data.getName());
 			}
-		});
-		reader.read();
-		in.close();
+		};
+		if (classes.isEmpty()) {
+			final FileInputStream in = new FileInputStream(file);
+			final ExecutionDataReader reader = new ExecutionDataReader(in);
+			reader.setSessionInfoVisitor(sessionInfoVisitor);
+			reader.setExecutionDataVisitor(executionDataVisitor);
+			reader.read();
+			in.close();
+		} else {
+			final IndexedExecutionDataReader reader = new IndexedExecutionDataReader(
+					file);
+			try {
+				reader.accept(sessionInfoVisitor);
+				for (final String name : classes) {
+					for (final Long id : reader
+							.getIds(name.replace('.', '/'))) {
+						executionDataVisitor.visitClassExecution(
+								reader.get(id.longValue()));
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
 		out.println();
 	}
 
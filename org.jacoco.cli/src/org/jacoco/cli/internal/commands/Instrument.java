@@ -22,10 +22,15 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.jacoco.cli.internal.Command;
 import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
+import org.jacoco.core.tools.ThreadPool;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.Option;
 
@@ -40,8 +45,24 @@ public class Instrument extends Command {
 	@Argument(usage = "list of folder or files to instrument recusively", metaVar = "<sourcefiles>")
 	List<File> source = new ArrayList<File>();
 
+	@Option(name = "--boundaryincludes", usage = "classes to instrument with boundary value checks", metaVar = "<pattern>")
+	String boundaryincludes = "";
+
+	@Option(name = "--threads", usage = "number of threads used to instrument class files (default 1)", metaVar = "<n>")
+	int threads = 1;
+
 	private Instrumenter instrumenter;
 
+	/**
+	 * Instrumenter without executor for class files which are instrumented in
+	 * worker threads.
+	 */
+	private Instrumenter classFileInstrumenter;
+
+	private ExecutorService executor;
+
+	private final List<Future<Integer>> pending = new ArrayList<Future<Integer>>();
+
 	@Override
 	public String description() {
 		return "Off-line instrumentation of Java class files and JAR files.";
@@ -51,21 +72,35 @@ public class Instrument extends Command {
 	public int execute(final PrintWriter out, final PrintWriter err)
 			throws IOException {
 		final File absoluteDest = dest.getAbsoluteFile();
-		instrumenter = new Instrumenter(
-				new OfflineInstrumentationAccessGenerator());
+		instrumenter = createInstrumenter();
+		classFileInstrumenter = createInstrumenter();
+		executor = ThreadPool.create(threads);
+		instrumenter.setExecutor(executor);
 		int total = 0;
-		for (final File s : source) {
-			if (s.isFile()) {
-				total += instrument(s, new File(absoluteDest, s.getName()));
-			} else {
-				total += instrumentRecursive(s, absoluteDest);
+		try {
+			for (final File s : source) {
+				if (s.isFile()) {
+					total += instrument(s, new File(absoluteDest, s.getName()));
+				} else {
+					total += instrumentRecursive(s, absoluteDest);
+				}
 			}
+			total += waitForClassFiles();
+		} finally {
+			ThreadPool.shutdown(executor);
 		}
 		out.printf("[INFO] %s classes instrumented to %s.%n",
 				Integer.valueOf(total), absoluteDest);
 		return 0;
 	}
 
+	private Instrumenter createInstrumenter() {
+		final Instrumenter i = new Instrumenter(
+				new OfflineInstrumentationAccessGenerator());
+		i.setBoundaryChecks(boundaryincludes);
+		return i;
+	}
+
 	private int instrumentRecursive(final File src, final File dest)
 			throws IOException {
 		int total = 0;
@@ -81,6 +116,42 @@ public class Instrument extends Command {
 	}
 
 	private int instrument(final File src, final File dest) throws IOException {
+		if (executor != null && src.getName().endsWith(".class")) {
+			pending.add(executor.submit(new Callable<Integer>() {
+				public Integer call() throws IOException {
+					return Integer.valueOf(
+							instrument(classFileInstrumenter, src, dest));
+				}
+			}));
+			return 0;
+		}
+		return instrument(instrumenter, src, dest);
+	}
+
+	private int waitForClassFiles() throws IOException {
+		int total = 0;
+		for (final Future<Integer> f : pending) {
+			try {
+				total += f.get().intValue();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Instrumentation interrupted.");
+			} catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw (RuntimeException) cause;
+			}
+		}
+		return total;
+	}
+
+	private static int instrument(final Instrumenter instrumenter,
+			final File src, final File dest) throws IOException {
 		dest.getParentFile().mkdirs();
 		final InputStream input = new FileInputStream(src);
 		try {
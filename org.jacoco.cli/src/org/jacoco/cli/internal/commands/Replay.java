@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.jacoco.cli.internal.Command;
+import org.jacoco.core.tools.ThreadPool;
+import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.IndexedSourceFileLocator;
+import org.jacoco.report.MultiReportVisitor;
+import org.jacoco.report.csv.CSVFormatter;
+import org.jacoco.report.html.HTMLFormatter;
+import org.jacoco.report.snapshot.SnapshotLoader;
+import org.jacoco.report.xml.XMLFormatter;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>replay</code> command.
+ */
+public class Replay extends Command {
+
+	@Argument(usage = "coverage snapshot file created with the report command", metaVar = "<snapshot>", required = true)
+	File snapshot;
+
+	@Option(name = "--sourcefiles", usage = "location of the source files", metaVar = "<path>")
+	List<File> sourcefiles = new ArrayList<File>();
+
+	@Option(name = "--sourceindex", usage = "file to store the index of the source files for subsequent runs", metaVar = "<file>")
+	File sourceindex;
+
+	@Option(name = "--tabwith", usage = "tab stop width for the source pages (default 4)", metaVar = "<n>")
+	int tabwidth = 4;
+
+	@Option(name = "--encoding", usage = "source file encoding (by default platform encoding is used)", metaVar = "<charset>")
+	String encoding;
+
+	@Option(name = "--xml", usage = "output file for the XML report", metaVar = "<file>")
+	File xml;
+
+	@Option(name = "--xmlgzip", usage = "compress the XML report with gzip")
+	boolean xmlgzip = false;
+
+	@Option(name = "--xmlcompact", usage = "omit the line elements of source files in the XML report")
+	boolean xmlcompact = false;
+
+	@Option(name = "--csv", usage = "output file for the CSV report", metaVar = "<file>")
+	File csv;
+
+	@Option(name = "--html", usage = "output directory for the HTML report", metaVar = "<dir>")
+	File html;
+
+	@Option(name = "--virtualsourcelines", usage = "number of lines above which HTML source pages are rendered on demand without syntax highlighting (default 0 for never)", metaVar = "<n>")
+	int virtualsourcelines = 0;
+
+	@Option(name = "--tablepagesize", usage = "number of rows above which HTML coverage tables are paged in the browser (default 0 for never)", metaVar = "<n>")
+	int tablepagesize = 0;
+
+	@Option(name = "--incremental", usage = "write only changed files of the HTML report and delete obsolete ones")
+	boolean incremental = false;
+
+	@Option(name = "--threads", usage = "number of threads used to render HTML pages (default 1)", metaVar = "<n>")
+	int threads = 1;
+
+	private FileMultiReportOutput htmlOutput;
+
+	@Override
+	public String description() {
+		return "Generate reports in different formats from a coverage snapshot without analyzing class files.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws IOException {
+		out.printf("[INFO] Loading coverage snapshot %s.%n",
+				snapshot.getAbsolutePath());
+		final ExecutorService executor = ThreadPool.create(threads);
+		final InputStream in = new FileInputStream(snapshot);
+		try {
+			new SnapshotLoader(in).replay(createReportVisitor(executor),
+					getSourceLocator());
+			printHtmlStatistics(out);
+		} finally {
+			in.close();
+			ThreadPool.shutdown(executor);
+		}
+		return 0;
+	}
+
+	private IReportVisitor createReportVisitor(final ExecutorService executor)
+			throws IOException {
+		final List<IReportVisitor> visitors = new ArrayList<IReportVisitor>();
+
+		if (xml != null) {
+			final XMLFormatter formatter = new XMLFormatter();
+			formatter.setGzip(xmlgzip);
+			formatter.setCompact(xmlcompact);
+			visitors.add(formatter.createVisitor(new FileOutputStream(xml)));
+		}
+
+		if (csv != null) {
+			final CSVFormatter formatter = new CSVFormatter();
+			visitors.add(formatter.createVisitor(new FileOutputStream(csv)));
+		}
+
+		if (html != null) {
+			final HTMLFormatter formatter = new HTMLFormatter();
+			formatter.setExecutor(executor);
+			formatter.setVirtualSourceThreshold(virtualsourcelines);
+			formatter.setTablePageSize(tablepagesize);
+			htmlOutput = new FileMultiReportOutput(html);
+			htmlOutput.setIncremental(incremental);
+			visitors.add(formatter.createVisitor(htmlOutput));
+		}
+
+		return new MultiReportVisitor(visitors);
+	}
+
+	private void printHtmlStatistics(final PrintWriter out) {
+		if (htmlOutput != null && incremental) {
+			out.printf(
+					"[INFO] HTML report: %s files written, %s unchanged, %s deleted.%n",
+					Integer.valueOf(htmlOutput.getWrittenFiles()),
+					Integer.valueOf(htmlOutput.getUnchangedFiles()),
+					Integer.valueOf(htmlOutput.getDeletedFiles()));
+		}
+	}
+
+	private ISourceFileLocator getSourceLocator() throws IOException {
+		final IndexedSourceFileLocator locator = new IndexedSourceFileLocator(
+				encoding, tabwidth);
+		if (sourceindex != null) {
+			locator.loadIndex(sourceindex);
+		}
+		for (final File f : sourcefiles) {
+			locator.addDirectory(f);
+		}
+		if (sourceindex != null) {
+			locator.saveIndex(sourceindex);
+		}
+		return locator;
+	}
+
+}
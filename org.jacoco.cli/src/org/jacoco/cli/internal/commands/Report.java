@@ -20,22 +20,30 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import org.jacoco.cli.internal.Command;
+import org.jacoco.core.analysis.AnalysisCache;
 import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.StreamingCoverageBuilder;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.tools.ExecFileLoader;
-import org.jacoco.report.DirectorySourceFileLocator;
+import org.jacoco.core.tools.ThreadPool;
 import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.IndexedSourceFileLocator;
 import org.jacoco.report.MultiReportVisitor;
-import org.jacoco.report.MultiSourceFileLocator;
 import org.jacoco.report.csv.CSVFormatter;
 import org.jacoco.report.html.HTMLFormatter;
+import org.jacoco.report.snapshot.SnapshotFormatter;
 import org.jacoco.report.xml.XMLFormatter;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.Option;
@@ -54,6 +62,9 @@ public class Report extends Command {
 	@Option(name = "--sourcefiles", usage = "location of the source files", metaVar = "<path>")
 	List<File> sourcefiles = new ArrayList<File>();
 
+	@Option(name = "--sourceindex", usage = "file to store the index of the source files for subsequent runs", metaVar = "<file>")
+	File sourceindex;
+
 	@Option(name = "--tabwith", usage = "tab stop width for the source pages (default 4)", metaVar = "<n>")
 	int tabwidth = 4;
 
@@ -66,12 +77,44 @@ public class Report extends Command {
 	@Option(name = "--xml", usage = "output file for the XML report", metaVar = "<file>")
 	File xml;
 
+	@Option(name = "--xmlgzip", usage = "compress the XML report with gzip")
+	boolean xmlgzip = false;
+
+	@Option(name = "--xmlcompact", usage = "omit the line elements of source files in the XML report")
+	boolean xmlcompact = false;
+
 	@Option(name = "--csv", usage = "output file for the CSV report", metaVar = "<file>")
 	File csv;
 
 	@Option(name = "--html", usage = "output directory for the HTML report", metaVar = "<dir>")
 	File html;
 
+	@Option(name = "--virtualsourcelines", usage = "number of lines above which HTML source pages are rendered on demand without syntax highlighting (default 0 for never)", metaVar = "<n>")
+	int virtualsourcelines = 0;
+
+	@Option(name = "--tablepagesize", usage = "number of rows above which HTML coverage tables are paged in the browser (default 0 for never)", metaVar = "<n>")
+	int tablepagesize = 0;
+
+	@Option(name = "--incremental", usage = "write only changed files of the HTML report and delete obsolete ones")
+	boolean incremental = false;
+
+	@Option(name = "--snapshot", usage = "output file for a coverage snapshot which can be replayed with the replay command", metaVar = "<file>")
+	File snapshot;
+
+	@Option(name = "--boundaryincludes", usage = "classes instrumented with boundary value checks", metaVar = "<pattern>")
+	String boundaryincludes = "";
+
+	@Option(name = "--threads", usage = "number of threads used to analyze class files and to render HTML pages (default 1)", metaVar = "<n>")
+	int threads = 1;
+
+	@Option(name = "--cachedir", usage = "directory to cache analysis results of class files", metaVar = "<dir>")
+	File cachedir;
+
+	@Option(name = "--streaming", usage = "create the reports package by package to reduce memory consumption")
+	boolean streaming = false;
+
+	private FileMultiReportOutput htmlOutput;
+
 	@Override
 	public String description() {
 		return "Generate reports in different formats by reading exec and Java class files.";
@@ -81,12 +124,33 @@ public class Report extends Command {
 	public int execute(final PrintWriter out, final PrintWriter err)
 			throws IOException {
 		final ExecFileLoader loader = loadExecutionData(out);
-		final IBundleCoverage bundle = analyze(loader.getExecutionDataStore(),
-				out);
-		writeReports(bundle, loader, out);
+		final ExecutorService executor = ThreadPool.create(threads);
+		final AnalysisCache cache = createCache();
+		try {
+			if (streaming) {
+				writeStreamingReports(loader, executor, cache, out);
+			} else {
+				final IBundleCoverage bundle = analyze(
+						loader.getExecutionDataStore(), executor, cache, out);
+				writeReports(bundle, loader, executor, out);
+			}
+		} finally {
+			ThreadPool.shutdown(executor);
+			if (cache != null && cachedir == null) {
+				cache.clear();
+			}
+		}
 		return 0;
 	}
 
+	private AnalysisCache createCache() throws IOException {
+		if (cachedir != null) {
+			return new AnalysisCache(cachedir);
+		}
+		// Streaming requires a cache to re-create the coverage of packages
+		return streaming ? AnalysisCache.createTemporary() : null;
+	}
+
 	private ExecFileLoader loadExecutionData(final PrintWriter out)
 			throws IOException {
 		final ExecFileLoader loader = new ExecFileLoader();
@@ -103,48 +167,96 @@ public class Report extends Command {
 	}
 
 	private IBundleCoverage analyze(final ExecutionDataStore data,
+			final Executor executor, final AnalysisCache cache,
 			final PrintWriter out) throws IOException {
 		final CoverageBuilder builder = new CoverageBuilder();
-		final Analyzer analyzer = new Analyzer(data, builder);
+		analyze(data, executor, cache, builder, out);
+		final Collection<String> nomatch = new ArrayList<String>();
+		for (final IClassCoverage c : builder.getNoMatchClasses()) {
+			nomatch.add(c.getName());
+		}
+		printNoMatchWarning(nomatch, out);
+		return builder.getBundle(name);
+	}
+
+	private void analyze(final ExecutionDataStore data,
+			final Executor executor, final AnalysisCache cache,
+			final ICoverageVisitor visitor, final PrintWriter out)
+			throws IOException {
+		final Analyzer analyzer = new Analyzer(data, visitor);
+		analyzer.setBoundaryChecks(boundaryincludes);
+		analyzer.setExecutor(executor);
+		analyzer.setCache(cache);
 		for (final File f : classfiles) {
 			analyzer.analyzeAll(f);
 		}
-		printNoMatchWarning(builder.getNoMatchClasses(), out);
-		return builder.getBundle(name);
+		analyzer.finish();
+		if (cachedir != null) {
+			out.printf("[INFO] Analysis cache: %s hits, %s misses.%n",
+					Integer.valueOf(cache.getHitCount()),
+					Integer.valueOf(cache.getMissCount()));
+		}
 	}
 
-	private void printNoMatchWarning(final Collection<IClassCoverage> nomatch,
+	private void printNoMatchWarning(final Collection<String> nomatch,
 			final PrintWriter out) {
 		if (!nomatch.isEmpty()) {
 			out.println(
 					"[WARN] Some classes do not match with execution data.");
 			out.println(
 					"[WARN] For report generation the same class files must be used as at runtime.");
-			for (final IClassCoverage c : nomatch) {
+			for (final String c : nomatch) {
 				out.printf(
 						"[WARN] Execution data for class %s does not match.%n",
-						c.getName());
+						c);
 			}
 		}
 	}
 
 	private void writeReports(final IBundleCoverage bundle,
-			final ExecFileLoader loader, final PrintWriter out)
-			throws IOException {
+			final ExecFileLoader loader, final Executor executor,
+			final PrintWriter out) throws IOException {
 		out.printf("[INFO] Analyzing %s classes.%n",
 				Integer.valueOf(bundle.getClassCounter().getTotalCount()));
-		final IReportVisitor visitor = createReportVisitor();
+		final IReportVisitor visitor = createReportVisitor(executor);
 		visitor.visitInfo(loader.getSessionInfoStore().getInfos(),
 				loader.getExecutionDataStore().getContents());
 		visitor.visitBundle(bundle, getSourceLocator());
 		visitor.visitEnd();
+		printHtmlStatistics(out);
+	}
+
+	private void writeStreamingReports(final ExecFileLoader loader,
+			final Executor executor, final AnalysisCache cache,
+			final PrintWriter out) throws IOException {
+		final ExecutionDataStore data = loader.getExecutionDataStore();
+		final StreamingCoverageBuilder builder = new StreamingCoverageBuilder(
+				data, cache);
+		analyze(data, executor, cache, builder, out);
+		printNoMatchWarning(builder.getNoMatchClassNames(), out);
+		final IReportVisitor visitor = createReportVisitor(executor);
+		visitor.visitInfo(loader.getSessionInfoStore().getInfos(),
+				data.getContents());
+		// Every package is calculated once and emitted to all formatters:
+		final IReportBundleVisitor bundleVisitor = visitor.visitBundle(name,
+				getSourceLocator());
+		final ICoverageNode bundle = builder.visitPackages(name,
+				bundleVisitor);
+		bundleVisitor.visitEnd(bundle);
+		visitor.visitEnd();
+		out.printf("[INFO] Analyzed %s classes.%n",
+				Integer.valueOf(bundle.getClassCounter().getTotalCount()));
+		printHtmlStatistics(out);
 	}
 
-	private IReportVisitor createReportVisitor() throws IOException {
+	private IReportVisitor createReportVisitor(final Executor executor)
+			throws IOException {
 		final List<IReportVisitor> visitors = new ArrayList<IReportVisitor>();
 
 		if (xml != null) {
 			final XMLFormatter formatter = new XMLFormatter();
+			formatter.setGzip(xmlgzip);
+			formatter.setCompact(xmlcompact);
 			visitors.add(formatter.createVisitor(new FileOutputStream(xml)));
 		}
 
@@ -155,20 +267,45 @@ public class Report extends Command {
 
 		if (html != null) {
 			final HTMLFormatter formatter = new HTMLFormatter();
-			visitors.add(
-					formatter.createVisitor(new FileMultiReportOutput(html)));
+			formatter.setExecutor(executor);
+			formatter.setVirtualSourceThreshold(virtualsourcelines);
+			formatter.setTablePageSize(tablepagesize);
+			htmlOutput = new FileMultiReportOutput(html);
+			htmlOutput.setIncremental(incremental);
+			visitors.add(formatter.createVisitor(htmlOutput));
+		}
+
+		if (snapshot != null) {
+			final SnapshotFormatter formatter = new SnapshotFormatter();
+			visitors.add(formatter.createVisitor(new FileOutputStream(snapshot)));
 		}
 
 		return new MultiReportVisitor(visitors);
 	}
 
-	private ISourceFileLocator getSourceLocator() {
-		final MultiSourceFileLocator multi = new MultiSourceFileLocator(
-				tabwidth);
+	private void printHtmlStatistics(final PrintWriter out) {
+		if (htmlOutput != null && incremental) {
+			out.printf(
+					"[INFO] HTML report: %s files written, %s unchanged, %s deleted.%n",
+					Integer.valueOf(htmlOutput.getWrittenFiles()),
+					Integer.valueOf(htmlOutput.getUnchangedFiles()),
+					Integer.valueOf(htmlOutput.getDeletedFiles()));
+		}
+	}
+
+	private ISourceFileLocator getSourceLocator() throws IOException {
+		final IndexedSourceFileLocator locator = new IndexedSourceFileLocator(
+				encoding, tabwidth);
+		if (sourceindex != null) {
+			locator.loadIndex(sourceindex);
+		}
 		for (final File f : sourcefiles) {
-			multi.add(new DirectorySourceFileLocator(f, encoding, tabwidth));
+			locator.addDirectory(f);
+		}
+		if (sourceindex != null) {
+			locator.saveIndex(sourceindex);
 		}
-		return multi;
+		return locator;
 	}
 
 }
@@ -29,8 +29,12 @@ import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.jar.JarInputStream;
 import java.util.jar.Pack200;
 import java.util.zip.GZIPOutputStream;
@@ -45,6 +49,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
 /**
@@ -125,6 +131,51 @@ public class AnalyzerTest {
 		return cw.toByteArray();
 	}
 
+	@Test
+	public void should_analyze_boundary_checks_only_for_matching_classes()
+			throws IOException {
+		analyzer.setBoundaryChecks("org.example.*");
+
+		analyzer.analyzeClass(createCompareClass("org/example/Foo"), "");
+		analyzer.analyzeClass(createCompareClass("org/other/Bar"), "");
+
+		assertEquals(2, classes.get("org/example/Foo").getBoundaryCounter()
+				.getMissedCount());
+		assertEquals(0, classes.get("org/other/Bar").getBoundaryCounter()
+				.getTotalCount());
+	}
+
+	@Test
+	public void should_not_analyze_boundary_checks_by_default()
+			throws IOException {
+		analyzer.analyzeClass(createCompareClass("org/example/Foo"), "");
+
+		assertEquals(0, classes.get("org/example/Foo").getBoundaryCounter()
+				.getTotalCount());
+	}
+
+	private static byte[] createCompareClass(final String name) {
+		final ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_5, 0, name, null, "java/lang/Object", null);
+		final MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "m",
+				"(II)V", null, null);
+		mv.visitCode();
+		final Label start = new Label();
+		mv.visitLabel(start);
+		mv.visitLineNumber(1, start);
+		mv.visitVarInsn(Opcodes.ILOAD, 0);
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		final Label target = new Label();
+		mv.visitJumpInsn(Opcodes.IF_ICMPGE, target);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitLabel(target);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(2, 2);
+		mv.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
 	@Test
 	public void testAnalyzeClassFromStream() throws IOException {
 		analyzer.analyzeClass(TargetLoader.getClassData(AnalyzerTest.class),
@@ -146,7 +197,7 @@ public class AnalyzerTest {
 		final byte[] bytes = TargetLoader
 				.getClassDataAsBytes(AnalyzerTest.class);
 		executionData.get(Long.valueOf(CRC64.classId(bytes)),
-				"org/jacoco/core/analysis/AnalyzerTest", 200);
+				"org/jacoco/core/analysis/AnalyzerTest", 400);
 		analyzer.analyzeClass(bytes, "Test");
 		assertFalse(classes.get("org/jacoco/core/analysis/AnalyzerTest")
 				.isNoMatch());
@@ -397,6 +448,157 @@ public class AnalyzerTest {
 		}
 	}
 
+	@Test
+	public void should_analyze_concurrently_in_order_of_classes()
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		final List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			final String name = "org/example/Foo" + i;
+			zip.putNextEntry(new ZipEntry(name + ".class"));
+			zip.write(createCompareClass(name));
+			expected.add(name);
+		}
+		zip.finish();
+
+		final List<String> names = new ArrayList<String>();
+		analyzer = new Analyzer(executionData, new ICoverageVisitor() {
+			public void visitCoverage(IClassCoverage coverage) {
+				names.add(coverage.getName());
+			}
+		});
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			analyzer.setExecutor(executor);
+			final int count = analyzer.analyzeAll(
+					new ByteArrayInputStream(buffer.toByteArray()), "Test");
+			analyzer.finish();
+			assertEquals(100, count);
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(expected, names);
+	}
+
+	@Test
+	public void should_report_error_of_concurrent_analysis()
+			throws IOException {
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			analyzer.setExecutor(executor);
+			analyzer.analyzeClass(brokenclass, "Broken.class");
+			analyzer.finish();
+			fail("expected exception");
+		} catch (IOException e) {
+			assertEquals("Error while analyzing Broken.class.", e.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void finish_should_do_nothing_without_executor() throws IOException {
+		analyzer.analyzeClass(
+				TargetLoader.getClassDataAsBytes(AnalyzerTest.class), "Test");
+		analyzer.finish();
+
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest");
+	}
+
+	@Test
+	public void should_reuse_cached_analysis_results() throws IOException {
+		final File dir = new File(folder.getRoot(), "cache");
+		final AnalysisCache cache = new AnalysisCache(dir);
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		executionData.get(Long.valueOf(CRC64.classId(bytes)),
+				"org/jacoco/core/analysis/AnalyzerTest", 400).getProbes()[0] = true;
+		analyzer.setCache(cache);
+		analyzer.analyzeClass(bytes, "Test");
+		final IClassCoverage first = classes
+				.get("org/jacoco/core/analysis/AnalyzerTest");
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, dir.list().length);
+
+		classes.clear();
+		analyzer = new Analyzer(executionData, new EmptyStructureVisitor());
+		analyzer.setCache(cache);
+		analyzer.analyzeClass(bytes, "Test");
+		final IClassCoverage second = classes
+				.get("org/jacoco/core/analysis/AnalyzerTest");
+
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(first.getInstructionCounter(),
+				second.getInstructionCounter());
+		assertEquals(first.getBranchCounter(), second.getBranchCounter());
+		assertEquals(first.getMethodCounter(), second.getMethodCounter());
+		assertTrue(second.getInstructionCounter().getCoveredCount() > 0);
+	}
+
+	@Test
+	public void should_not_reuse_cached_results_for_other_boundary_setting()
+			throws IOException {
+		final AnalysisCache cache = new AnalysisCache(
+				new File(folder.getRoot(), "cache"));
+		final byte[] bytes = createCompareClass("org/example/Foo");
+		analyzer.setCache(cache);
+		analyzer.analyzeClass(bytes, "Test");
+
+		classes.clear();
+		analyzer = new Analyzer(executionData, new EmptyStructureVisitor());
+		analyzer.setCache(cache);
+		analyzer.setBoundaryChecks("org.example.*");
+		analyzer.analyzeClass(bytes, "Test");
+
+		assertEquals(0, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(2, classes.get("org/example/Foo").getBoundaryCounter()
+				.getTotalCount());
+	}
+
+	@Test
+	public void should_replace_invalid_cache_entries() throws IOException {
+		final File dir = new File(folder.getRoot(), "cache");
+		final AnalysisCache cache = new AnalysisCache(dir);
+		final byte[] bytes = createCompareClass("org/example/Foo");
+		dir.mkdirs();
+		final File entry = new File(dir,
+				String.format("%016x.jacococache",
+						Long.valueOf(CRC64.classId(bytes))));
+		final OutputStream out = new FileOutputStream(entry);
+		out.write("invalid".getBytes());
+		out.close();
+
+		analyzer.setCache(cache);
+		analyzer.analyzeClass(bytes, "Test");
+		classes.clear();
+		analyzer.analyzeClass(bytes, "Test");
+
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, dir.list().length);
+	}
+
+	@Test
+	public void should_report_cache_errors() throws IOException {
+		final File file = folder.newFile("cache");
+		analyzer.setCache(new AnalysisCache(file));
+		try {
+			analyzer.analyzeClass(createCompareClass("org/example/Foo"),
+					"Foo.class");
+			fail("expected exception");
+		} catch (IOException e) {
+			assertEquals("Error while analyzing Foo.class.", e.getMessage());
+		}
+	}
+
 	private void createClassfile(final String dir, final Class<?> source)
 			throws IOException {
 		File file = new File(folder.getRoot(), dir);
@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BundleCoverageWriter} and {@link BundleCoverageReader}.
+ */
+public class BundleCoverageReaderWriterTest {
+
+	private static final String[] CLASSES = {
+			"org/jacoco/core/analysis/Analyzer",
+			"org/jacoco/core/analysis/CoverageBuilder",
+			"org/jacoco/core/data/ExecutionData",
+			"org/jacoco/core/data/ExecutionDataStore",
+			"org/jacoco/core/internal/analysis/ClassAnalyzer",
+			"org/jacoco/core/internal/flow/LabelInfo" };
+
+	private ExecutionDataStore executionData;
+
+	private ByteArrayOutputStream buffer;
+
+	private BundleCoverageWriter writer;
+
+	@Before
+	public void setup() throws Exception {
+		executionData = new ExecutionDataStore();
+		final Random random = new Random(3);
+		for (final String name : CLASSES) {
+			final boolean[] probes = new boolean[1000];
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] = random.nextBoolean();
+			}
+			executionData.put(new ExecutionData(CRC64.classId(getClass(name)),
+					name, probes));
+		}
+		buffer = new ByteArrayOutputStream();
+		writer = new BundleCoverageWriter(buffer);
+	}
+
+	@Test
+	public void should_restore_analyzed_bundle() throws IOException {
+		final IBundleCoverage bundle = analyze("bundle");
+		assertTrue(bundle.getBoundaryCounter().getTotalCount() > 0);
+
+		writer.write(bundle);
+
+		assertSameNode(bundle, createReader().read());
+	}
+
+	@Test
+	public void should_restore_multiple_bundles_from_one_stream()
+			throws IOException {
+		final IBundleCoverage bundle1 = analyze("bundle1");
+		final IBundleCoverage bundle2 = analyze("bundle2");
+
+		writer.write(bundle1);
+		final int size = buffer.size();
+		writer.write(bundle2);
+
+		// Strings are only written once:
+		assertTrue(buffer.size() - size < size);
+		final BundleCoverageReader reader = createReader();
+		assertSameNode(bundle1, reader.read());
+		assertSameNode(bundle2, reader.read());
+	}
+
+	@Test
+	public void should_restore_bundle_written_package_by_package()
+			throws IOException {
+		final IBundleCoverage bundle = analyze("bundle");
+
+		writer.writeStart("bundle");
+		for (final IPackageCoverage p : bundle.getPackages()) {
+			writer.writePackage(p);
+		}
+		writer.writeEnd();
+
+		assertSameNode(bundle, createReader().read());
+	}
+
+	@Test
+	public void should_read_bundle_package_by_package() throws IOException {
+		final IBundleCoverage bundle = analyze("bundle");
+
+		writer.write(bundle);
+
+		final BundleCoverageReader reader = createReader();
+		assertEquals("bundle", reader.readStart());
+		final Iterator<IPackageCoverage> expected = bundle.getPackages()
+				.iterator();
+		IPackageCoverage p;
+		while ((p = reader.readPackage()) != null) {
+			assertSameNode(expected.next(), p);
+		}
+		assertFalse(expected.hasNext());
+	}
+
+	@Test
+	public void should_restore_nodes_without_line_information()
+			throws IOException {
+		final MethodCoverageImpl m = new MethodCoverageImpl("run", "()V",
+				null);
+		m.increment(CounterImpl.getInstance(3, 2),
+				CounterImpl.getInstance(1, 1), ISourceNode.UNKNOWN_LINE);
+		m.incrementMethodCounter();
+		final ClassCoverageImpl c = new ClassCoverageImpl("Foo", 42, true);
+		c.addMethod(m);
+		final IBundleCoverage bundle = new BundleCoverageImpl("bundle",
+				Collections.<IPackageCoverage> singletonList(
+						new PackageCoverageImpl("",
+								Collections.<IClassCoverage> singletonList(c),
+								Collections.<ISourceFileCoverage> emptyList())));
+
+		writer.write(bundle);
+
+		final IBundleCoverage actual = createReader().read();
+		assertSameNode(bundle, actual);
+		final IClassCoverage actualClass = actual.getPackages().iterator()
+				.next().getClasses().iterator().next();
+		assertEquals(ISourceNode.UNKNOWN_LINE, actualClass.getFirstLine());
+		assertEquals(null, actualClass.getInterfaceNames());
+	}
+
+	@Test
+	public void should_restore_source_files_without_classes()
+			throws IOException {
+		final IBundleCoverage bundle = new BundleCoverageImpl("bundle",
+				Collections.<IPackageCoverage> singletonList(
+						new PackageCoverageImpl("org/example",
+								Collections.<IClassCoverage> emptyList(),
+								Collections.<ISourceFileCoverage> singletonList(
+										new SourceFileCoverageImpl(
+												"Empty.java",
+												"org/example")))));
+
+		writer.write(bundle);
+
+		assertSameNode(bundle, createReader().read());
+	}
+
+	@Test
+	public void should_fail_for_invalid_string_reference() {
+		final BundleCoverageReader reader = new BundleCoverageReader(
+				new ByteArrayInputStream(new byte[] { 5 }));
+		try {
+			reader.read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid string reference 5.", e.getMessage());
+		}
+	}
+
+	private BundleCoverageReader createReader() {
+		return new BundleCoverageReader(
+				new ByteArrayInputStream(buffer.toByteArray()));
+	}
+
+	private IBundleCoverage analyze(final String name) throws IOException {
+		final CoverageBuilder builder = new CoverageBuilder();
+		final Analyzer analyzer = new Analyzer(executionData, builder);
+		analyzer.setBoundaryChecks("org.jacoco.core.data.*");
+		for (final String className : CLASSES) {
+			analyzer.analyzeClass(getClass(className), className);
+		}
+		return builder.getBundle(name);
+	}
+
+	private static byte[] getClass(final String name) throws IOException {
+		return TargetLoader.getClassDataAsBytes(
+				BundleCoverageReaderWriterTest.class.getClassLoader(),
+				name.replace('/', '.'));
+	}
+
+	private static void assertSameNode(final IBundleCoverage expected,
+			final IBundleCoverage actual) {
+		assertSameCounters(expected, actual);
+		final Iterator<IPackageCoverage> packages = actual.getPackages()
+				.iterator();
+		for (final IPackageCoverage e : expected.getPackages()) {
+			assertSameNode(e, packages.next());
+		}
+		assertFalse(packages.hasNext());
+	}
+
+	private static void assertSameNode(final IPackageCoverage expected,
+			final IPackageCoverage actual) {
+		assertSameCounters(expected, actual);
+		final Iterator<ISourceFileCoverage> sourceFiles = actual
+				.getSourceFiles().iterator();
+		for (final ISourceFileCoverage e : expected.getSourceFiles()) {
+			final ISourceFileCoverage a = sourceFiles.next();
+			assertSameLines(e, a);
+			assertEquals(e.getPackageName(), a.getPackageName());
+		}
+		assertEquals(expected.getClasses().size(), actual.getClasses().size());
+		final Iterator<IClassCoverage> classes = actual.getClasses()
+				.iterator();
+		for (final IClassCoverage e : expected.getClasses()) {
+			final IClassCoverage a = classes.next();
+			assertSameLines(e, a);
+			assertEquals(e.getId(), a.getId());
+			assertEquals(Boolean.valueOf(e.isNoMatch()),
+					Boolean.valueOf(a.isNoMatch()));
+			assertEquals(e.getSignature(), a.getSignature());
+			assertEquals(e.getSuperName(), a.getSuperName());
+			assertArrayEquals(e.getInterfaceNames(), a.getInterfaceNames());
+			assertEquals(e.getSourceFileName(), a.getSourceFileName());
+			final Iterator<IMethodCoverage> methods = a.getMethods()
+					.iterator();
+			for (final IMethodCoverage em : e.getMethods()) {
+				final IMethodCoverage am = methods.next();
+				assertSameLines(em, am);
+				assertEquals(em.getDesc(), am.getDesc());
+				assertEquals(em.getSignature(), am.getSignature());
+			}
+		}
+	}
+
+	private static void assertSameLines(final ISourceNode expected,
+			final ISourceNode actual) {
+		assertSameCounters(expected, actual);
+		assertEquals(expected.getFirstLine(), actual.getFirstLine());
+		assertEquals(expected.getLastLine(), actual.getLastLine());
+		for (int nr = expected.getFirstLine(); nr <= expected
+				.getLastLine(); nr++) {
+			final ILine e = expected.getLine(nr);
+			final ILine a = actual.getLine(nr);
+			assertEquals(e.getInstructionCounter(), a.getInstructionCounter());
+			assertEquals(e.getBranchCounter(), a.getBranchCounter());
+			assertEquals(e.getBoundaryCounter(), a.getBoundaryCounter());
+		}
+	}
+
+	private static void assertSameCounters(final ICoverageNode expected,
+			final ICoverageNode actual) {
+		assertEquals(expected.getElementType(), actual.getElementType());
+		assertEquals(expected.getName(), actual.getName());
+		for (final CounterEntity entity : CounterEntity.values()) {
+			assertEquals(entity.name(), expected.getCounter(entity),
+					actual.getCounter(entity));
+		}
+	}
+
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link StreamingCoverageBuilder}.
+ */
+public class StreamingCoverageBuilderTest {
+
+	private static final String[] CLASSES = {
+			"org/jacoco/core/analysis/Analyzer",
+			"org/jacoco/core/analysis/CoverageBuilder",
+			"org/jacoco/core/analysis/CoverageNodeImpl",
+			"org/jacoco/core/data/ExecutionData",
+			"org/jacoco/core/data/ExecutionDataStore",
+			"org/jacoco/core/internal/analysis/ClassAnalyzer",
+			"org/jacoco/core/internal/analysis/ClassModel",
+			"org/jacoco/core/internal/flow/ClassProbesAdapter",
+			"org/jacoco/core/internal/flow/LabelInfo" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutionDataStore executionData;
+
+	private AnalysisCache cache;
+
+	private StreamingCoverageBuilder builder;
+
+	@Before
+	public void setup() throws Exception {
+		executionData = new ExecutionDataStore();
+		final Random random = new Random(7);
+		for (final String name : CLASSES) {
+			final boolean[] probes = new boolean[1000];
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] = random.nextBoolean();
+			}
+			executionData.put(new ExecutionData(CRC64.classId(getClass(name)),
+					name, probes));
+		}
+		cache = new AnalysisCache(new File(folder.getRoot(), "cache"));
+		builder = new StreamingCoverageBuilder(executionData, cache);
+	}
+
+	@Test
+	public void should_create_same_coverage_as_coverage_builder()
+			throws IOException {
+		final CoverageBuilder expected = new CoverageBuilder();
+		analyze(expected);
+		analyze(builder);
+
+		final IBundleCoverage expectedBundle = expected.getBundle("bundle");
+		final List<IPackageCoverage> packages = new ArrayList<IPackageCoverage>();
+		final ICoverageNode bundle = builder.visitPackages("bundle",
+				collect(packages));
+		assertSameCounters(expectedBundle, bundle);
+		assertEquals(ICoverageNode.ElementType.BUNDLE, bundle.getElementType());
+		assertEquals(4, packages.size());
+
+		final Map<String, IPackageCoverage> expectedPackages = new HashMap<String, IPackageCoverage>();
+		for (final IPackageCoverage p : expectedBundle.getPackages()) {
+			expectedPackages.put(p.getName(), p);
+		}
+		final List<String> names = new ArrayList<String>();
+		for (final IPackageCoverage p : packages) {
+			names.add(p.getName());
+			final IPackageCoverage e = expectedPackages.get(p.getName());
+			assertSameCounters(e, p);
+			assertEquals(e.getClasses().size(), p.getClasses().size());
+			assertEquals(e.getSourceFiles().size(), p.getSourceFiles().size());
+			for (final ISourceFileCoverage s : p.getSourceFiles()) {
+				final ISourceFileCoverage es = find(e.getSourceFiles(),
+						s.getName());
+				assertSameCounters(es, s);
+				for (int l = s.getFirstLine(); l <= s.getLastLine(); l++) {
+					assertEquals(es.getLine(l).getStatus(),
+							s.getLine(l).getStatus());
+				}
+			}
+		}
+		final List<String> sorted = new ArrayList<String>(names);
+		Collections.sort(sorted);
+		assertEquals(sorted, names);
+	}
+
+	@Test
+	public void should_emit_every_package_once() throws IOException {
+		analyze(builder);
+		analyze(builder);
+		final List<IPackageCoverage> packages = new ArrayList<IPackageCoverage>();
+		builder.visitPackages("bundle", collect(packages));
+		final Set<String> names = new HashSet<String>();
+		int classes = 0;
+		for (final IPackageCoverage p : packages) {
+			assertTrue(names.add(p.getName()));
+			classes += p.getClasses().size();
+		}
+		assertEquals(CLASSES.length, classes);
+	}
+
+	@Test
+	public void should_propagate_exceptions_of_visitor() throws IOException {
+		analyze(builder);
+		try {
+			builder.visitPackages("bundle", new IPackageCoverageVisitor() {
+				public void visitPackage(final IPackageCoverage coverage)
+						throws IOException {
+					throw new IOException("Report failed");
+				}
+			});
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Report failed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void should_report_no_match_classes() throws IOException {
+		// Different id, reported as no match:
+		executionData = new ExecutionDataStore();
+		executionData.put(new ExecutionData(42,
+				"org/jacoco/core/analysis/CoverageBuilder", new boolean[0]));
+		builder = new StreamingCoverageBuilder(executionData, cache);
+		analyze(builder);
+		assertEquals(
+				Collections.singletonList(
+						"org/jacoco/core/analysis/CoverageBuilder"),
+				new ArrayList<String>(builder.getNoMatchClassNames()));
+		final List<IPackageCoverage> packages = new ArrayList<IPackageCoverage>();
+		builder.visitPackages("bundle", collect(packages));
+		boolean found = false;
+		for (final IPackageCoverage p : packages) {
+			for (final IClassCoverage c : p.getClasses()) {
+				if (c.isNoMatch()) {
+					assertEquals("org/jacoco/core/analysis/CoverageBuilder",
+							c.getName());
+					found = true;
+				}
+			}
+		}
+		assertTrue(found);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void should_fail_for_different_classes_with_same_name() {
+		builder.visitCoverage(new ClassCoverageImpl("org/Foo", 1, false));
+		builder.visitCoverage(new ClassCoverageImpl("org/Foo", 2, false));
+	}
+
+	@Test
+	public void should_fail_when_cache_entry_is_missing() throws IOException {
+		analyze(builder);
+		cache.clear();
+		try {
+			builder.visitPackages("bundle", collect(
+					new ArrayList<IPackageCoverage>()));
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertTrue(e.getMessage(),
+					e.getMessage().startsWith("Analysis result for class "));
+		}
+	}
+
+	@Test
+	public void should_create_and_clear_temporary_cache() throws IOException {
+		final AnalysisCache temp = AnalysisCache.createTemporary();
+		assertTrue(temp.getDirectory().isDirectory());
+		builder = new StreamingCoverageBuilder(executionData, temp);
+		final Analyzer analyzer = new Analyzer(executionData, builder);
+		analyzer.setCache(temp);
+		analyzer.analyzeClass(getClass(CLASSES[0]), CLASSES[0]);
+		assertEquals(1, temp.getDirectory().list().length);
+		temp.clear();
+		assertFalse(temp.getDirectory().exists());
+	}
+
+	private void analyze(final ICoverageVisitor visitor) throws IOException {
+		final Analyzer analyzer = new Analyzer(executionData, visitor);
+		analyzer.setCache(cache);
+		for (final String name : CLASSES) {
+			analyzer.analyzeClass(getClass(name), name);
+		}
+	}
+
+	private static IPackageCoverageVisitor collect(
+			final List<IPackageCoverage> packages) {
+		return new IPackageCoverageVisitor() {
+			public void visitPackage(final IPackageCoverage coverage) {
+				packages.add(coverage);
+			}
+		};
+	}
+
+	private static byte[] getClass(final String name) throws IOException {
+		return TargetLoader.getClassDataAsBytes(
+				StreamingCoverageBuilderTest.class.getClassLoader(),
+				name.replace('/', '.'));
+	}
+
+	private static ISourceFileCoverage find(
+			final Iterable<ISourceFileCoverage> sources, final String name) {
+		for (final ISourceFileCoverage s : sources) {
+			if (s.getName().equals(name)) {
+				return s;
+			}
+		}
+		throw new AssertionError(name);
+	}
+
+	private static void assertSameCounters(final ICoverageNode expected,
+			final ICoverageNode actual) {
+		assertEquals(expected.getName(), actual.getName());
+		for (final CounterEntity entity : CounterEntity.values()) {
+			assertEquals(entity.name(), expected.getCounter(entity),
+					actual.getCounter(entity));
+		}
+	}
+
+}
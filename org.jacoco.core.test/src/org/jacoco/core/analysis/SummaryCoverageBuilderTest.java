@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SummaryCoverageBuilder}.
+ */
+public class SummaryCoverageBuilderTest {
+
+	private SummaryCoverageBuilder builder;
+
+	private CoverageBuilder reference;
+
+	@Before
+	public void setup() {
+		builder = new SummaryCoverageBuilder();
+		reference = new CoverageBuilder();
+	}
+
+	@Test
+	public void getBundle_should_provide_same_counters_as_CoverageBuilder() {
+		addClass(1, false, "org/example/A", "A.java",
+				method(CounterImpl.COUNTER_1_0, 3, 4));
+		// Second class in same source file on a shared line:
+		addClass(2, false, "org/example/A$1", "A.java",
+				method(CounterImpl.COUNTER_0_1, 4, 5));
+		addClass(3, false, "org/example/B", "B.java",
+				method(CounterImpl.COUNTER_0_1, 1));
+		addClass(4, false, "org/example/NoSource", null,
+				method(CounterImpl.COUNTER_1_0, 7));
+		addClass(5, false, "other/C", "C.java",
+				method(CounterImpl.COUNTER_1_0, 1, 2, 3));
+
+		final IBundleCoverage expected = reference.getBundle("bundle");
+		final IBundleCoverage actual = builder.getBundle("bundle");
+
+		assertEquals("bundle", actual.getName());
+		assertCounters(expected, actual);
+
+		final Map<String, IPackageCoverage> expectedPackages = byName(
+				expected);
+		final Map<String, IPackageCoverage> actualPackages = byName(actual);
+		assertEquals(expectedPackages.keySet(), actualPackages.keySet());
+		for (final String name : expectedPackages.keySet()) {
+			final IPackageCoverage p = actualPackages.get(name);
+			assertCounters(expectedPackages.get(name), p);
+			assertTrue(p.getClasses().isEmpty());
+		}
+		assertEquals(2, actualPackages.get("org/example").getSourceFiles()
+				.size());
+	}
+
+	@Test
+	public void getBundle_should_create_package_for_classes_without_source() {
+		addClass(1, false, "NoSource", null,
+				method(CounterImpl.COUNTER_0_1, 1));
+
+		final Iterator<IPackageCoverage> packages = builder.getBundle("b")
+				.getPackages().iterator();
+		final IPackageCoverage p = packages.next();
+		assertEquals("", p.getName());
+		assertEquals(CounterImpl.COUNTER_0_1, p.getClassCounter());
+		assertEquals(Collections.emptyList(),
+				Arrays.asList(p.getSourceFiles().toArray()));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void visitCoverage_should_fail_for_different_classes_with_same_name() {
+		addClass(1, false, "Sample", null, method(CounterImpl.COUNTER_1_0, 1));
+		addClass(2, false, "Sample", null, method(CounterImpl.COUNTER_1_0, 1));
+	}
+
+	@Test
+	public void visitCoverage_should_ignore_duplicate_classes() {
+		addClass(1, false, "Sample", "Sample.java",
+				method(CounterImpl.COUNTER_1_0, 1));
+		addClass(1, false, "Sample", "Sample.java",
+				method(CounterImpl.COUNTER_1_0, 1));
+
+		assertEquals(1, builder.getBundle("b").getClassCounter()
+				.getTotalCount());
+		assertEquals(1, builder.getSourceFiles().size());
+	}
+
+	@Test
+	public void getNoMatchClassNames_should_return_classes_without_match() {
+		addClass(1, true, "Sample1", null, method(CounterImpl.COUNTER_1_0, 1));
+		addClass(2, false, "Sample2", null,
+				method(CounterImpl.COUNTER_1_0, 1));
+
+		assertEquals(Collections.singletonList("Sample1"),
+				Arrays.asList(builder.getNoMatchClassNames().toArray()));
+	}
+
+	private static void assertCounters(final ICoverageNode expected,
+			final ICoverageNode actual) {
+		for (final CounterEntity entity : CounterEntity.values()) {
+			assertEquals(entity.name(), expected.getCounter(entity),
+					actual.getCounter(entity));
+		}
+	}
+
+	private static Map<String, IPackageCoverage> byName(
+			final IBundleCoverage bundle) {
+		final Map<String, IPackageCoverage> result = new HashMap<String, IPackageCoverage>();
+		for (final IPackageCoverage p : bundle.getPackages()) {
+			result.put(p.getName(), p);
+		}
+		return result;
+	}
+
+	private static MethodCoverageImpl method(final ICounter instructions,
+			final int... lines) {
+		final MethodCoverageImpl m = new MethodCoverageImpl("doit", "()V",
+				null);
+		for (final int line : lines) {
+			m.increment(instructions, CounterImpl.COUNTER_0_0, line);
+		}
+		m.incrementMethodCounter();
+		return m;
+	}
+
+	private void addClass(final long id, final boolean nomatch,
+			final String name, final String source,
+			final MethodCoverageImpl method) {
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(name, id,
+				nomatch);
+		coverage.setSourceFileName(source);
+		coverage.addMethod(method);
+		builder.visitCoverage(coverage);
+		reference.visitCoverage(coverage);
+	}
+
+}
@@ -298,6 +298,136 @@ public class ExecutionDataReaderWriterTest {
 		writer.visitClassExecution(new ExecutionData(3, "Sample", createData(1)));
 	}
 
+	// === Compressed Blocks ===
+
+	@Test
+	public void testCompressed() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				true);
+		final boolean[] data1 = createData(15);
+		final boolean[] data2 = createData(185);
+		final boolean[] data3 = createData(3);
+		final boolean[] data4 = createData(42);
+		writer.visitSessionInfo(new SessionInfo("TestSession", 12, 34));
+		writer.visitClassExecution(new ExecutionData(1, "org/example/A", data1));
+		writer.visitClassExecution(new ExecutionData(2, "org/example/B", data2));
+		writer.visitClassExecution(new ExecutionData(3, "Default", data3));
+		writer.visitClassExecution(new ExecutionData(4, "org/C", data4));
+		writer.flush();
+
+		assertFalse(createReaderWithVisitors().read());
+		assertEquals("TestSession", sessionInfo.getId());
+		assertEquals("org/example/A", store.get(1).getName());
+		assertArrayEquals(data1, store.get(1).getProbes());
+		assertEquals("org/example/B", store.get(2).getName());
+		assertArrayEquals(data2, store.get(2).getProbes());
+		assertEquals("Default", store.get(3).getName());
+		assertArrayEquals(data3, store.get(3).getProbes());
+		assertEquals("org/C", store.get(4).getName());
+		assertArrayEquals(data4, store.get(4).getProbes());
+	}
+
+	@Test
+	public void testCompressedBlockWrittenOnFlush() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				true);
+		writer.visitSessionInfo(new SessionInfo("TestSession", 12, 34));
+		writer.visitClassExecution(new ExecutionData(1, "Sample",
+				createData(8)));
+		assertEquals(5, buffer.size());
+
+		writer.flush();
+
+		assertEquals(ExecutionDataWriter.BLOCK_COMPRESSED,
+				buffer.toByteArray()[5]);
+	}
+
+	@Test
+	public void testCompressedMultipleBlocks() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+				true);
+		for (int i = 0; i < 3000; i++) {
+			writer.visitClassExecution(new ExecutionData(i,
+					"org/example/p" + (i % 7) + "/Class" + i,
+					createData(4000)));
+		}
+		writer.flush();
+
+		assertFalse(createReaderWithVisitors().read());
+		assertEquals(3000, store.getContents().size());
+		assertEquals("org/example/p3/Class2999", store.get(2999).getName());
+		final int[] blocks = new int[1];
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(buffer.toByteArray())) {
+			@Override
+			protected boolean readBlock(byte blocktype) throws IOException {
+				if (blocktype == ExecutionDataWriter.BLOCK_COMPRESSED) {
+					blocks[0]++;
+				}
+				return super.readBlock(blocktype);
+			}
+		};
+		reader.setExecutionDataVisitor(new ExecutionDataStore());
+		reader.read();
+		assertTrue(blocks[0] > 1);
+	}
+
+	@Test
+	public void testCompressedIsSmaller() throws IOException {
+		final ExecutionDataStore content = new ExecutionDataStore();
+		for (int i = 0; i < 1000; i++) {
+			final boolean[] probes = new boolean[50];
+			probes[i % 50] = true;
+			content.put(new ExecutionData(i,
+					"org/example/some/long/package/name/Class" + i, probes));
+		}
+		content.accept(writer);
+		final int uncompressed = buffer.size();
+
+		buffer.reset();
+		final ExecutionDataWriter compressedWriter = new ExecutionDataWriter(
+				buffer, true);
+		content.accept(compressedWriter);
+		compressedWriter.flush();
+
+		assertTrue(buffer.size() * 4 < uncompressed);
+	}
+
+	@Test
+	public void testCompressedAfterUncompressed() throws IOException {
+		final boolean[] data1 = createData(15);
+		final boolean[] data2 = createData(20);
+		writer.visitClassExecution(new ExecutionData(1, "Sample1", data1));
+		final ExecutionDataWriter compressedWriter = new ExecutionDataWriter(
+				buffer, true);
+		compressedWriter.visitClassExecution(
+				new ExecutionData(2, "Sample2", data2));
+		compressedWriter.flush();
+
+		assertFalse(createReaderWithVisitors().read());
+		assertArrayEquals(data1, store.get(1).getProbes());
+		assertArrayEquals(data2, store.get(2).getProbes());
+	}
+
+	@Test
+	public void testInvalidCompressedBlock() throws IOException {
+		buffer.write(ExecutionDataWriter.BLOCK_COMPRESSED);
+		buffer.write(10);
+		buffer.write(3);
+		buffer.write(1);
+		buffer.write(2);
+		buffer.write(3);
+		try {
+			createReaderWithVisitors().read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid compressed block.", e.getMessage());
+		}
+	}
+
 	private ExecutionDataReader createReaderWithVisitors() throws IOException {
 		final ExecutionDataReader reader = createReader();
 		reader.setExecutionDataVisitor(store);
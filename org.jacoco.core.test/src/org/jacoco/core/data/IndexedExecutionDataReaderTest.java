@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link IndexedExecutionDataReader}.
+ */
+public class IndexedExecutionDataReaderTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private IndexedExecutionDataReader reader;
+
+	@Before
+	public void setup() throws IOException {
+		file = folder.newFile("test.exec");
+	}
+
+	@After
+	public void teardown() throws IOException {
+		if (reader != null) {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void should_use_index_when_written() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		final IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+				out);
+		writeContent(writer);
+		writer.writeIndex();
+		out.close();
+
+		reader = new IndexedExecutionDataReader(file);
+
+		assertTrue(reader.isIndexed());
+		assertContent();
+	}
+
+	@Test
+	public void should_scan_file_without_index() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		writeContent(new ExecutionDataWriter(out));
+		out.close();
+
+		reader = new IndexedExecutionDataReader(file);
+
+		assertFalse(reader.isIndexed());
+		assertContent();
+	}
+
+	@Test
+	public void should_decode_compressed_content() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		writeContent(new ExecutionDataWriter(out, true));
+		out.close();
+
+		reader = new IndexedExecutionDataReader(file);
+
+		assertFalse(reader.isIndexed());
+		assertContent();
+	}
+
+	@Test
+	public void should_merge_compressed_and_uncompressed_content()
+			throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { true, false }));
+		out.close();
+		out = new FileOutputStream(file, true);
+		final ExecutionDataWriter compressed = new ExecutionDataWriter(out,
+				true);
+		compressed.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { false, true }));
+		compressed.visitClassExecution(
+				new ExecutionData(2, "Bar", new boolean[] { true }));
+		compressed.flush();
+		out.close();
+
+		reader = new IndexedExecutionDataReader(file);
+
+		assertProbes(new boolean[] { true, true },
+				reader.get(1).getProbes());
+		assertProbes(new boolean[] { true }, reader.get(2).getProbes());
+		assertEquals(Collections.singletonList(Long.valueOf(2)),
+				new ArrayList<Long>(reader.getIds("Bar")));
+	}
+
+	@Test
+	public void should_scan_file_when_content_appended_after_index()
+			throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+				out);
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { true, false }));
+		writer.writeIndex();
+		out.close();
+		out = new FileOutputStream(file, true);
+		writer = new IndexedExecutionDataWriter(out);
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { false, true }));
+		writer.visitClassExecution(
+				new ExecutionData(2, "Bar", new boolean[] { true }));
+		out.close();
+
+		reader = new IndexedExecutionDataReader(file);
+
+		assertFalse(reader.isIndexed());
+		assertProbes(new boolean[] { true, true },
+				reader.get(1).getProbes());
+		assertEquals(Arrays.asList(Long.valueOf(1), Long.valueOf(2)),
+				new ArrayList<Long>(reader.getIds()));
+	}
+
+	@Test
+	public void should_use_cumulative_index_of_appended_content()
+			throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+				out);
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { true, false }));
+		writer.writeIndex();
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { false, true }));
+		writer.writeIndex();
+		out.close();
+
+		reader = new IndexedExecutionDataReader(file);
+
+		assertTrue(reader.isIndexed());
+		assertProbes(new boolean[] { true, true },
+				reader.get(1).getProbes());
+	}
+
+	@Test
+	public void should_merge_duplicate_entries() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		final IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+				out);
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { true, false, false }));
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { false, false, true }));
+		writer.writeIndex();
+		out.close();
+
+		reader = new IndexedExecutionDataReader(file);
+
+		assertProbes(new boolean[] { true, false, true },
+				reader.get(1).getProbes());
+		assertEquals(Collections.singletonList(Long.valueOf(1)),
+				new ArrayList<Long>(reader.getIds()));
+	}
+
+	@Test
+	public void get_should_return_null_for_unknown_id() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		writeContent(new IndexedExecutionDataWriter(out));
+		out.close();
+
+		reader = new IndexedExecutionDataReader(file);
+
+		assertNull(reader.get(42));
+		assertTrue(reader.getIds("Unknown").isEmpty());
+	}
+
+	@Test
+	public void should_be_readable_sequentially() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		final IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+				out);
+		writeContent(writer);
+		writer.writeIndex();
+		out.close();
+
+		final InputStream in = new FileInputStream(file);
+		final ExecutionDataReader sequential = new ExecutionDataReader(in);
+		final SessionInfoStore sessionStore = new SessionInfoStore();
+		final ExecutionDataStore dataStore = new ExecutionDataStore();
+		sequential.setSessionInfoVisitor(sessionStore);
+		sequential.setExecutionDataVisitor(dataStore);
+		assertFalse(sequential.read());
+		in.close();
+
+		assertEquals(2, sessionStore.getInfos().size());
+		assertEquals(3, dataStore.getContents().size());
+	}
+
+	@Test
+	public void should_skip_index_without_decoding_when_read_sequentially()
+			throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		final IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+				out);
+		writeContent(writer);
+		final long indexStart = file.length();
+		writer.writeIndex();
+		out.close();
+
+		// Invalidate the index content between leading and trailing length:
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(indexStart + 9);
+		while (raf.getFilePointer() < raf.length() - 8) {
+			raf.write(0xFF);
+		}
+		raf.close();
+
+		final InputStream in = new FileInputStream(file);
+		final ExecutionDataReader sequential = new ExecutionDataReader(in);
+		final ExecutionDataStore dataStore = new ExecutionDataStore();
+		sequential.setSessionInfoVisitor(new SessionInfoStore());
+		sequential.setExecutionDataVisitor(dataStore);
+		assertFalse(sequential.read());
+		in.close();
+
+		assertEquals(3, dataStore.getContents().size());
+	}
+
+	@Test
+	public void should_reject_invalid_file() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		out.write("invalid content".getBytes());
+		out.close();
+
+		try {
+			reader = new IndexedExecutionDataReader(file);
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Invalid execution data file.", e.getMessage());
+		}
+	}
+
+	private static void assertProbes(final boolean[] expected,
+			final boolean[] actual) {
+		assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+	}
+
+	private void writeContent(final ExecutionDataWriter writer)
+			throws IOException {
+		writer.visitSessionInfo(new SessionInfo("s1", 1, 2));
+		writer.visitClassExecution(new ExecutionData(1, "Foo",
+				new boolean[] { true, false }));
+		writer.visitSessionInfo(new SessionInfo("s2", 3, 4));
+		writer.visitClassExecution(
+				new ExecutionData(2, "Bar", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(3, "Bar", new boolean[] { true, true }));
+		// Classes without hits are not contained in the index:
+		writer.visitClassExecution(
+				new ExecutionData(4, "Empty", new boolean[] { false }));
+		writer.flush();
+	}
+
+	private void assertContent() throws IOException {
+		final List<SessionInfo> sessions = new ArrayList<SessionInfo>();
+		reader.accept(new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+				sessions.add(info);
+			}
+		});
+		assertEquals(2, sessions.size());
+		assertEquals("s1", sessions.get(0).getId());
+		assertEquals("s2", sessions.get(1).getId());
+
+		assertEquals(
+				Arrays.asList(Long.valueOf(1), Long.valueOf(2),
+						Long.valueOf(3)),
+				new ArrayList<Long>(reader.getIds()));
+		assertEquals(Arrays.asList(Long.valueOf(2), Long.valueOf(3)),
+				new ArrayList<Long>(reader.getIds("Bar")));
+
+		final ExecutionData foo = reader.get(1);
+		assertEquals("Foo", foo.getName());
+		assertProbes(new boolean[] { true, false }, foo.getProbes());
+
+		final ExecutionDataStore store = new ExecutionDataStore();
+		reader.accept(store);
+		assertEquals(3, store.getContents().size());
+	}
+
+}
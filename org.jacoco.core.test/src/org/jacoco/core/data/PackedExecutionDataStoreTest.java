@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.jacoco.core.data.PackedExecutionDataTest.packed;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PackedExecutionDataStore}.
+ */
+public class PackedExecutionDataStoreTest implements IExecutionDataVisitor {
+
+	private PackedExecutionDataStore store;
+
+	private Map<Long, ExecutionData> dataOutput;
+
+	@Before
+	public void setup() {
+		store = new PackedExecutionDataStore();
+		dataOutput = new HashMap<Long, ExecutionData>();
+	}
+
+	@Test
+	public void testEmpty() {
+		assertNull(store.get(123));
+		assertFalse(store.contains("org/jacoco/example/Foo"));
+		assertEquals(0, store.size());
+		store.accept(this);
+		assertTrue(dataOutput.isEmpty());
+	}
+
+	@Test
+	public void testPut() {
+		store.put(new ExecutionData(1000, "Sample", new boolean[] { false,
+				false, true }));
+		assertTrue(store.contains("Sample"));
+		assertEquals(1, store.size());
+		store.accept(this);
+		assertEquals(1, dataOutput.size());
+		assertProbes(dataOutput.get(Long.valueOf(1000)), false, false, true);
+	}
+
+	@Test
+	public void testPutPacked() {
+		final PackedExecutionData data = packed(1000, "Sample", true);
+		store.put(data);
+		assertSame(data, store.get(1000));
+	}
+
+	@Test
+	public void testMerge() {
+		store.put(new ExecutionData(1000, "Sample", new boolean[] { false,
+				true, false }));
+		store.visitClassExecution(new ExecutionData(1000, "Sample",
+				new boolean[] { true, false, false }));
+		store.accept(this);
+		assertProbes(dataOutput.get(Long.valueOf(1000)), true, true, false);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMergeNegative() {
+		store.put(new ExecutionData(1000, "Sample", new boolean[] { true }));
+		store.put(new ExecutionData(1000, "Sample", new boolean[] { true,
+				false }));
+	}
+
+	@Test
+	public void testSubtract() {
+		store.put(new ExecutionData(1000, "Sample", new boolean[] { false,
+				true, true }));
+		store.subtract(new ExecutionData(1000, "Sample", new boolean[] { true,
+				false, true }));
+		store.accept(this);
+		assertProbes(dataOutput.get(Long.valueOf(1000)), false, true, false);
+	}
+
+	@Test
+	public void testSubtractOtherId() {
+		store.put(new ExecutionData(1000, "Sample1", new boolean[] { true }));
+		store.subtract(new ExecutionData(2000, "Sample2",
+				new boolean[] { true }));
+		store.accept(this);
+		assertEquals(1, dataOutput.size());
+		assertProbes(dataOutput.get(Long.valueOf(1000)), true);
+	}
+
+	@Test
+	public void testSubtractStore() {
+		store.put(new ExecutionData(1000, "Sample1", new boolean[] { true,
+				true }));
+		store.put(new ExecutionData(1001, "Sample2", new boolean[] { true }));
+		final PackedExecutionDataStore other = new PackedExecutionDataStore();
+		other.put(new ExecutionData(1000, "Sample1", new boolean[] { false,
+				true }));
+		other.put(new ExecutionData(1002, "Sample3", new boolean[] { true }));
+
+		store.subtract(other);
+
+		store.accept(this);
+		assertProbes(dataOutput.get(Long.valueOf(1000)), true, false);
+		assertProbes(dataOutput.get(Long.valueOf(1001)), true);
+	}
+
+	@Test
+	public void testEquivalentToExecutionDataStore() {
+		final ExecutionDataStore expected = new ExecutionDataStore();
+		final ExecutionData[] data = new ExecutionData[] {
+				new ExecutionData(1, "A", new boolean[] { true, false, false }),
+				new ExecutionData(2, "B", new boolean[] { false, true }),
+				new ExecutionData(1, "A", new boolean[] { false, false, true }) };
+		for (final ExecutionData d : data) {
+			expected.put(new ExecutionData(d.getId(), d.getName(), d
+					.getProbes().clone()));
+			store.put(d);
+		}
+		final ExecutionData s = new ExecutionData(1, "A", new boolean[] {
+				true, true, false });
+		expected.subtract(s);
+		store.subtract(s);
+
+		store.accept(this);
+		assertEquals(2, dataOutput.size());
+		for (final ExecutionData e : expected.getContents()) {
+			assertEquals(Arrays.toString(e.getProbes()),
+					Arrays.toString(dataOutput.get(Long.valueOf(e.getId()))
+							.getProbes()));
+		}
+	}
+
+	private static void assertProbes(final ExecutionData data,
+			final boolean... expected) {
+		assertEquals(Arrays.toString(expected),
+				Arrays.toString(data.getProbes()));
+	}
+
+	// === IExecutionDataVisitor ===
+
+	public void visitClassExecution(final ExecutionData data) {
+		dataOutput.put(Long.valueOf(data.getId()), data);
+	}
+
+}
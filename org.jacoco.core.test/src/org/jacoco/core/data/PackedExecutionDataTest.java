@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PackedExecutionData}.
+ */
+public class PackedExecutionDataTest {
+
+	@Test
+	public void testCreateEmpty() {
+		final PackedExecutionData e = new PackedExecutionData(5, "Example",
+				130);
+		assertEquals(5, e.getId());
+		assertEquals("Example", e.getName());
+		assertEquals(130, e.getProbeCount());
+		assertFalse(e.hasHits());
+		assertEquals(0, e.getHitCount());
+	}
+
+	@Test
+	public void testConversion() {
+		final Random random = new Random(42);
+		for (final int length : new int[] { 0, 1, 63, 64, 65, 200 }) {
+			final boolean[] probes = new boolean[length];
+			for (int i = 0; i < length; i++) {
+				probes[i] = random.nextBoolean();
+			}
+			final PackedExecutionData e = new PackedExecutionData(
+					new ExecutionData(3, "Example", probes));
+			for (int i = 0; i < length; i++) {
+				assertEquals(probes[i], e.getProbe(i));
+			}
+			final ExecutionData d = e.toExecutionData();
+			assertEquals(3, d.getId());
+			assertEquals("Example", d.getName());
+			assertEquals(Arrays.toString(probes),
+					Arrays.toString(d.getProbes()));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetProbeNegative() {
+		new PackedExecutionData(5, "Example", 64).getProbe(64);
+	}
+
+	@Test
+	public void testReset() {
+		final PackedExecutionData e = packed(5, "Example", true, false, true);
+		e.reset();
+		assertFalse(e.hasHits());
+	}
+
+	@Test
+	public void testHasHits() {
+		final boolean[] probes = new boolean[100];
+		probes[99] = true;
+		final PackedExecutionData e = new PackedExecutionData(
+				new ExecutionData(5, "Example", probes));
+		assertTrue(e.hasHits());
+		assertEquals(1, e.getHitCount());
+	}
+
+	@Test
+	public void testGetHitCount() {
+		final PackedExecutionData e = packed(5, "Example", true, false, true,
+				true);
+		assertEquals(3, e.getHitCount());
+	}
+
+	@Test
+	public void testMerge() {
+		final PackedExecutionData a = packed(5, "Example", false, true, false,
+				true);
+		final PackedExecutionData b = packed(5, "Example", false, false, true,
+				true);
+		a.merge(b);
+
+		assertProbes(a, false, true, true, true);
+		assertProbes(b, false, false, true, true);
+	}
+
+	@Test
+	public void testMergeSubtract() {
+		final PackedExecutionData a = packed(5, "Example", false, true, false,
+				true);
+		final PackedExecutionData b = packed(5, "Example", false, false, true,
+				true);
+		a.merge(b, false);
+
+		assertProbes(a, false, true, false, false);
+		assertProbes(b, false, false, true, true);
+	}
+
+	@Test
+	public void testMergeIsCompatibleWithExecutionData() {
+		final Random random = new Random(7);
+		final boolean[] p1 = new boolean[150];
+		final boolean[] p2 = new boolean[150];
+		for (int i = 0; i < p1.length; i++) {
+			p1[i] = random.nextBoolean();
+			p2[i] = random.nextBoolean();
+		}
+		for (final boolean flag : new boolean[] { true, false }) {
+			final ExecutionData expected = new ExecutionData(1, "Example",
+					p1.clone());
+			expected.merge(new ExecutionData(1, "Example", p2), flag);
+			final PackedExecutionData actual = new PackedExecutionData(
+					new ExecutionData(1, "Example", p1));
+			actual.merge(new PackedExecutionData(new ExecutionData(1,
+					"Example", p2)), flag);
+			assertEquals(Arrays.toString(expected.getProbes()),
+					Arrays.toString(actual.toExecutionData().getProbes()));
+		}
+	}
+
+	@Test
+	public void testAssertCompatibility() {
+		final PackedExecutionData e = new PackedExecutionData(5, "Example", 3);
+		e.assertCompatibility(5, "Example", 3);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAssertCompatibilityNegative1() {
+		final PackedExecutionData e = new PackedExecutionData(5, "Example", 3);
+		e.assertCompatibility(55, "Example", 3);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAssertCompatibilityNegative2() {
+		final PackedExecutionData e = new PackedExecutionData(5, "Example", 3);
+		e.assertCompatibility(5, "Exxxample", 3);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAssertCompatibilityNegative3() {
+		final PackedExecutionData e = new PackedExecutionData(5, "Example", 3);
+		e.assertCompatibility(5, "Example", 4);
+	}
+
+	@Test
+	public void testToString() {
+		final PackedExecutionData e = new PackedExecutionData(
+				Long.MAX_VALUE, "Example", 3);
+		assertEquals("PackedExecutionData[name=Example, id=7fffffffffffffff]",
+				e.toString());
+	}
+
+	static PackedExecutionData packed(final long id, final String name,
+			final boolean... probes) {
+		return new PackedExecutionData(new ExecutionData(id, name, probes));
+	}
+
+	private static void assertProbes(final PackedExecutionData data,
+			final boolean... expected) {
+		assertEquals(Arrays.toString(expected),
+				Arrays.toString(data.toExecutionData().getProbes()));
+	}
+
+}
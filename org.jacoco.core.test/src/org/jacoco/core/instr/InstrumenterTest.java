@@ -25,7 +25,11 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
@@ -36,6 +40,7 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.analysis.AnalyzerTest;
+import org.jacoco.core.internal.InputStreams;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
@@ -43,6 +48,7 @@ import org.jacoco.core.test.TargetLoader;
 import org.junit.Before;
 import org.junit.Test;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
@@ -76,10 +82,13 @@ public class InstrumenterTest {
 
 		long classId;
 
+		int probeCount;
+
 		public int generateDataAccessor(final long classId,
 				final String classname, final int probeCount,
 				final MethodVisitor mv) {
 			this.classId = classId;
+			this.probeCount = probeCount;
 			InstrSupport.push(mv, probeCount);
 			mv.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_BOOLEAN);
 			return 1;
@@ -117,6 +126,44 @@ public class InstrumenterTest {
 		return cw.toByteArray();
 	}
 
+	@Test
+	public void should_add_boundary_probes_only_for_matching_classes()
+			throws Exception {
+		instrumenter.setBoundaryChecks("org.example.*");
+
+		instrumenter.instrument(createCompareClass("org/example/Foo"), "");
+		assertEquals(4, accessorGenerator.probeCount);
+
+		instrumenter.instrument(createCompareClass("org/other/Bar"), "");
+		assertEquals(2, accessorGenerator.probeCount);
+	}
+
+	@Test
+	public void should_not_add_boundary_probes_by_default()
+			throws Exception {
+		instrumenter.instrument(createCompareClass("org/example/Foo"), "");
+		assertEquals(2, accessorGenerator.probeCount);
+	}
+
+	private static byte[] createCompareClass(final String name) {
+		final ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_5, 0, name, null, "java/lang/Object", null);
+		final MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "m",
+				"(II)V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ILOAD, 0);
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		final Label target = new Label();
+		mv.visitJumpInsn(Opcodes.IF_ICMPGE, target);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitLabel(target);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(2, 2);
+		mv.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
 	@Test
 	public void testInstrumentClass() throws Exception {
 		byte[] bytes = instrumenter.instrument(
@@ -344,6 +391,84 @@ public class InstrumenterTest {
 		}
 	}
 
+	@Test
+	public void instrumentAll_should_create_same_zip_content_with_executor()
+			throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ZipOutputStream zipout = new ZipOutputStream(buffer);
+		for (int i = 0; i < 50; i++) {
+			zipout.putNextEntry(new ZipEntry("Foo" + i + ".class"));
+			zipout.write(createCompareClass("Foo" + i));
+			if (i == 25) {
+				zipout.putNextEntry(new ZipEntry("readme.txt"));
+				zipout.write("text".getBytes());
+			}
+		}
+		zipout.finish();
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+
+		final int expectedCount = instrumenter.instrumentAll(
+				new ByteArrayInputStream(buffer.toByteArray()), expected,
+				"Test");
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		final int actualCount;
+		try {
+			instrumenter.setExecutor(executor);
+			actualCount = instrumenter.instrumentAll(
+					new ByteArrayInputStream(buffer.toByteArray()), actual,
+					"Test");
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(50, expectedCount);
+		assertEquals(expectedCount, actualCount);
+		final List<String> expectedEntries = readZipEntries(
+				expected.toByteArray());
+		assertEquals(51 * 2, expectedEntries.size());
+		assertEquals(expectedEntries, readZipEntries(actual.toByteArray()));
+	}
+
+	private static List<String> readZipEntries(final byte[] zip)
+			throws IOException {
+		final List<String> entries = new ArrayList<String>();
+		final ZipInputStream zipin = new ZipInputStream(
+				new ByteArrayInputStream(zip));
+		ZipEntry entry;
+		while ((entry = zipin.getNextEntry()) != null) {
+			entries.add(entry.getName());
+			entries.add(Arrays.toString(InputStreams.readFully(zipin)));
+		}
+		return entries;
+	}
+
+	@Test
+	public void instrumentAll_should_report_broken_class_in_zip_with_executor()
+			throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ZipOutputStream zipout = new ZipOutputStream(buffer);
+		zipout.putNextEntry(new ZipEntry("Test.class"));
+		final byte[] brokenclass = TargetLoader.getClassDataAsBytes(getClass());
+		brokenclass[10] = 0x23;
+		zipout.write(brokenclass);
+		zipout.finish();
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			instrumenter.setExecutor(executor);
+			instrumenter.instrumentAll(
+					new ByteArrayInputStream(buffer.toByteArray()),
+					new ByteArrayOutputStream(), "test.zip");
+			fail();
+		} catch (IOException e) {
+			assertEquals("Error while instrumenting test.zip@Test.class.",
+					e.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	/**
 	 * Triggers exception in
 	 * {@link Instrumenter#instrumentGzip(InputStream, OutputStream, String)}.
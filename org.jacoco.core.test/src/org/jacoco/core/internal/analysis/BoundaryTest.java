@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Boundary}.
+ */
+public class BoundaryTest {
+
+	@Test
+	public void getCounter_should_count_covered_checks() {
+		Boundary b = new Boundary(10, 2, 0x2);
+
+		assertEquals(10, b.getLine());
+		assertEquals(2, b.getCheckCount());
+		assertFalse(b.isCovered(0));
+		assertTrue(b.isCovered(1));
+		assertEquals(CounterImpl.getInstance(1, 1), b.getCounter());
+	}
+
+	@Test
+	public void getCounter_should_support_max_checks() {
+		Boundary b = new Boundary(10, Boundary.MAX_CHECKS, -1L);
+
+		assertTrue(b.isCovered(Boundary.MAX_CHECKS - 1));
+		assertEquals(CounterImpl.getInstance(0, Boundary.MAX_CHECKS),
+				b.getCounter());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_should_reject_too_many_checks() {
+		new Boundary(10, Boundary.MAX_CHECKS + 1, 0);
+	}
+
+	@Test
+	public void merge_should_calculate_union_of_covered_checks() {
+		Boundary b1 = new Boundary(10, 2, 0x1);
+		Boundary b2 = new Boundary(10, 2, 0x2);
+
+		Boundary m = b1.merge(b2);
+
+		assertEquals(10, m.getLine());
+		assertEquals(CounterImpl.getInstance(0, 2), m.getCounter());
+	}
+
+	@Test
+	public void merge_should_return_existing_instance_without_new_coverage() {
+		Boundary b1 = new Boundary(10, 2, 0x3);
+		Boundary b2 = new Boundary(10, 2, 0x1);
+
+		assertSame(b1, b1.merge(b2));
+		assertSame(b1, b2.merge(b1));
+		assertSame(b1, b1.merge(null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void merge_should_reject_different_lines() {
+		new Boundary(10, 2, 0).merge(new Boundary(11, 2, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void merge_should_reject_different_number_of_checks() {
+		new Boundary(10, 2, 0).merge(new Boundary(10, 3, 0));
+	}
+
+}
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Unit tests for {@link ClassModel}. The coverage calculated from a recorded
+ * model is compared with the coverage of a direct analysis for a variety of
+ * class files.
+ */
+public class ClassModelTest {
+
+	private static final String[] CLASSES = { "java/lang/String",
+			"java/util/HashMap", "java/util/Scanner",
+			"java/util/concurrent/ConcurrentHashMap",
+			"org/jacoco/core/internal/analysis/ClassAnalyzer",
+			"org/jacoco/core/internal/analysis/MethodCoverageCalculator",
+			"org/jacoco/core/internal/analysis/filter/FinallyFilter",
+			"org/jacoco/core/analysis/Analyzer",
+			"org/jacoco/core/internal/analysis/ClassModelTest" };
+
+	private final StringPool stringPool = new StringPool();
+
+	private final Random random = new Random(42);
+
+	@Test
+	public void should_calculate_same_coverage_as_analysis()
+			throws IOException {
+		for (final String name : CLASSES) {
+			final byte[] bytes = TargetLoader.getClassDataAsBytes(
+					ClassModelTest.class.getClassLoader(),
+					name.replace('/', '.'));
+			for (final boolean boundary : new boolean[] { false, true }) {
+				assertSameCoverage(bytes, boundary);
+			}
+		}
+	}
+
+	private void assertSameCoverage(final byte[] bytes, final boolean boundary)
+			throws IOException {
+		final ClassModel model = new ClassModel(
+				new ClassReader(bytes).getClassName(), boundary);
+		final boolean[] probes1 = randomProbes();
+		final ClassCoverageImpl expected1 = analyze(bytes, probes1, boundary,
+				model);
+
+		final ClassModel copy = copy(model);
+		assertEquals(boundary, copy.hasBoundaryChecks());
+		assertSameCoverage(expected1,
+				copy.calculate(expected1.getId(), false, probes1, stringPool));
+
+		final boolean[] probes2 = randomProbes();
+		final ClassCoverageImpl expected2 = analyze(bytes, probes2, boundary,
+				null);
+		assertSameCoverage(expected2,
+				copy.calculate(expected2.getId(), false, probes2, stringPool));
+
+		final ClassCoverageImpl expected3 = analyze(bytes, null, boundary,
+				null);
+		assertSameCoverage(expected3,
+				copy.calculate(expected3.getId(), false, null, stringPool));
+	}
+
+	@Test
+	public void should_keep_class_properties() throws IOException {
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(ClassModelTest.class);
+		final ClassModel model = new ClassModel(
+				"org/jacoco/core/internal/analysis/ClassModelTest", false);
+		analyze(bytes, null, false, model);
+
+		final ClassCoverageImpl coverage = copy(model).calculate(42, true,
+				null, stringPool);
+
+		assertEquals("org/jacoco/core/internal/analysis/ClassModelTest",
+				coverage.getName());
+		assertEquals(42, coverage.getId());
+		assertTrue(coverage.isNoMatch());
+		assertEquals("java/lang/Object", coverage.getSuperName());
+		assertNull(coverage.getSignature());
+		assertEquals(0, coverage.getInterfaceNames().length);
+		assertEquals("ClassModelTest.java", coverage.getSourceFileName());
+		assertFalse(coverage.getMethods().isEmpty());
+	}
+
+	private boolean[] randomProbes() {
+		final boolean[] probes = new boolean[4096];
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] = random.nextBoolean();
+		}
+		return probes;
+	}
+
+	private ClassCoverageImpl analyze(final byte[] bytes,
+			final boolean[] probes, final boolean boundary,
+			final ClassModel model) {
+		final ClassReader reader = InstrSupport.classReaderFor(bytes);
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(
+				reader.getClassName(), 0, false);
+		final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes,
+				stringPool);
+		analyzer.setModel(model);
+		reader.accept(new ClassProbesAdapter(analyzer, false, boundary), 0);
+		return coverage;
+	}
+
+	private static ClassModel copy(final ClassModel model) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		model.write(out);
+		return ClassModel.read(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	private static void assertSameCoverage(final IClassCoverage expected,
+			final IClassCoverage actual) {
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getSourceFileName(),
+				actual.getSourceFileName());
+		final List<IMethodCoverage> actualMethods = new ArrayList<IMethodCoverage>(
+				actual.getMethods());
+		assertEquals(expected.getMethods().size(), actualMethods.size());
+		final Iterator<IMethodCoverage> i = actualMethods.iterator();
+		for (final IMethodCoverage e : expected.getMethods()) {
+			final IMethodCoverage a = i.next();
+			final String location = expected.getName() + "." + e.getName()
+					+ e.getDesc();
+			assertEquals(location, e.getName(), a.getName());
+			assertEquals(location, e.getDesc(), a.getDesc());
+			assertEquals(location, e.getSignature(), a.getSignature());
+			assertSameCounters(location, e, a);
+			assertEquals(location, e.getFirstLine(), a.getFirstLine());
+			assertEquals(location, e.getLastLine(), a.getLastLine());
+			for (int nr = e.getFirstLine(); nr <= e.getLastLine(); nr++) {
+				final ILine el = e.getLine(nr);
+				final ILine al = a.getLine(nr);
+				final String l = location + ":" + nr;
+				assertEquals(l, el.getStatus(), al.getStatus());
+				assertCounter(l, el.getInstructionCounter(),
+						al.getInstructionCounter());
+				assertCounter(l, el.getBranchCounter(), al.getBranchCounter());
+				assertCounter(l, el.getBoundaryCounter(),
+						al.getBoundaryCounter());
+			}
+		}
+		assertSameCounters(expected.getName(), expected, actual);
+	}
+
+	private static void assertSameCounters(final String location,
+			final ICoverageNode expected, final ICoverageNode actual) {
+		for (final CounterEntity entity : CounterEntity.values()) {
+			assertCounter(location + " " + entity,
+					expected.getCounter(entity), actual.getCounter(entity));
+		}
+	}
+
+	private static void assertCounter(final String message,
+			final ICounter expected, final ICounter actual) {
+		assertEquals(message, expected.getMissedCount(),
+				actual.getMissedCount());
+		assertEquals(message, expected.getCoveredCount(),
+				actual.getCoveredCount());
+	}
+
+}
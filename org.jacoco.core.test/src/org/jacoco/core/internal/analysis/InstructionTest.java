@@ -159,6 +159,29 @@ public class InstructionTest {
 				instruction.getBranchCounter());
 	}
 
+	@Test
+	public void merge_should_calculate_superset_of_covered_boundary_checks() {
+		instruction.setBoundary(new Boundary(123, 2, 0x1));
+		Instruction i2 = new Instruction(123);
+		i2.setBoundary(new Boundary(123, 2, 0x2));
+
+		instruction = instruction.merge(i2);
+
+		assertEquals(CounterImpl.getInstance(0, 2),
+				instruction.getBoundaryCounter());
+	}
+
+	@Test
+	public void merge_should_keep_boundary_of_other_instruction() {
+		Instruction i2 = new Instruction(123);
+		i2.setBoundary(new Boundary(123, 2, 0x2));
+
+		instruction = instruction.merge(i2);
+
+		assertEquals(CounterImpl.getInstance(1, 1),
+				instruction.getBoundaryCounter());
+	}
+
 	@Test
 	public void replaceBranches_should_calculate_coverage_on_new_branches() {
 		Instruction i1 = new Instruction(1);
@@ -187,4 +187,40 @@ public class InstructionsBuilderTest {
 				map.get(i1).getInstructionCounter());
 	}
 
+	@Test
+	public void addBoundary_should_record_coverage_of_checks() {
+		builder.setCurrentLine(10);
+		InsnNode i1 = new InsnNode(Opcodes.NOP);
+		builder.addInstruction(i1);
+		builder.addCheck(0);
+		builder.addCheck(1);
+		builder.addBoundary(i1);
+
+		InsnNode i2 = new InsnNode(Opcodes.NOP);
+		builder.addInstruction(i2);
+		builder.addCheck(1);
+		builder.addCheck(1);
+		builder.addBoundary(i2);
+
+		Boundary b1 = builder.getBoundaries().get(i1);
+		assertEquals(10, b1.getLine());
+		assertEquals(CounterImpl.getInstance(1, 1), b1.getCounter());
+		Boundary b2 = builder.getBoundaries().get(i2);
+		assertEquals(CounterImpl.getInstance(0, 2), b2.getCounter());
+	}
+
+	@Test
+	public void null_probearray_should_not_mark_checks_as_covered() {
+		builder = new InstructionsBuilder(null);
+
+		InsnNode i1 = new InsnNode(Opcodes.NOP);
+		builder.addInstruction(i1);
+		builder.addCheck(0);
+		builder.addCheck(1);
+		builder.addBoundary(i1);
+
+		assertEquals(CounterImpl.getInstance(2, 0),
+				builder.getBoundaries().get(i1).getCounter());
+	}
+
 }
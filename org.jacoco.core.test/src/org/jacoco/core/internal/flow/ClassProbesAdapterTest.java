@@ -115,6 +115,19 @@ public class ClassProbesAdapterTest {
 		assertEquals(10, cv.count);
 	}
 
+	@Test
+	public void testVisitMethodNullMethodVisitorWithBoundaryChecks() {
+		final MockClassVisitor cv = new MockClassVisitor();
+		final ClassProbesAdapter adapter = new ClassProbesAdapter(cv, false,
+				true);
+		writeMethod(adapter); // 1 probe
+		writeMethodWithBranch(adapter); // 3 probes + 2 boundary probes
+		writeMethodWithTableSwitch(adapter); // 3 probes
+		writeMethodWithLookupSwitch(adapter); // 3 probes
+		adapter.visitEnd();
+		assertEquals(12, cv.count);
+	}
+
 	@Test
 	public void testVisitWithFrames() {
 		final MockMethodVisitor mv = new MockMethodVisitor();
@@ -48,11 +48,16 @@ public class AgentOptionsTest {
 		assertFalse(options.getInclNoLocationClasses());
 		assertNull(options.getSessionId());
 		assertTrue(options.getDumpOnExit());
+		assertEquals(0, options.getDumpInterval());
+		assertEquals(0, options.getDumpFiles());
+		assertFalse(options.getDumpReset());
+		assertFalse(options.getCompress());
 		assertEquals(AgentOptions.OutputMode.file, options.getOutput());
 		assertEquals(AgentOptions.DEFAULT_ADDRESS, options.getAddress());
 		assertEquals(AgentOptions.DEFAULT_PORT, options.getPort());
 		assertNull(options.getClassDumpDir());
 		assertFalse(options.getJmx());
+		assertEquals("", options.getBoundaryIncludes());
 
 		assertEquals("", options.toString());
 	}
@@ -81,11 +86,16 @@ public class AgentOptionsTest {
 		properties.put("inclnolocationclasses", "true");
 		properties.put("sessionid", "testsession");
 		properties.put("dumponexit", "false");
+		properties.put("dumpinterval", "60");
+		properties.put("dumpfiles", "10");
+		properties.put("dumpreset", "true");
+		properties.put("compress", "true");
 		properties.put("output", "tcpserver");
 		properties.put("address", "remotehost");
 		properties.put("port", "1234");
 		properties.put("classdumpdir", "target/dump");
 		properties.put("jmx", "true");
+		properties.put("boundaryincludes", "org.example.*");
 
 		AgentOptions options = new AgentOptions(properties);
 
@@ -98,11 +108,16 @@ public class AgentOptionsTest {
 		assertTrue(options.getInclNoLocationClasses());
 		assertEquals("testsession", options.getSessionId());
 		assertFalse(options.getDumpOnExit());
+		assertEquals(60, options.getDumpInterval());
+		assertEquals(10, options.getDumpFiles());
+		assertTrue(options.getDumpReset());
+		assertTrue(options.getCompress());
 		assertEquals(AgentOptions.OutputMode.tcpserver, options.getOutput());
 		assertEquals("remotehost", options.getAddress());
 		assertEquals(1234, options.getPort());
 		assertEquals("target/dump", options.getClassDumpDir());
 		assertTrue(options.getJmx());
+		assertEquals("org.example.*", options.getBoundaryIncludes());
 	}
 
 	@Test
@@ -280,6 +295,104 @@ public class AgentOptionsTest {
 		assertFalse(options.getDumpOnExit());
 	}
 
+	@Test
+	public void testGetDumpInterval() {
+		AgentOptions options = new AgentOptions("dumpinterval=300");
+		assertEquals(300, options.getDumpInterval());
+	}
+
+	@Test
+	public void testSetDumpInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpInterval(300);
+		assertEquals(300, options.getDumpInterval());
+		assertEquals("dumpinterval=300", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseNegativeDumpInterval() {
+		new AgentOptions("dumpinterval=-1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetNegativeDumpInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpInterval(-1);
+	}
+
+	@Test
+	public void testGetDumpFiles() {
+		AgentOptions options = new AgentOptions("dumpfiles=5");
+		assertEquals(5, options.getDumpFiles());
+	}
+
+	@Test
+	public void testSetDumpFiles() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpFiles(5);
+		assertEquals(5, options.getDumpFiles());
+		assertEquals("dumpfiles=5", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetNegativeDumpFiles() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpFiles(-1);
+	}
+
+	@Test
+	public void testGetDumpReset() {
+		AgentOptions options = new AgentOptions("dumpreset=true");
+		assertTrue(options.getDumpReset());
+	}
+
+	@Test
+	public void testSetDumpReset() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpReset(true);
+		assertTrue(options.getDumpReset());
+		assertEquals("dumpreset=true", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDumpResetWithDumpFiles() {
+		new AgentOptions("dumpfiles=3,dumpreset=true");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetDumpResetWithDumpFiles() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpFiles(3);
+		options.setDumpReset(true);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetDumpFilesWithDumpReset() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpReset(true);
+		options.setDumpFiles(3);
+	}
+
+	@Test
+	public void testDumpResetWithoutDumpFiles() {
+		AgentOptions options = new AgentOptions("dumpfiles=0,dumpreset=true");
+		assertTrue(options.getDumpReset());
+	}
+
+	@Test
+	public void testGetCompress() {
+		AgentOptions options = new AgentOptions("compress=true");
+		assertTrue(options.getCompress());
+	}
+
+	@Test
+	public void testSetCompress() {
+		AgentOptions options = new AgentOptions();
+		options.setCompress(true);
+		assertTrue(options.getCompress());
+		assertEquals("compress=true", options.toString());
+	}
+
 	@Test
 	public void testGetOutput() {
 		AgentOptions options = new AgentOptions("output=tcpserver");
@@ -398,6 +511,21 @@ public class AgentOptionsTest {
 		assertTrue(options.getJmx());
 	}
 
+	@Test
+	public void testGetBoundaryIncludes() {
+		AgentOptions options = new AgentOptions(
+				"boundaryincludes=org.*:com.*");
+		assertEquals("org.*:com.*", options.getBoundaryIncludes());
+	}
+
+	@Test
+	public void testSetBoundaryIncludes() {
+		AgentOptions options = new AgentOptions();
+		options.setBoundaryIncludes("org.example.*");
+		assertEquals("org.example.*", options.getBoundaryIncludes());
+		assertEquals("boundaryincludes=org.example.*", options.toString());
+	}
+
 	@Test
 	public void testGetVMArgumentWithNoOptions() {
 		AgentOptions options = new AgentOptions();
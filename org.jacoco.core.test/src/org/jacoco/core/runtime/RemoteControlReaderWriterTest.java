@@ -20,9 +20,13 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataReaderWriterTest;
+import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -80,11 +84,56 @@ public class RemoteControlReaderWriterTest extends
 			public void visitDumpCommand(boolean dump, boolean reset) {
 				calls.append("cmd(" + dump + "," + reset + ")");
 			}
+
+			public void visitDeltaDumpCommand(long runtimeId, long sequence,
+					boolean reset) {
+				calls.append("delta");
+			}
 		});
 		assertFalse(reader.read());
 		assertEquals("cmd(" + doDump + "," + doReset + ")", calls.toString());
 	}
 
+	@Test
+	public void testVisitDeltaDump() throws IOException {
+		writer.visitDeltaDumpCommand(-123456789012L, 42, true);
+		final RemoteControlReader reader = createReader();
+		final StringBuilder calls = new StringBuilder();
+		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+
+			public void visitDumpCommand(boolean dump, boolean reset) {
+				calls.append("cmd");
+			}
+
+			public void visitDeltaDumpCommand(long runtimeId, long sequence,
+					boolean reset) {
+				calls.append("delta(" + runtimeId + "," + sequence + ","
+						+ reset + ")");
+			}
+		});
+		assertFalse(reader.read());
+		assertEquals("delta(-123456789012,42,true)", calls.toString());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoRemoteCommandVisitorForDeltaDump() throws IOException {
+		writer.visitDeltaDumpCommand(1, 2, false);
+		final RemoteControlReader reader = createReader();
+		reader.read();
+	}
+
+	@Test
+	public void testSendDelta() throws IOException {
+		writer.sendDelta(-123456789012L, 42);
+		writer.sendCmdOk();
+		final RemoteControlReader reader = createReader();
+		assertEquals(0, reader.getDeltaRuntimeId());
+		assertEquals(0, reader.getDeltaSequence());
+		assertTrue(reader.read());
+		assertEquals(-123456789012L, reader.getDeltaRuntimeId());
+		assertEquals(42, reader.getDeltaSequence());
+	}
+
 	@Test
 	public void testSendCmdOk() throws IOException {
 		writer.sendCmdOk();
@@ -92,6 +141,43 @@ public class RemoteControlReaderWriterTest extends
 		assertTrue(reader.read());
 	}
 
+	@Test
+	public void testCompressedDump() throws IOException {
+		buffer.reset();
+		final RemoteControlWriter writer = new RemoteControlWriter(buffer,
+				true);
+		writer.visitSessionInfo(new SessionInfo("TestSession", 1, 2));
+		writer.visitClassExecution(new ExecutionData(42, "org/example/Foo",
+				new boolean[] { true, false }));
+		writer.sendCmdOk();
+		writer.visitDumpCommand(true, false);
+		final RemoteControlReader reader = createReader();
+		final ExecutionDataStore store = new ExecutionDataStore();
+		reader.setExecutionDataVisitor(store);
+		final SessionInfoStore sessions = new SessionInfoStore();
+		reader.setSessionInfoVisitor(sessions);
+		final StringBuilder calls = new StringBuilder();
+		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+
+			public void visitDumpCommand(boolean dump, boolean reset) {
+				calls.append("cmd");
+			}
+
+			public void visitDeltaDumpCommand(long runtimeId, long sequence,
+					boolean reset) {
+				calls.append("delta");
+			}
+		});
+
+		assertTrue(reader.read());
+		assertEquals("org/example/Foo", store.get(42).getName());
+		assertEquals("TestSession", sessions.getInfos().get(0).getId());
+		assertEquals("", calls.toString());
+
+		assertFalse(reader.read());
+		assertEquals("cmd", calls.toString());
+	}
+
 	@Override
 	protected RemoteControlReader createReader() throws IOException {
 		return new RemoteControlReader(new ByteArrayInputStream(
@@ -15,10 +15,21 @@ package org.jacoco.core.runtime;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
 
 import org.jacoco.core.test.TargetLoader;
 import org.junit.Before;
@@ -100,6 +111,210 @@ public class RuntimeDataTest {
 		assertEquals("testsession", storage.getSessionInfo().getId());
 	}
 
+	@Test
+	public void testSnapshot() {
+		data.setSessionId("testsession");
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 2).getProbes();
+		data.getExecutionData(Long.valueOf(456), "NotExecuted", 1);
+		probes[0] = true;
+
+		final RuntimeSnapshot snapshot = data.snapshot(false);
+		probes[1] = true;
+		snapshot.accept(storage, storage);
+
+		storage.assertSize(1);
+		final boolean[] copy = storage.getData(123).getProbes();
+		assertNotSame(probes, copy);
+		assertTrue(copy[0]);
+		assertFalse(copy[1]);
+		assertEquals("Foo", storage.getData(123).getName());
+		assertEquals("testsession", storage.getSessionInfo().getId());
+		assertSame(snapshot.getSessionInfo(), storage.getSessionInfo());
+		assertEquals(1, snapshot.getContents().size());
+		assertTrue(probes[0]);
+	}
+
+	@Test
+	public void testSnapshotWithReset() {
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes();
+		probes[0] = true;
+
+		final RuntimeSnapshot snapshot = data.snapshot(true);
+
+		assertFalse(probes[0]);
+		snapshot.accept(storage, storage);
+		assertTrue(storage.getData(123).getProbes()[0]);
+	}
+
+	@Test
+	public void testCollectDeltaDoesNotLockWhileVisiting() throws Exception {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes()[0] = true;
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			data.collectDelta(data.getRuntimeId(), 0,
+					new IExecutionDataVisitor() {
+						public void visitClassExecution(
+								final ExecutionData ed) {
+							final Future<?> reset = executor
+									.submit(new Runnable() {
+										public void run() {
+											data.reset();
+										}
+									});
+							try {
+								reset.get(5, TimeUnit.SECONDS);
+							} catch (final Exception e) {
+								throw new RuntimeException(e);
+							}
+						}
+					}, storage, false);
+		} finally {
+			executor.shutdown();
+		}
+		assertFalse(data.getExecutionData(Long.valueOf(123), "Foo", 1)
+				.getProbes()[0]);
+	}
+
+	@Test
+	public void testCollectDelta() {
+		boolean[] probes1 = data.getExecutionData(Long.valueOf(1), "Foo", 2)
+				.getProbes();
+		boolean[] probes2 = data.getExecutionData(Long.valueOf(2), "Bar", 2)
+				.getProbes();
+		data.getExecutionData(Long.valueOf(3), "NotExecuted", 2);
+		probes1[0] = true;
+		probes2[0] = true;
+		final long id = data.getRuntimeId();
+
+		final long seq1 = data.collectDelta(id, 0, storage, storage, false);
+		storage.assertSize(2);
+		assertEquals(1, seq1);
+
+		probes2[1] = true;
+		storage = new TestStorage();
+		final long seq2 = data.collectDelta(id, seq1, storage, storage,
+				false);
+		storage.assertSize(1);
+		assertTrue(storage.getData(2).getProbes()[1]);
+		assertNotNull(storage.getSessionInfo());
+		assertEquals(2, seq2);
+
+		storage = new TestStorage();
+		data.collectDelta(id, seq2, storage, storage, false);
+		storage.assertSize(0);
+	}
+
+	@Test
+	public void testCollectDeltaForUnknownRuntime() {
+		data.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes()[0] = true;
+		final long seq = data.collectDelta(data.getRuntimeId(), 0, storage,
+				storage, false);
+
+		storage = new TestStorage();
+		data.collectDelta(data.getRuntimeId() + 1, seq, storage, storage,
+				false);
+		storage.assertSize(1);
+	}
+
+	@Test
+	public void testCollectDeltaIsCumulative() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(1), "Foo", 2)
+				.getProbes();
+		final long id = data.getRuntimeId();
+		final long seq = data.collectDelta(id, 0, storage, storage, false);
+
+		probes[0] = true;
+		data.collect(new TestStorage(), new TestStorage(), true);
+		data.reset();
+		probes[1] = true;
+		storage = new TestStorage();
+		data.collectDelta(id, seq, storage, storage, true);
+
+		assertTrue(storage.getData(1).getProbes()[0]);
+		assertTrue(storage.getData(1).getProbes()[1]);
+		assertFalse(probes[1]);
+	}
+
+	@Test
+	public void testGetExecutionDataReturnsSameInstance() {
+		final ExecutionData first = data.getExecutionData(Long.valueOf(123),
+				"Foo", 2);
+		final ExecutionData second = data.getExecutionData(Long.valueOf(123),
+				"Foo", 2);
+		assertSame(first, second);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetExecutionDataIncompatible() {
+		data.getExecutionData(Long.valueOf(123), "Foo", 2);
+		data.getExecutionData(Long.valueOf(123), "Foo", 3);
+	}
+
+	@Test
+	public void testGetExecutionDataConcurrently() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final CountDownLatch start = new CountDownLatch(1);
+			final Callable<ExecutionData> task = new Callable<ExecutionData>() {
+				public ExecutionData call() throws Exception {
+					start.await();
+					return data.getExecutionData(Long.valueOf(123), "Foo", 5);
+				}
+			};
+			final Future<ExecutionData> f1 = executor.submit(task);
+			final Future<ExecutionData> f2 = executor.submit(task);
+			final Future<ExecutionData> f3 = executor.submit(task);
+			final Future<ExecutionData> f4 = executor.submit(task);
+			start.countDown();
+			assertSame(f1.get(), f2.get());
+			assertSame(f1.get(), f3.get());
+			assertSame(f1.get(), f4.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testGetExecutionDataDoesNotBlockDuringCollect()
+			throws Exception {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1);
+		final CountDownLatch collecting = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Future<?> collect = executor.submit(new Runnable() {
+				public void run() {
+					data.collect(new IExecutionDataVisitor() {
+						public void visitClassExecution(
+								final ExecutionData ed) {
+							collecting.countDown();
+							try {
+								release.await();
+							} catch (final InterruptedException e) {
+								throw new RuntimeException(e);
+							}
+						}
+					}, new ISessionInfoVisitor() {
+						public void visitSessionInfo(final SessionInfo info) {
+						}
+					}, true);
+				}
+			});
+			assertTrue(collecting.await(5, TimeUnit.SECONDS));
+
+			final boolean[] probes = data
+					.getExecutionData(Long.valueOf(456), "Bar", 3).getProbes();
+			assertEquals(3, probes.length);
+
+			release.countDown();
+			collect.get(5, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void testEquals() {
 		assertTrue(data.equals(data));
@@ -17,8 +17,11 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
 import java.net.ConnectException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
@@ -27,15 +30,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.runtime.IRemoteCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
+import org.jacoco.core.runtime.RuntimeData;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Unit tests for {@link ExecDumpClient}.
@@ -48,14 +55,22 @@ public class ExecDumpClientTest {
 	private boolean dumpRequested;
 	private boolean resetRequested;
 
+	private RuntimeData runtime;
+	private List<String> transmitted;
+
 	private ServerSocket server;
 
 	@Rule
 	public ExpectedException exception = ExpectedException.none();
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Before
 	public void setup() {
 		callbacks = new ArrayList<String>();
+		runtime = new RuntimeData();
+		transmitted = new ArrayList<String>();
 		client = new ExecDumpClient() {
 			@Override
 			protected void onConnecting(InetAddress address, int port) {
@@ -133,6 +148,110 @@ public class ExecDumpClientTest {
 		assertTrue(resetRequested);
 	}
 
+	@Test
+	public void testDeltaDump() throws IOException {
+		final boolean[] probes1 = runtime
+				.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes();
+		final boolean[] probes2 = runtime
+				.getExecutionData(Long.valueOf(2), "Bar", 1).getProbes();
+		probes1[0] = true;
+		client.setDelta(true);
+
+		int port = createExecServer();
+		ExecFileLoader loader = client.dump((String) null, port);
+		assertEquals(Arrays.asList("Foo"), transmitted);
+		assertEquals(1, loader.getExecutionDataStore().getContents().size());
+
+		transmitted.clear();
+		probes2[0] = true;
+		server.close();
+		port = createExecServer();
+		loader = client.dump((String) null, port);
+		assertEquals(Arrays.asList("Bar"), transmitted);
+		assertEquals(2, loader.getExecutionDataStore().getContents().size());
+		assertTrue(loader.getExecutionDataStore().get(1).getProbes()[0]);
+		assertTrue(loader.getExecutionDataStore().get(2).getProbes()[0]);
+	}
+
+	@Test
+	public void testDeltaDumpWithReset() throws IOException {
+		final boolean[] probes = runtime
+				.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes();
+		probes[0] = true;
+		client.setDelta(true);
+		client.setReset(true);
+
+		client.dump((String) null, createExecServer());
+		assertTrue(resetRequested);
+		assertFalse(probes[0]);
+
+		server.close();
+		ExecFileLoader loader = client.dump((String) null,
+				createExecServer());
+		assertTrue(loader.getExecutionDataStore().get(1).getProbes()[0]);
+	}
+
+	@Test
+	public void testDeltaDumpWithState() throws IOException {
+		final File execfile = new File(folder.getRoot(), "jacoco.exec");
+		final boolean[] probes1 = runtime
+				.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes();
+		final boolean[] probes2 = runtime
+				.getExecutionData(Long.valueOf(2), "Bar", 1).getProbes();
+		probes1[0] = true;
+		client.loadDeltaState(execfile);
+		client.dump((String) null, createExecServer()).save(execfile, true);
+		client.saveDeltaState(execfile);
+		assertEquals(Arrays.asList("Foo"), transmitted);
+
+		transmitted.clear();
+		probes2[0] = true;
+		server.close();
+		final ExecDumpClient next = new ExecDumpClient();
+		next.loadDeltaState(execfile);
+		ExecFileLoader loader = next.dump((String) null, createExecServer());
+		assertEquals(Arrays.asList("Bar"), transmitted);
+		assertEquals(1, loader.getExecutionDataStore().getContents().size());
+	}
+
+	@Test
+	public void testDeltaDumpWithoutExecFile() throws IOException {
+		final File execfile = new File(folder.getRoot(), "jacoco.exec");
+		final boolean[] probes = runtime
+				.getExecutionData(Long.valueOf(1), "Foo", 1).getProbes();
+		probes[0] = true;
+		client.loadDeltaState(execfile);
+		client.dump((String) null, createExecServer());
+		client.saveDeltaState(execfile);
+
+		transmitted.clear();
+		server.close();
+		final ExecDumpClient next = new ExecDumpClient();
+		next.loadDeltaState(execfile);
+		next.dump((String) null, createExecServer());
+		assertEquals(Arrays.asList("Foo"), transmitted);
+	}
+
+	@Test
+	public void testSaveDeltaStateWithoutDeltaDump() throws IOException {
+		final File execfile = new File(folder.getRoot(), "jacoco.exec");
+		client.saveDeltaState(execfile);
+		assertFalse(new File(folder.getRoot(), "jacoco.exec.delta").exists());
+	}
+
+	@Test
+	public void testLoadInvalidDeltaState() throws IOException {
+		final File execfile = folder.newFile("jacoco.exec");
+		final File statefile = folder.newFile("jacoco.exec.delta");
+		final Writer writer = new FileWriter(statefile);
+		writer.write("runtimeid=foo\n");
+		writer.close();
+
+		exception.expect(IOException.class);
+		exception.expectMessage("Invalid delta state file " + statefile + ".");
+		client.loadDeltaState(execfile);
+	}
+
 	@Test
 	public void should_throw_IOException_when_server_closes_connection_without_response()
 			throws IOException {
@@ -181,6 +300,21 @@ public class ExecDumpClientTest {
 				}
 				writer.sendCmdOk();
 			}
+
+			public void visitDeltaDumpCommand(long runtimeId, long sequence,
+					boolean reset) throws IOException {
+				resetRequested = reset;
+				final long current = runtime.collectDelta(runtimeId,
+						sequence, new IExecutionDataVisitor() {
+							public void visitClassExecution(
+									ExecutionData data) {
+								transmitted.add(data.getName());
+								writer.visitClassExecution(data);
+							}
+						}, writer, reset);
+				writer.sendDelta(runtime.getRuntimeId(), current);
+				writer.sendCmdOk();
+			}
 		});
 		reader.read();
 	}
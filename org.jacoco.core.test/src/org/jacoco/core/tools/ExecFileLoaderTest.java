@@ -13,6 +13,7 @@
 package org.jacoco.core.tools;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -21,12 +22,14 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.List;
 
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IndexedExecutionDataReader;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.data.SessionInfoStore;
 import org.junit.Before;
@@ -69,6 +72,23 @@ public class ExecFileLoaderTest {
 		assertLoaderContents("a", "bb");
 	}
 
+	@Test
+	public void testLoadFileClasses() throws IOException {
+		final File file = createFile("a");
+		final ExecFileLoader other = new ExecFileLoader();
+		other.load(file);
+		other.load(createFile("bb"));
+		other.load(createFile("ccc"));
+		other.save(file, false);
+
+		loader.load(file, Arrays.asList("a", "ccc", "unknown"));
+
+		assertEquals(2, loader.getExecutionDataStore().getContents().size());
+		assertEquals("a", loader.getExecutionDataStore().get(1).getName());
+		assertEquals("ccc", loader.getExecutionDataStore().get(3).getName());
+		assertEquals(3, loader.getSessionInfoStore().getInfos().size());
+	}
+
 	@Test(expected = IOException.class)
 	public void testLoadBrokenContent() throws IOException {
 		final File file = new File(sourceFolder.getRoot(), "broken.exec");
@@ -104,6 +124,21 @@ public class ExecFileLoaderTest {
 		assertFileContents(file, "a", "bb");
 	}
 
+	@Test
+	public void testSaveFileWithIndex() throws IOException {
+		final File file = new File(sourceFolder.getRoot(), "target.exec");
+
+		loader.load(createFile("a"));
+		loader.setWriteIndex(true);
+		loader.save(file, false);
+
+		assertFileContents(file, "a");
+		final IndexedExecutionDataReader reader = new IndexedExecutionDataReader(
+				file);
+		assertTrue(reader.isIndexed());
+		reader.close();
+	}
+
 	@Test
 	public void testCreateSubfolders() throws IOException {
 		final File file = new File(sourceFolder.getRoot(), "a/b/c/target.exec");
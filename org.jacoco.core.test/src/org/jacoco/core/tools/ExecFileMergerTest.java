@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.IndexedExecutionDataReader;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecFileMerger}.
+ */
+public class ExecFileMergerTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private File tempDirectory;
+
+	private ExecFileMerger merger;
+
+	private List<ExecutionData> result;
+
+	private SessionInfoStore sessions;
+
+	@Before
+	public void setup() throws IOException {
+		tempDirectory = folder.newFolder("temp");
+		merger = new ExecFileMerger();
+		merger.setTempDirectory(tempDirectory);
+		result = new ArrayList<ExecutionData>();
+		sessions = new SessionInfoStore();
+	}
+
+	@Test
+	public void should_merge_unsorted_files_in_memory() throws IOException {
+		merger.load(createFile("a", data(3, "C", true, false),
+				data(1, "A", true)));
+		merger.load(createFile("b", data(3, "C", false, true),
+				data(2, "B", true)));
+
+		save();
+
+		assertResult("1 A [true]", "2 B [true]", "3 C [true, true]");
+		assertEquals(2, sessions.getInfos().size());
+		assertTempDirectoryEmpty();
+	}
+
+	@Test
+	public void should_spill_to_temporary_files_when_buffer_is_full()
+			throws IOException {
+		merger.setBufferSize(2);
+		merger.load(createFile("a", data(5, "E", true), data(3, "C", true),
+				data(1, "A", true, false)));
+		merger.load(createFile("b", data(4, "D", true), data(1, "A", false,
+				true), data(2, "B", true)));
+		assertEquals(2, tempDirectory.list().length);
+
+		save();
+
+		assertResult("1 A [true, true]", "2 B [true]", "3 C [true]",
+				"4 D [true]", "5 E [true]");
+		assertTempDirectoryEmpty();
+	}
+
+	@Test
+	public void should_merge_in_multiple_passes_when_too_many_runs()
+			throws IOException {
+		merger.setBufferSize(1);
+		merger.setMaxOpenFiles(2);
+		for (int i = 0; i < 5; i++) {
+			merger.load(createFile("f" + i, data(7 - i, "X" + (7 - i), true),
+					data(0, "Zero", i == 0, i == 4)));
+		}
+
+		save();
+
+		assertResult("0 Zero [true, true]", "3 X3 [true]", "4 X4 [true]",
+				"5 X5 [true]", "6 X6 [true]", "7 X7 [true]");
+		assertTempDirectoryEmpty();
+	}
+
+	@Test
+	public void should_use_sorted_files_without_buffering() throws IOException {
+		merger.setBufferSize(1);
+		merger.load(createFile("a", data(-5, "N", true),
+				data(1, "A", true, false), data(1, "A", false, true),
+				data(3, "C", true)));
+		merger.load(createFile("b", data(2, "B", true), data(3, "C", true)));
+		assertEquals(0, tempDirectory.list().length);
+
+		save();
+
+		assertResult("-5 N [true]", "1 A [true, true]", "2 B [true]",
+				"3 C [true]");
+	}
+
+	@Test
+	public void should_merge_compressed_files() throws IOException {
+		merger.setBufferSize(1);
+		final File file = new File(folder.getRoot(), "compressed.exec");
+		final OutputStream out = new FileOutputStream(file);
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out, true);
+		writer.visitSessionInfo(new SessionInfo("compressed", 1, 2));
+		writer.visitClassExecution(data(1, "A", true, false));
+		writer.visitClassExecution(data(3, "C", true));
+		writer.flush();
+		out.close();
+		merger.load(file);
+		merger.load(createFile("b", data(1, "A", false, true),
+				data(2, "B", true)));
+
+		save();
+
+		assertResult("1 A [true, true]", "2 B [true]", "3 C [true]");
+		assertEquals(2, sessions.getInfos().size());
+	}
+
+	@Test
+	public void should_merge_input_streams() throws IOException {
+		merger.load(createStream(data(2, "B", true, false)));
+		merger.load(createStream(data(2, "B", false, true),
+				data(1, "A", true)));
+
+		save();
+
+		assertResult("1 A [true]", "2 B [true, true]");
+	}
+
+	@Test
+	public void should_write_index() throws IOException {
+		merger.load(createFile("a", data(2, "B", true), data(1, "A", true)));
+		merger.setWriteIndex(true);
+		final File file = new File(folder.getRoot(), "merged.exec");
+
+		merger.save(file, false);
+
+		final IndexedExecutionDataReader reader = new IndexedExecutionDataReader(
+				file);
+		assertTrue(reader.isIndexed());
+		assertEquals(Arrays.asList(Long.valueOf(1), Long.valueOf(2)),
+				new ArrayList<Long>(reader.getIds()));
+		reader.close();
+	}
+
+	@Test
+	public void should_save_to_loaded_file() throws IOException {
+		final File file = createFile("a", data(1, "A", true, false));
+		merger.load(file);
+		merger.load(createFile("b", data(1, "A", false, true)));
+
+		merger.save(file, false);
+
+		read(new FileInputStream(file));
+		assertResult("1 A [true, true]");
+		assertTempDirectoryEmpty();
+	}
+
+	@Test
+	public void should_be_empty_after_save() throws IOException {
+		assertTrue(merger.isEmpty());
+		merger.load(createFile("a", data(1, "A", true)));
+		assertFalse(merger.isEmpty());
+
+		save();
+
+		assertTrue(merger.isEmpty());
+		assertTrue(merger.getSessionInfoStore().isEmpty());
+	}
+
+	@Test
+	public void should_fail_on_incompatible_data() throws IOException {
+		merger.load(createFile("a", data(1, "A", true)));
+		merger.load(createFile("b", data(1, "A", true, false)));
+
+		try {
+			save();
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertTempDirectoryEmpty();
+	}
+
+	@Test(expected = IOException.class)
+	public void should_fail_on_invalid_file() throws IOException {
+		final File file = new File(folder.getRoot(), "invalid.exec");
+		final OutputStream out = new FileOutputStream(file);
+		out.write("invalid".getBytes());
+		out.close();
+
+		merger.load(file);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setBufferSize_should_reject_non_positive_values() {
+		merger.setBufferSize(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxOpenFiles_should_reject_values_less_than_two() {
+		merger.setMaxOpenFiles(1);
+	}
+
+	private static ExecutionData data(final long id, final String name,
+			final boolean... probes) {
+		return new ExecutionData(id, name, probes);
+	}
+
+	private File createFile(final String name, final ExecutionData... data)
+			throws IOException {
+		final File file = new File(folder.getRoot(), name + ".exec");
+		final OutputStream out = new FileOutputStream(file);
+		write(out, name, data);
+		out.close();
+		return file;
+	}
+
+	private InputStream createStream(final ExecutionData... data)
+			throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(out, "stream", data);
+		return new ByteArrayInputStream(out.toByteArray());
+	}
+
+	private static void write(final OutputStream out, final String session,
+			final ExecutionData... data) throws IOException {
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitSessionInfo(new SessionInfo(session, 1, 2));
+		for (final ExecutionData d : data) {
+			writer.visitClassExecution(d);
+		}
+	}
+
+	private void save() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		merger.save(out);
+		read(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	private void read(final InputStream in) throws IOException {
+		final ExecutionDataReader reader = new ExecutionDataReader(in);
+		reader.setSessionInfoVisitor(sessions);
+		reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				result.add(data);
+			}
+		});
+		reader.read();
+		in.close();
+	}
+
+	private void assertResult(final String... expected) {
+		final List<String> actual = new ArrayList<String>();
+		for (final ExecutionData data : result) {
+			actual.add(data.getId() + " " + data.getName() + " "
+					+ Arrays.toString(data.getProbes()));
+		}
+		assertEquals(Arrays.asList(expected), actual);
+	}
+
+	private void assertTempDirectoryEmpty() {
+		assertEquals(0, tempDirectory.list().length);
+	}
+
+}
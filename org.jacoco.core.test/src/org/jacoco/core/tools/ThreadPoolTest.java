@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ThreadPool}.
+ */
+public class ThreadPoolTest {
+
+	@Test
+	public void create_should_return_null_for_single_thread() {
+		assertNull(ThreadPool.create(1));
+		assertNull(ThreadPool.create(0));
+	}
+
+	@Test
+	public void create_should_return_executor_for_multiple_threads() {
+		final ExecutorService executor = ThreadPool.create(2);
+		assertNotNull(executor);
+		ThreadPool.shutdown(executor);
+		assertTrue(executor.isShutdown());
+	}
+
+	@Test
+	public void shutdown_should_ignore_null() {
+		ThreadPool.shutdown(null);
+	}
+
+}
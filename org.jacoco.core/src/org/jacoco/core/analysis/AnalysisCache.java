@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.analysis.ClassModel;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+import org.jacoco.core.runtime.WildcardMatcher;
+
+/**
+ * Persistent cache for the probe independent analysis results of class files.
+ * The cache is stored in a directory with one file per class id. As the class
+ * id is a checksum of the class file an entry can be reused as long as the
+ * class file does not change: For cached classes the {@link Analyzer} only
+ * applies the probes of the execution data and does not need to parse the
+ * class file again.
+ * <p>
+ * Entries are only valid for the JaCoCo version which created them, entries
+ * of other versions as well as unreadable entries are ignored and replaced.
+ * An instance may be used by multiple analyzers concurrently, also multiple
+ * processes may share the same directory.
+ * 
+ * @see Analyzer#setCache(AnalysisCache)
+ */
+public class AnalysisCache {
+
+	private static final char MAGIC_NUMBER = 0xC0AC;
+
+	private static final String SUFFIX = ".jacococache";
+
+	private final File directory;
+
+	private final AtomicInteger hits;
+
+	private final AtomicInteger misses;
+
+	/**
+	 * Creates a cache in the given directory. The directory is created when
+	 * the first entry is stored.
+	 * 
+	 * @param directory
+	 *            directory for cache entries
+	 */
+	public AnalysisCache(final File directory) {
+		this.directory = directory;
+		this.hits = new AtomicInteger();
+		this.misses = new AtomicInteger();
+	}
+
+	/**
+	 * Creates a cache in a new temporary directory. Such a cache is typically
+	 * used for a single report only and should be removed with
+	 * {@link #clear()} afterwards.
+	 * 
+	 * @return cache in a new temporary directory
+	 * @throws IOException
+	 *             if the directory can't be created
+	 */
+	public static AnalysisCache createTemporary() throws IOException {
+		final File directory = File.createTempFile("jacoco", ".cache");
+		if (!directory.delete() || !directory.mkdir()) {
+			throw new IOException(String.format(
+					"Unable to create cache directory %s.", directory));
+		}
+		return new AnalysisCache(directory);
+	}
+
+	/**
+	 * Deletes all entries of this cache. The cache directory is also deleted
+	 * if it does not contain other files.
+	 */
+	public void clear() {
+		final File[] files = directory.listFiles();
+		if (files != null) {
+			for (final File f : files) {
+				if (f.getName().endsWith(SUFFIX)) {
+					f.delete();
+				}
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Returns the directory of this cache.
+	 * 
+	 * @return cache directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the number of classes which have been found in this cache.
+	 * 
+	 * @return number of cache hits
+	 */
+	public int getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of classes which have not been found in this cache.
+	 * 
+	 * @return number of cache misses
+	 */
+	public int getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Looks up the model for the class with the given id.
+	 * 
+	 * @param id
+	 *            class id
+	 * @param boundaryChecks
+	 *            classes with boundary value checks, the model must have been
+	 *            recorded with the same setting
+	 * @return model or <code>null</code> if no valid entry exists
+	 */
+	ClassModel get(final long id, final WildcardMatcher boundaryChecks) {
+		final ClassModel model = read(id);
+		if (model == null || boundaryChecks
+				.matches(model.getName()) != model.hasBoundaryChecks()) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return model;
+	}
+
+	/**
+	 * Reads the model for the class with the given id without validating its
+	 * boundary check setting.
+	 * 
+	 * @param id
+	 *            class id
+	 * @return model or <code>null</code> if no valid entry exists
+	 */
+	ClassModel read(final long id) {
+		final File file = getFile(id);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			final InputStream input = new BufferedInputStream(
+					new FileInputStream(file));
+			try {
+				final CompactDataInput in = new CompactDataInput(input);
+				if (in.readChar() != MAGIC_NUMBER
+						|| !JaCoCo.VERSION.equals(in.readUTF())
+						|| in.readLong() != id) {
+					return null;
+				}
+				return ClassModel.read(in);
+			} finally {
+				input.close();
+			}
+		} catch (final IOException e) {
+			// Treat invalid entries like missing ones
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the model for the class with the given id. The entry is written
+	 * to a temporary file first and then renamed, so concurrent readers never
+	 * see partial entries.
+	 * 
+	 * @param id
+	 *            class id
+	 * @param model
+	 *            model to store
+	 * @throws IOException
+	 *             if the entry can't be written
+	 */
+	void put(final long id, final ClassModel model) throws IOException {
+		directory.mkdirs();
+		final File temp = File.createTempFile("entry", ".tmp", directory);
+		try {
+			final OutputStream output = new BufferedOutputStream(
+					new FileOutputStream(temp));
+			try {
+				final CompactDataOutput out = new CompactDataOutput(output);
+				out.writeChar(MAGIC_NUMBER);
+				out.writeUTF(JaCoCo.VERSION);
+				out.writeLong(id);
+				model.write(out);
+			} finally {
+				output.close();
+			}
+			final File file = getFile(id);
+			if (!temp.renameTo(file)) {
+				// Replace existing entry, e.g. from an other JaCoCo version:
+				file.delete();
+				if (!temp.renameTo(file) && !file.isFile()) {
+					throw new IOException(String.format(
+							"Unable to write cache entry %s.", file));
+				}
+			}
+		} finally {
+			temp.delete();
+		}
+	}
+
+	private File getFile(final long id) {
+		return new File(directory, String.format("%016x%s", Long.valueOf(id),
+				SUFFIX));
+	}
+
+}
@@ -16,7 +16,14 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.LinkedList;
+import java.util.Queue;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -28,12 +35,13 @@ import org.jacoco.core.internal.InputStreams;
 import org.jacoco.core.internal.Pack200Streams;
 import org.jacoco.core.internal.analysis.ClassAnalyzer;
 import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.ClassModel;
 import org.jacoco.core.internal.analysis.StringPool;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
 import org.jacoco.core.internal.instr.InstrSupport;
+import org.jacoco.core.runtime.WildcardMatcher;
 import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Opcodes;
 
 /**
@@ -43,15 +51,39 @@ import org.objectweb.asm.Opcodes;
  * {@link Analyzer} requires a {@link ExecutionDataStore} instance that holds
  * the execution data for the classes to analyze. The {@link Analyzer} offers
  * several methods to analyze classes from a variety of sources.
+ * <p>
+ * Optionally an {@link Executor} can be set to analyze class files
+ * concurrently. In this case the {@link ICoverageVisitor} is still called from
+ * the thread invoking the analyze methods in the order the class files have
+ * been found, therefore the visitor does not need to be thread-safe and the
+ * results are identical to sequential analysis. When using an executor
+ * {@link #finish()} must be called after the last class has been submitted.
+ * <p>
+ * Optionally an {@link AnalysisCache} can be set to reuse the analysis results
+ * of unchanged class files from previous runs.
  */
 public class Analyzer {
 
+	/**
+	 * Maximum number of classes waiting for concurrent analysis before the
+	 * calling thread blocks.
+	 */
+	private static final int MAX_PENDING = 1024;
+
 	private final ExecutionDataStore executionData;
 
 	private final ICoverageVisitor coverageVisitor;
 
 	private final StringPool stringPool;
 
+	private WildcardMatcher boundaryChecks;
+
+	private Executor executor;
+
+	private AnalysisCache cache;
+
+	private final Queue<PendingClass> pending;
+
 	/**
 	 * Creates a new analyzer reporting to the given output.
 	 * 
@@ -66,54 +98,169 @@ public class Analyzer {
 		this.executionData = executionData;
 		this.coverageVisitor = coverageVisitor;
 		this.stringPool = new StringPool();
+		this.boundaryChecks = new WildcardMatcher("");
+		this.pending = new LinkedList<PendingClass>();
 	}
 
 	/**
-	 * Creates an ASM class visitor for analysis.
+	 * Sets the classes which have been instrumented with additional probes for
+	 * boundary value checks. The expression must be the same as the one used
+	 * for instrumentation, otherwise probes can not be mapped to the class
+	 * structure. Default is the empty string (no boundary checks).
 	 * 
-	 * @param classid
-	 *            id of the class calculated with {@link CRC64}
-	 * @param className
-	 *            VM name of the class
-	 * @return ASM visitor to write class definition to
+	 * @param includes
+	 *            wildcard expression of Java class names with boundary value
+	 *            checks
+	 * @see org.jacoco.core.instr.Instrumenter#setBoundaryChecks(String)
+	 * @see WildcardMatcher
 	 */
-	private ClassVisitor createAnalyzingVisitor(final long classid,
-			final String className) {
-		final ExecutionData data = executionData.get(classid);
-		final boolean[] probes;
-		final boolean noMatch;
-		if (data == null) {
-			probes = null;
-			noMatch = executionData.contains(className);
-		} else {
-			probes = data.getProbes();
-			noMatch = false;
+	public void setBoundaryChecks(final String includes) {
+		boundaryChecks = new WildcardMatcher(includes.replace('.', '/'));
+	}
+
+	/**
+	 * Sets an executor which is used to analyze class files concurrently.
+	 * Class files are still read by the calling thread, only their analysis
+	 * is delegated to the executor. The {@link ICoverageVisitor} is called
+	 * from the calling thread in the order the class files have been found.
+	 * After the last analyze call {@link #finish()} must be called to wait for
+	 * the pending classes. By default no executor is set and all classes are
+	 * analyzed in the calling thread.
+	 * 
+	 * @param executor
+	 *            executor for concurrent analysis or <code>null</code> to
+	 *            analyze classes in the calling thread
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets a cache for the probe independent analysis results of class files.
+	 * Classes found in the cache are not parsed again, only the probes of the
+	 * execution data are applied. Classes not found are analyzed and added to
+	 * the cache. The calculated coverage does not depend on this setting. By
+	 * default no cache is used.
+	 * 
+	 * @param cache
+	 *            cache to use or <code>null</code> to analyze all classes
+	 */
+	public void setCache(final AnalysisCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Waits until all class files which have been submitted for concurrent
+	 * analysis are analyzed and reported to the {@link ICoverageVisitor}. If
+	 * no executor has been set this method does nothing.
+	 * 
+	 * @throws IOException
+	 *             if one of the pending classes can't be analyzed
+	 * @see #setExecutor(Executor)
+	 */
+	public void finish() throws IOException {
+		while (!pending.isEmpty()) {
+			completeNext();
 		}
-		final ClassCoverageImpl coverage = new ClassCoverageImpl(className,
-				classid, noMatch);
-		final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes,
-				stringPool) {
-			@Override
-			public void visitEnd() {
-				super.visitEnd();
+	}
+
+	private void submitClass(final byte[] buffer, final String location)
+			throws IOException {
+		final PendingClass p = new PendingClass(buffer, location);
+		pending.add(p);
+		executor.execute(p);
+		while (pending.size() > MAX_PENDING
+				|| (!pending.isEmpty() && pending.peek().isDone())) {
+			completeNext();
+		}
+	}
+
+	private void completeNext() throws IOException {
+		final PendingClass p = pending.remove();
+		try {
+			final ClassCoverageImpl coverage = p.get();
+			if (coverage != null) {
 				coverageVisitor.visitCoverage(coverage);
 			}
-		};
-		return new ClassProbesAdapter(analyzer, false);
+		} catch (final InterruptedException e) {
+			cancelPending();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (final ExecutionException e) {
+			cancelPending();
+			final Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw analyzerError(p.location, (Exception) cause);
+		} catch (final RuntimeException e) {
+			cancelPending();
+			throw analyzerError(p.location, e);
+		}
+	}
+
+	private void cancelPending() {
+		for (final PendingClass p : pending) {
+			p.cancel(false);
+		}
+		pending.clear();
 	}
 
-	private void analyzeClass(final byte[] source) {
+	/**
+	 * Analyzes the given class definition. This method may be called
+	 * concurrently from multiple threads.
+	 * 
+	 * @param source
+	 *            class definition
+	 * @return coverage of the class or <code>null</code> if the class is not
+	 *         considered for analysis
+	 * @throws IOException
+	 *             if the analysis result can't be added to the cache
+	 */
+	private ClassCoverageImpl analyze(final byte[] source) throws IOException {
 		final long classId = CRC64.classId(source);
+		if (cache != null) {
+			final ClassModel model = cache.get(classId, boundaryChecks);
+			if (model != null) {
+				final ExecutionData data = executionData.get(classId);
+				return model.calculate(classId, isNoMatch(data, model.getName()),
+						data == null ? null : data.getProbes(), stringPool);
+			}
+		}
 		final ClassReader reader = InstrSupport.classReaderFor(source);
 		if ((reader.getAccess() & Opcodes.ACC_MODULE) != 0) {
-			return;
+			return null;
 		}
 		if ((reader.getAccess() & Opcodes.ACC_SYNTHETIC) != 0) {
-			return;
+			return null;
+		}
+		final String className = reader.getClassName();
+		final ExecutionData data = executionData.get(classId);
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(className,
+				classId, isNoMatch(data, className));
+		final ClassAnalyzer analyzer = new ClassAnalyzer(coverage,
+				data == null ? null : data.getProbes(), stringPool);
+		final boolean boundary = boundaryChecks.matches(className);
+		final ClassModel model = cache == null ? null
+				: new ClassModel(className, boundary);
+		analyzer.setModel(model);
+		reader.accept(new ClassProbesAdapter(analyzer, false, boundary), 0);
+		if (model != null) {
+			cache.put(classId, model);
+		}
+		return coverage;
+	}
+
+	private boolean isNoMatch(final ExecutionData data,
+			final String className) {
+		return data == null && executionData.contains(className);
+	}
+
+	private void analyzeClass(final byte[] source) throws IOException {
+		final ClassCoverageImpl coverage = analyze(source);
+		if (coverage != null) {
+			coverageVisitor.visitCoverage(coverage);
 		}
-		final ClassVisitor visitor = createAnalyzingVisitor(classId,
-				reader.getClassName());
-		reader.accept(visitor, 0);
 	}
 
 	/**
@@ -128,10 +275,16 @@ public class Analyzer {
 	 */
 	public void analyzeClass(final byte[] buffer, final String location)
 			throws IOException {
+		if (executor != null) {
+			submitClass(buffer, location);
+			return;
+		}
 		try {
 			analyzeClass(buffer);
 		} catch (final RuntimeException cause) {
 			throw analyzerError(location, cause);
+		} catch (final IOException cause) {
+			throw analyzerError(location, cause);
 		}
 	}
 
@@ -298,4 +451,19 @@ public class Analyzer {
 		return analyzeAll(unpackedInput, location);
 	}
 
+	private class PendingClass extends FutureTask<ClassCoverageImpl> {
+
+		private final String location;
+
+		PendingClass(final byte[] buffer, final String location) {
+			super(new Callable<ClassCoverageImpl>() {
+				public ClassCoverageImpl call() throws IOException {
+					return analyze(buffer);
+				}
+			});
+			this.location = location;
+		}
+
+	}
+
 }
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+import org.jacoco.core.internal.data.CompactDataInput;
+
+/**
+ * Deserialization of coverage bundles written by {@link BundleCoverageWriter}.
+ * The bundles read are identical to the bundles written, including the order
+ * of packages, classes and source files. Bundles can be read at once or
+ * package by package, independently of how they have been written.
+ * 
+ * @see BundleCoverageWriter
+ */
+public class BundleCoverageReader {
+
+	private final CompactDataInput in;
+
+	private final List<String> strings;
+
+	/**
+	 * Creates a new reader based on the given input stream.
+	 * 
+	 * @param input
+	 *            binary stream to read bundles from
+	 */
+	public BundleCoverageReader(final InputStream input) {
+		this.in = new CompactDataInput(input);
+		this.strings = new ArrayList<String>();
+	}
+
+	/**
+	 * Reads the next bundle from the underlying stream.
+	 * 
+	 * @return bundle read from the stream
+	 * @throws IOException
+	 *             if thrown by the underlying stream or the content is
+	 *             invalid
+	 */
+	public IBundleCoverage read() throws IOException {
+		final String name = readStart();
+		final Collection<IPackageCoverage> packages = new ArrayList<IPackageCoverage>();
+		IPackageCoverage p;
+		while ((p = readPackage()) != null) {
+			packages.add(p);
+		}
+		return new BundleCoverageImpl(name, packages);
+	}
+
+	/**
+	 * Starts reading the next bundle from the underlying stream. Its packages
+	 * are read with {@link #readPackage()}.
+	 * 
+	 * @return name of the bundle
+	 * @throws IOException
+	 *             if thrown by the underlying stream or the content is
+	 *             invalid
+	 */
+	public String readStart() throws IOException {
+		return readString();
+	}
+
+	/**
+	 * Reads the next package of the current bundle.
+	 * 
+	 * @return next package or <code>null</code> if all packages of the
+	 *         bundle have been read
+	 * @throws IOException
+	 *             if thrown by the underlying stream or the content is
+	 *             invalid
+	 */
+	public IPackageCoverage readPackage() throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		final String name = readString();
+		final Map<String, SourceFileCoverageImpl> sourceFiles = new LinkedHashMap<String, SourceFileCoverageImpl>();
+		final int sourceFileCount = in.readVarInt();
+		for (int i = 0; i < sourceFileCount; i++) {
+			final String sourceFileName = readString();
+			sourceFiles.put(sourceFileName,
+					new SourceFileCoverageImpl(sourceFileName, name));
+		}
+		final int classCount = in.readVarInt();
+		final Collection<IClassCoverage> classes = new ArrayList<IClassCoverage>(
+				classCount);
+		for (int i = 0; i < classCount; i++) {
+			final IClassCoverage c = readClass();
+			classes.add(c);
+			final String sourceFileName = c.getSourceFileName();
+			if (sourceFileName != null) {
+				final SourceFileCoverageImpl sourceFile = sourceFiles
+						.get(sourceFileName);
+				if (sourceFile == null) {
+					throw new IOException(String.format(
+							"Unknown source file %s in package %s.",
+							sourceFileName, name));
+				}
+				sourceFile.increment(c);
+			}
+		}
+		return new PackageCoverageImpl(name, classes,
+				new ArrayList<ISourceFileCoverage>(sourceFiles.values()));
+	}
+
+	private IClassCoverage readClass() throws IOException {
+		final ClassCoverageImpl c = new ClassCoverageImpl(readString(),
+				in.readLong(), in.readBoolean());
+		c.setSignature(readString());
+		c.setSuperName(readString());
+		final int interfaceCount = in.readVarInt();
+		if (interfaceCount > 0) {
+			final String[] interfaces = new String[interfaceCount - 1];
+			for (int i = 0; i < interfaces.length; i++) {
+				interfaces[i] = readString();
+			}
+			c.setInterfaces(interfaces);
+		}
+		c.setSourceFileName(readString());
+		final int methodCount = in.readVarInt();
+		for (int i = 0; i < methodCount; i++) {
+			c.addMethod(readMethod());
+		}
+		return c;
+	}
+
+	private IMethodCoverage readMethod() throws IOException {
+		final MethodCoverageImpl m = new MethodCoverageImpl(readString(),
+				readString(), readString());
+		m.setCounters(readCounter(), readCounter(), readCounter(),
+				readCounter(), readCounter(), readCounter());
+		final int first = in.readVarInt() - 1;
+		if (first != ISourceNode.UNKNOWN_LINE) {
+			final int last = first + in.readVarInt();
+			m.ensureCapacity(first, last);
+			for (int nr = first; nr <= last; nr++) {
+				m.setLine(readCounter(), readCounter(), readCounter(), nr);
+			}
+		}
+		return m;
+	}
+
+	private ICounter readCounter() throws IOException {
+		final int missed = in.readVarInt();
+		return CounterImpl.getInstance(missed, in.readVarInt());
+	}
+
+	private String readString() throws IOException {
+		final int index = in.readVarInt();
+		switch (index) {
+		case 0:
+			return null;
+		case 1:
+			final String s = in.readUTF();
+			strings.add(s);
+			return s;
+		default:
+			if (index - 2 >= strings.size()) {
+				throw new IOException("Invalid string reference " + index + ".");
+			}
+			return strings.get(index - 2);
+		}
+	}
+
+}
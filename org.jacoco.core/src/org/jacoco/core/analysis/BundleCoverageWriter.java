@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Serialization of coverage bundles in a compact binary format. Only the
+ * method level counters and lines are written, all other counters are
+ * calculated again by {@link BundleCoverageReader} when the bundle is read.
+ * Strings are written only once per stream. Therefore the bundles of a stream
+ * have to be read in the same order with a single reader instance. Bundles
+ * can be written at once or package by package, the format is the same.
+ * 
+ * @see BundleCoverageReader
+ */
+public class BundleCoverageWriter {
+
+	private final CompactDataOutput out;
+
+	private final Map<String, Integer> strings;
+
+	/**
+	 * Creates a new writer based on the given output stream.
+	 * 
+	 * @param output
+	 *            binary stream to write bundles to
+	 */
+	public BundleCoverageWriter(final OutputStream output) {
+		this.out = new CompactDataOutput(output);
+		this.strings = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Writes the given bundle to the underlying stream.
+	 * 
+	 * @param bundle
+	 *            bundle to write
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void write(final IBundleCoverage bundle) throws IOException {
+		writeStart(bundle.getName());
+		for (final IPackageCoverage p : bundle.getPackages()) {
+			writePackage(p);
+		}
+		writeEnd();
+	}
+
+	/**
+	 * Starts a new bundle with the given name. The packages of the bundle are
+	 * written with {@link #writePackage(IPackageCoverage)}, the bundle must
+	 * be completed with {@link #writeEnd()}.
+	 * 
+	 * @param name
+	 *            name of the bundle
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void writeStart(final String name) throws IOException {
+		writeString(name);
+	}
+
+	/**
+	 * Writes the given package of the current bundle.
+	 * 
+	 * @param p
+	 *            package to write
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void writePackage(final IPackageCoverage p) throws IOException {
+		out.writeBoolean(true);
+		writeString(p.getName());
+		out.writeVarInt(p.getSourceFiles().size());
+		for (final ISourceFileCoverage s : p.getSourceFiles()) {
+			writeString(s.getName());
+		}
+		out.writeVarInt(p.getClasses().size());
+		for (final IClassCoverage c : p.getClasses()) {
+			writeClass(c);
+		}
+	}
+
+	/**
+	 * Completes the current bundle.
+	 * 
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void writeEnd() throws IOException {
+		out.writeBoolean(false);
+		out.flush();
+	}
+
+	private void writeClass(final IClassCoverage c) throws IOException {
+		writeString(c.getName());
+		out.writeLong(c.getId());
+		out.writeBoolean(c.isNoMatch());
+		writeString(c.getSignature());
+		writeString(c.getSuperName());
+		final String[] interfaces = c.getInterfaceNames();
+		if (interfaces == null) {
+			out.writeVarInt(0);
+		} else {
+			out.writeVarInt(interfaces.length + 1);
+			for (final String i : interfaces) {
+				writeString(i);
+			}
+		}
+		writeString(c.getSourceFileName());
+		out.writeVarInt(c.getMethods().size());
+		for (final IMethodCoverage m : c.getMethods()) {
+			writeMethod(m);
+		}
+	}
+
+	private void writeMethod(final IMethodCoverage m) throws IOException {
+		writeString(m.getName());
+		writeString(m.getDesc());
+		writeString(m.getSignature());
+		writeCounter(m.getInstructionCounter());
+		writeCounter(m.getBranchCounter());
+		writeCounter(m.getBoundaryCounter());
+		writeCounter(m.getLineCounter());
+		writeCounter(m.getComplexityCounter());
+		writeCounter(m.getMethodCounter());
+		final int first = m.getFirstLine();
+		// UNKNOWN_LINE is written as 0:
+		out.writeVarInt(first + 1);
+		if (first == ISourceNode.UNKNOWN_LINE) {
+			return;
+		}
+		final int last = m.getLastLine();
+		out.writeVarInt(last - first);
+		for (int nr = first; nr <= last; nr++) {
+			final ILine line = m.getLine(nr);
+			writeCounter(line.getInstructionCounter());
+			writeCounter(line.getBranchCounter());
+			writeCounter(line.getBoundaryCounter());
+		}
+	}
+
+	private void writeCounter(final ICounter counter) throws IOException {
+		out.writeVarInt(counter.getMissedCount());
+		out.writeVarInt(counter.getCoveredCount());
+	}
+
+	/**
+	 * Strings are written as index into the strings written so far: 0 stands
+	 * for <code>null</code>, 1 for a new string which follows directly.
+	 */
+	private void writeString(final String s) throws IOException {
+		if (s == null) {
+			out.writeVarInt(0);
+			return;
+		}
+		final Integer index = strings.get(s);
+		if (index == null) {
+			strings.put(s, Integer.valueOf(strings.size() + 2));
+			out.writeVarInt(1);
+			out.writeUTF(s);
+		} else {
+			out.writeVarInt(index.intValue());
+		}
+	}
+
+}
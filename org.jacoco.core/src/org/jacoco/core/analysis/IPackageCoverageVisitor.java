@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.IOException;
+
+/**
+ * Interface for coverage data output as a stream of {@link IPackageCoverage}
+ * instances.
+ * 
+ * @see StreamingCoverageBuilder
+ */
+public interface IPackageCoverageVisitor {
+
+	/**
+	 * The coverage data of every package is emitted to this method.
+	 * 
+	 * @param coverage
+	 *            coverage data for a package
+	 * @throws IOException
+	 *             in case of IO problems while processing the package
+	 */
+	void visitPackage(IPackageCoverage coverage) throws IOException;
+
+}
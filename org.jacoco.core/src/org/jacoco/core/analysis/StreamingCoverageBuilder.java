@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.analysis.ClassModel;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
+import org.jacoco.core.internal.analysis.StringPool;
+
+/**
+ * Builder for a bundle which is provided package by package. Other than
+ * {@link CoverageBuilder} this builder does not keep the coverage of the
+ * analyzed classes in memory, only their names and ids are recorded. The
+ * {@link Analyzer} has to use the same {@link AnalysisCache} as this builder
+ * which is used to re-create the coverage of a single package when it is
+ * emitted.
+ * <p>
+ * After analysis {@link #visitPackages(String, IPackageCoverageVisitor)}
+ * calculates every package once and emits it to a visitor, only the summary
+ * counters of the bundle are kept. Therefore the memory required for report
+ * generation is bounded by the largest package instead of the whole bundle.
+ * The packages are emitted in alphabetical order, otherwise the coverage data
+ * is identical to the bundle created by {@link CoverageBuilder}.
+ */
+public class StreamingCoverageBuilder implements ICoverageVisitor {
+
+	private final ExecutionDataStore executionData;
+
+	private final AnalysisCache cache;
+
+	/** class name to class id by package name */
+	private final Map<String, Map<String, Long>> packages;
+
+	private final Collection<String> noMatchClasses;
+
+	/**
+	 * Creates a new builder.
+	 * 
+	 * @param executionData
+	 *            execution data used for analysis
+	 * @param cache
+	 *            cache used by the analyzer
+	 */
+	public StreamingCoverageBuilder(final ExecutionDataStore executionData,
+			final AnalysisCache cache) {
+		this.executionData = executionData;
+		this.cache = cache;
+		this.packages = new TreeMap<String, Map<String, Long>>();
+		this.noMatchClasses = new ArrayList<String>();
+	}
+
+	/**
+	 * Returns the names of all classes found so far that do not match the
+	 * execution data.
+	 * 
+	 * @return VM names of classes which do not match the execution data
+	 */
+	public Collection<String> getNoMatchClassNames() {
+		return Collections.unmodifiableCollection(noMatchClasses);
+	}
+
+	/**
+	 * Calculates the coverage of all classes found so far package by package
+	 * and emits every package to the given visitor. The summary counters of
+	 * the bundle are calculated at the same time.
+	 * 
+	 * @param name
+	 *            Name of the bundle
+	 * @param visitor
+	 *            visitor to emit the packages to
+	 * @return bundle node with the summary counters of all packages
+	 * @throws IOException
+	 *             if the analysis results can't be read from the cache or if
+	 *             thrown by the visitor
+	 */
+	public ICoverageNode visitPackages(final String name,
+			final IPackageCoverageVisitor visitor) throws IOException {
+		final CoverageNodeImpl bundle = new CoverageNodeImpl(
+				ICoverageNode.ElementType.BUNDLE, name);
+		for (final Map.Entry<String, Map<String, Long>> entry : packages
+				.entrySet()) {
+			final IPackageCoverage p = createPackage(entry.getKey(),
+					entry.getValue());
+			bundle.increment(p);
+			visitor.visitPackage(p);
+		}
+		return bundle;
+	}
+
+	private IPackageCoverage createPackage(final String packageName,
+			final Map<String, Long> classes) throws IOException {
+		final CoverageBuilder builder = new CoverageBuilder();
+		final StringPool stringPool = new StringPool();
+		for (final Map.Entry<String, Long> entry : classes.entrySet()) {
+			final long id = entry.getValue().longValue();
+			final ClassModel model = cache.read(id);
+			if (model == null) {
+				throw new IOException(String.format(
+						"Analysis result for class %s not found in cache %s.",
+						entry.getKey(), cache.getDirectory()));
+			}
+			final ExecutionData data = executionData.get(id);
+			final boolean noMatch = data == null
+					&& executionData.contains(model.getName());
+			builder.visitCoverage(model.calculate(id, noMatch,
+					data == null ? null : data.getProbes(), stringPool));
+		}
+		return new PackageCoverageImpl(packageName, builder.getClasses(),
+				builder.getSourceFiles());
+	}
+
+	// === ICoverageVisitor ===
+
+	public void visitCoverage(final IClassCoverage coverage) {
+		final String packageName = coverage.getPackageName();
+		Map<String, Long> classes = packages.get(packageName);
+		if (classes == null) {
+			classes = new HashMap<String, Long>();
+			packages.put(packageName, classes);
+		}
+		final String name = coverage.getName();
+		final Long dup = classes.put(name, Long.valueOf(coverage.getId()));
+		if (dup != null) {
+			if (dup.longValue() != coverage.getId()) {
+				throw new IllegalStateException(
+						"Can't add different class with same name: " + name);
+			}
+		} else if (coverage.isNoMatch()) {
+			noMatchClasses.add(name);
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+
+/**
+ * Builder for bundles which only provide the counters of bundles, packages and
+ * source files. Other than {@link CoverageBuilder} this builder does not keep
+ * the analyzed {@link IClassCoverage} nodes with their methods in memory. The
+ * packages of the bundle returned by {@link #getBundle(String)} therefore do
+ * not contain any classes, but their counters are identical to the bundle
+ * created by {@link CoverageBuilder}.
+ * <p>
+ * This builder is intended for checks which only evaluate the coverage of
+ * bundles, packages or source files.
+ */
+public class SummaryCoverageBuilder implements ICoverageVisitor {
+
+	/** class ids by class name */
+	private final Map<String, Long> classes;
+
+	private final Map<String, SourceFileCoverageImpl> sourcefiles;
+
+	/** coverage of classes without source file by package name */
+	private final Map<String, CoverageNodeImpl> nosource;
+
+	private final Collection<String> noMatchClasses;
+
+	/**
+	 * Creates a new builder.
+	 */
+	public SummaryCoverageBuilder() {
+		this.classes = new HashMap<String, Long>();
+		this.sourcefiles = new HashMap<String, SourceFileCoverageImpl>();
+		this.nosource = new HashMap<String, CoverageNodeImpl>();
+		this.noMatchClasses = new ArrayList<String>();
+	}
+
+	/**
+	 * Returns the names of all classes found so far that do not match the
+	 * execution data.
+	 *
+	 * @return VM names of classes which do not match the execution data
+	 */
+	public Collection<String> getNoMatchClassNames() {
+		return Collections.unmodifiableCollection(noMatchClasses);
+	}
+
+	/**
+	 * Returns all source file nodes currently contained in this builder.
+	 *
+	 * @return all source file nodes
+	 */
+	public Collection<ISourceFileCoverage> getSourceFiles() {
+		return Collections.<ISourceFileCoverage> unmodifiableCollection(
+				sourcefiles.values());
+	}
+
+	/**
+	 * Creates a bundle from all classes found so far. The packages of the
+	 * bundle contain source files only.
+	 *
+	 * @param name
+	 *            Name of the bundle
+	 * @return bundle containing all packages and source files
+	 */
+	public IBundleCoverage getBundle(final String name) {
+		final Map<String, Collection<ISourceFileCoverage>> sourcesByPackage = new TreeMap<String, Collection<ISourceFileCoverage>>();
+		for (final String packageName : nosource.keySet()) {
+			sourcesByPackage.put(packageName,
+					new ArrayList<ISourceFileCoverage>());
+		}
+		for (final SourceFileCoverageImpl s : sourcefiles.values()) {
+			Collection<ISourceFileCoverage> sources = sourcesByPackage
+					.get(s.getPackageName());
+			if (sources == null) {
+				sources = new ArrayList<ISourceFileCoverage>();
+				sourcesByPackage.put(s.getPackageName(), sources);
+			}
+			sources.add(s);
+		}
+		final Collection<IPackageCoverage> packages = new ArrayList<IPackageCoverage>();
+		for (final Map.Entry<String, Collection<ISourceFileCoverage>> e : sourcesByPackage
+				.entrySet()) {
+			final PackageCoverageImpl p = new PackageCoverageImpl(e.getKey(),
+					Collections.<IClassCoverage> emptyList(), e.getValue());
+			final ICoverageNode classes = nosource.get(e.getKey());
+			if (classes != null) {
+				p.increment(classes);
+			}
+			packages.add(p);
+		}
+		return new BundleCoverageImpl(name, packages);
+	}
+
+	// === ICoverageVisitor ===
+
+	public void visitCoverage(final IClassCoverage coverage) {
+		final String name = coverage.getName();
+		final Long dup = classes.put(name, Long.valueOf(coverage.getId()));
+		if (dup != null) {
+			if (dup.longValue() != coverage.getId()) {
+				throw new IllegalStateException(
+						"Can't add different class with same name: " + name);
+			}
+			return;
+		}
+		if (coverage.isNoMatch()) {
+			noMatchClasses.add(name);
+		}
+		final String packageName = coverage.getPackageName();
+		final String source = coverage.getSourceFileName();
+		if (source != null) {
+			getSourceFile(source, packageName).increment(coverage);
+		} else {
+			CoverageNodeImpl node = nosource.get(packageName);
+			if (node == null) {
+				node = new CoverageNodeImpl(ICoverageNode.ElementType.PACKAGE,
+						packageName);
+				nosource.put(packageName, node);
+			}
+			node.increment(coverage);
+		}
+	}
+
+	private SourceFileCoverageImpl getSourceFile(final String filename,
+			final String packagename) {
+		final String key = packagename + '/' + filename;
+		SourceFileCoverageImpl sourcefile = sourcefiles.get(key);
+		if (sourcefile == null) {
+			sourcefile = new SourceFileCoverageImpl(filename, packagename);
+			sourcefiles.put(key, sourcefile);
+		}
+		return sourcefile;
+	}
+
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Positions of the blocks of an execution data file. The index is serialized
+ * as a {@link ExecutionDataWriter#BLOCK_INDEX} block where all positions are
+ * stored as distances relative to the start of the index block. This allows to
+ * append indexed data to existing files. The length of the block is stored at
+ * its start, so sequential readers can skip the block, and at its end, so
+ * random access readers can locate it.
+ * 
+ * <pre>
+ * byte   BLOCK_INDEX
+ * long   length of the complete index block
+ * long   distance to the header block of the indexed data
+ * varint number of session info blocks
+ * long*  distance to every session info block
+ * varint number of execution data blocks
+ * (long class id, UTF class name, long distance)*
+ * long   length of the complete index block
+ * </pre>
+ */
+final class ExecutionDataIndex {
+
+	/** Length of the trailing length field of the index block. */
+	static final int TRAILER_LENGTH = 8;
+
+	/** Length of the block type and the leading length field. */
+	static final int HEADER_LENGTH = 1 + 8;
+
+	/** Index entry for a execution data block. */
+	static final class Entry {
+
+		final long id;
+
+		final String name;
+
+		final long position;
+
+		Entry(final long id, final String name, final long position) {
+			this.id = id;
+			this.name = name;
+			this.position = position;
+		}
+
+	}
+
+	long header;
+
+	final List<Long> sessions = new ArrayList<Long>();
+
+	final List<Entry> entries = new ArrayList<Entry>();
+
+	/**
+	 * Writes the index block content between the leading and the trailing
+	 * length.
+	 * 
+	 * @param out
+	 *            output to write to
+	 * @param position
+	 *            position of the index block
+	 */
+	void write(final CompactDataOutput out, final long position)
+			throws IOException {
+		out.writeLong(position - header);
+		out.writeVarInt(sessions.size());
+		for (final Long s : sessions) {
+			out.writeLong(position - s.longValue());
+		}
+		out.writeVarInt(entries.size());
+		for (final Entry e : entries) {
+			out.writeLong(e.id);
+			out.writeUTF(e.name);
+			out.writeLong(position - e.position);
+		}
+	}
+
+	/**
+	 * Reads the index block content following the block type including the
+	 * leading and the trailing length.
+	 * 
+	 * @param in
+	 *            input to read from
+	 * @param position
+	 *            position of the index block
+	 * @param length
+	 *            expected length of the block or -1 if unknown
+	 * @return index with absolute positions
+	 * @throws IOException
+	 *             if the index can't be read or has not the expected length
+	 */
+	static ExecutionDataIndex read(final CompactDataInput in,
+			final long position, final long length) throws IOException {
+		final long leadingLength = in.readLong();
+		if (length != -1 && leadingLength != length) {
+			throw new IOException("Invalid execution data index.");
+		}
+		final ExecutionDataIndex index = new ExecutionDataIndex();
+		index.header = position - in.readLong();
+		for (int i = in.readVarInt(); i > 0; i--) {
+			index.sessions.add(Long.valueOf(position - in.readLong()));
+		}
+		for (int i = in.readVarInt(); i > 0; i--) {
+			final long id = in.readLong();
+			final String name = in.readUTF();
+			index.entries.add(new Entry(id, name, position - in.readLong()));
+		}
+		if (in.readLong() != leadingLength) {
+			throw new IOException("Invalid execution data index.");
+		}
+		return index;
+	}
+
+	/**
+	 * Skips the index block content following the block type without
+	 * decoding it.
+	 * 
+	 * @param in
+	 *            input to read from
+	 * @throws IOException
+	 *             if the index is truncated
+	 */
+	static void skip(final CompactDataInput in) throws IOException {
+		final long length = in.readLong();
+		if (length < HEADER_LENGTH + TRAILER_LENGTH) {
+			throw new IOException("Invalid execution data index.");
+		}
+		long remaining = length - HEADER_LENGTH;
+		while (remaining > 0) {
+			final int n = in.skipBytes((int) Math.min(remaining,
+					Integer.MAX_VALUE));
+			if (n == 0) {
+				if (in.read() == -1) {
+					throw new EOFException();
+				}
+				remaining--;
+			} else {
+				remaining -= n;
+			}
+		}
+	}
+
+}
@@ -16,11 +16,18 @@ import static java.lang.String.format;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 import org.jacoco.core.internal.data.CompactDataInput;
 
 /**
- * Deserialization of execution data from binary streams.
+ * Deserialization of execution data from binary streams. Compressed blocks
+ * written by
+ * {@link ExecutionDataWriter#ExecutionDataWriter(java.io.OutputStream, boolean)}
+ * are decoded transparently.
  */
 public class ExecutionDataReader {
 
@@ -33,6 +40,11 @@ public class ExecutionDataReader {
 
 	private boolean firstBlock = true;
 
+	private final BlockInput blockInput;
+
+	/** package names of the current compressed block */
+	private final List<String> packages = new ArrayList<String>();
+
 	/**
 	 * Creates a new reader based on the given input stream input. Depending on
 	 * the nature of the underlying stream input should be buffered as most data
@@ -42,7 +54,8 @@ public class ExecutionDataReader {
 	 *            input stream to read execution data from
 	 */
 	public ExecutionDataReader(final InputStream input) {
-		this.in = new CompactDataInput(input);
+		this.blockInput = new BlockInput(input);
+		this.in = new CompactDataInput(blockInput);
 	}
 
 	/**
@@ -115,6 +128,16 @@ public class ExecutionDataReader {
 		case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
 			readExecutionData();
 			return true;
+		case ExecutionDataWriter.BLOCK_INDEX:
+			// Index is only relevant for random access:
+			ExecutionDataIndex.skip(in);
+			return true;
+		case ExecutionDataWriter.BLOCK_COMPRESSED:
+			readCompressed();
+			return true;
+		case ExecutionDataWriter.BLOCK_COMPACTEXECUTIONDATA:
+			readCompactExecutionData();
+			return true;
 		default:
 			throw new IOException(format("Unknown block type %x.",
 					Byte.valueOf(blocktype)));
@@ -122,6 +145,10 @@ public class ExecutionDataReader {
 	}
 
 	private void readHeader() throws IOException {
+		readHeader(in);
+	}
+
+	static void readHeader(final CompactDataInput in) throws IOException {
 		if (in.readChar() != ExecutionDataWriter.MAGIC_NUMBER) {
 			throw new IOException("Invalid execution data file.");
 		}
@@ -135,21 +162,181 @@ public class ExecutionDataReader {
 		if (sessionInfoVisitor == null) {
 			throw new IOException("No session info visitor.");
 		}
+		sessionInfoVisitor.visitSessionInfo(readSessionInfo(in));
+	}
+
+	static SessionInfo readSessionInfo(final CompactDataInput in)
+			throws IOException {
 		final String id = in.readUTF();
 		final long start = in.readLong();
 		final long dump = in.readLong();
-		sessionInfoVisitor.visitSessionInfo(new SessionInfo(id, start, dump));
+		return new SessionInfo(id, start, dump);
 	}
 
 	private void readExecutionData() throws IOException {
 		if (executionDataVisitor == null) {
 			throw new IOException("No execution data visitor.");
 		}
+		executionDataVisitor.visitClassExecution(readExecutionData(in));
+	}
+
+	static ExecutionData readExecutionData(final CompactDataInput in)
+			throws IOException {
 		final long id = in.readLong();
 		final String name = in.readUTF();
 		final boolean[] probes = in.readBooleanArray();
-		executionDataVisitor.visitClassExecution(new ExecutionData(id, name,
-				probes));
+		return new ExecutionData(id, name, probes);
+	}
+
+	private void readCompressed() throws IOException {
+		if (blockInput.isLastFromBlock()) {
+			throw new IOException("Invalid compressed block.");
+		}
+		// The blocks contained in the compressed block are read like all
+		// other blocks from the decompressed content:
+		blockInput.setBlock(readCompressedBlock(in));
+		packages.clear();
+	}
+
+	static byte[] readCompressedBlock(final CompactDataInput in)
+			throws IOException {
+		final int length = in.readVarInt();
+		final int compressedLength = in.readVarInt();
+		if (length < 0 || compressedLength < 0) {
+			throw new IOException("Invalid compressed block.");
+		}
+		final byte[] compressed = new byte[compressedLength];
+		in.readFully(compressed);
+		final byte[] content = new byte[length];
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			int pos = 0;
+			while (pos < length) {
+				final int n = inflater.inflate(content, pos, length - pos);
+				if (n == 0 && (inflater.finished() || inflater.needsInput()
+						|| inflater.needsDictionary())) {
+					throw new IOException("Invalid compressed block.");
+				}
+				pos += n;
+			}
+		} catch (final DataFormatException e) {
+			final IOException ex = new IOException(
+					"Invalid compressed block.");
+			ex.initCause(e);
+			throw ex;
+		} finally {
+			inflater.end();
+		}
+		return content;
+	}
+
+	private void readCompactExecutionData() throws IOException {
+		if (executionDataVisitor == null) {
+			throw new IOException("No execution data visitor.");
+		}
+		executionDataVisitor.visitClassExecution(
+				readCompactExecutionData(in, packages));
+	}
+
+	static ExecutionData readCompactExecutionData(final CompactDataInput in,
+			final List<String> packages) throws IOException {
+		final long id = in.readLong();
+		final int packageIndex = in.readVarInt();
+		final String packageName;
+		if (packageIndex == packages.size()) {
+			packageName = in.readUTF();
+			packages.add(packageName);
+		} else if (packageIndex >= 0 && packageIndex < packages.size()) {
+			packageName = packages.get(packageIndex);
+		} else {
+			throw new IOException("Invalid compressed block.");
+		}
+		final String simpleName = in.readUTF();
+		final String name = packageName.length() == 0 ? simpleName
+				: packageName + '/' + simpleName;
+		final boolean[] probes = in.readBooleanArray();
+		return new ExecutionData(id, name, probes);
+	}
+
+	/**
+	 * Input which provides the content of the current compressed block before
+	 * it continues with the underlying stream.
+	 */
+	private static class BlockInput extends InputStream {
+
+		private final InputStream input;
+
+		private byte[] block;
+
+		private int pos;
+
+		private boolean lastFromBlock;
+
+		BlockInput(final InputStream input) {
+			this.input = input;
+		}
+
+		void setBlock(final byte[] block) {
+			this.block = block.length == 0 ? null : block;
+			this.pos = 0;
+		}
+
+		/**
+		 * @return <code>true</code> if the last byte has been read from a
+		 *         compressed block
+		 */
+		boolean isLastFromBlock() {
+			return lastFromBlock;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (block != null) {
+				final int b = block[pos++] & 0xff;
+				if (pos == block.length) {
+					block = null;
+				}
+				lastFromBlock = true;
+				return b;
+			}
+			lastFromBlock = false;
+			return input.read();
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+				throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (block != null) {
+				final int n = Math.min(len, block.length - pos);
+				System.arraycopy(block, pos, b, off, n);
+				pos += n;
+				if (pos == block.length) {
+					block = null;
+				}
+				lastFromBlock = true;
+				return n;
+			}
+			lastFromBlock = false;
+			return input.read(b, off, len);
+		}
+
+		@Override
+		public int available() throws IOException {
+			if (block != null) {
+				return block.length - pos;
+			}
+			return input.available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			input.close();
+		}
+
 	}
 
 }
@@ -15,11 +15,16 @@ package org.jacoco.core.data;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
 
 import org.jacoco.core.internal.data.CompactDataOutput;
 
 /**
- * Serialization of execution data into binary streams.
+ * Serialization of execution data into binary streams. Optionally session
+ * information and execution data is written as compressed blocks, see
+ * {@link #ExecutionDataWriter(OutputStream, boolean)}.
  */
 public class ExecutionDataWriter implements ISessionInfoVisitor,
 		IExecutionDataVisitor {
@@ -44,9 +49,41 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	/** Block identifier for execution data of a single class. */
 	public static final byte BLOCK_EXECUTIONDATA = 0x11;
 
+	/**
+	 * Block identifier for an optional index of the preceding blocks, see
+	 * {@link IndexedExecutionDataWriter}.
+	 */
+	public static final byte BLOCK_INDEX = 0x12;
+
+	/**
+	 * Block identifier for a sequence of session information and execution
+	 * data blocks compressed with the deflate algorithm.
+	 */
+	public static final byte BLOCK_COMPRESSED = 0x13;
+
+	/**
+	 * Block identifier for execution data of a single class within a
+	 * compressed block. The package name of the class is only written with
+	 * its first occurrence in the compressed block and referenced by its index
+	 * afterwards.
+	 */
+	public static final byte BLOCK_COMPACTEXECUTIONDATA = 0x14;
+
+	/** Uncompressed size after which a compressed block is written. */
+	private static final int MAX_BLOCK_SIZE = 0x100000;
+
 	/** Underlying data output */
 	protected final CompactDataOutput out;
 
+	/** content of the current compressed block or <code>null</code> */
+	private final ByteArrayOutputStream blockBuffer;
+
+	/** output for session and execution data blocks */
+	private final CompactDataOutput blockOut;
+
+	/** package names of the current compressed block with their index */
+	private final Map<String, Integer> packages;
+
 	/**
 	 * Creates a new writer based on the given output stream. Depending on the
 	 * nature of the underlying stream output should be buffered as most data is
@@ -58,7 +95,35 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	 *             if the header can't be written
 	 */
 	public ExecutionDataWriter(final OutputStream output) throws IOException {
+		this(output, false);
+	}
+
+	/**
+	 * Creates a new writer based on the given output stream which optionally
+	 * compresses the session information and execution data. Compressed data
+	 * is collected in memory and written as separate blocks when a certain
+	 * size is reached and when {@link #flush()} is called. Therefore a
+	 * compressing writer must always be flushed after the last block.
+	 * 
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @param compress
+	 *            if <code>true</code> data is written in compressed blocks
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public ExecutionDataWriter(final OutputStream output,
+			final boolean compress) throws IOException {
 		this.out = new CompactDataOutput(output);
+		if (compress) {
+			blockBuffer = new ByteArrayOutputStream();
+			blockOut = new CompactDataOutput(blockBuffer);
+			packages = new HashMap<String, Integer>();
+		} else {
+			blockBuffer = null;
+			blockOut = out;
+			packages = null;
+		}
 		writeHeader();
 	}
 
@@ -75,21 +140,57 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	}
 
 	/**
-	 * Flushes the underlying stream.
+	 * Writes pending compressed data and flushes the underlying stream.
 	 * 
 	 * @throws IOException
 	 *             if the underlying stream can't be flushed
 	 */
 	public void flush() throws IOException {
+		writeCompressedBlock();
 		out.flush();
 	}
 
+	/**
+	 * Writes the pending content of a compressed block, if any. Subclasses
+	 * must call this method before they write their own blocks to the
+	 * underlying output.
+	 * 
+	 * @throws IOException
+	 *             if the block can't be written
+	 */
+	protected void writeCompressedBlock() throws IOException {
+		if (blockBuffer == null || blockBuffer.size() == 0) {
+			return;
+		}
+		final byte[] content = blockBuffer.toByteArray();
+		blockBuffer.reset();
+		packages.clear();
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream(
+				content.length / 4 + 64);
+		final Deflater deflater = new Deflater();
+		try {
+			deflater.setInput(content);
+			deflater.finish();
+			final byte[] chunk = new byte[8192];
+			while (!deflater.finished()) {
+				final int n = deflater.deflate(chunk);
+				compressed.write(chunk, 0, n);
+			}
+		} finally {
+			deflater.end();
+		}
+		out.writeByte(BLOCK_COMPRESSED);
+		out.writeVarInt(content.length);
+		out.writeVarInt(compressed.size());
+		compressed.writeTo(out);
+	}
+
 	public void visitSessionInfo(final SessionInfo info) {
 		try {
-			out.writeByte(BLOCK_SESSIONINFO);
-			out.writeUTF(info.getId());
-			out.writeLong(info.getStartTimeStamp());
-			out.writeLong(info.getDumpTimeStamp());
+			blockOut.writeByte(BLOCK_SESSIONINFO);
+			blockOut.writeUTF(info.getId());
+			blockOut.writeLong(info.getStartTimeStamp());
+			blockOut.writeLong(info.getDumpTimeStamp());
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
@@ -98,16 +199,41 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	public void visitClassExecution(final ExecutionData data) {
 		if (data.hasHits()) {
 			try {
-				out.writeByte(BLOCK_EXECUTIONDATA);
-				out.writeLong(data.getId());
-				out.writeUTF(data.getName());
-				out.writeBooleanArray(data.getProbes());
+				if (blockBuffer == null) {
+					out.writeByte(BLOCK_EXECUTIONDATA);
+					out.writeLong(data.getId());
+					out.writeUTF(data.getName());
+					out.writeBooleanArray(data.getProbes());
+				} else {
+					blockOut.writeByte(BLOCK_COMPACTEXECUTIONDATA);
+					blockOut.writeLong(data.getId());
+					writeCompactName(data.getName());
+					blockOut.writeBooleanArray(data.getProbes());
+					if (blockBuffer.size() >= MAX_BLOCK_SIZE) {
+						writeCompressedBlock();
+					}
+				}
 			} catch (final IOException e) {
 				throw new RuntimeException(e);
 			}
 		}
 	}
 
+	private void writeCompactName(final String name) throws IOException {
+		final int idx = name.lastIndexOf('/');
+		final String packageName = idx == -1 ? "" : name.substring(0, idx);
+		final Integer packageIndex = packages.get(packageName);
+		if (packageIndex == null) {
+			final int newIndex = packages.size();
+			blockOut.writeVarInt(newIndex);
+			blockOut.writeUTF(packageName);
+			packages.put(packageName, Integer.valueOf(newIndex));
+		} else {
+			blockOut.writeVarInt(packageIndex.intValue());
+		}
+		blockOut.writeUTF(name.substring(idx + 1));
+	}
+
 	/**
 	 * Returns the first bytes of a file that represents a valid execution data
 	 * file. In any case every execution data file starts with the three bytes
@@ -0,0 +1,434 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.internal.data.CompactDataInput;
+
+/**
+ * Random access to the content of an execution data file. The file is mapped
+ * into memory and only the blocks actually requested are decoded. If the file
+ * ends with an index written by {@link IndexedExecutionDataWriter} the block
+ * positions are taken from the index, otherwise the file is scanned once when
+ * the reader is created. Compressed blocks are decoded into memory when the
+ * file is scanned.
+ * <p>
+ * Files larger than 2 GB are not supported. Instances are thread-safe.
+ */
+public class IndexedExecutionDataReader implements Closeable {
+
+	private final RandomAccessFile file;
+
+	private final ByteBuffer buffer;
+
+	private final boolean indexed;
+
+	private final List<Long> sessions;
+
+	/** Positions of all execution data blocks by class id. */
+	private final Map<Long, List<Long>> positions;
+
+	/** Class ids by class name. */
+	private final Map<String, List<Long>> ids;
+
+	/** Merged execution data from compressed blocks by class id. */
+	private final Map<Long, ExecutionData> decoded;
+
+	/** Session infos from compressed blocks. */
+	private final List<SessionInfo> decodedSessions;
+
+	/**
+	 * Opens the given execution data file for random access.
+	 * 
+	 * @param file
+	 *            execution data file
+	 * @throws IOException
+	 *             if the file can't be read or is not a valid execution data
+	 *             file
+	 * @throws IncompatibleExecDataVersionException
+	 *             incompatible data version from different JaCoCo release
+	 */
+	public IndexedExecutionDataReader(final File file) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = this.file.getChannel();
+			final long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(
+						format("Execution data file %s is too large.", file));
+			}
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			this.positions = new LinkedHashMap<Long, List<Long>>();
+			this.ids = new HashMap<String, List<Long>>();
+			this.decoded = new HashMap<Long, ExecutionData>();
+			this.decodedSessions = new ArrayList<SessionInfo>();
+			ExecutionDataIndex index = readIndex();
+			this.indexed = index != null;
+			if (index == null) {
+				index = scan();
+			}
+			this.sessions = index.sessions;
+			for (final ExecutionDataIndex.Entry e : index.entries) {
+				add(e);
+			}
+		} catch (final IOException e) {
+			this.file.close();
+			throw e;
+		} catch (final RuntimeException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+
+	private void add(final ExecutionDataIndex.Entry e) {
+		getPositions(e.id, e.name).add(Long.valueOf(e.position));
+	}
+
+	private List<Long> getPositions(final long classId, final String name) {
+		final Long id = Long.valueOf(classId);
+		List<Long> p = positions.get(id);
+		if (p == null) {
+			p = new ArrayList<Long>(1);
+			positions.put(id, p);
+			List<Long> n = ids.get(name);
+			if (n == null) {
+				n = new ArrayList<Long>(1);
+				ids.put(name, n);
+			}
+			n.add(id);
+		}
+		return p;
+	}
+
+	/**
+	 * Reads the trailing index of the file if present and valid for the
+	 * complete file.
+	 */
+	private ExecutionDataIndex readIndex() throws IOException {
+		final int size = buffer.limit();
+		if (size < ExecutionDataIndex.TRAILER_LENGTH) {
+			return null;
+		}
+		final long length = buffer
+				.getLong(size - ExecutionDataIndex.TRAILER_LENGTH);
+		if (length <= ExecutionDataIndex.TRAILER_LENGTH || length > size) {
+			return null;
+		}
+		final int start = (int) (size - length);
+		if (buffer.get(start) != ExecutionDataWriter.BLOCK_INDEX) {
+			return null;
+		}
+		final ExecutionDataIndex index;
+		try {
+			index = ExecutionDataIndex.read(input(start + 1), start, length);
+		} catch (final IOException e) {
+			// Trailing bytes only look like an index
+			return null;
+		}
+		if (index.header != 0 || !isValid(index, start)) {
+			return null;
+		}
+		readHeader();
+		return index;
+	}
+
+	private static boolean isValid(final ExecutionDataIndex index,
+			final int limit) {
+		for (final Long s : index.sessions) {
+			if (s.longValue() <= 0 || s.longValue() >= limit) {
+				return false;
+			}
+		}
+		for (final ExecutionDataIndex.Entry e : index.entries) {
+			if (e.position <= 0 || e.position >= limit) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void readHeader() throws IOException {
+		final CompactDataInput in = input(0);
+		if (in.read() != ExecutionDataWriter.BLOCK_HEADER) {
+			throw new IOException("Invalid execution data file.");
+		}
+		ExecutionDataReader.readHeader(in);
+	}
+
+	/**
+	 * Builds the index by reading all blocks of the file.
+	 */
+	private ExecutionDataIndex scan() throws IOException {
+		final ExecutionDataIndex index = new ExecutionDataIndex();
+		final ByteBuffer b = buffer.duplicate();
+		final CompactDataInput in = new CompactDataInput(
+				new ByteBufferInputStream(b));
+		boolean firstBlock = true;
+		while (b.hasRemaining()) {
+			final int position = b.position();
+			final byte type = b.get();
+			if (firstBlock && type != ExecutionDataWriter.BLOCK_HEADER) {
+				throw new IOException("Invalid execution data file.");
+			}
+			firstBlock = false;
+			switch (type) {
+			case ExecutionDataWriter.BLOCK_HEADER:
+				ExecutionDataReader.readHeader(in);
+				break;
+			case ExecutionDataWriter.BLOCK_SESSIONINFO:
+				ExecutionDataReader.readSessionInfo(in);
+				index.sessions.add(Long.valueOf(position));
+				break;
+			case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
+				final long id = in.readLong();
+				final String name = in.readUTF();
+				in.readBooleanArray();
+				index.entries.add(
+						new ExecutionDataIndex.Entry(id, name, position));
+				break;
+			case ExecutionDataWriter.BLOCK_INDEX:
+				ExecutionDataIndex.skip(in);
+				break;
+			case ExecutionDataWriter.BLOCK_COMPRESSED:
+				decode(ExecutionDataReader.readCompressedBlock(in));
+				break;
+			default:
+				throw new IOException(format("Unknown block type %x.",
+						Byte.valueOf(type)));
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Keeps the content of a compressed block in memory as it can't be
+	 * accessed by position.
+	 */
+	private void decode(final byte[] content) throws IOException {
+		final CompactDataInput in = new CompactDataInput(
+				new ByteArrayInputStream(content));
+		final List<String> packages = new ArrayList<String>();
+		int type;
+		while ((type = in.read()) != -1) {
+			switch ((byte) type) {
+			case ExecutionDataWriter.BLOCK_SESSIONINFO:
+				decodedSessions.add(ExecutionDataReader.readSessionInfo(in));
+				break;
+			case ExecutionDataWriter.BLOCK_COMPACTEXECUTIONDATA:
+				final ExecutionData data = ExecutionDataReader
+						.readCompactExecutionData(in, packages);
+				final Long id = Long.valueOf(data.getId());
+				final ExecutionData existing = decoded.get(id);
+				if (existing == null) {
+					decoded.put(id, data);
+					getPositions(data.getId(), data.getName());
+				} else {
+					existing.merge(data);
+				}
+				break;
+			default:
+				throw new IOException("Invalid compressed block.");
+			}
+		}
+	}
+
+	private CompactDataInput input(final int position) {
+		final ByteBuffer b = buffer.duplicate();
+		// Buffer type avoids the covariant overloads of Java 9:
+		((Buffer) b).position(position);
+		return new CompactDataInput(new ByteBufferInputStream(b));
+	}
+
+	/**
+	 * Checks whether the file contained a valid trailing index. Otherwise the
+	 * file has been scanned when this reader was created.
+	 * 
+	 * @return <code>true</code> if a trailing index was used
+	 */
+	public boolean isIndexed() {
+		return indexed;
+	}
+
+	/**
+	 * Returns the ids of all classes contained in the file in the order of
+	 * their first occurrence.
+	 * 
+	 * @return class ids
+	 */
+	public Collection<Long> getIds() {
+		return Collections.unmodifiableSet(positions.keySet());
+	}
+
+	/**
+	 * Returns the ids of all classes with the given name.
+	 * 
+	 * @param name
+	 *            VM name of the class
+	 * @return class ids, empty if no class with this name is contained
+	 */
+	public Collection<Long> getIds(final String name) {
+		final List<Long> result = ids.get(name);
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Reads the execution data of the class with the given id. If the file
+	 * contains multiple blocks for this class they are merged.
+	 * 
+	 * @param id
+	 *            class id
+	 * @return execution data or <code>null</code> if the file does not
+	 *         contain data for this class
+	 * @throws IOException
+	 *             if the data can't be read
+	 */
+	public ExecutionData get(final long id) throws IOException {
+		final List<Long> p = positions.get(Long.valueOf(id));
+		if (p == null) {
+			return null;
+		}
+		ExecutionData result = null;
+		for (final Long position : p) {
+			final ExecutionData data = readExecutionData(position.intValue());
+			if (result == null) {
+				result = data;
+			} else {
+				result.merge(data);
+			}
+		}
+		final ExecutionData data = decoded.get(Long.valueOf(id));
+		if (data != null) {
+			final ExecutionData copy = new ExecutionData(id, data.getName(),
+					data.getProbes().clone());
+			if (result == null) {
+				result = copy;
+			} else {
+				result.merge(copy);
+			}
+		}
+		return result;
+	}
+
+	private ExecutionData readExecutionData(final int position)
+			throws IOException {
+		final CompactDataInput in = input(position);
+		if (in.read() != ExecutionDataWriter.BLOCK_EXECUTIONDATA) {
+			throw new IOException("Invalid execution data index.");
+		}
+		return ExecutionDataReader.readExecutionData(in);
+	}
+
+	/**
+	 * Reports all session infos of the file to the given visitor.
+	 * 
+	 * @param visitor
+	 *            visitor to report session infos to
+	 * @throws IOException
+	 *             if the data can't be read
+	 */
+	public void accept(final ISessionInfoVisitor visitor) throws IOException {
+		for (final Long position : sessions) {
+			final CompactDataInput in = input(position.intValue());
+			if (in.read() != ExecutionDataWriter.BLOCK_SESSIONINFO) {
+				throw new IOException("Invalid execution data index.");
+			}
+			visitor.visitSessionInfo(ExecutionDataReader.readSessionInfo(in));
+		}
+		for (final SessionInfo info : decodedSessions) {
+			visitor.visitSessionInfo(info);
+		}
+	}
+
+	/**
+	 * Reports the execution data of all classes of the file to the given
+	 * visitor.
+	 * 
+	 * @param visitor
+	 *            visitor to report execution data to
+	 * @throws IOException
+	 *             if the data can't be read
+	 */
+	public void accept(final IExecutionDataVisitor visitor)
+			throws IOException {
+		for (final Long id : positions.keySet()) {
+			visitor.visitClassExecution(get(id.longValue()));
+		}
+	}
+
+	/**
+	 * Closes the underlying file. The memory mapping is released when this
+	 * instance is garbage collected.
+	 */
+	public void close() throws IOException {
+		file.close();
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			final int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public long skip(final long n) {
+			final int skipped = (int) Math.min(Math.max(n, 0),
+					buffer.remaining());
+			// Buffer type avoids the covariant overloads of Java 9:
+			((Buffer) buffer).position(buffer.position() + skipped);
+			return skipped;
+		}
+
+	}
+
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Writer for execution data which records the position of every block and
+ * writes an index of these positions with {@link #writeIndex()}. Files with a
+ * trailing index can be accessed randomly with
+ * {@link IndexedExecutionDataReader}, for sequential readers the index block is
+ * transparent. Note that JaCoCo versions without support for index blocks
+ * can't read such files as the format version is unchanged.
+ * 
+ * @since 0.8.5
+ */
+public class IndexedExecutionDataWriter extends ExecutionDataWriter {
+
+	private final PositionOutputStream position;
+
+	private final ExecutionDataIndex index;
+
+	/**
+	 * Creates a new writer based on the given output stream. Depending on the
+	 * nature of the underlying stream output should be buffered as most data is
+	 * written in single bytes.
+	 * 
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public IndexedExecutionDataWriter(final OutputStream output)
+			throws IOException {
+		this(new PositionOutputStream(output));
+	}
+
+	private IndexedExecutionDataWriter(final PositionOutputStream output)
+			throws IOException {
+		super(output);
+		this.position = output;
+		this.index = new ExecutionDataIndex();
+	}
+
+	@Override
+	public void visitSessionInfo(final SessionInfo info) {
+		index.sessions.add(Long.valueOf(position.count));
+		super.visitSessionInfo(info);
+	}
+
+	@Override
+	public void visitClassExecution(final ExecutionData data) {
+		if (data.hasHits()) {
+			index.entries.add(new ExecutionDataIndex.Entry(data.getId(),
+					data.getName(), position.count));
+		}
+		super.visitClassExecution(data);
+	}
+
+	/**
+	 * Writes an index block for all blocks written by this writer so far. The
+	 * index must be the last block of a file to allow random access.
+	 * 
+	 * @throws IOException
+	 *             if the index can't be written
+	 */
+	public void writeIndex() throws IOException {
+		final long start = position.count;
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		index.write(new CompactDataOutput(content), start);
+		final long length = ExecutionDataIndex.HEADER_LENGTH + content.size()
+				+ ExecutionDataIndex.TRAILER_LENGTH;
+		out.writeByte(BLOCK_INDEX);
+		out.writeLong(length);
+		content.writeTo(out);
+		out.writeLong(length);
+	}
+
+	private static class PositionOutputStream extends FilterOutputStream {
+
+		long count;
+
+		PositionOutputStream(final OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+				throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+	}
+
+}
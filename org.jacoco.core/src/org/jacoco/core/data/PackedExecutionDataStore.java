@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory data store for execution data with probes packed into
+ * <code>long</code> words. The store behaves like {@link ExecutionDataStore}:
+ * If execution data is provided multiple times for the same class the data is
+ * merged and probes can be subtracted. Execution data is converted to
+ * {@link PackedExecutionData} when added to the store and converted back to
+ * {@link ExecutionData} when the store content is written to a visitor. A
+ * instance of this class is not thread safe.
+ */
+public final class PackedExecutionDataStore implements IExecutionDataVisitor {
+
+	private final Map<Long, PackedExecutionData> entries = new HashMap<Long, PackedExecutionData>();
+
+	private final Set<String> names = new HashSet<String>();
+
+	/**
+	 * Adds the given {@link ExecutionData} object into the store. If there is
+	 * already execution data with this same class id, this structure is merged
+	 * with the given one.
+	 * 
+	 * @param data
+	 *            execution data to add or merge
+	 * @throws IllegalStateException
+	 *             if the given {@link ExecutionData} object is not compatible
+	 *             to a corresponding one, that is already contained
+	 * @see ExecutionDataStore#put(ExecutionData)
+	 */
+	public void put(final ExecutionData data) throws IllegalStateException {
+		put(new PackedExecutionData(data));
+	}
+
+	/**
+	 * Adds the given {@link PackedExecutionData} object into the store. If
+	 * there is already execution data with this same class id, this structure
+	 * is merged with the given one.
+	 * 
+	 * @param data
+	 *            execution data to add or merge
+	 * @throws IllegalStateException
+	 *             if the given {@link PackedExecutionData} object is not
+	 *             compatible to a corresponding one, that is already contained
+	 */
+	public void put(final PackedExecutionData data)
+			throws IllegalStateException {
+		final Long id = Long.valueOf(data.getId());
+		final PackedExecutionData entry = entries.get(id);
+		if (entry == null) {
+			entries.put(id, data);
+			names.add(data.getName());
+		} else {
+			entry.merge(data);
+		}
+	}
+
+	/**
+	 * Subtracts the probes in the given {@link ExecutionData} object from the
+	 * store. If there is no execution data with id of the given data object
+	 * this operation will have no effect.
+	 * 
+	 * @param data
+	 *            execution data to subtract
+	 * @throws IllegalStateException
+	 *             if the given {@link ExecutionData} object is not compatible
+	 *             to a corresponding one, that is already contained
+	 * @see ExecutionDataStore#subtract(ExecutionData)
+	 */
+	public void subtract(final ExecutionData data) throws IllegalStateException {
+		final PackedExecutionData entry = entries.get(Long.valueOf(data
+				.getId()));
+		if (entry != null) {
+			entry.merge(new PackedExecutionData(data), false);
+		}
+	}
+
+	/**
+	 * Subtracts all probes in the given store from this store.
+	 * 
+	 * @param store
+	 *            execution data store to subtract
+	 * @see #subtract(ExecutionData)
+	 */
+	public void subtract(final PackedExecutionDataStore store) {
+		for (final PackedExecutionData data : store.getContents()) {
+			final PackedExecutionData entry = entries.get(Long.valueOf(data
+					.getId()));
+			if (entry != null) {
+				entry.merge(data, false);
+			}
+		}
+	}
+
+	/**
+	 * Returns the {@link PackedExecutionData} entry with the given id if it
+	 * exists in this store.
+	 * 
+	 * @param id
+	 *            class id
+	 * @return execution data or <code>null</code>
+	 */
+	public PackedExecutionData get(final long id) {
+		return entries.get(Long.valueOf(id));
+	}
+
+	/**
+	 * Checks whether execution data for classes with the given name are
+	 * contained in the store.
+	 * 
+	 * @param name
+	 *            VM name
+	 * @return <code>true</code> if at least one class with the name is
+	 *         contained.
+	 */
+	public boolean contains(final String name) {
+		return names.contains(name);
+	}
+
+	/**
+	 * Returns the number of classes contained in this store.
+	 * 
+	 * @return number of classes
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns a collection that represents current contents of the store.
+	 * 
+	 * @return current contents
+	 */
+	public Collection<PackedExecutionData> getContents() {
+		return new ArrayList<PackedExecutionData>(entries.values());
+	}
+
+	/**
+	 * Writes the content of the store to the given visitor interface. For
+	 * every class a new {@link ExecutionData} instance is created.
+	 * 
+	 * @param visitor
+	 *            interface to write content to
+	 */
+	public void accept(final IExecutionDataVisitor visitor) {
+		for (final PackedExecutionData data : getContents()) {
+			visitor.visitClassExecution(data.toExecutionData());
+		}
+	}
+
+	// === IExecutionDataVisitor ===
+
+	public void visitClassExecution(final ExecutionData data) {
+		put(data);
+	}
+
+}
@@ -15,7 +15,14 @@ package org.jacoco.core.instr;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
@@ -33,6 +40,7 @@ import org.jacoco.core.internal.instr.InstrSupport;
 import org.jacoco.core.internal.instr.ProbeArrayStrategyFactory;
 import org.jacoco.core.internal.instr.SignatureRemover;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
+import org.jacoco.core.runtime.WildcardMatcher;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -42,10 +50,20 @@ import org.objectweb.asm.ClassWriter;
  */
 public class Instrumenter {
 
+	/**
+	 * Maximum number of archive entries waiting for concurrent instrumentation
+	 * before the calling thread blocks.
+	 */
+	private static final int MAX_PENDING = 1024;
+
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
 	private final SignatureRemover signatureRemover;
 
+	private WildcardMatcher boundaryChecks;
+
+	private Executor executor;
+
 	/**
 	 * Creates a new instance based on the given runtime.
 	 * 
@@ -55,6 +73,7 @@ public class Instrumenter {
 	public Instrumenter(final IExecutionDataAccessorGenerator runtime) {
 		this.accessorGenerator = runtime;
 		this.signatureRemover = new SignatureRemover();
+		this.boundaryChecks = new WildcardMatcher("");
 	}
 
 	/**
@@ -70,6 +89,38 @@ public class Instrumenter {
 		signatureRemover.setActive(flag);
 	}
 
+	/**
+	 * Sets the classes which are instrumented with additional probes for
+	 * boundary value checks of compare instructions. The classes are specified
+	 * with a wildcard expression of Java class names, the same syntax as for
+	 * the <code>includes</code> agent option. Execution data of such classes
+	 * can only be analyzed with the same expression set for the analyzer.
+	 * Default is the empty string (no boundary checks).
+	 * 
+	 * @param includes
+	 *            wildcard expression for classes with boundary value checks
+	 * @see WildcardMatcher
+	 */
+	public void setBoundaryChecks(final String includes) {
+		boundaryChecks = new WildcardMatcher(includes.replace('.', '/'));
+	}
+
+	/**
+	 * Sets an executor which is used to instrument the class files contained
+	 * in archives concurrently. Archives are still read and written by the
+	 * calling thread and all entries are written in their original order,
+	 * therefore the output is identical to sequential instrumentation. By
+	 * default no executor is set and all classes are instrumented in the
+	 * calling thread.
+	 * 
+	 * @param executor
+	 *            executor for concurrent instrumentation or <code>null</code>
+	 *            to instrument classes in the calling thread
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
 	private byte[] instrument(final byte[] source) {
 		final long classId = CRC64.classId(source);
 		final ClassReader reader = InstrSupport.classReaderFor(source);
@@ -80,12 +131,13 @@ public class Instrumenter {
 				throw new IllegalStateException();
 			}
 		};
+		final boolean checks = boundaryChecks.matches(reader.getClassName());
 		final IProbeArrayStrategy strategy = ProbeArrayStrategyFactory
-				.createFor(classId, reader, accessorGenerator);
+				.createFor(classId, reader, accessorGenerator, checks);
 		final int version = InstrSupport.getMajorVersion(reader);
 		final ClassVisitor visitor = new ClassProbesAdapter(
 				new ClassInstrumenter(strategy, writer),
-				InstrSupport.needsFrames(version));
+				InstrSupport.needsFrames(version), checks);
 		reader.accept(visitor, ClassReader.EXPAND_FRAMES);
 		return writer.toByteArray();
 	}
@@ -125,13 +177,7 @@ public class Instrumenter {
 	 */
 	public byte[] instrument(final InputStream input, final String name)
 			throws IOException {
-		final byte[] bytes;
-		try {
-			bytes = InputStreams.readFully(input);
-		} catch (final IOException e) {
-			throw instrumentError(name, e);
-		}
-		return instrument(bytes, name);
+		return instrument(readFully(input, name), name);
 	}
 
 	/**
@@ -208,6 +254,7 @@ public class Instrumenter {
 			final OutputStream output, final String name) throws IOException {
 		final ZipInputStream zipin = new ZipInputStream(input);
 		final ZipOutputStream zipout = new ZipOutputStream(output);
+		final Queue<PendingEntry> pending = new LinkedList<PendingEntry>();
 		ZipEntry entry;
 		int count = 0;
 		while ((entry = nextEntry(zipin, name)) != null) {
@@ -216,16 +263,103 @@ public class Instrumenter {
 				continue;
 			}
 
+			final String location = name + "@" + entryName;
+			InputStream entryInput = zipin;
+			if (executor != null) {
+				final ContentTypeDetector detector = detect(zipin, location);
+				entryInput = detector.getInputStream();
+				if (detector.getType() == ContentTypeDetector.CLASSFILE) {
+					submit(pending, entryName, location,
+							readFully(entryInput, location));
+					count += writePending(pending, zipout, false);
+					continue;
+				}
+				count += writePending(pending, zipout, true);
+			}
+
 			zipout.putNextEntry(new ZipEntry(entryName));
-			if (!signatureRemover.filterEntry(entryName, zipin, zipout)) {
-				count += instrumentAll(zipin, zipout, name + "@" + entryName);
+			if (!signatureRemover.filterEntry(entryName, entryInput, zipout)) {
+				count += instrumentAll(entryInput, zipout, location);
 			}
 			zipout.closeEntry();
 		}
+		count += writePending(pending, zipout, true);
 		zipout.finish();
 		return count;
 	}
 
+	private void submit(final Queue<PendingEntry> pending,
+			final String entryName, final String location,
+			final byte[] buffer) {
+		final PendingEntry p = new PendingEntry(entryName, location, buffer);
+		pending.add(p);
+		executor.execute(p);
+	}
+
+	/**
+	 * Writes instrumented classes of the given queue to the ZIP output in
+	 * their original order.
+	 * 
+	 * @param all
+	 *            if <code>true</code> all pending entries are written,
+	 *            otherwise only completed entries at the head of the queue
+	 * @return number of written classes
+	 */
+	private int writePending(final Queue<PendingEntry> pending,
+			final ZipOutputStream zipout, final boolean all)
+			throws IOException {
+		int count = 0;
+		while (!pending.isEmpty() && (all || pending.size() > MAX_PENDING
+				|| pending.peek().isDone())) {
+			final PendingEntry p = pending.remove();
+			final byte[] instrumented;
+			try {
+				instrumented = p.get();
+			} catch (final InterruptedException e) {
+				cancel(pending);
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} catch (final ExecutionException e) {
+				cancel(pending);
+				final Throwable cause = e.getCause();
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw instrumentError(p.location, (Exception) cause);
+			}
+			zipout.putNextEntry(new ZipEntry(p.entryName));
+			zipout.write(instrumented);
+			zipout.closeEntry();
+			count++;
+		}
+		return count;
+	}
+
+	private static void cancel(final Queue<PendingEntry> pending) {
+		for (final PendingEntry p : pending) {
+			p.cancel(false);
+		}
+		pending.clear();
+	}
+
+	private ContentTypeDetector detect(final InputStream input,
+			final String location) throws IOException {
+		try {
+			return new ContentTypeDetector(input);
+		} catch (final IOException e) {
+			throw instrumentError(location, e);
+		}
+	}
+
+	private byte[] readFully(final InputStream input, final String location)
+			throws IOException {
+		try {
+			return InputStreams.readFully(input);
+		} catch (final IOException e) {
+			throw instrumentError(location, e);
+		}
+	}
+
 	private ZipEntry nextEntry(final ZipInputStream input,
 			final String location) throws IOException {
 		try {
@@ -281,4 +415,23 @@ public class Instrumenter {
 		}
 	}
 
+	private class PendingEntry extends FutureTask<byte[]> {
+
+		private final String entryName;
+
+		private final String location;
+
+		PendingEntry(final String entryName, final String location,
+				final byte[] buffer) {
+			super(new Callable<byte[]>() {
+				public byte[] call() {
+					return instrument(buffer);
+				}
+			});
+			this.entryName = entryName;
+			this.location = location;
+		}
+
+	}
+
 }
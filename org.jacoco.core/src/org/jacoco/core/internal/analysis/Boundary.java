@@ -14,57 +14,91 @@ package org.jacoco.core.internal.analysis;
 
 import org.jacoco.core.analysis.ICounter;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-
+/**
+ * Boundary value checks of a single comparison instruction. The coverage
+ * status of the checks is kept as a bit mask, therefore at most
+ * {@link #MAX_CHECKS} checks are supported per instance.
+ */
 public final class Boundary {
 
+    /** Maximum number of checks per boundary. */
+    public static final int MAX_CHECKS = 64;
+
     private final int line;
-    private final List<Boolean> checks;
+    private final int checks;
+    private final long covered;
 
-    public Boundary(int line, List<Boolean> checks) {
+    /**
+     * Creates a new boundary.
+     *
+     * @param line
+     *            source line of the comparison
+     * @param checks
+     *            number of checks
+     * @param covered
+     *            bit mask of covered checks, bit <code>i</code> is set if
+     *            check <code>i</code> has been covered
+     */
+    public Boundary(final int line, final int checks, final long covered) {
+        if (checks < 0 || checks > MAX_CHECKS) {
+            throw new IllegalArgumentException(
+                    "Unsupported number of checks: " + checks);
+        }
         this.line = line;
         this.checks = checks;
+        this.covered = covered;
     }
 
     public int getLine() {
         return line;
     }
 
-    public List<Boolean> getChecks() {
+    /**
+     * @return number of checks of this boundary
+     */
+    public int getCheckCount() {
         return checks;
     }
 
-    public ICounter getCounter() {
-        int covered = 0;
-        for (Boolean check : checks) {
-            if (check) {
-                covered++;
-            }
-        }
+    /**
+     * @param index
+     *            index of the check
+     * @return <code>true</code> if the given check has been covered
+     */
+    public boolean isCovered(final int index) {
+        return (covered & (1L << index)) != 0;
+    }
 
-        int missed = checks.size() - covered;
-        return CounterImpl.getInstance(missed, covered);
+    public ICounter getCounter() {
+        final int c = Long.bitCount(covered);
+        return CounterImpl.getInstance(checks - c, c);
     }
 
-    Boundary merge(Boundary other) {
-        if (line != other.line) {
-            throw new IllegalArgumentException();
+    /**
+     * Merges the coverage status of this boundary with another boundary of
+     * the same comparison. No new instance is created if the other boundary
+     * does not contribute additional coverage.
+     *
+     * @param other
+     *            boundary to merge with, may be <code>null</code>
+     * @return merged boundary
+     */
+    Boundary merge(final Boundary other) {
+        if (other == null) {
+            return this;
         }
 
-        if (checks.size() != other.checks.size()) {
+        if (line != other.line || checks != other.checks) {
             throw new IllegalArgumentException();
         }
 
-        List<Boolean> newChecks = new ArrayList<Boolean>(checks.size());
-        for (int i = 0; i < checks.size(); i++) {
-            Boolean check = checks.get(i);
-            Boolean otherCheck = other.checks.get(i);
-            Boolean newCheck = check || otherCheck;
-            newChecks.set(i, newCheck);
+        final long merged = covered | other.covered;
+        if (merged == covered) {
+            return this;
         }
-
-        return new Boundary(line, newChecks);
+        if (merged == other.covered) {
+            return other;
+        }
+        return new Boundary(line, checks, merged);
     }
 }
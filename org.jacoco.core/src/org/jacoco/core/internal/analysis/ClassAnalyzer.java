@@ -18,6 +18,7 @@ import java.util.Set;
 import org.jacoco.core.internal.analysis.filter.Filters;
 import org.jacoco.core.internal.analysis.filter.IFilter;
 import org.jacoco.core.internal.analysis.filter.IFilterContext;
+import org.jacoco.core.internal.analysis.filter.IFilterOutput;
 import org.jacoco.core.internal.flow.ClassProbesVisitor;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
 import org.jacoco.core.internal.instr.InstrSupport;
@@ -25,6 +26,7 @@ import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 
 /**
@@ -45,6 +47,8 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 	private final IFilter filter;
 
+	private ClassModel model;
+
 	/**
 	 * Creates a new analyzer that builds coverage data for a class.
 	 * 
@@ -63,6 +67,17 @@ public class ClassAnalyzer extends ClassProbesVisitor
 		this.filter = Filters.all();
 	}
 
+	/**
+	 * Records the probe independent analysis result to the given model in
+	 * addition to the coverage calculation.
+	 * 
+	 * @param model
+	 *            model to record to
+	 */
+	public void setModel(final ClassModel model) {
+		this.model = model;
+	}
+
 	@Override
 	public void visit(final int version, final int access, final String name,
 			final String signature, final String superName,
@@ -70,6 +85,10 @@ public class ClassAnalyzer extends ClassProbesVisitor
 		coverage.setSignature(stringPool.get(signature));
 		coverage.setSuperName(stringPool.get(superName));
 		coverage.setInterfaces(stringPool.get(interfaces));
+		if (model != null) {
+			model.setHeader(coverage.getSignature(), coverage.getSuperName(),
+					coverage.getInterfaceNames());
+		}
 	}
 
 	@Override
@@ -88,6 +107,9 @@ public class ClassAnalyzer extends ClassProbesVisitor
 	public void visitSource(final String source, final String debug) {
 		coverage.setSourceFileName(stringPool.get(source));
 		sourceDebugExtension = debug;
+		if (model != null) {
+			model.setSourceFileName(coverage.getSourceFileName());
+		}
 	}
 
 	@Override
@@ -98,6 +120,13 @@ public class ClassAnalyzer extends ClassProbesVisitor
 		InstrSupport.assertNotInstrumented(name, coverage.getName());
 
 		final InstructionsBuilder builder = new InstructionsBuilder(probes);
+		final MethodModel methodModel;
+		if (model == null) {
+			methodModel = null;
+		} else {
+			methodModel = new MethodModel(name, desc, signature);
+			builder.setModel(methodModel);
+		}
 
 		return new MethodAnalyzer(builder) {
 
@@ -106,17 +135,23 @@ public class ClassAnalyzer extends ClassProbesVisitor
 					final MethodVisitor methodVisitor) {
 				super.accept(methodNode, methodVisitor);
 				addMethodCoverage(stringPool.get(name), stringPool.get(desc),
-						stringPool.get(signature), builder, methodNode);
+						stringPool.get(signature), builder, methodNode,
+						methodModel);
 			}
 		};
 	}
 
 	private void addMethodCoverage(final String name, final String desc,
 			final String signature, final InstructionsBuilder icc,
-			final MethodNode methodNode) {
+			final MethodNode methodNode, final MethodModel methodModel) {
 		final MethodCoverageCalculator mcc = new MethodCoverageCalculator(
 				icc.getInstructions(), icc.getBoundaries());
-		filter.filter(methodNode, this, mcc);
+		if (methodModel == null) {
+			filter.filter(methodNode, this, mcc);
+		} else {
+			filter.filter(methodNode, this,
+					new RecordingFilterOutput(mcc, icc, methodModel));
+		}
 
 		final MethodCoverageImpl mc = new MethodCoverageImpl(name, desc,
 				signature);
@@ -125,6 +160,9 @@ public class ClassAnalyzer extends ClassProbesVisitor
 		if (mc.containsCode()) {
 			// Only consider methods that actually contain code
 			coverage.addMethod(mc);
+			if (methodModel != null) {
+				model.addMethod(methodModel);
+			}
 		}
 
 	}
@@ -167,4 +205,59 @@ public class ClassAnalyzer extends ClassProbesVisitor
 		return sourceDebugExtension;
 	}
 
+	/**
+	 * Filter output which additionally records all commands to the model of
+	 * the method.
+	 */
+	private static class RecordingFilterOutput implements IFilterOutput {
+
+		private final IFilterOutput delegate;
+		private final InstructionsBuilder builder;
+		private final MethodModel model;
+
+		RecordingFilterOutput(final IFilterOutput delegate,
+				final InstructionsBuilder builder, final MethodModel model) {
+			this.delegate = delegate;
+			this.builder = builder;
+			this.model = model;
+		}
+
+		public void ignore(final AbstractInsnNode fromInclusive,
+				final AbstractInsnNode toInclusive) {
+			delegate.ignore(fromInclusive, toInclusive);
+			for (AbstractInsnNode i = fromInclusive; i != toInclusive; i = i
+					.getNext()) {
+				ignore(i);
+			}
+			ignore(toInclusive);
+		}
+
+		private void ignore(final AbstractInsnNode node) {
+			final Integer index = builder.getIndex(node);
+			if (index != null) {
+				model.ignore(index.intValue());
+			}
+		}
+
+		public void merge(final AbstractInsnNode i1,
+				final AbstractInsnNode i2) {
+			delegate.merge(i1, i2);
+			model.merge(builder.getIndex(i1).intValue(),
+					builder.getIndex(i2).intValue());
+		}
+
+		public void replaceBranches(final AbstractInsnNode source,
+				final Set<AbstractInsnNode> newTargets) {
+			delegate.replaceBranches(source, newTargets);
+			final int[] targets = new int[newTargets.size()];
+			int idx = 0;
+			for (final AbstractInsnNode t : newTargets) {
+				targets[idx++] = builder.getIndex(t).intValue();
+			}
+			model.replaceBranches(builder.getIndex(source).intValue(),
+					targets);
+		}
+
+	}
+
 }
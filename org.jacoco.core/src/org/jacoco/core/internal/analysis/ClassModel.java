@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Probe independent result of the analysis of a class. A model is recorded by
+ * {@link ClassAnalyzer} and can be used to calculate the coverage of the
+ * class for any probe array without parsing the class file again.
+ */
+public final class ClassModel {
+
+	private final String name;
+
+	private final boolean boundaryChecks;
+
+	private String signature;
+
+	private String superName;
+
+	private String[] interfaces;
+
+	private String sourceFileName;
+
+	private final List<MethodModel> methods;
+
+	/**
+	 * Creates a new empty model for the class with the given name.
+	 * 
+	 * @param name
+	 *            VM name of the class
+	 * @param boundaryChecks
+	 *            whether the probes of the class include boundary value checks
+	 */
+	public ClassModel(final String name, final boolean boundaryChecks) {
+		this.name = name;
+		this.boundaryChecks = boundaryChecks;
+		this.interfaces = new String[0];
+		this.methods = new ArrayList<MethodModel>();
+	}
+
+	/**
+	 * Returns the VM name of the class.
+	 * 
+	 * @return VM name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Checks whether the probes of the class include boundary value checks.
+	 * The model can only be used with probes of the same kind.
+	 * 
+	 * @return <code>true</code> if boundary value checks are included
+	 */
+	public boolean hasBoundaryChecks() {
+		return boundaryChecks;
+	}
+
+	void setHeader(final String signature, final String superName,
+			final String[] interfaces) {
+		this.signature = signature;
+		this.superName = superName;
+		this.interfaces = interfaces;
+	}
+
+	void setSourceFileName(final String sourceFileName) {
+		this.sourceFileName = sourceFileName;
+	}
+
+	void addMethod(final MethodModel method) {
+		methods.add(method);
+	}
+
+	/**
+	 * Calculates the coverage of the class for the given probes. The result is
+	 * the same as analyzing the original class file with these probes.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @param noMatch
+	 *            <code>true</code>, if class id does not match with execution
+	 *            data
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 * @return coverage of the class
+	 */
+	public ClassCoverageImpl calculate(final long id, final boolean noMatch,
+			final boolean[] probes, final StringPool stringPool) {
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(name, id,
+				noMatch);
+		coverage.setSignature(stringPool.get(signature));
+		coverage.setSuperName(stringPool.get(superName));
+		coverage.setInterfaces(stringPool.get(interfaces));
+		coverage.setSourceFileName(stringPool.get(sourceFileName));
+		for (final MethodModel method : methods) {
+			final MethodCoverageImpl mc = new MethodCoverageImpl(
+					stringPool.get(method.name), stringPool.get(method.desc),
+					stringPool.get(method.signature));
+			method.calculate(probes, mc);
+			if (mc.containsCode()) {
+				coverage.addMethod(mc);
+			}
+		}
+		return coverage;
+	}
+
+	/**
+	 * Writes this model to the given stream.
+	 * 
+	 * @param output
+	 *            stream to write to
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void write(final OutputStream output) throws IOException {
+		final CompactDataOutput out = new CompactDataOutput(output);
+		out.writeUTF(name);
+		out.writeBoolean(boundaryChecks);
+		writeOptional(out, signature);
+		writeOptional(out, superName);
+		out.writeVarInt(interfaces.length);
+		for (final String i : interfaces) {
+			out.writeUTF(i);
+		}
+		writeOptional(out, sourceFileName);
+		out.writeVarInt(methods.size());
+		for (final MethodModel m : methods) {
+			m.write(out);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads a model from the given stream.
+	 * 
+	 * @param input
+	 *            stream to read from
+	 * @return model read from the stream
+	 * @throws IOException
+	 *             if thrown by the underlying stream or the content is
+	 *             invalid
+	 */
+	public static ClassModel read(final InputStream input) throws IOException {
+		final CompactDataInput in = new CompactDataInput(input);
+		final ClassModel model = new ClassModel(in.readUTF(),
+				in.readBoolean());
+		final String signature = readOptional(in);
+		final String superName = readOptional(in);
+		final String[] interfaces = new String[in.readVarInt()];
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaces[i] = in.readUTF();
+		}
+		model.setHeader(signature, superName, interfaces);
+		model.setSourceFileName(readOptional(in));
+		final int methodCount = in.readVarInt();
+		for (int i = 0; i < methodCount; i++) {
+			model.addMethod(MethodModel.read(in));
+		}
+		return model;
+	}
+
+	static void writeOptional(final CompactDataOutput out, final String s)
+			throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	static String readOptional(final CompactDataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+}
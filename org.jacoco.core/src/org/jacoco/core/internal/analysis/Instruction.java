@@ -157,7 +157,8 @@ public class Instruction {
 		result.branches = this.branches;
 		result.coveredBranches.or(this.coveredBranches);
 		result.coveredBranches.or(other.coveredBranches);
-		result.boundary = boundary != null ? boundary.merge(other.boundary) : null;
+		result.boundary = boundary != null ? boundary.merge(other.boundary)
+				: other.boundary;
 		return result;
 	}
 
@@ -55,9 +55,30 @@ class InstructionsBuilder {
 	 * temporarily as the target {@link Instruction} may not been known yet.
 	 */
 	private final List<Jump> jumps;
-	private List<Boolean> currentChecks;
+
+	/** Number of boundary checks added for the current comparison. */
+	private int checkCount;
+
+	/** Bit mask of covered boundary checks of the current comparison. */
+	private long coveredChecks;
+
 	private final HashMap<AbstractInsnNode, Boundary> boundaries;
 
+	/** Optional model to record the method structure to. */
+	private MethodModel model;
+
+	/** Index of every instruction within the model. */
+	private Map<Instruction, Integer> indexes;
+
+	/** Instruction nodes mapped to their index within the model. */
+	private Map<AbstractInsnNode, Integer> nodeIndexes;
+
+	/** Probe ids of the checks of the current comparison. */
+	private int[] checkProbes;
+
+	/** Boundaries recorded for the model, resolved after all instructions. */
+	private List<RecordedBoundary> recordedBoundaries;
+
 	/**
 	 * Creates a new builder instance which can be used to analyze a single
 	 * method.
@@ -73,10 +94,35 @@ class InstructionsBuilder {
 		this.instructions = new HashMap<AbstractInsnNode, Instruction>();
 		this.currentLabel = new ArrayList<Label>(2);
 		this.jumps = new ArrayList<Jump>();
-		this.currentChecks = new LinkedList<Boolean>();
 		this.boundaries = new HashMap<AbstractInsnNode, Boundary>();
 	}
 
+	/**
+	 * Records the structure of the method to the given model while the
+	 * instructions are built. Must be called before the first instruction is
+	 * added.
+	 * 
+	 * @param model
+	 *            model to record to
+	 */
+	void setModel(final MethodModel model) {
+		this.model = model;
+		this.indexes = new HashMap<Instruction, Integer>();
+		this.nodeIndexes = new HashMap<AbstractInsnNode, Integer>();
+		this.checkProbes = new int[Boundary.MAX_CHECKS];
+		this.recordedBoundaries = new ArrayList<RecordedBoundary>();
+	}
+
+	/**
+	 * Returns the index of the given instruction node within the recorded
+	 * model.
+	 * 
+	 * @return index or <code>null</code> if the node is not an instruction
+	 */
+	Integer getIndex(final AbstractInsnNode node) {
+		return nodeIndexes.get(node);
+	}
+
 	/**
 	 * Sets the current source line. All subsequently added instructions will be
 	 * assigned to this line. If no line is set (e.g. for classes compiled
@@ -111,8 +157,20 @@ class InstructionsBuilder {
 			}
 			currentLabel.clear();
 		}
+		if (model != null) {
+			final Integer index = Integer
+					.valueOf(model.addInstruction(currentLine));
+			indexes.put(insn, index);
+			final Integer previous = nodeIndexes.put(node, index);
+			if (previous != null) {
+				// Deferred instructions like LCMP are added for the node of
+				// the following jump and get replaced in the instruction map
+				model.hide(previous.intValue());
+			}
+		}
 		if (currentInsn != null) {
 			currentInsn.addBranch(insn, 0);
+			recordBranch(currentInsn, insn, 0);
 		}
 		currentInsn = insn;
 		instructions.put(node, insn);
@@ -150,6 +208,18 @@ class InstructionsBuilder {
 	void addProbe(final int probeId, final int branch) {
 		final boolean executed = probes != null && probes[probeId];
 		currentInsn.addBranch(executed, branch);
+		if (model != null) {
+			model.addProbe(indexes.get(currentInsn).intValue(), probeId,
+					branch);
+		}
+	}
+
+	private void recordBranch(final Instruction source,
+			final Instruction target, final int branch) {
+		if (model != null) {
+			model.addBranch(indexes.get(source).intValue(),
+					indexes.get(target).intValue(), branch);
+		}
 	}
 
 	/**
@@ -163,6 +233,18 @@ class InstructionsBuilder {
 		// Wire jumps:
 		for (final Jump j : jumps) {
 			j.wire();
+			recordBranch(j.source, LabelInfo.getInstruction(j.target),
+					j.branch);
+		}
+
+		if (model != null) {
+			for (final RecordedBoundary b : recordedBoundaries) {
+				final Integer index = nodeIndexes.get(b.node);
+				if (index != null) {
+					model.addBoundary(index.intValue(), b.line, b.probeIds,
+							b.probeIds.length);
+				}
+			}
 		}
 
 		return instructions;
@@ -172,14 +254,42 @@ class InstructionsBuilder {
 		return boundaries;
 	}
 
-	void addCheck(int probeId) {
-		final boolean covered = probes != null && probes[probeId];
-		currentChecks.add(covered);
+	void addCheck(final int probeId) {
+		if (probes != null && probes[probeId]) {
+			coveredChecks |= 1L << checkCount;
+		}
+		if (model != null) {
+			checkProbes[checkCount] = probeId;
+		}
+		checkCount++;
+	}
+
+	void addBoundary(final AbstractInsnNode currentNode) {
+		boundaries.put(currentNode,
+				new Boundary(currentLine, checkCount, coveredChecks));
+		if (model != null) {
+			final int[] probeIds = new int[checkCount];
+			System.arraycopy(checkProbes, 0, probeIds, 0, checkCount);
+			recordedBoundaries.add(
+					new RecordedBoundary(currentNode, currentLine, probeIds));
+		}
+		checkCount = 0;
+		coveredChecks = 0;
 	}
 
-	void addBoundary(AbstractInsnNode currentNode) {
-		boundaries.put(currentNode, new Boundary(currentLine, new LinkedList<Boolean>(currentChecks)));
-		currentChecks.clear();
+	private static class RecordedBoundary {
+
+		private final AbstractInsnNode node;
+		private final int line;
+		private final int[] probeIds;
+
+		RecordedBoundary(final AbstractInsnNode node, final int line,
+				final int[] probeIds) {
+			this.node = node;
+			this.line = line;
+			this.probeIds = probeIds;
+		}
+
 	}
 
 	private static class Jump {
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnNode;
+
+/**
+ * Probe independent structure of a method as recorded during analysis. The
+ * model records all calls to {@link Instruction#addBranch(Instruction, int)}
+ * and {@link Instruction#addBranch(boolean, int)} in their original order,
+ * the boundary checks and the output of the filters. Replaying the model with
+ * a probe array gives the same coverage as analyzing the original method
+ * with this probe array. Instructions are identified by their index within
+ * the method.
+ */
+final class MethodModel {
+
+	final String name;
+
+	final String desc;
+
+	final String signature;
+
+	private final IntList lines = new IntList();
+
+	/**
+	 * Instructions which are part of the control flow but are not counted as
+	 * a later instruction was added for the same node.
+	 */
+	private final IntList hidden = new IntList();
+
+	/**
+	 * Triples of source instruction, target and branch. Non-negative targets
+	 * are instructions, negative targets <code>-1 - probeId</code> are probes.
+	 */
+	private final IntList branches = new IntList();
+
+	/** Instruction, line and number of checks followed by the probe ids. */
+	private final IntList boundaries = new IntList();
+
+	private final IntList ignored = new IntList();
+
+	/** Pairs of instructions passed to the merge filter output. */
+	private final IntList merges = new IntList();
+
+	/** Source instruction and number of targets followed by the targets. */
+	private final IntList replacements = new IntList();
+
+	MethodModel(final String name, final String desc, final String signature) {
+		this.name = name;
+		this.desc = desc;
+		this.signature = signature;
+	}
+
+	int addInstruction(final int line) {
+		lines.add(line);
+		return lines.size() - 1;
+	}
+
+	void hide(final int instruction) {
+		hidden.add(instruction);
+	}
+
+	void addBranch(final int source, final int target, final int branch) {
+		branches.add(source);
+		branches.add(target);
+		branches.add(branch);
+	}
+
+	void addProbe(final int source, final int probeId, final int branch) {
+		addBranch(source, -1 - probeId, branch);
+	}
+
+	void addBoundary(final int instruction, final int line,
+			final int[] probeIds, final int checkCount) {
+		boundaries.add(instruction);
+		boundaries.add(line);
+		boundaries.add(checkCount);
+		for (int i = 0; i < checkCount; i++) {
+			boundaries.add(probeIds[i]);
+		}
+	}
+
+	void ignore(final int instruction) {
+		ignored.add(instruction);
+	}
+
+	void merge(final int i1, final int i2) {
+		merges.add(i1);
+		merges.add(i2);
+	}
+
+	void replaceBranches(final int source, final int[] targets) {
+		replacements.add(source);
+		replacements.add(targets.length);
+		for (final int t : targets) {
+			replacements.add(t);
+		}
+	}
+
+	/**
+	 * Calculates the coverage of this method for the given probes.
+	 * 
+	 * @param probes
+	 *            probe array of the class or <code>null</code>
+	 * @param coverage
+	 *            the result is added to this coverage node
+	 */
+	void calculate(final boolean[] probes,
+			final MethodCoverageImpl coverage) {
+		final int count = lines.size();
+		final AbstractInsnNode[] nodes = new AbstractInsnNode[count];
+		final Instruction[] insns = new Instruction[count];
+		final Map<AbstractInsnNode, Instruction> instructions = new HashMap<AbstractInsnNode, Instruction>();
+		for (int i = 0; i < count; i++) {
+			// Only used as identity for the coverage calculator:
+			nodes[i] = new InsnNode(Opcodes.NOP);
+			insns[i] = new Instruction(lines.get(i));
+			instructions.put(nodes[i], insns[i]);
+		}
+		for (int i = 0; i < hidden.size(); i++) {
+			instructions.remove(nodes[hidden.get(i)]);
+		}
+
+		for (int i = 0; i < branches.size(); i += 3) {
+			final Instruction source = insns[branches.get(i)];
+			final int target = branches.get(i + 1);
+			final int branch = branches.get(i + 2);
+			if (target >= 0) {
+				source.addBranch(insns[target], branch);
+			} else {
+				final int probeId = -1 - target;
+				source.addBranch(probes != null && probes[probeId], branch);
+			}
+		}
+
+		final Map<AbstractInsnNode, Boundary> boundaryMap = new HashMap<AbstractInsnNode, Boundary>();
+		for (int i = 0; i < boundaries.size();) {
+			final int insn = boundaries.get(i++);
+			final int line = boundaries.get(i++);
+			final int checks = boundaries.get(i++);
+			long covered = 0;
+			for (int c = 0; c < checks; c++) {
+				final int probeId = boundaries.get(i++);
+				if (probes != null && probes[probeId]) {
+					covered |= 1L << c;
+				}
+			}
+			boundaryMap.put(nodes[insn], new Boundary(line, checks, covered));
+		}
+
+		final MethodCoverageCalculator mcc = new MethodCoverageCalculator(
+				instructions, boundaryMap);
+		for (int i = 0; i < ignored.size(); i++) {
+			final AbstractInsnNode node = nodes[ignored.get(i)];
+			mcc.ignore(node, node);
+		}
+		for (int i = 0; i < merges.size(); i += 2) {
+			mcc.merge(nodes[merges.get(i)], nodes[merges.get(i + 1)]);
+		}
+		for (int i = 0; i < replacements.size();) {
+			final AbstractInsnNode source = nodes[replacements.get(i++)];
+			final int targetCount = replacements.get(i++);
+			final Set<AbstractInsnNode> targets = new LinkedHashSet<AbstractInsnNode>();
+			for (int t = 0; t < targetCount; t++) {
+				targets.add(nodes[replacements.get(i++)]);
+			}
+			mcc.replaceBranches(source, targets);
+		}
+		mcc.calculate(coverage);
+	}
+
+	void write(final CompactDataOutput out) throws IOException {
+		out.writeUTF(name);
+		out.writeUTF(desc);
+		ClassModel.writeOptional(out, signature);
+		lines.write(out);
+		hidden.write(out);
+		branches.write(out);
+		boundaries.write(out);
+		ignored.write(out);
+		merges.write(out);
+		replacements.write(out);
+	}
+
+	static MethodModel read(final CompactDataInput in) throws IOException {
+		final MethodModel model = new MethodModel(in.readUTF(), in.readUTF(),
+				ClassModel.readOptional(in));
+		model.lines.read(in);
+		model.hidden.read(in);
+		model.branches.read(in);
+		model.boundaries.read(in);
+		model.ignored.read(in);
+		model.merges.read(in);
+		model.replacements.read(in);
+		return model;
+	}
+
+	/**
+	 * Growable list of primitive <code>int</code> values.
+	 */
+	private static final class IntList {
+
+		private int[] values = new int[8];
+
+		private int size;
+
+		void add(final int value) {
+			if (size == values.length) {
+				final int[] newValues = new int[size * 2];
+				System.arraycopy(values, 0, newValues, 0, size);
+				values = newValues;
+			}
+			values[size++] = value;
+		}
+
+		int get(final int index) {
+			return values[index];
+		}
+
+		int size() {
+			return size;
+		}
+
+		void write(final CompactDataOutput out) throws IOException {
+			out.writeVarInt(size);
+			for (int i = 0; i < size; i++) {
+				// Zigzag encoding as unknown lines and probe targets are
+				// negative:
+				final int v = values[i];
+				out.writeVarInt((v << 1) ^ (v >> 31));
+			}
+		}
+
+		void read(final CompactDataInput in) throws IOException {
+			final int count = in.readVarInt();
+			for (int i = 0; i < count; i++) {
+				final int v = in.readVarInt();
+				add((v >>> 1) ^ -(v & 1));
+			}
+		}
+
+	}
+
+}
@@ -157,6 +157,56 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 		}
 	}
 
+	/**
+	 * Sets the summary counters of this node, e.g. when the node is restored
+	 * from a persisted snapshot. The line counters are not modified.
+	 * 
+	 * @param instructions
+	 *            instruction counter
+	 * @param branches
+	 *            branch counter
+	 * @param boundaries
+	 *            boundary counter
+	 * @param lines
+	 *            line counter
+	 * @param complexity
+	 *            complexity counter
+	 * @param methods
+	 *            method counter
+	 */
+	public void setCounters(final ICounter instructions,
+			final ICounter branches, final ICounter boundaries,
+			final ICounter lines, final ICounter complexity,
+			final ICounter methods) {
+		instructionCounter = CounterImpl.getInstance(instructions);
+		branchCounter = CounterImpl.getInstance(branches);
+		boundaryCounter = CounterImpl.getInstance(boundaries);
+		lineCounter = CounterImpl.getInstance(lines);
+		complexityCounter = CounterImpl.getInstance(complexity);
+		methodCounter = CounterImpl.getInstance(methods);
+	}
+
+	/**
+	 * Sets the counters of a single line, e.g. when the node is restored from
+	 * a persisted snapshot. The summary counters of this node are not
+	 * modified.
+	 * 
+	 * @param instructions
+	 *            instruction counter of the line
+	 * @param branches
+	 *            branch counter of the line
+	 * @param boundaries
+	 *            boundary counter of the line
+	 * @param line
+	 *            line number
+	 */
+	public void setLine(final ICounter instructions, final ICounter branches,
+			final ICounter boundaries, final int line) {
+		ensureCapacity(line, line);
+		lines[line - offset] = LineImpl.EMPTY.increment(instructions,
+				branches, boundaries);
+	}
+
 	// === ISourceNode implementation ===
 
 	public int getFirstLine() {
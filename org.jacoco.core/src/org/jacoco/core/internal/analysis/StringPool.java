@@ -21,8 +21,8 @@ import java.util.Map;
  * <code>equals()</code> is <code>true</code> for two strings they will be
  * represented the same instance. While this is exactly what
  * {@link String#intern()} does, this implementation avoids VM specific side
- * effects and is supposed to be faster, as neither native code is called nor
- * synchronization is required for concurrent lookup.
+ * effects and is supposed to be faster, as no native code is called. Instances
+ * are thread-safe to allow concurrent analysis of classes.
  */
 public final class StringPool {
 
@@ -37,7 +37,7 @@ public final class StringPool {
 	 *            any string or <code>null</code>
 	 * @return normalized instance or <code>null</code>
 	 */
-	public String get(final String s) {
+	public synchronized String get(final String s) {
 		if (s == null) {
 			return null;
 		}
@@ -31,6 +31,8 @@ public class ClassProbesAdapter extends ClassVisitor implements
 
 	private final boolean trackFrames;
 
+	private final boolean boundaryChecks;
+
 	private int counter = 0;
 
 	private String name;
@@ -45,9 +47,26 @@ public class ClassProbesAdapter extends ClassVisitor implements
 	 */
 	public ClassProbesAdapter(final ClassProbesVisitor cv,
 			final boolean trackFrames) {
+		this(cv, trackFrames, false);
+	}
+
+	/**
+	 * Creates a new adapter that delegates to the given visitor.
+	 * 
+	 * @param cv
+	 *            instance to delegate to
+	 * @param trackFrames
+	 *            if <code>true</code> stackmap frames are tracked and provided
+	 * @param boundaryChecks
+	 *            if <code>true</code> additional probes for boundary value
+	 *            checks are emitted for compare instructions
+	 */
+	public ClassProbesAdapter(final ClassProbesVisitor cv,
+			final boolean trackFrames, final boolean boundaryChecks) {
 		super(InstrSupport.ASM_API_VERSION, cv);
 		this.cv = cv;
 		this.trackFrames = trackFrames;
+		this.boundaryChecks = boundaryChecks;
 	}
 
 	@Override
@@ -79,7 +98,7 @@ public class ClassProbesAdapter extends ClassVisitor implements
 				super.visitEnd();
 				LabelFlowAnalyzer.markLabels(this);
 				final MethodProbesAdapter probesAdapter = new MethodProbesAdapter(
-						methodProbes, ClassProbesAdapter.this, true);
+						methodProbes, ClassProbesAdapter.this, boundaryChecks);
 				if (trackFrames) {
 					final AnalyzerAdapter analyzer = new AnalyzerAdapter(
 							ClassProbesAdapter.this.name, access, name, desc,
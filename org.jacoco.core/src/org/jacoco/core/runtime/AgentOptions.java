@@ -105,6 +105,40 @@ public final class AgentOptions {
 	 */
 	public static final String DUMPONEXIT = "dumponexit";
 
+	/**
+	 * Specifies the interval in seconds in which the agent periodically dumps
+	 * coverage data to a new file. The files are created next to the
+	 * {@link #DESTFILE} with a time stamp added to the file name. Default is
+	 * <code>0</code> (no periodic dumps).
+	 */
+	public static final String DUMPINTERVAL = "dumpinterval";
+
+	/**
+	 * Specifies the maximum number of files created by periodic dumps. If
+	 * more files are created the oldest files written by the agent are
+	 * deleted. The limit applies per VM, files of other VMs or of previous
+	 * runs are never deleted. Must not be combined with {@link #DUMPRESET}
+	 * as deleted files would lose the coverage data of their intervals.
+	 * Default is <code>0</code> (keep all files).
+	 */
+	public static final String DUMPFILES = "dumpfiles";
+
+	/**
+	 * Specifies whether coverage data is reset after every periodic dump, so
+	 * every file only contains the coverage data of a single interval. Must
+	 * not be combined with {@link #DUMPFILES}. Default is <code>false</code>.
+	 */
+	public static final String DUMPRESET = "dumpreset";
+
+	/**
+	 * Specifies whether execution data written to files and TCP connections
+	 * is compressed. Compressed data can't be read by JaCoCo versions which
+	 * do not support this option. Default is <code>false</code>.
+	 * 
+	 * @since 0.8.5
+	 */
+	public static final String COMPRESS = "compress";
+
 	/**
 	 * Specifies the output mode. Default is {@link OutputMode#file}.
 	 * 
@@ -189,10 +223,21 @@ public final class AgentOptions {
 	 */
 	public static final String JMX = "jmx";
 
+	/**
+	 * Wildcard expression for class names that should be instrumented with
+	 * additional probes for boundary value checks. Reports for such classes
+	 * must be created with the same expression. Default is the empty string (no
+	 * boundary checks).
+	 * 
+	 * @see WildcardMatcher
+	 */
+	public static final String BOUNDARYINCLUDES = "boundaryincludes";
+
 	private static final Collection<String> VALID_OPTIONS = Arrays.asList(
 			DESTFILE, APPEND, INCLUDES, EXCLUDES, EXCLCLASSLOADER,
 			INCLBOOTSTRAPCLASSES, INCLNOLOCATIONCLASSES, SESSIONID, DUMPONEXIT,
-			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX);
+			DUMPINTERVAL, DUMPFILES, DUMPRESET, COMPRESS, OUTPUT, ADDRESS,
+			PORT, CLASSDUMPDIR, JMX, BOUNDARYINCLUDES);
 
 	private final Map<String, String> options;
 
@@ -250,6 +295,9 @@ public final class AgentOptions {
 
 	private void validateAll() {
 		validatePort(getPort());
+		validateNotNegative(DUMPINTERVAL, getDumpInterval());
+		validateNotNegative(DUMPFILES, getDumpFiles());
+		validateDumpRotation(getDumpFiles(), getDumpReset());
 		getOutput();
 	}
 
@@ -259,6 +307,22 @@ public final class AgentOptions {
 		}
 	}
 
+	private void validateNotNegative(final String key, final int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException(
+					format("%s must not be negative", key));
+		}
+	}
+
+	private void validateDumpRotation(final int files, final boolean reset) {
+		// Every dump only contains its interval, rotation would lose data
+		if (reset && files > 0) {
+			throw new IllegalArgumentException(
+					format("%s can't be combined with %s", DUMPRESET,
+							DUMPFILES));
+		}
+	}
+
 	/**
 	 * Returns the output file location.
 	 * 
@@ -442,6 +506,95 @@ public final class AgentOptions {
 		setOption(DUMPONEXIT, dumpOnExit);
 	}
 
+	/**
+	 * Returns the interval for periodic dumps in seconds.
+	 * 
+	 * @return interval in seconds or <code>0</code> for no periodic dumps
+	 */
+	public int getDumpInterval() {
+		return getOption(DUMPINTERVAL, 0);
+	}
+
+	/**
+	 * Sets the interval for periodic dumps in seconds.
+	 * 
+	 * @param seconds
+	 *            interval in seconds or <code>0</code> for no periodic dumps
+	 */
+	public void setDumpInterval(final int seconds) {
+		validateNotNegative(DUMPINTERVAL, seconds);
+		setOption(DUMPINTERVAL, seconds);
+	}
+
+	/**
+	 * Returns the maximum number of files created by periodic dumps.
+	 * 
+	 * @return maximum number of files or <code>0</code> to keep all files
+	 */
+	public int getDumpFiles() {
+		return getOption(DUMPFILES, 0);
+	}
+
+	/**
+	 * Sets the maximum number of files created by periodic dumps. The limit
+	 * applies to the files of the current VM only.
+	 * 
+	 * @param files
+	 *            maximum number of files or <code>0</code> to keep all files
+	 * @throws IllegalArgumentException
+	 *             if the value is negative or if coverage data is reset
+	 *             after every periodic dump
+	 */
+	public void setDumpFiles(final int files) {
+		validateNotNegative(DUMPFILES, files);
+		validateDumpRotation(files, getDumpReset());
+		setOption(DUMPFILES, files);
+	}
+
+	/**
+	 * Returns whether coverage data is reset after every periodic dump.
+	 * 
+	 * @return <code>true</code> if coverage data is reset after every
+	 *         periodic dump
+	 */
+	public boolean getDumpReset() {
+		return getOption(DUMPRESET, false);
+	}
+
+	/**
+	 * Sets whether coverage data is reset after every periodic dump.
+	 * 
+	 * @param reset
+	 *            <code>true</code> if coverage data should be reset after
+	 *            every periodic dump
+	 * @throws IllegalArgumentException
+	 *             if reset is requested together with a maximum number of
+	 *             files
+	 */
+	public void setDumpReset(final boolean reset) {
+		validateDumpRotation(getDumpFiles(), reset);
+		setOption(DUMPRESET, reset);
+	}
+
+	/**
+	 * Returns whether execution data is written in compressed form.
+	 * 
+	 * @return <code>true</code> if execution data is compressed
+	 */
+	public boolean getCompress() {
+		return getOption(COMPRESS, false);
+	}
+
+	/**
+	 * Sets whether execution data is written in compressed form.
+	 * 
+	 * @param compress
+	 *            <code>true</code> if execution data should be compressed
+	 */
+	public void setCompress(final boolean compress) {
+		setOption(COMPRESS, compress);
+	}
+
 	/**
 	 * Returns the port on which to listen to when the output is
 	 * <code>tcpserver</code> or the port to connect to when output is
@@ -557,6 +710,27 @@ public final class AgentOptions {
 		setOption(JMX, jmx);
 	}
 
+	/**
+	 * Returns the wildcard expression for classes with boundary value checks.
+	 * 
+	 * @return wildcard expression for classes with boundary value checks
+	 * @see WildcardMatcher
+	 */
+	public String getBoundaryIncludes() {
+		return getOption(BOUNDARYINCLUDES, "");
+	}
+
+	/**
+	 * Sets the wildcard expression for classes with boundary value checks.
+	 * 
+	 * @param includes
+	 *            wildcard expression for classes with boundary value checks
+	 * @see WildcardMatcher
+	 */
+	public void setBoundaryIncludes(final String includes) {
+		setOption(BOUNDARYINCLUDES, includes);
+	}
+
 	private void setOption(final String key, final int value) {
 		setOption(key, Integer.toString(value));
 	}
@@ -31,4 +31,21 @@ public interface IRemoteCommandVisitor {
 	 */
 	void visitDumpCommand(boolean dump, boolean reset) throws IOException;
 
+	/**
+	 * Requests a dump of all classes which have been executed since the given
+	 * previous delta dump with an optional reset.
+	 * 
+	 * @param runtimeId
+	 *            runtime identifier returned with the previous delta dump
+	 * @param sequence
+	 *            sequence number returned with the previous delta dump or
+	 *            <code>0</code> for the first delta dump
+	 * @param reset
+	 *            <code>true</code> if the reset should be executed
+	 * @throws IOException
+	 *             in case of problems with the remote connection
+	 */
+	void visitDeltaDumpCommand(long runtimeId, long sequence, boolean reset)
+			throws IOException;
+
 }
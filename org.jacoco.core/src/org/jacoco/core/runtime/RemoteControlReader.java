@@ -24,6 +24,10 @@ public class RemoteControlReader extends ExecutionDataReader {
 
 	private IRemoteCommandVisitor remoteCommandVisitor;
 
+	private long deltaRuntimeId;
+
+	private long deltaSequence;
+
 	/**
 	 * Create a new read based on the given input stream.
 	 * 
@@ -42,6 +46,13 @@ public class RemoteControlReader extends ExecutionDataReader {
 		case RemoteControlWriter.BLOCK_CMDDUMP:
 			readDumpCommand();
 			return true;
+		case RemoteControlWriter.BLOCK_CMDDELTADUMP:
+			readDeltaDumpCommand();
+			return true;
+		case RemoteControlWriter.BLOCK_DELTA:
+			deltaRuntimeId = in.readLong();
+			deltaSequence = in.readLong();
+			return true;
 		case RemoteControlWriter.BLOCK_CMDOK:
 			return false;
 		default:
@@ -59,6 +70,28 @@ public class RemoteControlReader extends ExecutionDataReader {
 		this.remoteCommandVisitor = visitor;
 	}
 
+	/**
+	 * Returns the runtime identifier received with the last response to a
+	 * delta dump command.
+	 * 
+	 * @return runtime identifier or <code>0</code> if no delta dump response
+	 *         has been received
+	 */
+	public long getDeltaRuntimeId() {
+		return deltaRuntimeId;
+	}
+
+	/**
+	 * Returns the sequence number received with the last response to a delta
+	 * dump command.
+	 * 
+	 * @return sequence number or <code>0</code> if no delta dump response has
+	 *         been received
+	 */
+	public long getDeltaSequence() {
+		return deltaSequence;
+	}
+
 	private void readDumpCommand() throws IOException {
 		if (remoteCommandVisitor == null) {
 			throw new IOException("No remote command visitor.");
@@ -68,4 +101,14 @@ public class RemoteControlReader extends ExecutionDataReader {
 		remoteCommandVisitor.visitDumpCommand(dump, reset);
 	}
 
+	private void readDeltaDumpCommand() throws IOException {
+		if (remoteCommandVisitor == null) {
+			throw new IOException("No remote command visitor.");
+		}
+		final long runtimeId = in.readLong();
+		final long sequence = in.readLong();
+		final boolean reset = in.readBoolean();
+		remoteCommandVisitor.visitDeltaDumpCommand(runtimeId, sequence, reset);
+	}
+
 }
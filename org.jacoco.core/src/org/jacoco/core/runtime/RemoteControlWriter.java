@@ -26,9 +26,15 @@ public class RemoteControlWriter extends ExecutionDataWriter implements
 	/** Block identifier to confirm successful command execution. */
 	public static final byte BLOCK_CMDOK = 0x20;
 
+	/** Block identifier for the state of a delta dump. */
+	public static final byte BLOCK_DELTA = 0x21;
+
 	/** Block identifier for dump command */
 	public static final byte BLOCK_CMDDUMP = 0x40;
 
+	/** Block identifier for delta dump command */
+	public static final byte BLOCK_CMDDELTADUMP = 0x41;
+
 	/**
 	 * Creates a new writer based on the given output stream.
 	 * 
@@ -41,6 +47,24 @@ public class RemoteControlWriter extends ExecutionDataWriter implements
 		super(output);
 	}
 
+	/**
+	 * Creates a new writer based on the given output stream which optionally
+	 * compresses execution data. Pending compressed data is written before
+	 * every command or confirmation.
+	 * 
+	 * @param output
+	 *            stream to write commands to
+	 * @param compress
+	 *            if <code>true</code> execution data is written in compressed
+	 *            blocks
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public RemoteControlWriter(final OutputStream output,
+			final boolean compress) throws IOException {
+		super(output, compress);
+	}
+
 	/**
 	 * Sends a confirmation that a commands has been successfully executed and
 	 * the response is completed.
@@ -49,14 +73,44 @@ public class RemoteControlWriter extends ExecutionDataWriter implements
 	 *             in case of problems with the remote connection
 	 */
 	public void sendCmdOk() throws IOException {
+		writeCompressedBlock();
 		out.writeByte(RemoteControlWriter.BLOCK_CMDOK);
 	}
 
+	/**
+	 * Sends the runtime identifier and the sequence number of a delta dump.
+	 * The client has to pass these values with the next delta dump command.
+	 * 
+	 * @param runtimeId
+	 *            identifier of the runtime
+	 * @param sequence
+	 *            sequence number of the delta dump
+	 * @throws IOException
+	 *             in case of problems with the remote connection
+	 */
+	public void sendDelta(final long runtimeId, final long sequence)
+			throws IOException {
+		writeCompressedBlock();
+		out.writeByte(RemoteControlWriter.BLOCK_DELTA);
+		out.writeLong(runtimeId);
+		out.writeLong(sequence);
+	}
+
 	public void visitDumpCommand(final boolean dump, final boolean reset)
 			throws IOException {
+		writeCompressedBlock();
 		out.writeByte(RemoteControlWriter.BLOCK_CMDDUMP);
 		out.writeBoolean(dump);
 		out.writeBoolean(reset);
 	}
 
+	public void visitDeltaDumpCommand(final long runtimeId,
+			final long sequence, final boolean reset) throws IOException {
+		writeCompressedBlock();
+		out.writeByte(RemoteControlWriter.BLOCK_CMDDELTADUMP);
+		out.writeLong(runtimeId);
+		out.writeLong(sequence);
+		out.writeBoolean(reset);
+	}
+
 }
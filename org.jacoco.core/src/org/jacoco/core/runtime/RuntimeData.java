@@ -12,8 +12,15 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.jacoco.core.data.ExecutionData;
-import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.ISessionInfoVisitor;
 import org.jacoco.core.data.SessionInfo;
@@ -23,24 +30,43 @@ import org.objectweb.asm.Opcodes;
 
 /**
  * Container for runtime execution and meta data. All access to the runtime data
- * is thread safe.
+ * is thread safe. Retrieving the probe array of a class never blocks on a
+ * concurrent {@link #collect(IExecutionDataVisitor, ISessionInfoVisitor, boolean)
+ * collect} or {@link #reset()} call. To write execution data to slow outputs
+ * like files or sockets a {@link #snapshot(boolean) snapshot} should be used,
+ * which blocks collect and reset operations only while the probes are copied.
  */
 public class RuntimeData {
 
-	/** store for execution data */
-	protected final ExecutionDataStore store;
+	/** execution data per class id, registration is lock-free */
+	private final ConcurrentMap<Long, ExecutionData> entries;
+
+	/** monitor to serialize collect and reset operations */
+	private final Object lock;
 
 	private long startTimeStamp;
 
 	private String sessionId;
 
+	/** random identifier of this instance for delta dumps */
+	private final long runtimeId;
+
+	/** cumulative probes for delta dumps, created with the first delta dump */
+	private Map<Long, DeltaEntry> deltaEntries;
+
+	/** sequence number of the last delta dump */
+	private long deltaSequence;
+
 	/**
 	 * Creates a new runtime.
 	 */
 	public RuntimeData() {
-		store = new ExecutionDataStore();
+		entries = new ConcurrentHashMap<Long, ExecutionData>();
+		lock = new Object();
 		sessionId = "<none>";
 		startTimeStamp = System.currentTimeMillis();
+		runtimeId = new Random().nextLong();
+		deltaSequence = 0;
 	}
 
 	/**
@@ -69,7 +95,8 @@ public class RuntimeData {
 
 	/**
 	 * Collects the current execution data and writes it to the given
-	 * {@link IExecutionDataVisitor} object.
+	 * {@link IExecutionDataVisitor} object. Classes which are registered while
+	 * the collect operation is in progress may or may not be included.
 	 * 
 	 * @param executionDataVisitor
 	 *            handler to write coverage data to
@@ -81,31 +108,156 @@ public class RuntimeData {
 	 */
 	public final void collect(final IExecutionDataVisitor executionDataVisitor,
 			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
-		synchronized (store) {
+		synchronized (lock) {
 			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
 					System.currentTimeMillis());
 			sessionInfoVisitor.visitSessionInfo(info);
-			store.accept(executionDataVisitor);
+			for (final ExecutionData data : entries.values()) {
+				executionDataVisitor.visitClassExecution(data);
+			}
+			if (reset) {
+				reset();
+			}
+		}
+	}
+
+	/**
+	 * Creates a copy of the current execution data. Only classes with at least
+	 * one executed probe are included. The runtime is locked only while the
+	 * probes are copied, the snapshot can then be written to any output
+	 * without blocking other collect or reset operations.
+	 * 
+	 * @param reset
+	 *            if <code>true</code> the current coverage information is
+	 *            cleared atomically with taking the snapshot
+	 * @return snapshot of the current execution data
+	 */
+	public final RuntimeSnapshot snapshot(final boolean reset) {
+		synchronized (lock) {
+			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
+					System.currentTimeMillis());
+			final List<ExecutionData> copy = new ArrayList<ExecutionData>();
+			for (final ExecutionData data : entries.values()) {
+				if (data.hasHits()) {
+					copy.add(new ExecutionData(data.getId(), data.getName(),
+							data.getProbes().clone()));
+				}
+			}
+			if (reset) {
+				reset();
+			}
+			return new RuntimeSnapshot(info, copy);
+		}
+	}
+
+	/**
+	 * Returns the random identifier of this runtime instance. Together with
+	 * the sequence number returned by
+	 * {@link #collectDelta(long, long, IExecutionDataVisitor, ISessionInfoVisitor, boolean)
+	 * collectDelta()} it identifies the state a client has received with
+	 * delta dumps.
+	 * 
+	 * @return identifier of this runtime
+	 */
+	public long getRuntimeId() {
+		return runtimeId;
+	}
+
+	/**
+	 * Collects the execution data of all classes which have been executed since
+	 * the delta dump with the given sequence number and writes it to the given
+	 * {@link IExecutionDataVisitor} object. The probes of every class are
+	 * cumulated over all dumps and resets since the first delta dump, so a
+	 * client merging all delta dumps it has received gets the cumulative
+	 * execution data of this runtime. If the given runtime identifier does not
+	 * match this runtime, e.g. because the target VM has been restarted, all
+	 * executed classes are written.
+	 * 
+	 * @param runtimeId
+	 *            runtime identifier returned with the previous delta dump
+	 * @param sequence
+	 *            sequence number returned by the previous delta dump or
+	 *            <code>0</code> for the first dump
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 * @param reset
+	 *            if <code>true</code> the current coverage information is also
+	 *            cleared
+	 * @return sequence number of this delta dump
+	 */
+	public final long collectDelta(final long runtimeId, final long sequence,
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
+		final SessionInfo info;
+		final List<ExecutionData> delta = new ArrayList<ExecutionData>();
+		final long current;
+		synchronized (lock) {
+			final long since = runtimeId == this.runtimeId ? sequence : 0;
+			if (deltaEntries == null) {
+				deltaEntries = new HashMap<Long, DeltaEntry>();
+			}
+			current = ++deltaSequence;
+			info = new SessionInfo(sessionId, startTimeStamp,
+					System.currentTimeMillis());
+			for (final ExecutionData data : entries.values()) {
+				final DeltaEntry entry = updateDelta(data, current);
+				if (entry.modified > since) {
+					delta.add(new ExecutionData(data.getId(), data.getName(),
+							entry.probes.clone()));
+				}
+			}
 			if (reset) {
 				reset();
 			}
 		}
+		// The visitors are called outside the lock as they typically write
+		// to slow outputs:
+		new RuntimeSnapshot(info, delta).accept(executionDataVisitor,
+				sessionInfoVisitor);
+		return current;
 	}
 
 	/**
 	 * Resets all coverage information.
 	 */
 	public final void reset() {
-		synchronized (store) {
-			store.reset();
+		synchronized (lock) {
+			for (final ExecutionData data : entries.values()) {
+				if (deltaEntries != null) {
+					// Keep cumulative probes for subsequent delta dumps:
+					updateDelta(data, deltaSequence + 1);
+				}
+				data.reset();
+			}
 			startTimeStamp = System.currentTimeMillis();
 		}
 	}
 
+	private DeltaEntry updateDelta(final ExecutionData data,
+			final long sequence) {
+		final Long id = Long.valueOf(data.getId());
+		final boolean[] probes = data.getProbes();
+		DeltaEntry entry = deltaEntries.get(id);
+		if (entry == null) {
+			entry = new DeltaEntry(probes.length);
+			deltaEntries.put(id, entry);
+		}
+		for (int i = 0; i < probes.length; i++) {
+			if (probes[i] && !entry.probes[i]) {
+				entry.probes[i] = true;
+				entry.modified = sequence;
+			}
+		}
+		return entry;
+	}
+
 	/**
 	 * Returns the coverage data for the class with the given identifier. If
 	 * there is no data available under the given id a new entry is created.
-	 * This is a synchronized access to the underlying store.
+	 * This method is thread safe but does not block on concurrent collect or
+	 * reset operations.
 	 * 
 	 * @param id
 	 *            class identifier
@@ -117,9 +269,17 @@ public class RuntimeData {
 	 */
 	public ExecutionData getExecutionData(final Long id, final String name,
 			final int probecount) {
-		synchronized (store) {
-			return store.get(id, name, probecount);
+		ExecutionData entry = entries.get(id);
+		if (entry == null) {
+			final ExecutionData created = new ExecutionData(id.longValue(),
+					name, probecount);
+			entry = entries.putIfAbsent(id, created);
+			if (entry == null) {
+				return created;
+			}
 		}
+		entry.assertCompatibility(id.longValue(), name, probecount);
+		return entry;
 	}
 
 	/**
@@ -252,4 +412,21 @@ public class RuntimeData {
 		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.DATAFIELD_DESC);
 	}
 
+	/**
+	 * Cumulative probes of a class for delta dumps.
+	 */
+	private static class DeltaEntry {
+
+		final boolean[] probes;
+
+		/** sequence number of the last dump with new probes */
+		long modified;
+
+		DeltaEntry(final int probeCount) {
+			probes = new boolean[probeCount];
+			modified = 0;
+		}
+
+	}
+
 }
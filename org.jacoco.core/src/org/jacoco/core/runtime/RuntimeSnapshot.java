@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+
+/**
+ * Copy of the execution data of a {@link RuntimeData} instance at a certain
+ * point in time. The snapshot is independent of the runtime, so it can be
+ * written to slow outputs without blocking other collect or reset operations.
+ * 
+ * @see RuntimeData#snapshot(boolean)
+ */
+public final class RuntimeSnapshot {
+
+	private final SessionInfo sessionInfo;
+
+	private final Collection<ExecutionData> executionData;
+
+	RuntimeSnapshot(final SessionInfo sessionInfo,
+			final Collection<ExecutionData> executionData) {
+		this.sessionInfo = sessionInfo;
+		this.executionData = executionData;
+	}
+
+	/**
+	 * Returns the session information of the snapshot.
+	 * 
+	 * @return session information
+	 */
+	public SessionInfo getSessionInfo() {
+		return sessionInfo;
+	}
+
+	/**
+	 * Returns the copied execution data of all classes with at least one
+	 * executed probe.
+	 * 
+	 * @return execution data of this snapshot
+	 */
+	public Collection<ExecutionData> getContents() {
+		return Collections.unmodifiableCollection(executionData);
+	}
+
+	/**
+	 * Writes the content of this snapshot to the given visitors.
+	 * 
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 */
+	public void accept(final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor) {
+		sessionInfoVisitor.visitSessionInfo(sessionInfo);
+		for (final ExecutionData data : executionData) {
+			executionDataVisitor.visitClassExecution(data);
+		}
+	}
+
+}
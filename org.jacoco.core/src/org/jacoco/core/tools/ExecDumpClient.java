@@ -12,11 +12,19 @@
  *******************************************************************************/
 package org.jacoco.core.tools;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.util.Properties;
 
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 
@@ -25,19 +33,29 @@ import org.jacoco.core.runtime.RemoteControlWriter;
  */
 public class ExecDumpClient {
 
+	private static final String RUNTIMEID = "runtimeid";
+	private static final String SEQUENCE = "sequence";
+
 	private boolean dump;
 	private boolean reset;
+	private boolean delta;
 	private int retryCount;
 	private long retryDelay;
 
+	/** cumulative execution data received with delta dumps */
+	private ExecutionDataStore deltaState;
+	private long deltaRuntimeId;
+	private long deltaSequence;
+
 	/**
 	 * New instance with the defaults <code>dump==true</code>,
-	 * <code>reset==false</code>, <code>retryCount==0</code> and
-	 * <code>retryDelay=1000</code>.
+	 * <code>reset==false</code>, <code>delta==false</code>,
+	 * <code>retryCount==0</code> and <code>retryDelay=1000</code>.
 	 */
 	public ExecDumpClient() {
 		this.dump = true;
 		this.reset = false;
+		this.delta = false;
 		this.retryCount = 0;
 		this.setRetryDelay(1000);
 	}
@@ -62,6 +80,100 @@ public class ExecDumpClient {
 		this.reset = reset;
 	}
 
+	/**
+	 * Specifies whether delta dumps should be requested. With delta dumps the
+	 * target only transmits the classes which have been executed since the
+	 * previous dump of this client. The client merges them with the previously
+	 * received data, so every dump still returns the cumulative execution data
+	 * of the target since the first delta dump. Calling this method discards
+	 * the execution data received so far. Delta dumps are only supported by
+	 * agents which implement the delta dump command. To continue delta dumps
+	 * with a new client instance see {@link #loadDeltaState(File)}.
+	 * 
+	 * @param delta
+	 *            <code>true</code> if delta dumps should be requested
+	 */
+	public void setDelta(final boolean delta) {
+		this.delta = delta;
+		this.deltaState = null;
+		this.deltaRuntimeId = 0;
+		this.deltaSequence = 0;
+	}
+
+	/**
+	 * Enables delta dumps which continue the delta dumps appended to the given
+	 * execution data file by previous clients, e.g. of earlier tool
+	 * invocations. The runtime identifier and sequence number of the last
+	 * delta dump are read from a file next to the execution data file which
+	 * has the additional extension <code>.delta</code>, see
+	 * {@link #saveDeltaState(File)}. As the execution data received by the
+	 * previous clients is not known to this instance, the next dump only
+	 * returns the classes executed since the last delta dump. The caller has
+	 * to append it to the same execution data file. If the execution data
+	 * file or the state file does not exist all executed classes are
+	 * requested.
+	 * 
+	 * @param execfile
+	 *            execution data file the delta dumps are appended to
+	 * @throws IOException
+	 *             if the state file can't be read
+	 */
+	public void loadDeltaState(final File execfile) throws IOException {
+		setDelta(true);
+		final File file = getDeltaStateFile(execfile);
+		if (!execfile.isFile() || !file.isFile()) {
+			return;
+		}
+		final Properties state = new Properties();
+		final InputStream in = new FileInputStream(file);
+		try {
+			state.load(in);
+		} finally {
+			in.close();
+		}
+		try {
+			deltaRuntimeId = Long.parseLong(state.getProperty(RUNTIMEID));
+			deltaSequence = Long.parseLong(state.getProperty(SEQUENCE));
+		} catch (final NumberFormatException e) {
+			final IOException ex = new IOException(
+					String.format("Invalid delta state file %s.", file));
+			ex.initCause(e);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Writes the runtime identifier and sequence number of the last delta dump
+	 * of this client next to the given execution data file, so subsequent
+	 * clients can continue with {@link #loadDeltaState(File)}. This method
+	 * should be called after the dump has been appended to the execution data
+	 * file. Nothing is written if no delta dump has been received.
+	 * 
+	 * @param execfile
+	 *            execution data file the delta dumps are appended to
+	 * @throws IOException
+	 *             if the state file can't be written
+	 */
+	public void saveDeltaState(final File execfile) throws IOException {
+		if (deltaState == null) {
+			return;
+		}
+		final Properties state = new Properties();
+		state.setProperty(RUNTIMEID, Long.toString(deltaRuntimeId));
+		state.setProperty(SEQUENCE, Long.toString(deltaSequence));
+		final OutputStream out = new FileOutputStream(
+				getDeltaStateFile(execfile));
+		try {
+			state.store(out, "JaCoCo delta dump state");
+		} finally {
+			out.close();
+		}
+	}
+
+	private static File getDeltaStateFile(final File execfile) {
+		return new File(execfile.getPath() + ".delta");
+	}
+
 	/**
 	 * Sets the number of retry attempts to connect to the target socket. This
 	 * allows to wait for a certain time until the target agent has initialized.
@@ -123,18 +235,50 @@ public class ExecDumpClient {
 			remoteReader
 					.setExecutionDataVisitor(loader.getExecutionDataStore());
 
-			remoteWriter.visitDumpCommand(dump, reset);
+			final boolean deltaDump = delta && dump;
+			if (deltaDump) {
+				remoteWriter.visitDeltaDumpCommand(deltaRuntimeId,
+						deltaSequence, reset);
+			} else {
+				remoteWriter.visitDumpCommand(dump, reset);
+			}
 
 			if (!remoteReader.read()) {
 				throw new IOException("Socket closed unexpectedly.");
 			}
 
+			if (deltaDump) {
+				mergeDelta(loader.getExecutionDataStore(),
+						remoteReader.getDeltaRuntimeId(),
+						remoteReader.getDeltaSequence());
+			}
+
 		} finally {
 			socket.close();
 		}
 		return loader;
 	}
 
+	private void mergeDelta(final ExecutionDataStore store,
+			final long runtimeId, final long sequence) {
+		if (deltaState == null || runtimeId != deltaRuntimeId) {
+			// The target has sent all its classes:
+			deltaState = new ExecutionDataStore();
+		}
+		copy(store, deltaState);
+		copy(deltaState, store);
+		deltaRuntimeId = runtimeId;
+		deltaSequence = sequence;
+	}
+
+	private static void copy(final ExecutionDataStore source,
+			final ExecutionDataStore target) {
+		for (final ExecutionData data : source.getContents()) {
+			target.get(Long.valueOf(data.getId()), data.getName(),
+					data.getProbes().length).merge(data);
+		}
+	}
+
 	private Socket tryConnect(final InetAddress address, final int port)
 			throws IOException {
 		int count = 0;
@@ -20,10 +20,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
 
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IndexedExecutionDataReader;
+import org.jacoco.core.data.IndexedExecutionDataWriter;
 import org.jacoco.core.data.SessionInfoStore;
 
 /**
@@ -35,6 +39,8 @@ public class ExecFileLoader {
 	private final SessionInfoStore sessionInfos;
 	private final ExecutionDataStore executionData;
 
+	private boolean writeIndex;
+
 	/**
 	 * New instance to combine session infos and execution data from multiple
 	 * files.
@@ -77,6 +83,48 @@ public class ExecFileLoader {
 		}
 	}
 
+	/**
+	 * Reads the session infos and the execution data of the given classes
+	 * only. The file is accessed randomly, which is most efficient for files
+	 * with a trailing index.
+	 * 
+	 * @param file
+	 *            file to read data from
+	 * @param classNames
+	 *            VM names of the classes to load
+	 * @throws IOException
+	 *             in case of problems while reading the file
+	 * @see IndexedExecutionDataReader
+	 */
+	public void load(final File file, final Collection<String> classNames)
+			throws IOException {
+		final IndexedExecutionDataReader reader = new IndexedExecutionDataReader(
+				file);
+		try {
+			reader.accept(sessionInfos);
+			for (final String name : classNames) {
+				for (final Long id : reader.getIds(name)) {
+					final ExecutionData data = reader.get(id.longValue());
+					executionData.visitClassExecution(data);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Determines whether saved content is followed by an index which allows
+	 * random access with {@link IndexedExecutionDataReader}. Default is
+	 * <code>false</code>.
+	 * 
+	 * @param flag
+	 *            <code>true</code> if an index should be written
+	 */
+	public void setWriteIndex(final boolean flag) {
+		this.writeIndex = flag;
+	}
+
 	/**
 	 * Saves the current content into the given output stream.
 	 * 
@@ -86,9 +134,18 @@ public class ExecFileLoader {
 	 *             in case of problems while writing to the stream
 	 */
 	public void save(final OutputStream stream) throws IOException {
-		final ExecutionDataWriter dataWriter = new ExecutionDataWriter(stream);
-		sessionInfos.accept(dataWriter);
-		executionData.accept(dataWriter);
+		if (writeIndex) {
+			final IndexedExecutionDataWriter dataWriter = new IndexedExecutionDataWriter(
+					stream);
+			sessionInfos.accept(dataWriter);
+			executionData.accept(dataWriter);
+			dataWriter.writeIndex();
+		} else {
+			final ExecutionDataWriter dataWriter = new ExecutionDataWriter(
+					stream);
+			sessionInfos.accept(dataWriter);
+			executionData.accept(dataWriter);
+		}
 	}
 
 	/**
@@ -0,0 +1,558 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.IndexedExecutionDataWriter;
+import org.jacoco.core.data.PackedExecutionData;
+import org.jacoco.core.data.PackedExecutionDataStore;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+
+/**
+ * Merges multiple execution data files into a single one with bounded memory
+ * consumption. In contrast to {@link ExecFileLoader} the execution data is not
+ * kept in memory completely: Execution data is buffered in a
+ * {@link PackedExecutionDataStore} up to a configurable number of classes, if
+ * the buffer is full its content is written to a
+ * temporary file sorted by class id. Files which are already sorted by class
+ * id (like files written by this class) are not buffered at all. On
+ * {@link #save(OutputStream)} all sorted runs are merged and written
+ * incrementally. Session infos are always kept in memory.
+ */
+public class ExecFileMerger {
+
+	/** Default maximum number of classes buffered in memory. */
+	public static final int DEFAULT_BUFFER_SIZE = 50000;
+
+	/** Default maximum number of files read at the same time. */
+	public static final int DEFAULT_MAX_OPEN_FILES = 64;
+
+	private static final Comparator<ExecutionData> ID_ORDER = new Comparator<ExecutionData>() {
+		public int compare(final ExecutionData d1, final ExecutionData d2) {
+			return compareIds(d1.getId(), d2.getId());
+		}
+	};
+
+	private static final Comparator<PackedExecutionData> PACKED_ID_ORDER = new Comparator<PackedExecutionData>() {
+		public int compare(final PackedExecutionData d1,
+				final PackedExecutionData d2) {
+			return compareIds(d1.getId(), d2.getId());
+		}
+	};
+
+	private static final ISessionInfoVisitor IGNORE_SESSIONS = new ISessionInfoVisitor() {
+		public void visitSessionInfo(final SessionInfo info) {
+			// Session infos of runs have already been collected
+		}
+	};
+
+	private SessionInfoStore sessionInfos;
+
+	/** Sorted files to merge, contains temporary files and sorted inputs. */
+	private final List<File> runs;
+
+	private final List<File> tempFiles;
+
+	private PackedExecutionDataStore buffer;
+
+	private boolean empty;
+
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+	private int maxOpenFiles = DEFAULT_MAX_OPEN_FILES;
+
+	private File tempDirectory = null;
+
+	private boolean writeIndex = false;
+
+	/**
+	 * New instance to merge session infos and execution data from multiple
+	 * files.
+	 */
+	public ExecFileMerger() {
+		sessionInfos = new SessionInfoStore();
+		runs = new ArrayList<File>();
+		tempFiles = new ArrayList<File>();
+		buffer = new PackedExecutionDataStore();
+		empty = true;
+	}
+
+	/**
+	 * Sets the maximum number of classes which are buffered in memory before
+	 * they are written to a temporary file. Default is
+	 * {@value #DEFAULT_BUFFER_SIZE}.
+	 * 
+	 * @param bufferSize
+	 *            maximum number of buffered classes, must be positive
+	 */
+	public void setBufferSize(final int bufferSize) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException(
+					"Buffer size must be positive.");
+		}
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Sets the maximum number of files which are read at the same time while
+	 * merging. If there are more sorted runs they are merged in multiple
+	 * passes. Default is {@value #DEFAULT_MAX_OPEN_FILES}.
+	 * 
+	 * @param maxOpenFiles
+	 *            maximum number of open files, must be at least 2
+	 */
+	public void setMaxOpenFiles(final int maxOpenFiles) {
+		if (maxOpenFiles < 2) {
+			throw new IllegalArgumentException(
+					"At least two open files required.");
+		}
+		this.maxOpenFiles = maxOpenFiles;
+	}
+
+	/**
+	 * Sets the directory for temporary files. By default the default
+	 * temporary-file directory of the system is used.
+	 * 
+	 * @param tempDirectory
+	 *            directory for temporary files or <code>null</code>
+	 */
+	public void setTempDirectory(final File tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
+	/**
+	 * Determines whether saved content is followed by an index which allows
+	 * random access with
+	 * {@link org.jacoco.core.data.IndexedExecutionDataReader}. Default is
+	 * <code>false</code>.
+	 * 
+	 * @param flag
+	 *            <code>true</code> if an index should be written
+	 */
+	public void setWriteIndex(final boolean flag) {
+		this.writeIndex = flag;
+	}
+
+	/**
+	 * Reads all data from given input stream. The execution data is buffered
+	 * and written to temporary files if required.
+	 * 
+	 * @param stream
+	 *            Stream to read data from
+	 * @throws IOException
+	 *             in case of problems while reading from the stream
+	 */
+	public void load(final InputStream stream) throws IOException {
+		final BlockReader reader = new BlockReader(
+				new BufferedInputStream(stream), sessionInfos);
+		ExecutionData data;
+		while ((data = reader.next()) != null) {
+			empty = false;
+			if (buffer.size() == bufferSize
+					&& buffer.get(data.getId()) == null) {
+				spill();
+			}
+			buffer.put(data);
+		}
+	}
+
+	/**
+	 * Reads all data from given file. If the execution data of the file is
+	 * sorted by class id the file is merged directly without buffering its
+	 * content. Such files must not be modified before {@link #save(File,
+	 * boolean)} or {@link #save(OutputStream)} has been called.
+	 * 
+	 * @param file
+	 *            file to read data from
+	 * @throws IOException
+	 *             in case of problems while reading the file
+	 */
+	public void load(final File file) throws IOException {
+		final SessionInfoStore sessions = new SessionInfoStore();
+		boolean sorted = true;
+		boolean hasData = false;
+		final BlockReader reader = new BlockReader(open(file), sessions);
+		try {
+			ExecutionData previous = null;
+			ExecutionData data;
+			while ((data = reader.next()) != null) {
+				hasData = true;
+				if (previous != null && ID_ORDER.compare(previous, data) > 0) {
+					sorted = false;
+					break;
+				}
+				previous = data;
+			}
+		} finally {
+			reader.close();
+		}
+		if (sorted) {
+			sessions.accept(sessionInfos);
+			if (hasData) {
+				empty = false;
+				runs.add(file);
+			}
+		} else {
+			final InputStream stream = new FileInputStream(file);
+			try {
+				load(stream);
+			} finally {
+				stream.close();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether no execution data has been loaded so far.
+	 * 
+	 * @return <code>true</code> if no execution data has been loaded
+	 */
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Returns the session info store with all loaded sessions.
+	 * 
+	 * @return session info store
+	 */
+	public SessionInfoStore getSessionInfoStore() {
+		return sessionInfos;
+	}
+
+	/**
+	 * Merges all loaded content into the given output stream. The execution
+	 * data is written ordered by class id. Afterwards all temporary files are
+	 * deleted and this instance is empty.
+	 * 
+	 * @param stream
+	 *            stream to save content to
+	 * @throws IOException
+	 *             in case of problems while reading the loaded content or
+	 *             writing to the stream
+	 */
+	public void save(final OutputStream stream) throws IOException {
+		try {
+			final List<PackedExecutionData> buffered = sortedBuffer();
+			while (runs.size() + 1 > maxOpenFiles) {
+				final List<File> group = new ArrayList<File>(
+						runs.subList(0, maxOpenFiles));
+				runs.subList(0, maxOpenFiles).clear();
+				final File merged = createTempFile();
+				final OutputStream out = new BufferedOutputStream(
+						new FileOutputStream(merged));
+				try {
+					merge(group, Collections.<PackedExecutionData> emptyList(),
+							new ExecutionDataWriter(out));
+				} finally {
+					out.close();
+				}
+				runs.add(merged);
+			}
+			if (writeIndex) {
+				final IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+						stream);
+				sessionInfos.accept(writer);
+				merge(runs, buffered, writer);
+				writer.writeIndex();
+			} else {
+				final ExecutionDataWriter writer = new ExecutionDataWriter(
+						stream);
+				sessionInfos.accept(writer);
+				merge(runs, buffered, writer);
+			}
+		} finally {
+			clear();
+		}
+	}
+
+	/**
+	 * Merges all loaded content into the given file. Parent directories are
+	 * created as needed. Also a files system lock is acquired to avoid
+	 * concurrent write access.
+	 * 
+	 * @param file
+	 *            file to save content to
+	 * @param append
+	 *            <code>true</code> if the content should be appended, otherwise
+	 *            the file is overwritten.
+	 * @throws IOException
+	 *             in case of problems while reading the loaded content or
+	 *             writing to the file
+	 * @see #save(OutputStream)
+	 */
+	public void save(final File file, final boolean append)
+			throws IOException {
+		// The target might have been loaded as a sorted run:
+		for (int i = 0; i < runs.size(); i++) {
+			if (isSameFile(runs.get(i), file)) {
+				runs.set(i, copyToTempFile(runs.get(i)));
+			}
+		}
+		final File folder = file.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final FileOutputStream fileStream = new FileOutputStream(file, append);
+		// Avoid concurrent writes from other processes:
+		fileStream.getChannel().lock();
+		final OutputStream bufferedStream = new BufferedOutputStream(fileStream);
+		try {
+			save(bufferedStream);
+		} finally {
+			bufferedStream.close();
+		}
+	}
+
+	private void spill() throws IOException {
+		final File run = createTempFile();
+		final OutputStream out = new BufferedOutputStream(
+				new FileOutputStream(run));
+		try {
+			final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+			for (final PackedExecutionData data : sortedBuffer()) {
+				writer.visitClassExecution(data.toExecutionData());
+			}
+		} finally {
+			out.close();
+		}
+		runs.add(run);
+		buffer = new PackedExecutionDataStore();
+	}
+
+	private List<PackedExecutionData> sortedBuffer() {
+		final List<PackedExecutionData> list = new ArrayList<PackedExecutionData>(
+				buffer.getContents());
+		Collections.sort(list, PACKED_ID_ORDER);
+		return list;
+	}
+
+	private void merge(final List<File> files,
+			final List<PackedExecutionData> buffered,
+			final IExecutionDataVisitor output) throws IOException {
+		final List<Run> all = new ArrayList<Run>();
+		final PriorityQueue<Run> queue = new PriorityQueue<Run>(
+				files.size() + 1, new Comparator<Run>() {
+					public int compare(final Run r1, final Run r2) {
+						return ID_ORDER.compare(r1.head, r2.head);
+					}
+				});
+		try {
+			all.add(new BufferRun(buffered));
+			for (final File file : files) {
+				all.add(new FileRun(file));
+			}
+			for (final Run run : all) {
+				advance(run, queue);
+			}
+			while (!queue.isEmpty()) {
+				final Run first = queue.poll();
+				final ExecutionData data = first.head;
+				advance(first, queue);
+				while (!queue.isEmpty()
+						&& queue.peek().head.getId() == data.getId()) {
+					final Run other = queue.poll();
+					data.merge(other.head);
+					advance(other, queue);
+				}
+				output.visitClassExecution(data);
+			}
+		} finally {
+			for (final Run run : all) {
+				run.close();
+			}
+		}
+		for (final File file : files) {
+			if (tempFiles.remove(file)) {
+				file.delete();
+			}
+		}
+	}
+
+	private static void advance(final Run run, final PriorityQueue<Run> queue)
+			throws IOException {
+		run.head = run.next();
+		if (run.head != null) {
+			queue.add(run);
+		}
+	}
+
+	private File createTempFile() throws IOException {
+		final File file = File.createTempFile("jacoco-merge-", ".exec",
+				tempDirectory);
+		tempFiles.add(file);
+		return file;
+	}
+
+	private File copyToTempFile(final File source) throws IOException {
+		final File copy = createTempFile();
+		final InputStream in = new FileInputStream(source);
+		try {
+			final OutputStream out = new FileOutputStream(copy);
+			try {
+				final byte[] buf = new byte[8192];
+				int len;
+				while ((len = in.read(buf)) != -1) {
+					out.write(buf, 0, len);
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+		return copy;
+	}
+
+	private static boolean isSameFile(final File f1, final File f2)
+			throws IOException {
+		return f1.getCanonicalFile().equals(f2.getCanonicalFile());
+	}
+
+	private void clear() {
+		for (final File file : tempFiles) {
+			file.delete();
+		}
+		tempFiles.clear();
+		runs.clear();
+		buffer = new PackedExecutionDataStore();
+		sessionInfos = new SessionInfoStore();
+		empty = true;
+	}
+
+	private static InputStream open(final File file) throws IOException {
+		return new BufferedInputStream(new FileInputStream(file));
+	}
+
+	private static int compareIds(final long id1, final long id2) {
+		return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+	}
+
+	/**
+	 * Reads execution data blocks one by one.
+	 */
+	private static class BlockReader extends ExecutionDataReader
+			implements IExecutionDataVisitor {
+
+		private final InputStream input;
+
+		private ExecutionData next;
+
+		BlockReader(final InputStream input,
+				final ISessionInfoVisitor sessionInfoVisitor) {
+			super(input);
+			this.input = input;
+			setSessionInfoVisitor(sessionInfoVisitor);
+			setExecutionDataVisitor(this);
+		}
+
+		@Override
+		protected boolean readBlock(final byte blocktype) throws IOException {
+			// Pause after every execution data block:
+			return super.readBlock(blocktype)
+					&& blocktype != ExecutionDataWriter.BLOCK_EXECUTIONDATA
+					&& blocktype != ExecutionDataWriter.BLOCK_COMPACTEXECUTIONDATA;
+		}
+
+		ExecutionData next() throws IOException {
+			next = null;
+			read();
+			return next;
+		}
+
+		void close() throws IOException {
+			input.close();
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			next = data;
+		}
+
+	}
+
+	/**
+	 * Sequence of execution data sorted by class id.
+	 */
+	private abstract static class Run {
+
+		/** Current entry while merging. */
+		ExecutionData head;
+
+		abstract ExecutionData next() throws IOException;
+
+		abstract void close() throws IOException;
+
+	}
+
+	private static class FileRun extends Run {
+
+		private final BlockReader reader;
+
+		FileRun(final File file) throws IOException {
+			reader = new BlockReader(open(file), IGNORE_SESSIONS);
+		}
+
+		@Override
+		ExecutionData next() throws IOException {
+			return reader.next();
+		}
+
+		@Override
+		void close() throws IOException {
+			reader.close();
+		}
+
+	}
+
+	private static class BufferRun extends Run {
+
+		private final Iterator<PackedExecutionData> iterator;
+
+		BufferRun(final List<PackedExecutionData> buffered) {
+			iterator = buffered.iterator();
+		}
+
+		@Override
+		ExecutionData next() {
+			return iterator.hasNext() ? iterator.next().toExecutionData()
+					: null;
+		}
+
+		@Override
+		void close() {
+			// nothing to close
+		}
+
+	}
+
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the single executor which is shared by all analysis, instrumentation
+ * and report tasks of a tool invocation for a given number of threads.
+ */
+public final class ThreadPool {
+
+	private ThreadPool() {
+	}
+
+	/**
+	 * Creates a new executor if more than one thread is requested.
+	 * 
+	 * @param threads
+	 *            number of threads
+	 * @return new executor or <code>null</code> to work in the calling thread
+	 */
+	public static ExecutorService create(final int threads) {
+		return threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+	}
+
+	/**
+	 * Shuts down the given executor if present.
+	 * 
+	 * @param executor
+	 *            executor created by {@link #create(int)} or <code>null</code>
+	 */
+	public static void shutdown(final ExecutorService executor) {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+}
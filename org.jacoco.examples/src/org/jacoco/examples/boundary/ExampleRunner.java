@@ -94,6 +94,7 @@ public class ExampleRunner {
         // The Instrumenter creates a modified version of our test target class
         // that contains additional probes for execution data recording:
         final Instrumenter instr = new Instrumenter(runtime);
+        instr.setBoundaryChecks("*");
         final CoverageBuilder coverageBuilder = new CoverageBuilder();
         final ExecutionDataStore executionData = new ExecutionDataStore();
         final SessionInfoStore sessionInfos = new SessionInfoStore();
@@ -128,6 +129,7 @@ public class ExampleRunner {
             // information:
 
             final Analyzer analyzer = new Analyzer(executionData, coverageBuilder);
+            analyzer.setBoundaryChecks("*");
             original = getTargetClass(targetName);
             analyzer.analyzeClass(original, targetName);
             original.close();
@@ -13,9 +13,12 @@
 package org.jacoco.report;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -60,4 +63,96 @@ public class FileMultiReportOutputTest {
 		output.createFile("a/b/c/test");
 	}
 
+	@Test
+	public void testIncrementalSkipsUnchangedFiles() throws IOException {
+		writeReport("a/test1", "a/test2");
+		final File test1 = new File(folder.getRoot(), "a/test1");
+		assertTrue(test1.setLastModified(0));
+
+		final FileMultiReportOutput output = writeReport("a/test1", "a/test2");
+
+		assertEquals(0, output.getWrittenFiles());
+		assertEquals(2, output.getUnchangedFiles());
+		assertEquals(0, output.getDeletedFiles());
+		assertEquals(0, test1.lastModified());
+	}
+
+	@Test
+	public void testIncrementalWritesChangedFiles() throws IOException {
+		writeReport("test1", "test2");
+		final File test2 = new File(folder.getRoot(), "test2");
+		final OutputStream stream = new FileOutputStream(test2);
+		stream.write(new byte[] { 9, 9, 9 });
+		stream.close();
+		assertTrue(test2.setLastModified(0));
+
+		final FileMultiReportOutput output = writeReport("test1", "test2");
+
+		assertEquals(1, output.getWrittenFiles());
+		assertEquals(1, output.getUnchangedFiles());
+		assertContent(test2);
+	}
+
+	@Test
+	public void testIncrementalDeletesObsoleteFiles() throws IOException {
+		writeReport("test1", "a/b/test2");
+		final File other = folder.newFile("other");
+
+		final FileMultiReportOutput output = writeReport("test1");
+
+		assertEquals(0, output.getWrittenFiles());
+		assertEquals(1, output.getUnchangedFiles());
+		assertEquals(1, output.getDeletedFiles());
+		assertFalse(new File(folder.getRoot(), "a").exists());
+		assertTrue(other.exists());
+	}
+
+	@Test
+	public void testIncrementalWithExistingFiles() throws IOException {
+		final IMultiReportOutput plain = new FileMultiReportOutput(
+				folder.getRoot());
+		writeFile(plain, "test1");
+		plain.close();
+		assertFalse(new File(folder.getRoot(), FileMultiReportOutput.MANIFEST)
+				.exists());
+
+		final FileMultiReportOutput output = writeReport("test1");
+
+		assertEquals(0, output.getWrittenFiles());
+		assertEquals(1, output.getUnchangedFiles());
+		assertTrue(new File(folder.getRoot(), FileMultiReportOutput.MANIFEST)
+				.isFile());
+	}
+
+	private FileMultiReportOutput writeReport(String... paths)
+			throws IOException {
+		final FileMultiReportOutput output = new FileMultiReportOutput(
+				folder.getRoot());
+		output.setIncremental(true);
+		for (String path : paths) {
+			writeFile(output, path);
+			assertContent(new File(folder.getRoot(), path));
+		}
+		output.close();
+		return output;
+	}
+
+	private void writeFile(IMultiReportOutput output, String path)
+			throws IOException {
+		final OutputStream stream = output.createFile(path);
+		stream.write(1);
+		stream.write(2);
+		stream.write(3);
+		stream.close();
+	}
+
+	private void assertContent(File file) throws IOException {
+		final InputStream actual = new FileInputStream(file);
+		assertEquals(1, actual.read());
+		assertEquals(2, actual.read());
+		assertEquals(3, actual.read());
+		assertEquals(-1, actual.read());
+		actual.close();
+	}
+
 }
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link IndexedSourceFileLocator}.
+ */
+public class IndexedSourceFileLocatorTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private File root1;
+
+	private File root2;
+
+	private IndexedSourceFileLocator locator;
+
+	@Before
+	public void setup() {
+		root1 = new File(folder.getRoot(), "root1");
+		root2 = new File(folder.getRoot(), "root2");
+		locator = new IndexedSourceFileLocator("UTF-8", 4);
+	}
+
+	@Test
+	public void getSourceFile_should_return_null_when_source_does_not_exist()
+			throws IOException {
+		createFile(root1, "org/jacoco/example/Test.java", "Source");
+		locator.addDirectory(root1);
+
+		assertNull(locator.getSourceFile("org/jacoco/example",
+				"DoesNotExist.java"));
+	}
+
+	@Test
+	public void getSourceFile_should_return_null_when_source_is_folder()
+			throws IOException {
+		new File(root1, "org/jacoco/example").mkdirs();
+		locator.addDirectory(root1);
+
+		assertNull(locator.getSourceFile("org/jacoco", "example"));
+	}
+
+	@Test
+	public void getSourceFile_should_return_content_when_file_exists()
+			throws IOException {
+		createFile(root1, "org/jacoco/example/Test.java", "Source");
+		createFile(root2, "Default.java", "Source");
+		locator.addDirectory(root1);
+		locator.addDirectory(root2);
+
+		assertEquals(2, locator.getFileCount());
+		assertContent("Source",
+				locator.getSourceFile("org/jacoco/example", "Test.java"));
+		assertContent("Source", locator.getSourceFile("", "Default.java"));
+	}
+
+	@Test
+	public void getSourceFile_should_return_file_from_first_directory()
+			throws IOException {
+		createFile(root1, "org/Test.java", "First");
+		createFile(root2, "org/Test.java", "Second");
+		locator.addDirectory(root1);
+		locator.addDirectory(root2);
+
+		assertEquals(1, locator.getFileCount());
+		assertContent("First", locator.getSourceFile("org", "Test.java"));
+	}
+
+	@Test
+	public void addDirectory_should_ignore_missing_directory() {
+		locator.addDirectory(root1);
+
+		assertEquals(0, locator.getFileCount());
+	}
+
+	@Test
+	public void loadIndex_should_reuse_index_of_unmodified_directories()
+			throws IOException {
+		createFile(root1, "org/A.java", "Source");
+		locator.addDirectory(root1);
+		final File index = new File(folder.getRoot(), "index");
+		locator.saveIndex(index);
+
+		// Add a file without changing the timestamp of its directory:
+		final File dir = new File(root1, "org");
+		final long timestamp = dir.lastModified();
+		createFile(root1, "org/B.java", "Source");
+		assertTrue(dir.setLastModified(timestamp));
+
+		locator = new IndexedSourceFileLocator("UTF-8", 4);
+		locator.loadIndex(index);
+		locator.addDirectory(root1);
+
+		assertNotNull(locator.getSourceFile("org", "A.java"));
+		assertNull(locator.getSourceFile("org", "B.java"));
+	}
+
+	@Test
+	public void loadIndex_should_scan_modified_directories()
+			throws IOException {
+		createFile(root1, "org/A.java", "Source");
+		locator.addDirectory(root1);
+		final File index = new File(folder.getRoot(), "index");
+		locator.saveIndex(index);
+
+		final File dir = new File(root1, "org");
+		createFile(root1, "org/B.java", "Source");
+		assertTrue(dir.setLastModified(dir.lastModified() + 2000));
+
+		locator = new IndexedSourceFileLocator("UTF-8", 4);
+		locator.loadIndex(index);
+		locator.addDirectory(root1);
+
+		assertNotNull(locator.getSourceFile("org", "A.java"));
+		assertNotNull(locator.getSourceFile("org", "B.java"));
+	}
+
+	@Test
+	public void loadIndex_should_ignore_invalid_index_file()
+			throws IOException {
+		createFile(folder.getRoot(), "index", "invalid");
+		createFile(root1, "org/A.java", "Source");
+
+		locator.loadIndex(new File(folder.getRoot(), "index"));
+		locator.loadIndex(new File(folder.getRoot(), "doesnotexist"));
+		locator.addDirectory(root1);
+
+		assertNotNull(locator.getSourceFile("org", "A.java"));
+	}
+
+	private void createFile(File root, String path, String content)
+			throws IOException {
+		final File file = new File(root, path);
+		file.getParentFile().mkdirs();
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+				"UTF-8");
+		writer.write(content);
+		writer.close();
+	}
+
+	private void assertContent(String expected, Reader source)
+			throws IOException {
+		assertNotNull(source);
+		final BufferedReader buffer = new BufferedReader(source);
+		assertEquals(expected, buffer.readLine());
+		assertNull(buffer.readLine());
+		buffer.close();
+	}
+
+}
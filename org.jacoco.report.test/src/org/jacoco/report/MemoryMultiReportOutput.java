@@ -23,9 +23,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -34,7 +36,7 @@ import java.util.Set;
  */
 public class MemoryMultiReportOutput implements IMultiReportOutput {
 
-	private final Map<String, ByteArrayOutputStream> files = new HashMap<String, ByteArrayOutputStream>();
+	private final Map<String, ByteArrayOutputStream> files = new LinkedHashMap<String, ByteArrayOutputStream>();
 
 	private final Set<String> open = new HashSet<String>();
 
@@ -80,6 +82,10 @@ public class MemoryMultiReportOutput implements IMultiReportOutput {
 		return files.get(path).toByteArray();
 	}
 
+	public List<String> getFileNames() {
+		return new ArrayList<String>(files.keySet());
+	}
+
 	public InputStream getFileAsStream(String path) {
 		return new ByteArrayInputStream(getFile(path));
 	}
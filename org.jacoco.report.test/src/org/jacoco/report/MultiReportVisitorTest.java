@@ -23,10 +23,14 @@ import java.util.Collections;
 import java.util.List;
 
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
 import org.junit.Test;
 
 /**
@@ -78,6 +82,24 @@ public class MultiReportVisitorTest {
 			children.add(new MockGroupVisitor(bundle.getName()));
 		}
 
+		public IReportBundleVisitor visitBundle(String name,
+				ISourceFileLocator locator) throws IOException {
+			final MockGroupVisitor bundle = new MockGroupVisitor(name);
+			children.add(bundle);
+			return new IReportBundleVisitor() {
+				public void visitPackage(IPackageCoverage coverage)
+						throws IOException {
+					bundle.children
+							.add(new MockGroupVisitor(coverage.getName()));
+				}
+
+				public void visitEnd(ICoverageNode coverage)
+						throws IOException {
+					bundle.children.add(new MockGroupVisitor("end"));
+				}
+			};
+		}
+
 		public IReportGroupVisitor visitGroup(String name) throws IOException {
 			MockGroupVisitor child = new MockGroupVisitor(name);
 			children.add(child);
@@ -127,4 +149,29 @@ public class MultiReportVisitorTest {
 		assertEquals(MOCK_REPORT, mock2.toString());
 		assertEquals(MOCK_REPORT, mock3.toString());
 	}
+
+	@Test
+	public void testMultiFormatterWithStreamedBundle() throws IOException {
+		IReportVisitor mock1 = new MockVisitor();
+		IReportVisitor mock2 = new MockVisitor();
+		List<IReportVisitor> visitors = Arrays.asList(mock1, mock2);
+		MultiReportVisitor multi = new MultiReportVisitor(visitors);
+		final List<SessionInfo> sessions = Collections.emptyList();
+		final List<ExecutionData> executionData = Collections.emptyList();
+		multi.visitInfo(sessions, executionData);
+		IReportBundleVisitor bundle = multi.visitGroup("g1").visitBundle("b1",
+				null);
+		bundle.visitPackage(createPackage("p1"));
+		bundle.visitPackage(createPackage("p2"));
+		bundle.visitEnd(createBundle("b1"));
+		multi.visitEnd();
+		assertEquals("Report[g1[b1[p1[], p2[], end[]]]]", mock1.toString());
+		assertEquals("Report[g1[b1[p1[], p2[], end[]]]]", mock2.toString());
+	}
+
+	private IPackageCoverage createPackage(String name) {
+		return new PackageCoverageImpl(name,
+				Collections.<IClassCoverage> emptyList(),
+				Collections.<ISourceFileCoverage> emptyList());
+	}
 }
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ParallelZipMultiReportOutput}.
+ */
+public class ParallelZipMultiReportOutputTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutorService executor;
+
+	private ByteArrayOutputStream buffer;
+
+	private ParallelZipMultiReportOutput zipOutput;
+
+	@Before
+	public void setup() throws Exception {
+		executor = Executors.newFixedThreadPool(4);
+		buffer = new ByteArrayOutputStream();
+		zipOutput = new ParallelZipMultiReportOutput(buffer, executor);
+	}
+
+	@After
+	public void teardown() {
+		executor.shutdown();
+	}
+
+	@Test
+	public void testWrite1() throws IOException {
+		final byte[] content1 = "HelloZip".getBytes();
+
+		OutputStream out = zipOutput.createFile("a.txt");
+		out.write(content1);
+		out.close();
+
+		zipOutput.close();
+
+		final Map<String, byte[]> entries = readEntries();
+		assertEquals(Collections.singleton("a.txt"), entries.keySet());
+		assertArrayEquals(content1, entries.get("a.txt"));
+	}
+
+	@Test
+	public void testWrite2() throws IOException {
+		final byte[] content1 = "HelloZip".getBytes("ISO-8859-1");
+
+		OutputStream out = zipOutput.createFile("b.txt");
+		out.write(content1, 5, 3);
+		out.close();
+
+		zipOutput.close();
+
+		final Map<String, byte[]> entries = readEntries();
+		assertEquals(Collections.singleton("b.txt"), entries.keySet());
+		assertArrayEquals("Zip".getBytes("ISO-8859-1"), entries.get("b.txt"));
+	}
+
+	@Test
+	public void testWrite3() throws IOException {
+		OutputStream out = zipOutput.createFile("b.txt");
+		out.write(40);
+		out.flush();
+		out.close();
+
+		zipOutput.close();
+
+		final Map<String, byte[]> entries = readEntries();
+		assertEquals(Collections.singleton("b.txt"), entries.keySet());
+		assertArrayEquals(new byte[] { 40 }, entries.get("b.txt"));
+	}
+
+	@Test
+	public void testEmptyEntry() throws IOException {
+		zipOutput.createFile("empty.txt").close();
+
+		zipOutput.close();
+
+		final Map<String, byte[]> entries = readEntries();
+		assertArrayEquals(new byte[0], entries.get("empty.txt"));
+	}
+
+	@Test
+	public void testCreateFilesWithoutClose() throws IOException {
+		final byte[] content1 = "HelloZip".getBytes();
+
+		OutputStream out = zipOutput.createFile("dir/index.html");
+		out.write(content1);
+
+		final byte[] content2 = "HelloWorld".getBytes();
+
+		out = zipOutput.createFile("readme.txt");
+		out.write(content2);
+
+		zipOutput.close();
+
+		final Map<String, byte[]> entries = readEntries();
+		assertEquals(
+				new HashSet<String>(
+						Arrays.asList("dir/index.html", "readme.txt")),
+				entries.keySet());
+		assertArrayEquals(content1, entries.get("dir/index.html"));
+		assertArrayEquals(content2, entries.get("readme.txt"));
+	}
+
+	@Test
+	public void testEntryOrder() throws IOException {
+		final List<String> names = new ArrayList<String>();
+		final Map<String, String> contents = new LinkedHashMap<String, String>();
+		for (int i = 0; i < 1000; i++) {
+			final StringBuilder content = new StringBuilder();
+			for (int j = 0; j < i; j++) {
+				content.append("<p>line ").append(j).append("</p>");
+			}
+			final String name = "file" + i + ".html";
+			names.add(name);
+			contents.put(name, content.toString());
+			writeFile(zipOutput, name, content.toString());
+		}
+		zipOutput.close();
+
+		final Map<String, byte[]> entries = readEntries();
+		assertEquals(names, new ArrayList<String>(entries.keySet()));
+		for (final String name : names) {
+			assertEquals(contents.get(name),
+					new String(entries.get(name), "UTF-8"));
+		}
+	}
+
+	@Test
+	public void testSameArchiveWithoutExecutor() throws IOException {
+		final ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+		final ParallelZipMultiReportOutput sequentialOutput = new ParallelZipMultiReportOutput(
+				sequential, null);
+		for (int i = 0; i < 100; i++) {
+			writeFile(zipOutput, "f" + i, "Content " + i);
+			writeFile(sequentialOutput, "f" + i, "Content " + i);
+		}
+		zipOutput.close();
+		sequentialOutput.close();
+
+		final Map<String, byte[]> expected = readEntries(
+				sequential.toByteArray());
+		final Map<String, byte[]> actual = readEntries();
+		assertEquals(expected.keySet(), actual.keySet());
+		for (final String name : expected.keySet()) {
+			assertArrayEquals(expected.get(name), actual.get(name));
+		}
+		assertEquals(sequential.size(), buffer.size());
+	}
+
+	@Test
+	public void testCentralDirectory() throws IOException {
+		writeFile(zipOutput, "a.txt", "A");
+		writeFile(zipOutput, "ä/b.txt", "BB");
+		zipOutput.close();
+
+		final File file = folder.newFile("test.zip");
+		final FileOutputStream out = new FileOutputStream(file);
+		out.write(buffer.toByteArray());
+		out.close();
+
+		final ZipFile zip = new ZipFile(file);
+		final Enumeration<? extends ZipEntry> entries = zip.entries();
+		ZipEntry entry = entries.nextElement();
+		assertEquals("a.txt", entry.getName());
+		assertEquals(1, entry.getSize());
+		assertEquals("A", read(zip.getInputStream(entry)));
+		entry = entries.nextElement();
+		assertEquals("ä/b.txt", entry.getName());
+		assertEquals(2, entry.getSize());
+		assertEquals("BB", read(zip.getInputStream(entry)));
+		assertEquals(false, entries.hasMoreElements());
+		zip.close();
+	}
+
+	@Test
+	public void testZip64EntryCount() throws IOException {
+		zipOutput.setLevel(0);
+		for (int i = 0; i < 0x10000; i++) {
+			writeFile(zipOutput, String.valueOf(i), "");
+		}
+		zipOutput.close();
+
+		final File file = folder.newFile("test.zip");
+		final FileOutputStream out = new FileOutputStream(file);
+		out.write(buffer.toByteArray());
+		out.close();
+
+		final ZipFile zip = new ZipFile(file);
+		assertEquals(0x10000, zip.size());
+		zip.close();
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteToClosedStream1() throws IOException {
+		OutputStream out = zipOutput.createFile("index.html");
+		out.close();
+		out.write("HelloZip".getBytes());
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteToClosedStream2() throws IOException {
+		OutputStream out = zipOutput.createFile("index.html");
+		out.close();
+		out.write("HelloZip".getBytes(), 2, 3);
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteToClosedStream3() throws IOException {
+		OutputStream out = zipOutput.createFile("index.html");
+		out.close();
+		out.write(32);
+	}
+
+	@Test(expected = IOException.class)
+	public void testFlushToClosedStream3() throws IOException {
+		OutputStream out = zipOutput.createFile("index.html");
+		out.close();
+		out.flush();
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteToObsoleteStream() throws IOException {
+		final OutputStream out1 = zipOutput.createFile("a.txt");
+		zipOutput.createFile("b.txt");
+		out1.write(32);
+	}
+
+	private static void writeFile(final IMultiReportOutput output,
+			final String path, final String content) throws IOException {
+		final OutputStream out = output.createFile(path);
+		out.write(content.getBytes("UTF-8"));
+		out.close();
+	}
+
+	private static String read(final InputStream in) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) != -1) {
+			out.write(b);
+		}
+		in.close();
+		return new String(out.toByteArray(), "UTF-8");
+	}
+
+	private Map<String, byte[]> readEntries() throws IOException {
+		return readEntries(buffer.toByteArray());
+	}
+
+	private static Map<String, byte[]> readEntries(final byte[] bytes)
+			throws IOException {
+		final Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+		final ZipInputStream input = new ZipInputStream(
+				new ByteArrayInputStream(bytes));
+		ZipEntry entry;
+		while ((entry = input.getNextEntry()) != null) {
+			final ByteArrayOutputStream entryBuffer = new ByteArrayOutputStream();
+			int b;
+			while ((b = input.read()) != -1) {
+				entryBuffer.write(b);
+			}
+			byte[] old = entries.put(entry.getName(),
+					entryBuffer.toByteArray());
+			assertNull("Duplicate entry " + entry.getName(), old);
+		}
+		return entries;
+	}
+
+}
@@ -146,4 +146,21 @@ public class ReportStructureTestDriver {
 		groupVisitor.visitBundle(bundleCoverage, sourceFileLocator);
 	}
 
+	public void sendBundlePackages(IReportVisitor reportVisitor)
+			throws IOException {
+		reportVisitor.visitInfo(sessions, executionData);
+		sendBundlePackages((IReportGroupVisitor) reportVisitor);
+		reportVisitor.visitEnd();
+	}
+
+	public void sendBundlePackages(IReportGroupVisitor groupVisitor)
+			throws IOException {
+		final IReportBundleVisitor bundleVisitor = groupVisitor
+				.visitBundle(bundleCoverage.getName(), sourceFileLocator);
+		for (final IPackageCoverage p : bundleCoverage.getPackages()) {
+			bundleVisitor.visitPackage(p);
+		}
+		bundleVisitor.visitEnd(bundleCoverage.getPlainCopy());
+	}
+
 }
@@ -13,6 +13,8 @@
 package org.jacoco.report.check;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -96,6 +98,77 @@ public class RulesCheckerTest implements IViolationsOutput {
 				messages);
 	}
 
+	@Test
+	public void testSetFailFast() throws IOException {
+		Rule rule1 = new Rule();
+		Limit limit1 = rule1.createLimit();
+		limit1.setValue(CounterValue.MISSEDCOUNT.name());
+		limit1.setMaximum("5");
+		Rule rule2 = new Rule();
+		rule2.setElement(ElementType.CLASS);
+		Limit limit2 = rule2.createLimit();
+		limit2.setValue(CounterValue.MISSEDCOUNT.name());
+		limit2.setMaximum("5");
+		checker.setRules(Arrays.asList(rule1, rule2));
+		checker.setFailFast(true);
+
+		driver.sendGroup(checker.createVisitor(this));
+		assertEquals(
+				Arrays.asList("Rule violated for bundle bundle: instructions missed count is 10, but expected maximum is 5"),
+				messages);
+	}
+
+	@Test
+	public void testNoFailFast() throws IOException {
+		Rule rule1 = new Rule();
+		Limit limit1 = rule1.createLimit();
+		limit1.setValue(CounterValue.MISSEDCOUNT.name());
+		limit1.setMaximum("5");
+		Rule rule2 = new Rule();
+		rule2.setElement(ElementType.CLASS);
+		Limit limit2 = rule2.createLimit();
+		limit2.setValue(CounterValue.MISSEDCOUNT.name());
+		limit2.setMaximum("5");
+		checker.setRules(Arrays.asList(rule1, rule2));
+
+		driver.sendGroup(checker.createVisitor(this));
+		assertEquals(2, messages.size());
+	}
+
+	@Test
+	public void testStreamedBundle() throws IOException {
+		Rule rule1 = new Rule();
+		Limit limit1 = rule1.createLimit();
+		limit1.setValue(CounterValue.MISSEDCOUNT.name());
+		limit1.setMaximum("5");
+		Rule rule2 = new Rule();
+		rule2.setElement(ElementType.CLASS);
+		Limit limit2 = rule2.createLimit();
+		limit2.setValue(CounterValue.MISSEDCOUNT.name());
+		limit2.setMaximum("5");
+		checker.setRules(Arrays.asList(rule1, rule2));
+
+		driver.sendBundlePackages(checker.createVisitor(this));
+		assertEquals(Arrays.asList(
+				"Rule violated for class org.jacoco.example.FooClass: instructions missed count is 10, but expected maximum is 5",
+				"Rule violated for bundle bundle: instructions missed count is 10, but expected maximum is 5"),
+				messages);
+	}
+
+	@Test
+	public void testAppliesTo() {
+		Rule rule1 = new Rule();
+		Rule rule2 = new Rule();
+		rule2.setElement(ElementType.SOURCEFILE);
+		List<Rule> rules = Arrays.asList(rule1, rule2);
+
+		assertTrue(RulesChecker.appliesTo(rules, ElementType.BUNDLE));
+		assertTrue(RulesChecker.appliesTo(rules, ElementType.SOURCEFILE));
+		assertFalse(RulesChecker.appliesTo(rules, ElementType.PACKAGE));
+		assertFalse(RulesChecker.appliesTo(rules, ElementType.CLASS));
+		assertFalse(RulesChecker.appliesTo(rules, ElementType.METHOD));
+	}
+
 	public void onViolation(ICoverageNode node, Rule rule, Limit limit,
 			String message) {
 		messages.add(message);
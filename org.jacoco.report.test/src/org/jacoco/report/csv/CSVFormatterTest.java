@@ -92,6 +92,16 @@ public class CSVFormatterTest {
 		assertEquals(2, lines.size());
 	}
 
+	@Test
+	public void testStructureWithStreamedBundle() throws IOException {
+		driver.sendBundlePackages(visitor);
+		final List<String> lines = getLines();
+		assertEquals(HEADER, lines.get(0));
+		assertEquals("bundle,org.jacoco.example,FooClass,10,15,1,2,0,3,1,2,0,1",
+				lines.get(1));
+		assertEquals(2, lines.size());
+	}
+
 	@Test
 	public void testSetEncoding() throws Exception {
 		formatter.setOutputEncoding("UTF-16");
@@ -12,16 +12,40 @@
  *******************************************************************************/
 package org.jacoco.report.html;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
 import org.jacoco.report.ILanguageNames;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.MemoryMultiReportOutput;
 import org.jacoco.report.ReportStructureTestDriver;
 import org.junit.After;
@@ -98,6 +122,20 @@ public class HTMLFormatterTest {
 		output.assertNoFile("empty/Empty.java.html");
 	}
 
+	@Test
+	public void testStructureWithStreamedBundle() throws IOException {
+		driver.sendBundlePackages(formatter.createVisitor(output));
+		final MemoryMultiReportOutput expected = new MemoryMultiReportOutput();
+		driver.sendBundle(formatter.createVisitor(expected));
+		assertEquals(new HashSet<String>(expected.getFileNames()),
+				new HashSet<String>(output.getFileNames()));
+		for (final String path : expected.getFileNames()) {
+			assertArrayEquals(path, expected.getFile(path),
+					output.getFile(path));
+		}
+		expected.assertAllClosed();
+	}
+
 	@Test
 	public void testDefaultEncoding() throws Exception {
 		driver.sendBundle(formatter.createVisitor(output));
@@ -164,4 +202,113 @@ public class HTMLFormatterTest {
 		output.close();
 	}
 
+	@Test
+	public void testExecutorCreatesIdenticalReport() throws IOException {
+		final IBundleCoverage bundle = createBundle();
+		final MemoryMultiReportOutput expected = new MemoryMultiReportOutput();
+		sendBundle(formatter.createVisitor(expected), bundle,
+				createLocator(false));
+
+		final HTMLFormatter concurrent = new HTMLFormatter();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		concurrent.setExecutor(executor);
+		try {
+			sendBundle(concurrent.createVisitor(output), bundle,
+					createLocator(false));
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(new HashSet<String>(expected.getFileNames()),
+				new HashSet<String>(output.getFileNames()));
+		for (final String name : expected.getFileNames()) {
+			assertArrayEquals(name, expected.getFile(name),
+					output.getFile(name));
+		}
+		output.assertFile("org.example3/foo0.html~1");
+		output.assertFile("org.example3/foo0.java.html~1");
+	}
+
+	@Test
+	public void testExecutorWithBrokenSource() throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		formatter.setExecutor(executor);
+		try {
+			sendBundle(formatter.createVisitor(output), createBundle(),
+					createLocator(true));
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("broken source", e.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+		output.close();
+	}
+
+	private static void sendBundle(final IReportVisitor visitor,
+			final IBundleCoverage bundle, final ISourceFileLocator locator)
+			throws IOException {
+		visitor.visitInfo(Collections.<SessionInfo> emptyList(),
+				Collections.<ExecutionData> emptyList());
+		visitor.visitBundle(bundle, locator);
+		visitor.visitEnd();
+	}
+
+	private static ISourceFileLocator createLocator(final boolean broken) {
+		return new ISourceFileLocator() {
+			public Reader getSourceFile(final String packageName,
+					final String fileName) {
+				if (broken) {
+					return new Reader() {
+						@Override
+						public int read(char[] cbuf, int off, int len)
+								throws IOException {
+							throw new IOException("broken source");
+						}
+
+						@Override
+						public void close() {
+						}
+					};
+				}
+				return new StringReader("package " + packageName + ";\n\n"
+						+ "class " + fileName + " {\n}\n");
+			}
+
+			public int getTabWidth() {
+				return 4;
+			}
+		};
+	}
+
+	private static IBundleCoverage createBundle() {
+		final List<IPackageCoverage> packages = new ArrayList<IPackageCoverage>();
+		for (int p = 0; p < 5; p++) {
+			final String packageName = "org/example" + p;
+			final List<IClassCoverage> classes = new ArrayList<IClassCoverage>();
+			final List<ISourceFileCoverage> sources = new ArrayList<ISourceFileCoverage>();
+			for (int c = 0; c < 20; c++) {
+				// colliding file names are numbered in order of their first use
+				final String simpleName = c % 2 == 0 ? "Foo" + c / 2
+						: "foo" + c / 2;
+				final ClassCoverageImpl classCoverage = new ClassCoverageImpl(
+						packageName + "/" + simpleName, c, false);
+				classCoverage.setSourceFileName(simpleName + ".java");
+				final MethodCoverageImpl m = new MethodCoverageImpl("run",
+						"()V", null);
+				m.increment(CounterImpl.getInstance(c, 3),
+						CounterImpl.COUNTER_0_0, 3);
+				m.incrementMethodCounter();
+				classCoverage.addMethod(m);
+				classes.add(classCoverage);
+				final SourceFileCoverageImpl source = new SourceFileCoverageImpl(
+						simpleName + ".java", packageName);
+				source.increment(classCoverage);
+				sources.add(source);
+			}
+			packages.add(new PackageCoverageImpl(packageName, classes, sources));
+		}
+		return new BundleCoverageImpl("bundle", packages);
+	}
+
 }
@@ -41,6 +41,15 @@ public class BundlePageTest extends PageTestBase {
 		super.setup();
 	}
 
+	private void render(final IBundleCoverage node) throws Exception {
+		final BundlePage page = new BundlePage(node.getName(), null, null,
+				rootFolder, context);
+		for (final IPackageCoverage p : node.getPackages()) {
+			page.visitPackage(p);
+		}
+		page.visitEnd(node);
+	}
+
 	@Test
 	public void should_render_non_empty_packages() throws Exception {
 		final ClassCoverageImpl classCoverage = new ClassCoverageImpl(
@@ -62,9 +71,7 @@ public class BundlePageTest extends PageTestBase {
 		final IBundleCoverage node = new BundleCoverageImpl("bundle",
 				Arrays.asList(nonEmptyPackage, emptyPackage));
 
-		final BundlePage page = new BundlePage(node, null, null, rootFolder,
-				context);
-		page.render();
+		render(node);
 
 		final Document doc = support.parse(output.getFile("index.html"));
 		assertEquals("el_package", support.findStr(doc,
@@ -81,9 +88,7 @@ public class BundlePageTest extends PageTestBase {
 		final IBundleCoverage node = new BundleCoverageImpl("bundle",
 				Collections.<IPackageCoverage> emptySet());
 
-		final BundlePage page = new BundlePage(node, null, null, rootFolder,
-				context);
-		page.render();
+		render(node);
 
 		final Document doc = support.parse(output.getFile("index.html"));
 		assertEquals("No class files specified.",
@@ -99,9 +104,7 @@ public class BundlePageTest extends PageTestBase {
 				Collections.<IClassCoverage> singleton(emptyClass),
 				Collections.<ISourceFileCoverage> emptySet());
 
-		final BundlePage page = new BundlePage(node, null, null, rootFolder,
-				context);
-		page.render();
+		render(node);
 
 		final Document doc = support.parse(output.getFile("index.html"));
 		assertEquals(
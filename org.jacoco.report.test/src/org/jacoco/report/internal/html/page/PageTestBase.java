@@ -43,6 +43,8 @@ public abstract class PageTestBase {
 
 	protected HTMLSupport support;
 
+	protected int virtualSourceThreshold;
+
 	protected void setup() throws Exception {
 		output = new MemoryMultiReportOutput();
 		rootFolder = new ReportOutputFolder(output);
@@ -87,6 +89,14 @@ public abstract class PageTestBase {
 				return Locale.ENGLISH;
 			}
 
+			public int getVirtualSourceThreshold() {
+				return virtualSourceThreshold;
+			}
+
+			public void renderPage(ReportPage page) throws IOException {
+				page.write(page.createFile());
+			}
+
 		};
 		support = new HTMLSupport();
 	}
@@ -19,6 +19,7 @@ import java.io.FileInputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 
+import org.jacoco.core.internal.analysis.CounterImpl;
 import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
 import org.junit.Before;
 import org.junit.Test;
@@ -69,4 +70,50 @@ public class SourceFilePageTest extends PageTestBase {
 		// source code
 		assertNotNull(support.findStr(result, "/html/body/pre"));
 	}
+
+	@Test
+	public void testVirtualContents() throws Exception {
+		virtualSourceThreshold = 10;
+		final SourceFileCoverageImpl node = new SourceFileCoverageImpl(
+				"SourceFilePageTest.java", "org/jacoco/report/internal/html");
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 11);
+		final SourceFilePage page = new SourceFilePage(node, sourceReader, 4,
+				null, rootFolder, context);
+		page.render();
+
+		final Document result = support.parse(output
+				.getFile("SourceFilePageTest.java.html"));
+
+		// no prettify style sheet
+		assertEquals("1", support.findStr(result,
+				"count(/html/head/link[@rel='stylesheet'])"));
+
+		// rendering script
+		assertEquals("jacoco-resources/source.js",
+				support.findStr(result, "/html/head/script/@src"));
+		assertEquals("initVirtualSource(4)",
+				support.findStr(result, "/html/body/@onload"));
+
+		// source code
+		assertEquals("----------n", support.findStr(result,
+				"/html/body/div[@id='sourcestatus']/text()"));
+	}
+
+	@Test
+	public void testContentsBelowVirtualSourceThreshold() throws Exception {
+		virtualSourceThreshold = 10;
+		final SourceFileCoverageImpl node = new SourceFileCoverageImpl(
+				"SourceFilePageTest.java", "org/jacoco/report/internal/html");
+		node.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 10);
+		final SourceFilePage page = new SourceFilePage(node, sourceReader, 4,
+				null, rootFolder, context);
+		page.render();
+
+		final Document result = support.parse(output
+				.getFile("SourceFilePageTest.java.html"));
+
+		assertEquals("window['PR_TAB_WIDTH']=4;prettyPrint()",
+				support.findStr(result, "/html/body/@onload"));
+	}
+
 }
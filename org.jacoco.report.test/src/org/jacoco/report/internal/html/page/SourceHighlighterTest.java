@@ -102,6 +102,29 @@ public class SourceHighlighterTest {
 				htmlSupport.findStr(doc, "//pre/span[text() = 'D']/@class"));
 	}
 
+	@Test
+	public void testRenderVirtual() throws Exception {
+		final String src = "\nB\nC\n\tD";
+		source.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 1);
+		source.increment(CounterImpl.COUNTER_0_1, CounterImpl.getInstance(1, 1),
+				2);
+		source.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 3);
+		sourceHighlighter.renderVirtual(parent, source, new StringReader(src));
+		final Document doc = parseDoc();
+		assertEquals("virtual",
+				htmlSupport.findStr(doc, "//div[@id='source']/@class"));
+		assertEquals("npf", htmlSupport.findStr(doc,
+				"//div[@id='sourcestatus']/text()"));
+		assertEquals("\nB\nC\n\tD\n",
+				htmlSupport.findStr(doc, "//div[@id='sourcedata']/text()"));
+		assertEquals("1", htmlSupport.findStr(doc,
+				"count(//div[@id='sourcebranches']/span)"));
+		assertEquals("pc bpc", htmlSupport.findStr(doc,
+				"//div[@id='sourcebranches']/span[@id='L2']/@class"));
+		assertEquals("1 of 2 branches missed.", htmlSupport.findStr(doc,
+				"//div[@id='sourcebranches']/span[@id='L2']/@title"));
+	}
+
 	@Test
 	public void testHighlightNone() throws Exception {
 		sourceHighlighter.highlight(parent, source.getLine(1), 1);
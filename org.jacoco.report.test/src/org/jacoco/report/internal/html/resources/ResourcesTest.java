@@ -68,6 +68,8 @@ public class ResourcesTest {
 		output.assertFile("jacoco-resources/report.gif");
 		output.assertFile("jacoco-resources/class.gif");
 		output.assertFile("jacoco-resources/sort.js");
+		output.assertFile("jacoco-resources/table.js");
+		output.assertFile("jacoco-resources/source.js");
 		output.assertFile("jacoco-resources/source.gif");
 		output.assertFile("jacoco-resources/up.gif");
 	}
@@ -164,6 +164,23 @@ public class BarColumnTest {
 				support.findStr(doc, "count(/html/body/table/tr[1]/td/img)"));
 	}
 
+	@Test
+	public void testData() throws Exception {
+		final ITableItem i1 = createItem(15, 5);
+		final ITableItem i2 = createItem(6, 24);
+		column.init(Arrays.asList(i1, i2), createNode(21, 29));
+		assertEquals("[60,\"15\",20,\"5\"]", column.data(i1, root));
+		html.close();
+	}
+
+	@Test
+	public void testDataNoBars() throws Exception {
+		final ITableItem i1 = createItem(00, 00);
+		column.init(Arrays.asList(i1), createNode(00, 00));
+		assertEquals("[]", column.data(i1, root));
+		html.close();
+	}
+
 	@Test
 	public void testLocale() throws Exception {
 		final BarColumn col = new BarColumn(CounterEntity.LINE, Locale.FRENCH);
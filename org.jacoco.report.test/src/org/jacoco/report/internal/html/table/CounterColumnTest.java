@@ -128,6 +128,16 @@ public class CounterColumnTest {
 				support.findStr(doc, "/html/body/table/tr/td[1]/text()"));
 	}
 
+	@Test
+	public void testData() throws Exception {
+		IColumnRenderer column = CounterColumn.newTotal(CounterEntity.LINE,
+				Locale.ITALIAN);
+		final ITableItem item = createItem(1000, 0);
+		column.init(Collections.singletonList(item), item.getNode());
+		assertEquals("\"1.000\"", column.data(item, root));
+		html.close();
+	}
+
 	@Test
 	public void testLocale() throws Exception {
 		IColumnRenderer column = CounterColumn.newTotal(CounterEntity.LINE,
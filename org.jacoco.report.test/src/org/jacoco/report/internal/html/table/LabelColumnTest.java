@@ -104,6 +104,16 @@ public class LabelColumnTest {
 				support.findStr(doc, "/html/body/table/tr/td/a/@class"));
 	}
 
+	@Test
+	public void testData() throws Exception {
+		assertEquals("{\"t\":\"Abc\",\"a\":null,\"c\":\"el_group\"}",
+				column.data(createItem("Abc", null), root));
+		assertEquals(
+				"{\"t\":\"D\\\"ef\",\"a\":\"def.html\",\"c\":\"el_group\"}",
+				column.data(createItem("D\"ef", "def.html"), root));
+		html.close();
+	}
+
 	@Test
 	public void testComparator1() throws Exception {
 		final ITableItem i1 = createItem("abcdef", null);
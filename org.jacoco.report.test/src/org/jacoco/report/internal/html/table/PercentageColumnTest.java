@@ -104,6 +104,13 @@ public class PercentageColumnTest {
 				support.findStr(doc, "/html/body/table/tr/td[1]/text()"));
 	}
 
+	@Test
+	public void testData() throws Exception {
+		assertEquals("\"33%\"", column.data(createItem(100, 50), root));
+		assertEquals("\"n/a\"", column.data(createItem(0, 0), root));
+		html.close();
+	}
+
 	@Test
 	public void testLocale() throws Exception {
 		IColumnRenderer column = new PercentageColumn(CounterEntity.LINE,
@@ -227,6 +227,56 @@ public class TableTest {
 				support.findStr(doc, "/html/body/table/tbody/tr[5]/td[1]"));
 	}
 
+	@Test
+	public void testPaging() throws Exception {
+		final List<ITableItem> items = Arrays.asList(createItem("C", 3),
+				createItem("A", 1), createItem("D", 4), createItem("B", 2));
+		table.add("Forward", null,
+				new StubRenderer(
+						CounterComparator.TOTALITEMS.on(CounterEntity.CLASS)),
+				true);
+		table.setPageSize(2);
+		table.render(body, items, createTotal("Sum", 10), resources, root);
+		html.close();
+
+		final HTMLSupport support = new HTMLSupport();
+		final Document doc = support.parse(output.getFile("Test.html"));
+
+		// Only the first page is rendered as HTML:
+		assertEquals("2", support.findStr(doc, "count(/html/body/table/tbody/tr)"));
+		assertEquals("A",
+				support.findStr(doc, "/html/body/table/tbody/tr[1]/td[1]"));
+		assertEquals("B",
+				support.findStr(doc, "/html/body/table/tbody/tr[2]/td[1]"));
+
+		// All rows are provided as data with their sort positions:
+		assertEquals(
+				"{\"p\":2,\"r\":\"jacoco-resources/redbar.gif\",\"g\":\"jacoco-resources/greenbar.gif\","
+						+ "\"rows\":[[\"A\",0],[\"B\",1],[\"C\",2],[\"D\",3]]}",
+				support.findStr(doc, "/html/body/div[@id='coveragedata']"));
+		assertEquals("jacoco-resources/table.js",
+				support.findStr(doc, "/html/body/script/@src"));
+	}
+
+	@Test
+	public void testNoPagingForSmallTables() throws Exception {
+		final List<ITableItem> items = Arrays.asList(createItem("A", 1),
+				createItem("B", 2));
+		table.add("Forward", null,
+				new StubRenderer(
+						CounterComparator.TOTALITEMS.on(CounterEntity.CLASS)),
+				true);
+		table.setPageSize(2);
+		table.render(body, items, createTotal("Sum", 3), resources, root);
+		html.close();
+
+		final HTMLSupport support = new HTMLSupport();
+		final Document doc = support.parse(output.getFile("Test.html"));
+
+		assertEquals("2", support.findStr(doc, "count(/html/body/table/tbody/tr)"));
+		assertEquals("0", support.findStr(doc, "count(/html/body/div)"));
+	}
+
 	private ITableItem createItem(final String name, final int count) {
 		final ICoverageNode node = new CoverageNodeImpl(ElementType.GROUP,
 				name) {
@@ -283,6 +333,10 @@ public class TableTest {
 			td.text(item.getLinkLabel());
 		}
 
+		public String data(ITableItem item, ReportOutputFolder base) {
+			return JSON.quote(item.getLinkLabel());
+		}
+
 		public Comparator<ITableItem> getComparator() {
 			return comparator;
 		}
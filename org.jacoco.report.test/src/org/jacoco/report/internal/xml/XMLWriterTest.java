@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XMLWriter}.
+ */
+public class XMLWriterTest {
+
+	private StringWriter target;
+
+	private XMLWriter writer;
+
+	@Before
+	public void setup() {
+		target = new StringWriter();
+		writer = new XMLWriter(target);
+	}
+
+	@Test
+	public void write_should_buffer_output_until_flush() throws IOException {
+		writer.write("abc");
+		writer.write('d');
+		assertEquals("", target.toString());
+
+		writer.flush();
+		assertEquals("abcd", target.toString());
+	}
+
+	@Test
+	public void write_should_emit_content_larger_than_buffer()
+			throws IOException {
+		final String content = repeat("0123456789", 2000);
+		writer.write('<');
+		writer.write(content);
+		writer.write(content.toCharArray(), 0, content.length());
+		writer.write(content.toCharArray(), 5, 100);
+		writer.write('>');
+		writer.close();
+		assertEquals("<" + content + content + content.substring(5, 105)
+				+ ">", target.toString());
+	}
+
+	@Test
+	public void writeQuoted_should_replace_special_characters()
+			throws IOException {
+		writer.writeQuoted("<a href=\"x&y\">text</a>");
+		writer.writeQuoted("");
+		writer.writeQuoted("&");
+		writer.close();
+		assertEquals("&lt;a href=&quot;x&amp;y&quot;&gt;text&lt;/a&gt;&amp;",
+				target.toString());
+	}
+
+	@Test
+	public void writeQuoted_should_emit_text_larger_than_buffer()
+			throws IOException {
+		final String content = repeat("abc&", 5000);
+		writer.writeQuoted(content);
+		writer.close();
+		assertEquals(repeat("abc&amp;", 5000), target.toString());
+	}
+
+	@Test
+	public void writeDecimal_should_emit_decimal_values() throws IOException {
+		final long[] values = new long[] { 0, 1, 9, 10, 99, 100, 12345, -1,
+				-10, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE,
+				Long.MIN_VALUE };
+		final StringBuilder expected = new StringBuilder();
+		for (final long v : values) {
+			writer.writeDecimal(v);
+			writer.write(' ');
+			expected.append(v).append(' ');
+		}
+		writer.close();
+		assertEquals(expected.toString(), target.toString());
+	}
+
+	@Test
+	public void writeDecimal_should_flush_full_buffer() throws IOException {
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			writer.writeDecimal(i * 7919L);
+			expected.append(i * 7919L);
+		}
+		writer.close();
+		assertEquals(expected.toString(), target.toString());
+	}
+
+	@Test
+	public void close_should_close_underlying_writer() throws IOException {
+		final boolean[] closed = new boolean[1];
+		writer = new XMLWriter(new StringWriter() {
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+			}
+		});
+		writer.close();
+		assertTrue(closed[0]);
+	}
+
+	private static String repeat(final String s, final int count) {
+		final StringBuilder b = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			b.append(s);
+		}
+		return b.toString();
+	}
+
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.IReportBundleVisitor;
+import org.jacoco.report.IReportGroupVisitor;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.MemoryOutput;
+import org.jacoco.report.ReportStructureTestDriver;
+import org.jacoco.report.xml.XMLFormatter;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SnapshotFormatter} and {@link SnapshotLoader}.
+ */
+public class SnapshotFormatterTest {
+
+	private ReportStructureTestDriver driver;
+
+	private SnapshotFormatter formatter;
+
+	private MemoryOutput output;
+
+	@Before
+	public void setup() {
+		driver = new ReportStructureTestDriver();
+		formatter = new SnapshotFormatter();
+		output = new MemoryOutput();
+	}
+
+	@Test
+	public void should_replay_same_xml_report() throws IOException {
+		driver.sendNestedGroups(formatter.createVisitor(output));
+		output.assertClosed();
+
+		final MemoryOutput expected = new MemoryOutput();
+		driver.sendNestedGroups(new XMLFormatter().createVisitor(expected));
+		final MemoryOutput actual = new MemoryOutput();
+		new SnapshotLoader(output.getContentsAsStream()).replay(
+				new XMLFormatter().createVisitor(actual),
+				driver.sourceFileLocator);
+
+		assertEquals(expected.toString("UTF-8"), actual.toString("UTF-8"));
+	}
+
+	@Test
+	public void should_replay_info_and_structure() throws IOException {
+		final List<SessionInfo> infos = Arrays
+				.asList(new SessionInfo("session", 123, 456));
+		final boolean[] probes = new boolean[] { true, false, false, true,
+				false, false, false, false, true };
+		final Collection<ExecutionData> data = Arrays
+				.asList(new ExecutionData(42, "Foo", probes));
+		final IReportVisitor visitor = formatter.createVisitor(output);
+		visitor.visitInfo(infos, data);
+		final IReportGroupVisitor a = visitor.visitGroup("a");
+		final IReportGroupVisitor b = visitor.visitGroup("b");
+		driver.sendBundle(a.visitGroup("a1"));
+		driver.sendBundle(b);
+		driver.sendBundle(a);
+		visitor.visitEnd();
+
+		final RecordingVisitor recorder = new RecordingVisitor("");
+		new SnapshotLoader(output.getContentsAsStream()).replay(recorder,
+				driver.sourceFileLocator);
+
+		assertEquals(Arrays.asList("info session:123:456 Foo:42",
+				"group /a", "group /b", "group /a/a1", "bundle /a/a1",
+				"package org/jacoco/example", "package empty",
+				"bundle end bundle", "bundle /b", "package org/jacoco/example",
+				"package empty", "bundle end bundle", "bundle /a",
+				"package org/jacoco/example", "package empty",
+				"bundle end bundle", "end"), recorder.events);
+		assertTrue(Arrays.equals(probes, recorder.probes));
+		for (final ISourceFileLocator locator : recorder.locators) {
+			assertSame(driver.sourceFileLocator, locator);
+		}
+	}
+
+	@Test
+	public void should_read_fingerprint_before_replay() throws IOException {
+		formatter.setFingerprint("goal=report\nbundle=\u00e4");
+		driver.sendNestedGroups(formatter.createVisitor(output));
+
+		final SnapshotLoader loader = new SnapshotLoader(
+				output.getContentsAsStream());
+		assertEquals("goal=report\nbundle=\u00e4", loader.readFingerprint());
+		final MemoryOutput expected = new MemoryOutput();
+		driver.sendNestedGroups(new XMLFormatter().createVisitor(expected));
+		final MemoryOutput actual = new MemoryOutput();
+		loader.replay(new XMLFormatter().createVisitor(actual),
+				driver.sourceFileLocator);
+		assertEquals(expected.toString("UTF-8"), actual.toString("UTF-8"));
+	}
+
+	@Test
+	public void should_write_streamed_bundles_like_complete_bundles()
+			throws IOException {
+		driver.sendBundle(formatter.createVisitor(output));
+		final MemoryOutput streamed = new MemoryOutput();
+		driver.sendBundlePackages(
+				new SnapshotFormatter().createVisitor(streamed));
+
+		assertTrue(Arrays.equals(output.toByteArray(), streamed.toByteArray()));
+	}
+
+	@Test
+	public void should_write_empty_fingerprint_by_default()
+			throws IOException {
+		driver.sendNestedGroups(formatter.createVisitor(output));
+
+		assertEquals("", new SnapshotLoader(output.getContentsAsStream())
+				.readFingerprint());
+	}
+
+	@Test
+	public void should_fail_for_invalid_header() throws IOException {
+		assertReplayFails(new byte[] { 0x01, (byte) 0xC0, (byte) 0xC0 },
+				"Invalid snapshot file.");
+	}
+
+	@Test
+	public void should_fail_for_incompatible_version() throws IOException {
+		assertReplayFails(new byte[] { 0x01, (byte) 0xC0, (byte) 0xC5, 0x10,
+				0x00 }, "Incompatible snapshot version 0x1000, expected 0x1003.");
+	}
+
+	@Test
+	public void should_fail_for_unknown_block_type() throws IOException {
+		assertReplayFails(new byte[] { 0x01, (byte) 0xC0, (byte) 0xC5, 0x10,
+				0x03, 0x00, 0x00, 0x00, 0x00, 0x55 },
+				"Unknown block type 55.");
+	}
+
+	@Test
+	public void should_fail_for_unknown_group() throws IOException {
+		assertReplayFails(new byte[] { 0x01, (byte) 0xC0, (byte) 0xC5, 0x10,
+				0x03, 0x00, 0x00, 0x00, 0x00, 0x21, 0x00, 0x00, 0x00, 0x03 },
+				"Unknown group 3.");
+	}
+
+	private void assertReplayFails(final byte[] snapshot,
+			final String message) {
+		try {
+			new SnapshotLoader(new ByteArrayInputStream(snapshot)).replay(
+					new RecordingVisitor(""), driver.sourceFileLocator);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals(message, e.getMessage());
+		}
+	}
+
+	private static class RecordingVisitor implements IReportVisitor {
+
+		final List<String> events;
+
+		final List<ISourceFileLocator> locators;
+
+		final String path;
+
+		boolean[] probes;
+
+		RecordingVisitor(final String path) {
+			this(path, new ArrayList<String>(),
+					new ArrayList<ISourceFileLocator>());
+		}
+
+		private RecordingVisitor(final String path, final List<String> events,
+				final List<ISourceFileLocator> locators) {
+			this.path = path;
+			this.events = events;
+			this.locators = locators;
+		}
+
+		public void visitInfo(final List<SessionInfo> sessionInfos,
+				final Collection<ExecutionData> executionData) {
+			final SessionInfo s = sessionInfos.get(0);
+			final ExecutionData e = executionData.iterator().next();
+			events.add("info " + s.getId() + ":" + s.getStartTimeStamp() + ":"
+					+ s.getDumpTimeStamp() + " " + e.getName() + ":"
+					+ e.getId());
+			probes = e.getProbes();
+		}
+
+		public void visitBundle(final IBundleCoverage bundle,
+				final ISourceFileLocator locator) {
+			throw new AssertionError("Bundles must be streamed");
+		}
+
+		public IReportBundleVisitor visitBundle(final String name,
+				final ISourceFileLocator locator) {
+			events.add("bundle " + path);
+			locators.add(locator);
+			return new IReportBundleVisitor() {
+				public void visitPackage(final IPackageCoverage coverage) {
+					events.add("package " + coverage.getName());
+				}
+
+				public void visitEnd(final ICoverageNode bundle) {
+					events.add("bundle end " + bundle.getName());
+				}
+			};
+		}
+
+		public IReportGroupVisitor visitGroup(final String name) {
+			final String child = path + "/" + name;
+			events.add("group " + child);
+			return new RecordingVisitor(child, events, locators);
+		}
+
+		public void visitEnd() {
+			events.add("end");
+		}
+
+	}
+
+}
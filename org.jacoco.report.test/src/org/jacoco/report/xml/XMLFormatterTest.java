@@ -20,6 +20,7 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.SessionInfo;
@@ -129,6 +130,14 @@ public class XMLFormatterTest {
 		assertPathMatches("1", "report/counter[@type='CLASS']/@covered");
 	}
 
+	@Test
+	public void testStructureWithStreamedBundle() throws Exception {
+		driver.sendBundlePackages(formatter.createVisitor(output));
+		final MemoryOutput expected = new MemoryOutput();
+		driver.sendBundle(formatter.createVisitor(expected));
+		assertEquals(expected.toString("UTF-8"), output.toString("UTF-8"));
+	}
+
 	@Test
 	public void testStructureWithBundleOnly() throws Exception {
 		final IReportVisitor visitor = formatter.createVisitor(output);
@@ -203,6 +212,36 @@ public class XMLFormatterTest {
 				"count(report/package[@name='empty']/sourcefile/*)");
 	}
 
+	@Test
+	public void testCompact() throws Exception {
+		formatter.setCompact(true);
+		final IReportVisitor visitor = formatter.createVisitor(output);
+		visitor.visitInfo(infos, data);
+		driver.sendBundle(visitor);
+
+		assertPathMatches("2",
+				"count(report/package[@name='org/jacoco/example']/sourcefile)");
+		assertPathMatches("0", "count(report/package/sourcefile/line)");
+		assertPathMatches("3", "report/package/sourcefile"
+				+ "[@name='FooClass.java']/counter[@type='LINE']/@covered");
+		assertPathMatches("3", "report/counter[@type='LINE']/@covered");
+	}
+
+	@Test
+	public void testGzip() throws Exception {
+		formatter.setGzip(true);
+		final IReportVisitor visitor = formatter.createVisitor(output);
+		visitor.visitInfo(infos, data);
+		driver.sendBundle(visitor);
+
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(output.getContentsAsStream()), "UTF-8"));
+		final String line = reader.readLine();
+		assertTrue(line,
+				line.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\""));
+		assertTrue(line, line.endsWith("</report>"));
+	}
+
 	@Test
 	public void testDefaultEncoding() throws Exception {
 		final IReportVisitor visitor = formatter.createVisitor(output);
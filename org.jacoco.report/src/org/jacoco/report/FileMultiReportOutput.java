@@ -15,19 +15,56 @@ package org.jacoco.report;
 import static java.lang.String.format;
 
 import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Implementation of {@link IMultiReportOutput} that writes files directly to a
  * given directory.
+ * <p>
+ * In incremental mode a file is only written if its content differs from the
+ * file already existing on disk. The content hashes and modification times of
+ * all files created by the last report are kept in the file {@value #MANIFEST}
+ * in the base directory, so unmodified files do not need to be read again.
+ * Files listed there which are not created again by the current report are
+ * deleted when the output is closed. Other files in the base directory are
+ * never deleted.
  */
 public class FileMultiReportOutput implements IMultiReportOutput {
 
+	/** Name of the file listing the content hashes in incremental mode */
+	public static final String MANIFEST = ".jacoco-files";
+
+	private static final String ENCODING = "UTF-8";
+
 	private final File basedir;
 
+	private boolean incremental;
+
+	private Map<String, FileState> previousFiles;
+
+	private final Map<String, FileState> currentFiles;
+
+	private int writtenFiles;
+
+	private int unchangedFiles;
+
+	private int deletedFiles;
+
 	/**
 	 * Creates a new instance for document output in the given base directory.
 	 * 
@@ -36,20 +73,246 @@ public class FileMultiReportOutput implements IMultiReportOutput {
 	 */
 	public FileMultiReportOutput(final File basedir) {
 		this.basedir = basedir;
+		this.incremental = false;
+		this.currentFiles = new TreeMap<String, FileState>();
+	}
+
+	/**
+	 * Enables the incremental mode where unchanged files are not written
+	 * again and files of the previous report which are not part of the
+	 * current report are deleted. Disabled by default.
+	 * 
+	 * @param incremental
+	 *            <code>true</code> to write changed files only
+	 */
+	public void setIncremental(final boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * Returns the number of files which have been written.
+	 * 
+	 * @return number of written files
+	 */
+	public int getWrittenFiles() {
+		return writtenFiles;
+	}
+
+	/**
+	 * Returns the number of files which have not been written in incremental
+	 * mode because their content did not change.
+	 * 
+	 * @return number of unchanged files
+	 */
+	public int getUnchangedFiles() {
+		return unchangedFiles;
+	}
+
+	/**
+	 * Returns the number of files of the previous report which have been
+	 * deleted in incremental mode. The value is available after the output
+	 * has been closed.
+	 * 
+	 * @return number of deleted files
+	 */
+	public int getDeletedFiles() {
+		return deletedFiles;
 	}
 
 	public OutputStream createFile(final String path) throws IOException {
+		if (!incremental) {
+			writtenFiles++;
+			return new BufferedOutputStream(
+					new FileOutputStream(createParent(path)));
+		}
+		if (previousFiles == null) {
+			previousFiles = readManifest();
+		}
+		return new ByteArrayOutputStream() {
+
+			private boolean closed = false;
+
+			@Override
+			public void close() throws IOException {
+				if (!closed) {
+					closed = true;
+					writeIfChanged(path, toByteArray());
+				}
+			}
+		};
+	}
+
+	private File createParent(final String path) throws IOException {
 		final File file = new File(basedir, path);
 		final File parent = file.getParentFile();
 		parent.mkdirs();
 		if (!parent.isDirectory()) {
 			throw new IOException(format("Can't create directory %s.", parent));
 		}
-		return new BufferedOutputStream(new FileOutputStream(file));
+		return file;
+	}
+
+	private void writeIfChanged(final String path, final byte[] content)
+			throws IOException {
+		final MessageDigest digest = createDigest();
+		final String hash = toHex(digest.digest(content));
+		final File file = new File(basedir, path);
+		if (file.isFile() && file.length() == content.length) {
+			final FileState previous = previousFiles.get(path);
+			final long lastModified = file.lastModified();
+			final String existing;
+			if (previous != null && previous.lastModified == lastModified) {
+				existing = previous.hash;
+			} else {
+				// Unknown or modified by others, compare with actual content
+				existing = hashFile(file, digest);
+			}
+			if (hash.equals(existing)) {
+				currentFiles.put(path, new FileState(hash, lastModified));
+				unchangedFiles++;
+				return;
+			}
+		}
+		final OutputStream out = new FileOutputStream(createParent(path));
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+		currentFiles.put(path, new FileState(hash, file.lastModified()));
+		writtenFiles++;
 	}
 
 	public void close() throws IOException {
-		// nothing to do here
+		if (!incremental || previousFiles == null) {
+			return;
+		}
+		for (final String path : previousFiles.keySet()) {
+			if (!currentFiles.containsKey(path)) {
+				deleteFile(path);
+			}
+		}
+		if (!currentFiles.equals(previousFiles)) {
+			writeManifest();
+		}
+	}
+
+	private void deleteFile(final String path) {
+		File file = new File(basedir, path);
+		if (!file.delete()) {
+			return;
+		}
+		deletedFiles++;
+		// Remove directories which became empty:
+		file = file.getParentFile();
+		while (!file.equals(basedir) && file.delete()) {
+			file = file.getParentFile();
+		}
+	}
+
+	private Map<String, FileState> readManifest() throws IOException {
+		final Map<String, FileState> files = new HashMap<String, FileState>();
+		final File file = new File(basedir, MANIFEST);
+		if (!file.isFile()) {
+			return files;
+		}
+		final BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(file), ENCODING));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final String[] parts = line.split(" ", 3);
+				if (parts.length == 3) {
+					files.put(parts[2], new FileState(parts[0],
+							Long.parseLong(parts[1])));
+				}
+			}
+		} catch (final NumberFormatException e) {
+			// Unknown format, all files are compared with their content
+			files.clear();
+		} finally {
+			reader.close();
+		}
+		return files;
+	}
+
+	private void writeManifest() throws IOException {
+		final Writer writer = new OutputStreamWriter(
+				new FileOutputStream(createParent(MANIFEST)), ENCODING);
+		try {
+			for (final Map.Entry<String, FileState> entry : currentFiles
+					.entrySet()) {
+				writer.write(entry.getValue().hash);
+				writer.write(' ');
+				writer.write(String.valueOf(entry.getValue().lastModified));
+				writer.write(' ');
+				writer.write(entry.getKey());
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static String hashFile(final File file, final MessageDigest digest)
+			throws IOException {
+		final InputStream in = new FileInputStream(file);
+		try {
+			final byte[] buffer = new byte[8192];
+			int len;
+			while ((len = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, len);
+			}
+		} finally {
+			in.close();
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (final NoSuchAlgorithmException e) {
+			// MD5 is supported by every Java platform
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(final byte[] bytes) {
+		final StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (final byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static class FileState {
+
+		final String hash;
+
+		final long lastModified;
+
+		FileState(final String hash, final long lastModified) {
+			this.hash = hash;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof FileState)) {
+				return false;
+			}
+			final FileState other = (FileState) obj;
+			return hash.equals(other.hash)
+					&& lastModified == other.lastModified;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash.hashCode();
+		}
+
 	}
 
 }
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report;
+
+import java.io.IOException;
+
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.IPackageCoverageVisitor;
+
+/**
+ * Output-Interface for a bundle which is emitted package by package, see
+ * {@link IReportGroupVisitor#visitBundle(String, ISourceFileLocator)}. Every
+ * package of the bundle is emitted exactly once with
+ * {@link #visitPackage(org.jacoco.core.analysis.IPackageCoverage)}, therefore
+ * report formatters must not keep packages in memory. Finally the summary
+ * counters of the bundle are emitted with {@link #visitEnd(ICoverageNode)}.
+ */
+public interface IReportBundleVisitor extends IPackageCoverageVisitor {
+
+	/**
+	 * Called after all packages of the bundle have been emitted.
+	 * 
+	 * @param bundle
+	 *            node with the name and the summary counters of all packages
+	 *            of the bundle
+	 * @throws IOException
+	 *             in case of IO problems with the report writer
+	 */
+	void visitEnd(ICoverageNode bundle) throws IOException;
+
+}
@@ -31,6 +31,9 @@ import org.jacoco.core.analysis.IBundleCoverage;
  * visitor.</li>
  * <li>When creating nested groups with {@link #visitGroup(String)} the
  * hierarchy has to be processed in a "deep first" manner.</li>
+ * <li>A bundle emitted package by package with
+ * {@link #visitBundle(String, ISourceFileLocator)} has to be completed
+ * before this or any parent visitor can be used again.</li>
  * </ul>
  */
 public interface IReportGroupVisitor {
@@ -48,6 +51,24 @@ public interface IReportGroupVisitor {
 	void visitBundle(IBundleCoverage bundle, ISourceFileLocator locator)
 			throws IOException;
 
+	/**
+	 * Called to add a bundle to the report whose packages are emitted one
+	 * after the other with the returned visitor. The report is the same as
+	 * for a bundle with the same packages added with
+	 * {@link #visitBundle(IBundleCoverage, ISourceFileLocator)}, but the
+	 * complete bundle does not need to be kept in memory.
+	 * 
+	 * @param name
+	 *            name of the bundle
+	 * @param locator
+	 *            source locator for this bundle
+	 * @return visitor to emit the packages of the bundle to
+	 * @throws IOException
+	 *             in case of IO problems with the report writer
+	 */
+	IReportBundleVisitor visitBundle(String name, ISourceFileLocator locator)
+			throws IOException;
+
 	/**
 	 * Called to add a new group to the report. The returned
 	 * {@link IReportGroupVisitor} instance can be used to add nested bundles or
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Locator for source files in multiple directories of the file system. Other
+ * than {@link DirectorySourceFileLocator} the directories are scanned only
+ * once when they are added. Lookups are answered from an in-memory index of
+ * the relative file paths, therefore the costs of a lookup do not depend on
+ * the number of directories. If a file exists in multiple directories the
+ * file from the directory added first is used.
+ * <p>
+ * The index can optionally be persisted with {@link #saveIndex(File)} and
+ * reused with {@link #loadIndex(File)}. The saved index of a directory is only
+ * reused if none of its sub-directories has been modified since.
+ */
+public class IndexedSourceFileLocator extends InputStreamSourceFileLocator {
+
+	private static final char MAGIC_NUMBER = 0xC0C6;
+
+	private static final char FORMAT_VERSION = 0x1001;
+
+	private final List<DirectoryIndex> directories;
+
+	private final Map<String, File> files;
+
+	private Map<File, DirectoryIndex> loaded;
+
+	/**
+	 * Creates a new locator without directories.
+	 * 
+	 * @param encoding
+	 *            encoding of the source files, <code>null</code> for platform
+	 *            default encoding
+	 * @param tabWidth
+	 *            tab width in source files as number of blanks
+	 */
+	public IndexedSourceFileLocator(final String encoding,
+			final int tabWidth) {
+		super(encoding, tabWidth);
+		this.directories = new ArrayList<DirectoryIndex>();
+		this.files = new HashMap<String, File>();
+		this.loaded = new HashMap<File, DirectoryIndex>();
+	}
+
+	/**
+	 * Adds all files of the given directory and its sub-directories to the
+	 * index. The directory is only scanned if no valid index has been loaded
+	 * for it.
+	 * 
+	 * @param directory
+	 *            source directory to add
+	 */
+	public void addDirectory(final File directory) {
+		final File root = directory.getAbsoluteFile();
+		DirectoryIndex index = loaded.remove(root);
+		if (index == null || !index.isValid()) {
+			index = new DirectoryIndex(root);
+			index.scan(root, "", new HashSet<String>());
+		}
+		directories.add(index);
+		for (final String path : index.files) {
+			if (!files.containsKey(path)) {
+				files.put(path, new File(root, path));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of distinct source files which can be located.
+	 * 
+	 * @return number of indexed files
+	 */
+	public int getFileCount() {
+		return files.size();
+	}
+
+	/**
+	 * Loads an index saved by {@link #saveIndex(File)}. The index is used for
+	 * subsequent calls of {@link #addDirectory(File)}. Nothing happens if the
+	 * file does not exist or is not a valid index.
+	 * 
+	 * @param file
+	 *            file to load the index from
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	public void loadIndex(final File file) throws IOException {
+		if (!file.isFile()) {
+			return;
+		}
+		final DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readChar() != MAGIC_NUMBER
+					|| in.readChar() != FORMAT_VERSION) {
+				return;
+			}
+			final Map<File, DirectoryIndex> result = new HashMap<File, DirectoryIndex>();
+			final int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				final DirectoryIndex index = DirectoryIndex.read(in);
+				result.put(index.root, index);
+			}
+			loaded = result;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Saves the index of all directories added so far.
+	 * 
+	 * @param file
+	 *            file to save the index to
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public void saveIndex(final File file) throws IOException {
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeChar(MAGIC_NUMBER);
+			out.writeChar(FORMAT_VERSION);
+			out.writeInt(directories.size());
+			for (final DirectoryIndex index : directories) {
+				index.write(out);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	@Override
+	protected InputStream getSourceStream(final String path)
+			throws IOException {
+		final File file = files.get(path);
+		if (file != null && file.isFile()) {
+			return new FileInputStream(file);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Relative paths of all files within a source directory. The modification
+	 * time of every sub-directory is recorded to detect added or removed
+	 * files.
+	 */
+	private static class DirectoryIndex {
+
+		private final File root;
+
+		private final List<String> folders = new ArrayList<String>();
+
+		private final List<Long> timestamps = new ArrayList<Long>();
+
+		private final List<String> files = new ArrayList<String>();
+
+		DirectoryIndex(final File root) {
+			this.root = root;
+		}
+
+		void scan(final File dir, final String path,
+				final Set<String> visited) {
+			final File[] children = dir.listFiles();
+			// Symbolic links might create cycles:
+			if (children == null || !visited.add(canonicalPath(dir))) {
+				return;
+			}
+			folders.add(path);
+			timestamps.add(Long.valueOf(dir.lastModified()));
+			Arrays.sort(children);
+			for (final File child : children) {
+				final String childPath = path + child.getName();
+				if (child.isDirectory()) {
+					scan(child, childPath + "/", visited);
+				} else {
+					files.add(childPath);
+				}
+			}
+		}
+
+		private static String canonicalPath(final File dir) {
+			try {
+				return dir.getCanonicalPath();
+			} catch (final IOException e) {
+				return dir.getAbsolutePath();
+			}
+		}
+
+		boolean isValid() {
+			for (int i = 0; i < folders.size(); i++) {
+				final File dir = new File(root, folders.get(i));
+				if (dir.lastModified() != timestamps.get(i).longValue()) {
+					return false;
+				}
+			}
+			return !folders.isEmpty();
+		}
+
+		void write(final DataOutputStream out) throws IOException {
+			out.writeUTF(root.getPath());
+			out.writeInt(folders.size());
+			for (int i = 0; i < folders.size(); i++) {
+				out.writeUTF(folders.get(i));
+				out.writeLong(timestamps.get(i).longValue());
+			}
+			out.writeInt(files.size());
+			for (final String file : files) {
+				out.writeUTF(file);
+			}
+		}
+
+		static DirectoryIndex read(final DataInputStream in)
+				throws IOException {
+			final DirectoryIndex index = new DirectoryIndex(
+					new File(in.readUTF()));
+			final int folderCount = in.readInt();
+			for (int i = 0; i < folderCount; i++) {
+				index.folders.add(in.readUTF());
+				index.timestamps.add(Long.valueOf(in.readLong()));
+			}
+			final int fileCount = in.readInt();
+			for (int i = 0; i < fileCount; i++) {
+				index.files.add(in.readUTF());
+			}
+			return index;
+		}
+
+	}
+
+}
@@ -18,6 +18,8 @@ import java.util.Collection;
 import java.util.List;
 
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.SessionInfo;
 
@@ -71,6 +73,30 @@ class MultiGroupVisitor implements IReportGroupVisitor {
 		}
 	}
 
+	public IReportBundleVisitor visitBundle(final String name,
+			final ISourceFileLocator locator) throws IOException {
+		final List<IReportBundleVisitor> children = new ArrayList<IReportBundleVisitor>();
+		for (final IReportGroupVisitor v : visitors) {
+			children.add(v.visitBundle(name, locator));
+		}
+		return new IReportBundleVisitor() {
+
+			public void visitPackage(final IPackageCoverage coverage)
+					throws IOException {
+				for (final IReportBundleVisitor v : children) {
+					v.visitPackage(coverage);
+				}
+			}
+
+			public void visitEnd(final ICoverageNode bundle)
+					throws IOException {
+				for (final IReportBundleVisitor v : children) {
+					v.visitEnd(bundle);
+				}
+			}
+		};
+	}
+
 	public IReportGroupVisitor visitGroup(final String name) throws IOException {
 		final List<IReportGroupVisitor> children = new ArrayList<IReportGroupVisitor>();
 		for (final IReportGroupVisitor v : visitors) {
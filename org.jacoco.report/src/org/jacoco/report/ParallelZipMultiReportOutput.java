@@ -0,0 +1,406 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Implementation of {@link IMultiReportOutput} that writes files into a ZIP
+ * archive and compresses the entries concurrently.
+ * <p>
+ * The content of every file is buffered in memory and compressed by the given
+ * {@link Executor}. The compressed entries are written to the underlying
+ * stream from the thread calling this output in the order in which the files
+ * have been created, therefore the archive is identical to an archive written
+ * without executor. Like with {@link ZipMultiReportOutput} only one file can
+ * be written at a time, creating a new file closes the previous one.
+ */
+public class ParallelZipMultiReportOutput implements IMultiReportOutput {
+
+	/**
+	 * Maximum number of entries waiting for compression before the calling
+	 * thread blocks.
+	 */
+	private static final int MAX_PENDING = 256;
+
+	private static final int LOCAL_HEADER = 0x04034b50;
+	private static final int CENTRAL_HEADER = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+	private static final int ZIP64_LOCATOR = 0x07064b50;
+
+	private static final int VERSION = 20;
+	private static final int VERSION_ZIP64 = 45;
+	private static final int FLAG_UTF8 = 0x0800;
+	private static final int METHOD_DEFLATED = 8;
+
+	private static final long MAX_INT = 0xFFFFFFFFL;
+	private static final int MAX_SHORT = 0xFFFF;
+
+	private final OutputStream out;
+
+	private final Executor executor;
+
+	private final int dosTime;
+
+	private final LinkedList<PendingEntry> pending;
+
+	private final Buffer centralDirectory;
+
+	private int entryCount;
+
+	private int level;
+
+	private long offset;
+
+	private EntryOutput currentEntry;
+
+	/**
+	 * Creates a new instance based on the given {@link OutputStream}.
+	 *
+	 * @param out
+	 *            stream to write the archive to
+	 * @param executor
+	 *            executor to compress entries or <code>null</code> to compress
+	 *            all entries in the calling thread
+	 */
+	public ParallelZipMultiReportOutput(final OutputStream out,
+			final Executor executor) {
+		this.out = out;
+		this.executor = executor;
+		this.dosTime = toDosTime(System.currentTimeMillis());
+		this.pending = new LinkedList<PendingEntry>();
+		this.centralDirectory = new Buffer();
+		this.entryCount = 0;
+		this.level = Deflater.DEFAULT_COMPRESSION;
+		this.offset = 0;
+	}
+
+	/**
+	 * Sets the compression level of the entries. Default is
+	 * {@link Deflater#DEFAULT_COMPRESSION}.
+	 *
+	 * @param level
+	 *            compression level from 0 to 9
+	 */
+	public void setLevel(final int level) {
+		this.level = level;
+	}
+
+	public OutputStream createFile(final String path) throws IOException {
+		if (currentEntry != null) {
+			currentEntry.close();
+		}
+		currentEntry = new EntryOutput(path);
+		return currentEntry;
+	}
+
+	public void close() throws IOException {
+		if (currentEntry != null) {
+			currentEntry.close();
+			currentEntry = null;
+		}
+		while (!pending.isEmpty()) {
+			writeNext();
+		}
+		writeCentralDirectory();
+		out.close();
+	}
+
+	private void submit(final PendingEntry entry) throws IOException {
+		pending.add(entry);
+		if (executor == null) {
+			entry.run();
+		} else {
+			executor.execute(entry);
+		}
+		while (pending.size() > MAX_PENDING
+				|| (!pending.isEmpty() && pending.peek().isDone())) {
+			writeNext();
+		}
+	}
+
+	private void writeNext() throws IOException {
+		final PendingEntry entry = pending.remove();
+		final byte[] data;
+		try {
+			data = entry.get();
+		} catch (final InterruptedException e) {
+			cancelPending();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (final ExecutionException e) {
+			cancelPending();
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		}
+		final Buffer header = new Buffer();
+		header.writeInt(LOCAL_HEADER);
+		header.writeShort(VERSION);
+		header.writeShort(FLAG_UTF8);
+		header.writeShort(METHOD_DEFLATED);
+		header.writeInt(dosTime);
+		header.writeInt((int) entry.getCrc());
+		header.writeInt(data.length);
+		header.writeInt(entry.size);
+		header.writeShort(entry.name.length);
+		header.writeShort(0); // extra field length
+		header.writeArray(entry.name);
+		header.writeTo(out);
+		out.write(data);
+		addCentralDirectoryEntry(entry, data.length, offset);
+		offset += header.size() + data.length;
+	}
+
+	private void addCentralDirectoryEntry(final PendingEntry entry,
+			final int compressedSize, final long entryOffset) {
+		final boolean zip64 = entryOffset >= MAX_INT;
+		final Buffer header = centralDirectory;
+		header.writeInt(CENTRAL_HEADER);
+		header.writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+		header.writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+		header.writeShort(FLAG_UTF8);
+		header.writeShort(METHOD_DEFLATED);
+		header.writeInt(dosTime);
+		header.writeInt((int) entry.getCrc());
+		header.writeInt(compressedSize);
+		header.writeInt(entry.size);
+		header.writeShort(entry.name.length);
+		header.writeShort(zip64 ? 12 : 0); // extra field length
+		header.writeShort(0); // comment length
+		header.writeShort(0); // disk number
+		header.writeShort(0); // internal attributes
+		header.writeInt(0); // external attributes
+		header.writeInt(zip64 ? (int) MAX_INT : (int) entryOffset);
+		header.writeArray(entry.name);
+		if (zip64) {
+			header.writeShort(0x0001);
+			header.writeShort(8);
+			header.writeLong(entryOffset);
+		}
+		entryCount++;
+	}
+
+	private void cancelPending() {
+		for (final PendingEntry entry : pending) {
+			entry.cancel(false);
+		}
+		pending.clear();
+	}
+
+	private void writeCentralDirectory() throws IOException {
+		final long start = offset;
+		final Buffer header = centralDirectory;
+		final long size = header.size();
+		final int count = entryCount;
+		if (count >= MAX_SHORT || start >= MAX_INT || size >= MAX_INT) {
+			header.writeInt(ZIP64_END_OF_CENTRAL_DIRECTORY);
+			header.writeLong(44);
+			header.writeShort(VERSION_ZIP64);
+			header.writeShort(VERSION_ZIP64);
+			header.writeInt(0); // number of this disk
+			header.writeInt(0); // disk with central directory
+			header.writeLong(count);
+			header.writeLong(count);
+			header.writeLong(size);
+			header.writeLong(start);
+			header.writeInt(ZIP64_LOCATOR);
+			header.writeInt(0); // disk with zip64 end of central directory
+			header.writeLong(start + size);
+			header.writeInt(1); // total number of disks
+		}
+		header.writeInt(END_OF_CENTRAL_DIRECTORY);
+		header.writeShort(0); // number of this disk
+		header.writeShort(0); // disk with central directory
+		header.writeShort(Math.min(count, MAX_SHORT));
+		header.writeShort(Math.min(count, MAX_SHORT));
+		header.writeInt((int) Math.min(size, MAX_INT));
+		header.writeInt((int) Math.min(start, MAX_INT));
+		header.writeShort(0); // comment length
+		header.writeTo(out);
+	}
+
+	private static int toDosTime(final long time) {
+		final Calendar c = Calendar.getInstance();
+		c.setTimeInMillis(time);
+		final int year = c.get(Calendar.YEAR);
+		if (year < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (year - 1980) << 25 | (c.get(Calendar.MONTH) + 1) << 21
+				| c.get(Calendar.DAY_OF_MONTH) << 16
+				| c.get(Calendar.HOUR_OF_DAY) << 11
+				| c.get(Calendar.MINUTE) << 5 | c.get(Calendar.SECOND) >> 1;
+	}
+
+	/**
+	 * Buffer with direct access to its content and support for little endian
+	 * header fields.
+	 */
+	private static class Buffer extends ByteArrayOutputStream {
+
+		void writeShort(final int value) {
+			write(value & 0xFF);
+			write((value >>> 8) & 0xFF);
+		}
+
+		void writeInt(final int value) {
+			writeShort(value & 0xFFFF);
+			writeShort((value >>> 16) & 0xFFFF);
+		}
+
+		void writeLong(final long value) {
+			writeInt((int) value);
+			writeInt((int) (value >>> 32));
+		}
+
+		void writeArray(final byte[] bytes) {
+			write(bytes, 0, bytes.length);
+		}
+
+		byte[] getBuffer() {
+			return buf;
+		}
+
+	}
+
+	/**
+	 * Pending compression of a single entry. The result are the raw deflated
+	 * bytes.
+	 */
+	private static class PendingEntry extends FutureTask<byte[]> {
+
+		final byte[] name;
+
+		final int size;
+
+		private final Compression compression;
+
+		PendingEntry(final byte[] name, final Compression compression) {
+			super(compression);
+			this.name = name;
+			this.size = compression.length;
+			this.compression = compression;
+		}
+
+		long getCrc() {
+			return compression.crc;
+		}
+
+	}
+
+	private class Compression implements Callable<byte[]> {
+
+		private final byte[] content;
+
+		private final int length;
+
+		private long crc;
+
+		Compression(final byte[] content, final int length) {
+			this.content = content;
+			this.length = length;
+		}
+
+		public byte[] call() {
+			final CRC32 checksum = new CRC32();
+			checksum.update(content, 0, length);
+			crc = checksum.getValue();
+			final Deflater deflater = new Deflater(level, true);
+			try {
+				deflater.setInput(content, 0, length);
+				deflater.finish();
+				final ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+						length / 4 + 64);
+				final byte[] chunk = new byte[8192];
+				while (!deflater.finished()) {
+					final int n = deflater.deflate(chunk);
+					buffer.write(chunk, 0, n);
+				}
+				return buffer.toByteArray();
+			} finally {
+				deflater.end();
+			}
+		}
+
+	}
+
+	private final class EntryOutput extends OutputStream {
+
+		private final String path;
+
+		private final Buffer buffer;
+
+		private boolean closed = false;
+
+		EntryOutput(final String path) {
+			this.path = path;
+			this.buffer = new Buffer();
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+				throws IOException {
+			ensureNotClosed();
+			buffer.write(b, off, len);
+		}
+
+		@Override
+		public void write(final byte[] b) throws IOException {
+			ensureNotClosed();
+			buffer.write(b);
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			ensureNotClosed();
+			buffer.write(b);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			ensureNotClosed();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				submit(new PendingEntry(path.getBytes("UTF-8"),
+						new Compression(buffer.getBuffer(), buffer.size())));
+			}
+		}
+
+		private void ensureNotClosed() throws IOException {
+			if (closed) {
+				throw new IOException("Zip entry already closed.");
+			}
+		}
+
+	}
+
+}
@@ -43,10 +43,22 @@ class BundleChecker {
 	private final boolean traverseSourceFiles;
 	private final boolean traverseMethods;
 
+	private final boolean failFast;
+
+	private boolean halted;
+
 	public BundleChecker(final Collection<Rule> rules,
 			final ILanguageNames names, final IViolationsOutput output) {
+		this(rules, names, output, false);
+	}
+
+	public BundleChecker(final Collection<Rule> rules,
+			final ILanguageNames names, final IViolationsOutput output,
+			final boolean failFast) {
 		this.names = names;
 		this.output = output;
+		this.failFast = failFast;
+		this.halted = false;
 		this.bundleRules = new ArrayList<Rule>();
 		this.packageRules = new ArrayList<Rule>();
 		this.classRules = new ArrayList<Rule>();
@@ -79,25 +91,52 @@ class BundleChecker {
 	}
 
 	public void checkBundle(final IBundleCoverage bundleCoverage) {
-		final String name = bundleCoverage.getName();
-		checkRules(bundleCoverage, bundleRules, "bundle", name);
+		checkBundleCounters(bundleCoverage);
 		if (traversePackages) {
 			for (final IPackageCoverage p : bundleCoverage.getPackages()) {
-				check(p);
+				checkPackage(p);
 			}
 		}
 	}
 
+	/**
+	 * Checks the rules for bundles only, packages are checked separately with
+	 * {@link #checkPackage(IPackageCoverage)}.
+	 */
+	public void checkBundleCounters(final ICoverageNode bundleCoverage) {
+		if (halted) {
+			return;
+		}
+		final String name = bundleCoverage.getName();
+		checkRules(bundleCoverage, bundleRules, "bundle", name);
+	}
+
+	/**
+	 * Checks the rules for the given package and its elements.
+	 */
+	public void checkPackage(final IPackageCoverage packageCoverage) {
+		if (halted || !traversePackages) {
+			return;
+		}
+		check(packageCoverage);
+	}
+
 	private void check(final IPackageCoverage packageCoverage) {
 		final String name = names.getPackageName(packageCoverage.getName());
 		checkRules(packageCoverage, packageRules, "package", name);
 		if (traverseClasses) {
 			for (final IClassCoverage c : packageCoverage.getClasses()) {
+				if (halted) {
+					return;
+				}
 				check(c);
 			}
 		}
 		if (traverseSourceFiles) {
 			for (final ISourceFileCoverage s : packageCoverage.getSourceFiles()) {
+				if (halted) {
+					return;
+				}
 				check(s);
 			}
 		}
@@ -109,6 +148,9 @@ class BundleChecker {
 		checkRules(classCoverage, classRules, "class", name);
 		if (traverseMethods) {
 			for (final IMethodCoverage m : classCoverage.getMethods()) {
+				if (halted) {
+					return;
+				}
 				check(m, classCoverage.getName());
 			}
 		}
@@ -140,8 +182,12 @@ class BundleChecker {
 
 	private void checkLimit(final ICoverageNode node, final String elementtype,
 			final String elementname, final Rule rule, final Limit limit) {
+		if (halted) {
+			return;
+		}
 		final String message = limit.check(node);
 		if (message != null) {
+			halted = failFast;
 			output.onViolation(node, rule, limit, String.format(
 					"Rule violated for %s %s: %s", elementtype, elementname,
 					message));
@@ -18,9 +18,13 @@ import java.util.Collection;
 import java.util.List;
 
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.report.ILanguageNames;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
@@ -34,6 +38,7 @@ public class RulesChecker {
 
 	private List<Rule> rules;
 	private ILanguageNames languageNames;
+	private boolean failFast;
 
 	/**
 	 * New formatter instance.
@@ -41,6 +46,7 @@ public class RulesChecker {
 	public RulesChecker() {
 		this.rules = new ArrayList<Rule>();
 		this.setLanguageNames(new JavaNames());
+		this.failFast = false;
 	}
 
 	/**
@@ -64,6 +70,43 @@ public class RulesChecker {
 		this.languageNames = languageNames;
 	}
 
+	/**
+	 * Sets whether checking stops after the first violation. In this case at
+	 * most one violation is reported and the remaining elements of the bundle
+	 * and all subsequent bundles are not checked. For bundles which calculate
+	 * the coverage of their packages on demand this also avoids the
+	 * calculation of the remaining packages. Default is <code>false</code>.
+	 * 
+	 * @param failFast
+	 *            <code>true</code> to stop at the first violation
+	 */
+	public void setFailFast(final boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	/**
+	 * Checks whether any of the given rules applies to elements of the given
+	 * type. If no rule applies to classes or methods, the rules can also be
+	 * checked against bundles which do not contain class nodes, like the ones
+	 * created by {@link org.jacoco.core.analysis.SummaryCoverageBuilder}.
+	 * 
+	 * @param rules
+	 *            rules to check
+	 * @param element
+	 *            element type
+	 * @return <code>true</code> if at least one rule applies to the element
+	 *         type
+	 */
+	public static boolean appliesTo(final List<Rule> rules,
+			final ElementType element) {
+		for (final Rule rule : rules) {
+			if (rule.getElement() == element) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Creates a new visitor to process the configured checks.
 	 * 
@@ -73,7 +116,7 @@ public class RulesChecker {
 	 */
 	public IReportVisitor createVisitor(final IViolationsOutput output) {
 		final BundleChecker bundleChecker = new BundleChecker(rules,
-				languageNames, output);
+				languageNames, output, failFast);
 		return new IReportVisitor() {
 
 			public IReportGroupVisitor visitGroup(final String name)
@@ -86,6 +129,21 @@ public class RulesChecker {
 				bundleChecker.checkBundle(bundle);
 			}
 
+			public IReportBundleVisitor visitBundle(final String name,
+					final ISourceFileLocator locator) throws IOException {
+				return new IReportBundleVisitor() {
+
+					public void visitPackage(final IPackageCoverage coverage) {
+						bundleChecker.checkPackage(coverage);
+					}
+
+					public void visitEnd(final ICoverageNode bundle) {
+						// Bundle counters are only known at the end:
+						bundleChecker.checkBundleCounters(bundle);
+					}
+				};
+			}
+
 			public void visitInfo(final List<SessionInfo> sessionInfos,
 					final Collection<ExecutionData> executionData)
 					throws IOException {
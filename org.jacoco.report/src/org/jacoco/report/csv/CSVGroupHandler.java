@@ -16,7 +16,9 @@ import java.io.IOException;
 
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
 import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.ISourceFileLocator;
 
@@ -40,15 +42,33 @@ class CSVGroupHandler implements IReportGroupVisitor {
 
 	public void visitBundle(final IBundleCoverage bundle,
 			final ISourceFileLocator locator) throws IOException {
-		final String name = appendName(bundle.getName());
+		final IReportBundleVisitor visitor = visitBundle(bundle.getName(),
+				locator);
 		for (final IPackageCoverage p : bundle.getPackages()) {
-			final String packageName = p.getName();
-			for (final IClassCoverage c : p.getClasses()) {
-				if (c.containsCode()) {
-					writer.writeRow(name, packageName, c);
+			visitor.visitPackage(p);
+		}
+		visitor.visitEnd(bundle);
+	}
+
+	public IReportBundleVisitor visitBundle(final String bundleName,
+			final ISourceFileLocator locator) throws IOException {
+		final String name = appendName(bundleName);
+		return new IReportBundleVisitor() {
+
+			public void visitPackage(final IPackageCoverage p)
+					throws IOException {
+				final String packageName = p.getName();
+				for (final IClassCoverage c : p.getClasses()) {
+					if (c.containsCode()) {
+						writer.writeRow(name, packageName, c);
+					}
 				}
 			}
-		}
+
+			public void visitEnd(final ICoverageNode bundle) {
+				// Only classes are written
+			}
+		};
 	}
 
 	public IReportGroupVisitor visitGroup(final String name) throws IOException {
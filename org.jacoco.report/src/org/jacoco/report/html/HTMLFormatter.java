@@ -12,17 +12,28 @@
  *******************************************************************************/
 package org.jacoco.report.html;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.util.Collection;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.SessionInfo;
 import org.jacoco.report.ILanguageNames;
 import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
@@ -46,9 +57,21 @@ import org.jacoco.report.internal.html.table.Table;
 
 /**
  * Formatter for coverage reports in multiple HTML pages.
+ * <p>
+ * Optionally an {@link Executor} can be set to render the pages concurrently.
+ * In this case all files are still written to the {@link IMultiReportOutput}
+ * from the thread calling the report visitor in the same order as without
+ * executor, therefore the output does not need to be thread-safe and the
+ * generated report is identical.
  */
 public class HTMLFormatter implements IHTMLReportContext {
 
+	/**
+	 * Maximum number of pages waiting for concurrent rendering before the
+	 * calling thread blocks.
+	 */
+	private static final int MAX_PENDING = 256;
+
 	private ILanguageNames languageNames = new JavaNames();
 
 	private Locale locale = Locale.getDefault();
@@ -57,13 +80,26 @@ public class HTMLFormatter implements IHTMLReportContext {
 
 	private String outputEncoding = "UTF-8";
 
+	private int virtualSourceThreshold = 0;
+
+	private int tablePageSize = 0;
+
 	private Resources resources;
 
 	private ElementIndex index;
 
 	private SessionsPage sessionsPage;
 
-	private Table table;
+	private final ThreadLocal<Table> table = new ThreadLocal<Table>() {
+		@Override
+		protected Table initialValue() {
+			return createTable();
+		}
+	};
+
+	private Executor executor;
+
+	private final Queue<PendingPage> pending = new LinkedList<PendingPage>();
 
 	/**
 	 * New instance with default settings.
@@ -113,6 +149,50 @@ public class HTMLFormatter implements IHTMLReportContext {
 		this.outputEncoding = outputEncoding;
 	}
 
+	/**
+	 * Sets the number of lines above which source files are not highlighted.
+	 * Instead the source page contains the source text and line coverage as
+	 * data and only the visible lines are rendered in the browser. This keeps
+	 * very large source files, e.g. generated parsers, usable. By default all
+	 * source files are highlighted.
+	 * 
+	 * @param lines
+	 *            maximum number of lines of highlighted source files or 0 to
+	 *            highlight all source files
+	 */
+	public void setVirtualSourceThreshold(final int lines) {
+		this.virtualSourceThreshold = lines;
+	}
+
+	/**
+	 * Sets the number of rows above which coverage tables are paged. The pages
+	 * of such tables are created by the browser from JSON data embedded in
+	 * the page, which keeps index pages of packages or bundles with thousands
+	 * of elements small and fast to sort. By default all rows are rendered.
+	 * 
+	 * @param rows
+	 *            number of rows per page or 0 to render all rows
+	 */
+	public void setTablePageSize(final int rows) {
+		this.tablePageSize = rows;
+	}
+
+	/**
+	 * Sets an executor which is used to render the report pages concurrently.
+	 * The pages are rendered into memory by the executor and written to the
+	 * output from the calling thread in the same order as without executor.
+	 * By default no executor is set and all pages are rendered in the calling
+	 * thread. When an executor is set the {@link ILanguageNames} implementation
+	 * must be thread-safe.
+	 * 
+	 * @param executor
+	 *            executor for concurrent rendering or <code>null</code> to
+	 *            render pages in the calling thread
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
 	// === IHTMLReportContext ===
 
 	public ILanguageNames getLanguageNames() {
@@ -124,14 +204,12 @@ public class HTMLFormatter implements IHTMLReportContext {
 	}
 
 	public Table getTable() {
-		if (table == null) {
-			table = createTable();
-		}
-		return table;
+		return table.get();
 	}
 
 	private Table createTable() {
 		final Table t = new Table();
+		t.setPageSize(tablePageSize);
 		t.add("Element", null, new LabelColumn(), false);
 		t.add("Missed Instructions", Styles.BAR, new BarColumn(CounterEntity.INSTRUCTION,
 				locale), true);
@@ -181,6 +259,63 @@ public class HTMLFormatter implements IHTMLReportContext {
 		return locale;
 	}
 
+	public int getVirtualSourceThreshold() {
+		return virtualSourceThreshold;
+	}
+
+	public void renderPage(final ReportPage page) throws IOException {
+		if (executor == null) {
+			page.write(page.createFile());
+			return;
+		}
+		page.resolveLinks();
+		final PendingPage p = new PendingPage(page);
+		pending.add(p);
+		executor.execute(p);
+		while (pending.size() > MAX_PENDING
+				|| (!pending.isEmpty() && pending.peek().isDone())) {
+			completeNext();
+		}
+	}
+
+	private void finish() throws IOException {
+		while (!pending.isEmpty()) {
+			completeNext();
+		}
+	}
+
+	private void completeNext() throws IOException {
+		final PendingPage p = pending.remove();
+		final byte[] content;
+		try {
+			content = p.get();
+		} catch (final InterruptedException e) {
+			cancelPending();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (final ExecutionException e) {
+			cancelPending();
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		}
+		final OutputStream out = p.page.createFile();
+		out.write(content);
+		out.close();
+	}
+
+	private void cancelPending() {
+		for (final PendingPage p : pending) {
+			p.cancel(false);
+		}
+		pending.clear();
+	}
+
 	/**
 	 * Creates a new visitor to write a report to the given output.
 	 * 
@@ -212,10 +347,20 @@ public class HTMLFormatter implements IHTMLReportContext {
 
 			public void visitBundle(final IBundleCoverage bundle,
 					final ISourceFileLocator locator) throws IOException {
-				final BundlePage page = new BundlePage(bundle, null, locator,
+				final IReportBundleVisitor visitor = visitBundle(
+						bundle.getName(), locator);
+				for (final IPackageCoverage p : bundle.getPackages()) {
+					visitor.visitPackage(p);
+				}
+				visitor.visitEnd(bundle);
+			}
+
+			public IReportBundleVisitor visitBundle(final String name,
+					final ISourceFileLocator locator) throws IOException {
+				final BundlePage page = new BundlePage(name, null, locator,
 						root, HTMLFormatter.this);
 				createSessionsPage(page);
-				page.render();
+				return page;
 			}
 
 			public IReportGroupVisitor visitGroup(final String name)
@@ -237,8 +382,27 @@ public class HTMLFormatter implements IHTMLReportContext {
 					groupHandler.visitEnd();
 				}
 				sessionsPage.render();
+				finish();
 				output.close();
 			}
 		};
 	}
+
+	private static class PendingPage extends FutureTask<byte[]> {
+
+		private final ReportPage page;
+
+		PendingPage(final ReportPage page) {
+			super(new Callable<byte[]>() {
+				public byte[] call() throws IOException {
+					final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+					page.write(buffer);
+					return buffer.toByteArray();
+				}
+			});
+			this.page = page;
+		}
+
+	}
+
 }
@@ -16,7 +16,10 @@ import java.io.IOException;
 
 import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
 import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.ISourceFileLocator;
 
@@ -43,22 +46,45 @@ public abstract class AbstractGroupVisitor implements IReportGroupVisitor {
 
 	public final void visitBundle(final IBundleCoverage bundle,
 			final ISourceFileLocator locator) throws IOException {
+		final IReportBundleVisitor visitor = visitBundle(bundle.getName(),
+				locator);
+		for (final IPackageCoverage p : bundle.getPackages()) {
+			visitor.visitPackage(p);
+		}
+		visitor.visitEnd(bundle);
+	}
+
+	public final IReportBundleVisitor visitBundle(final String name,
+			final ISourceFileLocator locator) throws IOException {
 		finalizeLastChild();
-		total.increment(bundle);
-		handleBundle(bundle, locator);
+		final IReportBundleVisitor handler = handleBundle(name, locator);
+		return new IReportBundleVisitor() {
+
+			public void visitPackage(final IPackageCoverage coverage)
+					throws IOException {
+				handler.visitPackage(coverage);
+			}
+
+			public void visitEnd(final ICoverageNode bundle)
+					throws IOException {
+				total.increment(bundle);
+				handler.visitEnd(bundle);
+			}
+		};
 	}
 
 	/**
-	 * Called to handle the given bundle in a specific way.
+	 * Called to handle a bundle with the given name in a specific way.
 	 * 
-	 * @param bundle
-	 *            analyzed bundle
+	 * @param name
+	 *            name of the bundle
 	 * @param locator
 	 *            source locator
+	 * @return visitor for the packages of the bundle
 	 * @throws IOException
 	 *             if the report can't be written
 	 */
-	protected abstract void handleBundle(IBundleCoverage bundle,
+	protected abstract IReportBundleVisitor handleBundle(String name,
 			ISourceFileLocator locator) throws IOException;
 
 	public final IReportGroupVisitor visitGroup(final String name)
@@ -14,8 +14,8 @@ package org.jacoco.report.internal.html;
 
 import java.io.IOException;
 
-import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.internal.AbstractGroupVisitor;
 import org.jacoco.report.internal.ReportOutputFolder;
@@ -66,12 +66,12 @@ public class HTMLGroupVisitor extends AbstractGroupVisitor {
 	}
 
 	@Override
-	protected void handleBundle(final IBundleCoverage bundle,
+	protected IReportBundleVisitor handleBundle(final String name,
 			final ISourceFileLocator locator) throws IOException {
-		final BundlePage bundlepage = new BundlePage(bundle, page, locator,
-				folder.subFolder(bundle.getName()), context);
-		bundlepage.render();
+		final BundlePage bundlepage = new BundlePage(name, page, locator,
+				folder.subFolder(name), context);
 		page.addItem(bundlepage);
+		return bundlepage;
 	}
 
 	@Override
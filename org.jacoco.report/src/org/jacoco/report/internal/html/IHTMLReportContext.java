@@ -12,10 +12,12 @@
  *******************************************************************************/
 package org.jacoco.report.internal.html;
 
+import java.io.IOException;
 import java.util.Locale;
 
 import org.jacoco.report.ILanguageNames;
 import org.jacoco.report.internal.html.index.IIndexUpdate;
+import org.jacoco.report.internal.html.page.ReportPage;
 import org.jacoco.report.internal.html.resources.Resources;
 import org.jacoco.report.internal.html.table.Table;
 
@@ -80,4 +82,24 @@ public interface IHTMLReportContext {
 	 */
 	Locale getLocale();
 
+	/**
+	 * Returns the number of source lines above which source files are
+	 * rendered on demand in the browser instead of as highlighted pages.
+	 * 
+	 * @return line threshold or 0 if all source files are highlighted
+	 */
+	int getVirtualSourceThreshold();
+
+	/**
+	 * Writes the given page to its output file. Implementations may write the
+	 * page asynchronously. In this case they have to call
+	 * {@link ReportPage#resolveLinks()} before this method returns.
+	 * 
+	 * @param page
+	 *            page to write
+	 * @throws IOException
+	 *             if the page can't be written
+	 */
+	void renderPage(ReportPage page) throws IOException;
+
 }
@@ -14,9 +14,11 @@ package org.jacoco.report.internal.html.page;
 
 import java.io.IOException;
 
-import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
 import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.internal.ReportOutputFolder;
 import org.jacoco.report.internal.html.HTMLElement;
@@ -24,19 +26,22 @@ import org.jacoco.report.internal.html.IHTMLReportContext;
 
 /**
  * Page showing coverage information for a bundle. The page contains a table
- * with all packages of the bundle.
+ * with all packages of the bundle. The packages are emitted to this page one
+ * after the other, the page for every package is rendered immediately. The
+ * page itself is rendered when the bundle is completed.
  */
-public class BundlePage extends TablePage<ICoverageNode> {
+public class BundlePage extends TablePage<CoverageNodeImpl>
+		implements IReportBundleVisitor {
 
 	private final ISourceFileLocator locator;
 
-	private IBundleCoverage bundle;
+	private boolean noPackages;
 
 	/**
 	 * Creates a new visitor in the given context.
 	 * 
-	 * @param bundle
-	 *            coverage date for the bundle
+	 * @param name
+	 *            name of the bundle
 	 * @param parent
 	 *            optional hierarchical parent
 	 * @param locator
@@ -46,35 +51,33 @@ public class BundlePage extends TablePage<ICoverageNode> {
 	 * @param context
 	 *            settings context
 	 */
-	public BundlePage(final IBundleCoverage bundle, final ReportPage parent,
+	public BundlePage(final String name, final ReportPage parent,
 			final ISourceFileLocator locator, final ReportOutputFolder folder,
 			final IHTMLReportContext context) {
-		super(bundle.getPlainCopy(), parent, folder, context);
-		this.bundle = bundle;
+		super(new CoverageNodeImpl(ElementType.BUNDLE, name), parent, folder,
+				context);
+		this.noPackages = true;
 		this.locator = locator;
 	}
 
-	@Override
-	public void render() throws IOException {
-		renderPackages();
-		super.render();
-		// Don't keep the bundle structure in memory
-		bundle = null;
+	public void visitPackage(final IPackageCoverage p) throws IOException {
+		noPackages = false;
+		if (!p.containsCode()) {
+			return;
+		}
+		final String packagename = p.getName();
+		final String foldername = packagename.length() == 0 ? "default"
+				: packagename.replace('/', '.');
+		final PackagePage page = new PackagePage(p, this, locator,
+				folder.subFolder(foldername), context);
+		page.render();
+		// Only keep the counters, the package might be huge:
+		addItem(new PageItem(page));
 	}
 
-	private void renderPackages() throws IOException {
-		for (final IPackageCoverage p : bundle.getPackages()) {
-			if (!p.containsCode()) {
-				continue;
-			}
-			final String packagename = p.getName();
-			final String foldername = packagename.length() == 0 ? "default"
-					: packagename.replace('/', '.');
-			final PackagePage page = new PackagePage(p, this, locator,
-					folder.subFolder(foldername), context);
-			page.render();
-			addItem(page);
-		}
+	public void visitEnd(final ICoverageNode bundle) throws IOException {
+		getNode().increment(bundle);
+		render();
 	}
 
 	@Override
@@ -89,9 +92,9 @@ public class BundlePage extends TablePage<ICoverageNode> {
 
 	@Override
 	protected void content(HTMLElement body) throws IOException {
-		if (bundle.getPackages().isEmpty()) {
+		if (noPackages) {
 			body.p().text("No class files specified.");
-		} else if (!bundle.containsCode()) {
+		} else if (!getNode().containsCode()) {
 			body.p().text(
 					"None of the analyzed classes contain code relevant for code coverage.");
 		} else {
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report.internal.html.page;
+
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.report.internal.ReportOutputFolder;
+import org.jacoco.report.internal.html.table.ITableItem;
+
+/**
+ * Table item representing a page which has already been rendered. Only the
+ * summary counters of the page's node are kept, so the coverage structure of
+ * the page can be released.
+ */
+final class PageItem implements ITableItem {
+
+	private final ICoverageNode node;
+
+	private final String label;
+
+	private final String style;
+
+	private final ReportOutputFolder folder;
+
+	private final String fileName;
+
+	PageItem(final NodePage<?> page) {
+		this.node = page.getNode().getPlainCopy();
+		this.label = page.getLinkLabel();
+		this.style = page.getLinkStyle();
+		this.folder = page.folder;
+		this.fileName = page.getFileName();
+	}
+
+	public String getLinkLabel() {
+		return label;
+	}
+
+	public String getLinkStyle() {
+		return style;
+	}
+
+	public String getLink(final ReportOutputFolder base) {
+		return folder.getLink(base, fileName);
+	}
+
+	public ICoverageNode getNode() {
+		return node;
+	}
+
+}
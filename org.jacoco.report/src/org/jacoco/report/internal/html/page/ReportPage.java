@@ -12,7 +12,9 @@
  *******************************************************************************/
 package org.jacoco.report.internal.html.page;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import org.jacoco.core.JaCoCo;
 import org.jacoco.report.internal.ReportOutputFolder;
@@ -65,14 +67,56 @@ public abstract class ReportPage implements ILinkable {
 
 	/**
 	 * Renders this page's content and optionally additional pages. This method
-	 * must be called at most once.
+	 * must be called at most once. Depending on the context the page might be
+	 * written asynchronously, see {@link IHTMLReportContext#renderPage}.
 	 * 
 	 * @throws IOException
 	 *             if the page can't be written
 	 */
 	public void render() throws IOException {
-		final HTMLElement html = new HTMLElement(
-				folder.createFile(getFileName()), context.getOutputEncoding());
+		context.renderPage(this);
+	}
+
+	/**
+	 * Creates the output file for this page.
+	 * 
+	 * @return stream to write the page to
+	 * @throws IOException
+	 *             if the file can't be created
+	 */
+	public OutputStream createFile() throws IOException {
+		return folder.createFile(getFileName());
+	}
+
+	/**
+	 * Resolves the file names of this page and of all pages it links to in
+	 * the same order as {@link #write(OutputStream)} does. File names are
+	 * assigned on first use, therefore this method allows to write the page
+	 * later or in a different thread without changing the report output.
+	 * 
+	 * @throws IOException
+	 *             in case of IO problems with the report writer
+	 */
+	public void resolveLinks() throws IOException {
+		getLink(folder);
+		final HTMLElement html = new HTMLElement(new ByteArrayOutputStream(),
+				context.getOutputEncoding());
+		head(html.head());
+		navigation(html.body());
+		resolveContentLinks();
+	}
+
+	/**
+	 * Writes this page to the given stream which is closed afterwards.
+	 * 
+	 * @param output
+	 *            stream to write the page to
+	 * @throws IOException
+	 *             if the page can't be written
+	 */
+	public void write(final OutputStream output) throws IOException {
+		final HTMLElement html = new HTMLElement(output,
+				context.getOutputEncoding());
 		html.attr("lang", context.getLocale().getLanguage());
 		head(html.head());
 		body(html.body());
@@ -100,13 +144,17 @@ public abstract class ReportPage implements ILinkable {
 
 	private void body(final HTMLElement body) throws IOException {
 		body.attr("onload", getOnload());
+		navigation(body);
+		body.h1().text(getLinkLabel());
+		content(body);
+		footer(body);
+	}
+
+	private void navigation(final HTMLElement body) throws IOException {
 		final HTMLElement navigation = body.div(Styles.BREADCRUMB);
 		navigation.attr("id", "breadcrumb");
 		infoLinks(navigation.span(Styles.INFO));
 		breadcrumb(navigation, folder);
-		body.h1().text(getLinkLabel());
-		content(body);
-		footer(body);
 	}
 
 	/**
@@ -173,6 +221,13 @@ public abstract class ReportPage implements ILinkable {
 	 */
 	protected abstract void content(final HTMLElement body) throws IOException;
 
+	/**
+	 * Resolves the links created by {@link #content(HTMLElement)} without
+	 * rendering the content. The default implementation does nothing.
+	 */
+	protected void resolveContentLinks() {
+	}
+
 	// === ILinkable ===
 
 	public final String getLink(final ReportOutputFolder base) {
@@ -25,7 +25,9 @@ import org.jacoco.report.internal.html.resources.Resources;
 
 /**
  * Page showing the content of a source file with numbered and highlighted
- * source lines.
+ * source lines. Source files with more lines than configured by
+ * {@link IHTMLReportContext#getVirtualSourceThreshold()} are rendered on demand
+ * in the browser without syntax highlighting.
  */
 public class SourceFilePage extends NodePage<ISourceNode> {
 
@@ -58,16 +60,34 @@ public class SourceFilePage extends NodePage<ISourceNode> {
 		this.tabWidth = tabWidth;
 	}
 
+	/**
+	 * Checks whether the source file is too large for highlighting and is
+	 * rendered on demand in the browser instead.
+	 */
+	private boolean isVirtual() {
+		final int threshold = context.getVirtualSourceThreshold();
+		return threshold > 0 && getNode().getLastLine() > threshold;
+	}
+
 	@Override
 	protected void content(final HTMLElement body) throws IOException {
 		final SourceHighlighter hl = new SourceHighlighter(context.getLocale());
-		hl.render(body, getNode(), sourceReader);
+		if (isVirtual()) {
+			hl.renderVirtual(body, getNode(), sourceReader);
+		} else {
+			hl.render(body, getNode(), sourceReader);
+		}
 		sourceReader.close();
 	}
 
 	@Override
 	protected void head(final HTMLElement head) throws IOException {
 		super.head(head);
+		if (isVirtual()) {
+			head.script(context.getResources().getLink(folder,
+					Resources.SOURCE_SCRIPT));
+			return;
+		}
 		head.link("stylesheet", context.getResources().getLink(folder,
 				Resources.PRETTIFY_STYLESHEET), "text/css");
 		head.script(context.getResources().getLink(folder,
@@ -76,6 +96,9 @@ public class SourceFilePage extends NodePage<ISourceNode> {
 
 	@Override
 	protected String getOnload() {
+		if (isVirtual()) {
+			return format("initVirtualSource(%d)", Integer.valueOf(tabWidth));
+		}
 		return format("window['PR_TAB_WIDTH']=%d;prettyPrint()",
 				Integer.valueOf(tabWidth));
 	}
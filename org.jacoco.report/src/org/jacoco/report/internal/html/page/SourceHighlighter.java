@@ -79,6 +79,76 @@ final class SourceHighlighter {
 		}
 	}
 
+	/**
+	 * Writes the given source file as data for rendering on demand in the
+	 * browser. The source text is written into a hidden element, the status of
+	 * every line is encoded as a single character in another hidden element.
+	 * Only lines with branches are written as
+	 * separate elements with the same styles and tooltips as with
+	 * {@link #render(HTMLElement, ISourceNode, Reader)}.
+	 * 
+	 * @param parent
+	 *            parent HTML element
+	 * @param source
+	 *            highlighting information
+	 * @param contents
+	 *            contents of the source file
+	 * @throws IOException
+	 *             problems while reading the source file or writing the output
+	 */
+	public void renderVirtual(final HTMLElement parent,
+			final ISourceNode source, final Reader contents)
+			throws IOException {
+		final HTMLElement view = parent.div(Styles.VIRTUAL);
+		view.attr("id", "source");
+		view.text("");
+
+		final HTMLElement status = parent.div(Styles.VIRTUAL_DATA);
+		status.attr("id", "sourcestatus");
+		status.text(getLineStatus(source));
+
+		// No pre element as HTML parsers drop a leading line break there
+		final HTMLElement data = parent.div(Styles.VIRTUAL_DATA);
+		data.attr("id", "sourcedata");
+		final BufferedReader lineBuffer = new BufferedReader(contents);
+		String line;
+		while ((line = lineBuffer.readLine()) != null) {
+			data.text(line);
+			data.text("\n");
+		}
+
+		final HTMLElement branches = parent.div(Styles.VIRTUAL_DATA);
+		branches.attr("id", "sourcebranches");
+		for (int nr = source.getFirstLine(); nr <= source.getLastLine(); nr++) {
+			final ILine l = source.getLine(nr);
+			if (l.getBranchCounter().getTotalCount() > 0) {
+				highlight(branches, l, nr).text("");
+			}
+		}
+		branches.text("");
+	}
+
+	private static String getLineStatus(final ISourceNode source) {
+		final StringBuilder status = new StringBuilder();
+		for (int nr = 1; nr <= source.getLastLine(); nr++) {
+			switch (source.getLine(nr).getStatus()) {
+			case ICounter.NOT_COVERED:
+				status.append('n');
+				break;
+			case ICounter.PARTLY_COVERED:
+				status.append('p');
+				break;
+			case ICounter.FULLY_COVERED:
+				status.append('f');
+				break;
+			default:
+				status.append('-');
+				break;
+			}
+		}
+		return status.toString();
+	}
+
 	private void renderCodeLine(final HTMLElement pre, final String linesrc,
 			final ILine line, final int lineNr) throws IOException {
 		highlight(pre, line, lineNr).text(linesrc);
@@ -77,4 +77,11 @@ public abstract class TablePage<NodeType extends ICoverageNode>
 		items.clear();
 	}
 
+	@Override
+	protected void resolveContentLinks() {
+		for (final ITableItem item : items) {
+			item.getLink(folder);
+		}
+	}
+
 }
@@ -37,6 +37,12 @@ public class Resources {
 	/** The name of the sort script */
 	public static final String SORT_SCRIPT = "sort.js";
 
+	/** The name of the script to render source files on demand */
+	public static final String SOURCE_SCRIPT = "source.js";
+
+	/** The name of the script to sort and page tables */
+	public static final String TABLE_SCRIPT = "table.js";
+
 	/** The name of the red part of the coverage bar */
 	public static final String REDBAR = "redbar.gif";
 
@@ -120,6 +126,8 @@ public class Resources {
 		copyResource(PRETTIFY_STYLESHEET);
 		copyResource(PRETTIFY_SCRIPT);
 		copyResource(SORT_SCRIPT);
+		copyResource(SOURCE_SCRIPT);
+		copyResource(TABLE_SCRIPT);
 	}
 
 	private void copyResource(final String name) throws IOException {
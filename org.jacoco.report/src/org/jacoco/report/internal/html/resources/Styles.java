@@ -77,6 +77,12 @@ public final class Styles {
 	/** Block of source code */
 	public static final String SOURCE = "source";
 
+	/** Scrollable view of a source file rendered on demand */
+	public static final String VIRTUAL = "virtual";
+
+	/** Hidden data of a source file or table rendered on demand */
+	public static final String VIRTUAL_DATA = "virtualdata";
+
 	/** Line number before each source line */
 	public static final String NR = "nr";
 
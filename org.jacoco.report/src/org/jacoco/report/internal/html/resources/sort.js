@@ -61,25 +61,33 @@
     
     resetSortedStyle(table);
     
-    var rows = body.rows;
-    var sortedrows = [];
-    for (var i = 0; i < rows.length; i++) {
-      r = rows[i];
-      sortedrows[parseInt(r.childNodes[colidx].id.slice(1))] = r;
-    }
-    
     var hash;
     
-    if (sortup) {
-      for (var i = sortedrows.length - 1; i >= 0; i--) {
-        body.appendChild(sortedrows[i]);
+    if (table.sortRows) {
+      // Rows are created from JSON data by table.js
+      table.sortRows(colidx, sortup);
+    } else {
+      var rows = body.rows;
+      var sortedrows = [];
+      for (var i = 0; i < rows.length; i++) {
+        r = rows[i];
+        sortedrows[parseInt(r.childNodes[colidx].id.slice(1))] = r;
       }
+      if (sortup) {
+        for (var i = sortedrows.length - 1; i >= 0; i--) {
+          body.appendChild(sortedrows[i]);
+        }
+      } else {
+        for (var i = 0; i < sortedrows.length; i++) {
+          body.appendChild(sortedrows[i]);
+        }
+      }
+    }
+    
+    if (sortup) {
       header.className = 'up ' + header.className;
       hash = 'up-' + header.id;
     } else {
-      for (var i = 0; i < sortedrows.length; i++) {
-        body.appendChild(sortedrows[i]);
-      }
       header.className = 'down ' + header.className;
       hash = 'dn-' + header.id;
     }
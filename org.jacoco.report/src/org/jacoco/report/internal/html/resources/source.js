@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+
+(function () {
+
+  /**
+   * Number of lines rendered before and after the visible lines.
+   */
+  var OVERSCAN = 50;
+
+  var STATUS_STYLES = { 'n' : 'nc', 'p' : 'pc', 'f' : 'fc' };
+
+  /**
+   * Renders the source lines stored in the hidden data elements of the page
+   * into the view element. Only the lines within the visible part of the view
+   * are rendered, the other lines are created again when the view is
+   * scrolled.
+   *
+   * @param tabwidth
+   *          number of blanks per tab stop
+   */
+  function initVirtualSource(tabwidth) {
+    var doc = window.document;
+    var view = doc.getElementById('source');
+    var data = doc.getElementById('sourcedata');
+    var statusdata = doc.getElementById('sourcestatus');
+    var text = getText(data);
+    var lines = text.split('\n');
+    if (lines.length > 0 && lines[lines.length - 1] === '') {
+      lines.pop();
+    }
+    var status = getText(statusdata);
+    var branches = {};
+    var branchdata = doc.getElementById('sourcebranches');
+    var spans = branchdata.getElementsByTagName('span');
+    for (var i = 0; i < spans.length; i++) {
+      branches[spans[i].id] = spans[i];
+    }
+    // Remove data to avoid duplicate ids and keep the DOM small
+    data.parentNode.removeChild(data);
+    statusdata.parentNode.removeChild(statusdata);
+    branchdata.parentNode.removeChild(branchdata);
+
+    var content = doc.createElement('div');
+    var pre = doc.createElement('pre');
+    pre.className = 'source';
+    content.appendChild(pre);
+    view.appendChild(content);
+
+    pre.appendChild(createLine(1));
+    var lineheight = pre.offsetHeight || 16;
+    content.style.height = (lines.length * lineheight) + 'px';
+    var rendered = { first : -1, last : -1 };
+
+    function getText(element) {
+      return element.textContent !== undefined ? element.textContent : element.innerText;
+    }
+
+    function createLine(nr) {
+      var line = doc.createElement('span');
+      var number = doc.createElement('span');
+      number.className = 'nr';
+      number.appendChild(doc.createTextNode(nr));
+      line.appendChild(number);
+      var code;
+      var id = 'L' + nr;
+      if (branches[id]) {
+        code = doc.createElement('span');
+        code.className = branches[id].className;
+        code.title = branches[id].title;
+        code.id = id;
+      } else if (STATUS_STYLES[status.charAt(nr - 1)]) {
+        code = doc.createElement('span');
+        code.className = STATUS_STYLES[status.charAt(nr - 1)];
+        code.id = id;
+      } else {
+        code = line;
+      }
+      code.appendChild(doc.createTextNode(expandTabs(lines[nr - 1] || '')));
+      if (code !== line) {
+        line.appendChild(code);
+      }
+      line.appendChild(doc.createTextNode('\n'));
+      return line;
+    }
+
+    function expandTabs(line) {
+      if (line.indexOf('\t') === -1) {
+        return line;
+      }
+      var result = '';
+      for (var i = 0; i < line.length; i++) {
+        var c = line.charAt(i);
+        if (c === '\t') {
+          do {
+            result += ' ';
+          } while (result.length % tabwidth !== 0);
+        } else {
+          result += c;
+        }
+      }
+      return result;
+    }
+
+    function render() {
+      var first = Math.floor(view.scrollTop / lineheight) - OVERSCAN;
+      var last = Math.ceil((view.scrollTop + view.clientHeight) / lineheight) + OVERSCAN;
+      first = Math.max(first, 0);
+      last = Math.min(last, lines.length);
+      if (first === rendered.first && last === rendered.last) {
+        return;
+      }
+      while (pre.firstChild) {
+        pre.removeChild(pre.firstChild);
+      }
+      for (var nr = first + 1; nr <= last; nr++) {
+        pre.appendChild(createLine(nr));
+      }
+      pre.style.top = (first * lineheight) + 'px';
+      rendered.first = first;
+      rendered.last = last;
+    }
+
+    function scrollToHash() {
+      var m = window.location.hash.match(/^#L(\d+)$/);
+      if (m) {
+        var nr = parseInt(m[1], 10);
+        view.scrollTop = Math.max(0, (nr - 1) * lineheight - view.clientHeight / 3);
+      }
+      render();
+    }
+
+    view.onscroll = render;
+    window.onhashchange = scrollToHash;
+    scrollToHash();
+  }
+
+  window['initVirtualSource'] = initVirtualSource;
+
+})();
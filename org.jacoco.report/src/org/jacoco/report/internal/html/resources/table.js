@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+
+(function () {
+
+  /**
+   * Replaces the rows of the coverage table with pages of rows created from
+   * the JSON data following the table. Sorting is delegated to this script by
+   * sort.js through the sortRows() function of the table element.
+   */
+  function initTable() {
+    var doc = window.document;
+    var table = doc.getElementById('coveragetable');
+    var dataelement = doc.getElementById('coveragedata');
+    var text = dataelement.textContent !== undefined ? dataelement.textContent : dataelement.innerText;
+    var data = JSON.parse(text);
+    dataelement.parentNode.removeChild(dataelement);
+
+    var body = table.tBodies[0];
+    var styles = [];
+    var footer = table.tFoot.rows[0].cells;
+    for (var i = 0; i < footer.length; i++) {
+      styles[i] = footer[i].className;
+    }
+    var columns = styles.length;
+    var rows = data.rows;
+    var page = 0;
+    var pages = Math.ceil(rows.length / data.p);
+
+    var pager = doc.createElement('div');
+    pager.className = 'pager';
+    table.parentNode.insertBefore(pager, table.nextSibling);
+
+    table.sortRows = function (colidx, sortup) {
+      var pos = columns + colidx;
+      rows.sort(function (a, b) {
+        return sortup ? b[pos] - a[pos] : a[pos] - b[pos];
+      });
+      page = 0;
+      render();
+    };
+
+    function render() {
+      while (body.firstChild) {
+        body.removeChild(body.firstChild);
+      }
+      var end = Math.min(rows.length, (page + 1) * data.p);
+      for (var r = page * data.p; r < end; r++) {
+        var tr = doc.createElement('tr');
+        for (var c = 0; c < columns; c++) {
+          var td = doc.createElement('td');
+          if (styles[c]) {
+            td.className = styles[c];
+          }
+          cell(td, rows[r][c]);
+          tr.appendChild(td);
+        }
+        body.appendChild(tr);
+      }
+      renderPager(end);
+    }
+
+    function cell(td, value) {
+      if (typeof value === 'string') {
+        td.appendChild(doc.createTextNode(value));
+      } else if (value instanceof Array) {
+        bar(td, value[0], value[1], data.r);
+        bar(td, value[2], value[3], data.g);
+      } else {
+        var a = doc.createElement(value.a ? 'a' : 'span');
+        if (value.a) {
+          a.href = value.a + sortHash();
+        }
+        a.className = value.c;
+        a.appendChild(doc.createTextNode(value.t));
+        td.appendChild(a);
+      }
+    }
+
+    function bar(td, width, title, src) {
+      if (width > 0) {
+        var img = doc.createElement('img');
+        img.src = src;
+        img.width = width;
+        img.height = 10;
+        img.title = title;
+        img.alt = title;
+        td.appendChild(img);
+      }
+    }
+
+    function sortHash() {
+      var hash = window.location.hash;
+      return hash.match(/^#(up|dn)-.$/) ? hash : '';
+    }
+
+    function renderPager(end) {
+      while (pager.firstChild) {
+        pager.removeChild(pager.firstChild);
+      }
+      pager.appendChild(pageLink('\u00ab', page - 1));
+      pager.appendChild(doc.createTextNode(' ' + (page * data.p + 1) + '-' + end + ' of ' + rows.length + ' '));
+      pager.appendChild(pageLink('\u00bb', page + 1));
+    }
+
+    function pageLink(label, target) {
+      if (target < 0 || target >= pages) {
+        return doc.createTextNode(label);
+      }
+      var a = doc.createElement('a');
+      a.href = '#';
+      a.onclick = function () {
+        page = target;
+        render();
+        return false;
+      };
+      a.appendChild(doc.createTextNode(label));
+      return a;
+    }
+
+    // The first page is already contained in the table
+    renderPager(Math.min(rows.length, data.p));
+  }
+
+  initTable();
+
+})();
@@ -97,13 +97,30 @@ public class BarColumn implements IColumnRenderer {
 	private void bar(final HTMLElement td, final int count, final String image,
 			final Resources resources, final ReportOutputFolder base)
 			throws IOException {
-		final int width = count * WIDTH / max;
+		final int width = getWidth(count);
 		if (width > 0) {
 			td.img(resources.getLink(base, image), width, 10,
 					integerFormat.format(count));
 		}
 	}
 
+	private int getWidth(final int count) {
+		return count * WIDTH / max;
+	}
+
+	public String data(final ITableItem item, final ReportOutputFolder base) {
+		if (max == 0) {
+			return "[]";
+		}
+		final ICounter counter = item.getNode().getCounter(entity);
+		final int missed = counter.getMissedCount();
+		final int covered = counter.getCoveredCount();
+		return "[" + getWidth(missed) + ","
+				+ JSON.quote(integerFormat.format(missed)) + ","
+				+ getWidth(covered) + ","
+				+ JSON.quote(integerFormat.format(covered)) + "]";
+	}
+
 	public Comparator<ITableItem> getComparator() {
 		return comparator;
 	}
@@ -146,6 +146,11 @@ public abstract class CounterColumn implements IColumnRenderer {
 		td.text(integerFormat.format(value));
 	}
 
+	public String data(final ITableItem item, final ReportOutputFolder base) {
+		final int value = getValue(item.getNode().getCounter(entity));
+		return JSON.quote(integerFormat.format(value));
+	}
+
 	public Comparator<ITableItem> getComparator() {
 		return comparator;
 	}
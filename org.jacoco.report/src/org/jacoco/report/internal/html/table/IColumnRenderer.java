@@ -73,6 +73,27 @@ public interface IColumnRenderer {
 	void item(HTMLElement td, ITableItem item, Resources resources,
 			ReportOutputFolder base) throws IOException;
 
+	/**
+	 * Creates the content of the cell for the given item as a JSON value. The
+	 * value is used for tables which are rendered page by page in the browser
+	 * and has to represent the same content as
+	 * {@link #item(HTMLElement, ITableItem, Resources, ReportOutputFolder)}:
+	 * <ul>
+	 * <li>a string for plain text,</li>
+	 * <li>an object with the properties <code>t</code> (label), <code>a</code>
+	 * (optional link) and <code>c</code> (style) for links or</li>
+	 * <li>an array with alternating width and title of missed and covered bars.
+	 * </li>
+	 * </ul>
+	 * 
+	 * @param item
+	 *            item that will be rendered
+	 * @param base
+	 *            base folder of the table
+	 * @return JSON representation of the cell
+	 */
+	String data(ITableItem item, ReportOutputFolder base);
+
 	/**
 	 * Returns the comparator to sort this table column.
 	 * 
@@ -50,6 +50,12 @@ public class LabelColumn implements IColumnRenderer {
 		td.a(item, base);
 	}
 
+	public String data(final ITableItem item, final ReportOutputFolder base) {
+		return "{\"t\":" + JSON.quote(item.getLinkLabel()) + ",\"a\":"
+				+ JSON.quote(item.getLink(base)) + ",\"c\":"
+				+ JSON.quote(item.getLinkStyle()) + "}";
+	}
+
 	public Comparator<ITableItem> getComparator() {
 		return COMPARATOR;
 	}
@@ -74,14 +74,22 @@ public class PercentageColumn implements IColumnRenderer {
 		cell(td, item.getNode());
 	}
 
+	public String data(final ITableItem item, final ReportOutputFolder base) {
+		return JSON.quote(text(item.getNode()));
+	}
+
 	private void cell(final HTMLElement td, final ICoverageNode node)
 			throws IOException {
+		td.text(text(node));
+	}
+
+	private String text(final ICoverageNode node) {
 		final ICounter counter = node.getCounter(entity);
 		final int total = counter.getTotalCount();
 		if (total == 0) {
-			td.text("n/a");
+			return "n/a";
 		} else {
-			td.text(format(counter.getCoveredRatio()));
+			return format(counter.getCoveredRatio());
 		}
 	}
 
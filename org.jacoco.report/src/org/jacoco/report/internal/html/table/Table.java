@@ -33,11 +33,27 @@ public class Table {
 
 	private Comparator<ITableItem> defaultComparator;
 
+	private int pageSize;
+
 	/**
 	 * Create a new table without any columns yet.
 	 */
 	public Table() {
 		this.columns = new ArrayList<Table.Column>();
+		this.pageSize = 0;
+	}
+
+	/**
+	 * Sets the number of rows above which a table is rendered page by page in
+	 * the browser. Such tables only contain the rows of the first page, all
+	 * rows are additionally written as JSON data which is sorted and paged by
+	 * a script. By default all rows are rendered.
+	 * 
+	 * @param pageSize
+	 *            number of rows per page or 0 to render all rows
+	 */
+	public void setPageSize(final int pageSize) {
+		this.pageSize = pageSize;
 	}
 
 	/**
@@ -94,7 +110,12 @@ public class Table {
 		table.attr("id", "coveragetable");
 		header(table, sortedItems, total);
 		footer(table, total, resources, base);
-		body(table, sortedItems, resources, base);
+		if (pageSize > 0 && sortedItems.size() > pageSize) {
+			body(table, sortedItems.subList(0, pageSize), resources, base);
+			data(parent, sortedItems, resources, base);
+		} else {
+			body(table, sortedItems, resources, base);
+		}
 	}
 
 	private void header(final HTMLElement table,
@@ -129,6 +150,35 @@ public class Table {
 		}
 	}
 
+	private void data(final HTMLElement parent,
+			final List<? extends ITableItem> items, final Resources resources,
+			final ReportOutputFolder base) throws IOException {
+		final HTMLElement div = parent.div(Styles.VIRTUAL_DATA);
+		div.attr("id", "coveragedata");
+		div.text("{\"p\":" + pageSize + ",\"r\":"
+				+ JSON.quote(resources.getLink(base, Resources.REDBAR))
+				+ ",\"g\":"
+				+ JSON.quote(resources.getLink(base, Resources.GREENBAR))
+				+ ",\"rows\":[");
+		int idx = 0;
+		for (final ITableItem item : items) {
+			// The cells of all visible columns followed by their sort positions
+			final StringBuilder row = new StringBuilder();
+			row.append(idx == 0 ? "[" : ",[");
+			for (final Column c : columns) {
+				c.data(row, item, base);
+			}
+			for (final Column c : columns) {
+				c.position(row, idx);
+			}
+			row.setCharAt(row.length() - 1, ']');
+			div.text(row.toString());
+			idx++;
+		}
+		div.text("]}");
+		parent.script(resources.getLink(base, Resources.TABLE_SCRIPT));
+	}
+
 	private List<? extends ITableItem> sort(
 			final List<? extends ITableItem> items) {
 		if (defaultComparator != null) {
@@ -190,6 +240,19 @@ public class Table {
 			}
 		}
 
+		void data(final StringBuilder row, final ITableItem item,
+				final ReportOutputFolder base) {
+			if (visible) {
+				row.append(renderer.data(item, base)).append(',');
+			}
+		}
+
+		void position(final StringBuilder row, final int idx) {
+			if (visible) {
+				row.append(index.getPosition(idx)).append(',');
+			}
+		}
+
 	}
 
 }
@@ -31,6 +31,8 @@ public class ReportElement extends XMLElement {
 
 	private static final String SYSTEM = "report.dtd";
 
+	private final boolean lines;
+
 	/**
 	 * Creates a <code>report</code> root element for a XML report.
 	 * 
@@ -45,13 +47,46 @@ public class ReportElement extends XMLElement {
 	 */
 	public ReportElement(final String name, final OutputStream output,
 			final String encoding) throws IOException {
+		this(name, output, encoding, true);
+	}
+
+	/**
+	 * Creates a <code>report</code> root element for a XML report which
+	 * optionally omits the <code>line</code> elements of source files.
+	 * 
+	 * @param name
+	 *            value for the name attribute
+	 * @param encoding
+	 *            character encoding used for output
+	 * @param output
+	 *            output stream will be closed if the root element is closed
+	 * @param lines
+	 *            if <code>false</code> no <code>line</code> elements are
+	 *            written
+	 * @throws IOException
+	 *             in case of problems with the underlying output
+	 */
+	public ReportElement(final String name, final OutputStream output,
+			final String encoding, final boolean lines) throws IOException {
 		super("report", PUBID, SYSTEM, true, encoding, output);
+		this.lines = lines;
 		attr("name", name);
 	}
 
 	private ReportElement(final String name, final ReportElement parent)
 			throws IOException {
 		super(name, parent);
+		this.lines = parent.lines;
+	}
+
+	/**
+	 * Checks whether <code>line</code> elements are written for source files
+	 * in this document.
+	 * 
+	 * @return <code>true</code> if lines are included
+	 */
+	public boolean includesLines() {
+		return lines;
 	}
 
 	@Override
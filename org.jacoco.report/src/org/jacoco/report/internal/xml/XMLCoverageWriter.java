@@ -14,7 +14,6 @@ package org.jacoco.report.internal.xml;
 
 import java.io.IOException;
 
-import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ICoverageNode;
@@ -24,6 +23,7 @@ import org.jacoco.core.analysis.IMethodCoverage;
 import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.analysis.ISourceFileCoverage;
 import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.report.IReportBundleVisitor;
 
 /**
  * Serializes coverage data as XML fragments.
@@ -31,21 +31,27 @@ import org.jacoco.core.analysis.ISourceNode;
 public final class XMLCoverageWriter {
 
 	/**
-	 * Writes the structure of a given bundle.
+	 * Creates a visitor which writes the structure of a bundle package by
+	 * package.
 	 * 
-	 * @param bundle
-	 *            bundle coverage data
 	 * @param element
 	 *            container element for the bundle data
-	 * @throws IOException
-	 *             if XML can't be written to the underlying output
+	 * @return visitor to emit the packages of the bundle to
 	 */
-	public static void writeBundle(final IBundleCoverage bundle,
-			final ReportElement element) throws IOException {
-		for (final IPackageCoverage p : bundle.getPackages()) {
-			writePackage(p, element);
-		}
-		writeCounters(bundle, element);
+	public static IReportBundleVisitor writeBundle(
+			final ReportElement element) {
+		return new IReportBundleVisitor() {
+
+			public void visitPackage(final IPackageCoverage coverage)
+					throws IOException {
+				writePackage(coverage, element);
+			}
+
+			public void visitEnd(final ICoverageNode bundle)
+					throws IOException {
+				writeCounters(bundle, element);
+			}
+		};
 	}
 
 	private static void writePackage(final IPackageCoverage p,
@@ -78,7 +84,9 @@ public final class XMLCoverageWriter {
 	private static void writeSourceFile(final ISourceFileCoverage s,
 			final ReportElement parent) throws IOException {
 		final ReportElement element = parent.sourcefile(s.getName());
-		writeLines(s, element);
+		if (element.includesLines()) {
+			writeLines(s, element);
+		}
 		writeCounters(s, element);
 	}
 
@@ -39,6 +39,8 @@ public class XMLElement {
 	/** Writer for content output */
 	protected final Writer writer;
 
+	private final XMLWriter xmlWriter;
+
 	private final String name;
 
 	private boolean openTagDone;
@@ -49,9 +51,10 @@ public class XMLElement {
 
 	private final boolean root;
 
-	private XMLElement(final Writer writer, final String name,
+	private XMLElement(final XMLWriter writer, final String name,
 			final boolean root) throws IOException {
 		this.writer = writer;
+		this.xmlWriter = writer;
 		this.name = name;
 		this.openTagDone = false;
 		this.closed = false;
@@ -81,7 +84,8 @@ public class XMLElement {
 			final String system, final boolean standalone,
 			final String encoding, final OutputStream output)
 			throws IOException {
-		this(new OutputStreamWriter(output, encoding), name, true);
+		this(new XMLWriter(new OutputStreamWriter(output, encoding)), name,
+				true);
 		if (standalone) {
 			writer.write(format(HEADER_STANDALONE, encoding));
 		} else {
@@ -108,7 +112,7 @@ public class XMLElement {
 	 */
 	protected XMLElement(final String name, final XMLElement parent)
 			throws IOException {
-		this(parent.writer, name, false);
+		this(parent.xmlWriter, name, false);
 		parent.addChildElement(this);
 		writer.write('<');
 		writer.write(name);
@@ -132,30 +136,6 @@ public class XMLElement {
 		}
 	}
 
-	private void quote(final String text) throws IOException {
-		final int len = text.length();
-		for (int i = 0; i < len; i++) {
-			final char c = text.charAt(i);
-			switch (c) {
-			case '<':
-				writer.write("&lt;");
-				break;
-			case '>':
-				writer.write("&gt;");
-				break;
-			case '"':
-				writer.write("&quot;");
-				break;
-			case '&':
-				writer.write("&amp;");
-				break;
-			default:
-				writer.write(c);
-				break;
-			}
-		}
-	}
-
 	/**
 	 * Adds an attribute to this element. May only be called before an child
 	 * element is added or this element has been closed. The attribute value
@@ -183,7 +163,7 @@ public class XMLElement {
 		writer.write(name);
 		writer.write('=');
 		writer.write('"');
-		quote(value);
+		xmlWriter.writeQuoted(value);
 		writer.write('"');
 	}
 
@@ -202,7 +182,7 @@ public class XMLElement {
 	 */
 	public final void attr(final String name, final int value)
 			throws IOException {
-		attr(name, String.valueOf(value));
+		attr(name, (long) value);
 	}
 
 	/**
@@ -220,7 +200,16 @@ public class XMLElement {
 	 */
 	public final void attr(final String name, final long value)
 			throws IOException {
-		attr(name, String.valueOf(value));
+		if (closed || openTagDone) {
+			throw new IOException(
+					format("Element %s already closed.", this.name));
+		}
+		writer.write(' ');
+		writer.write(name);
+		writer.write('=');
+		writer.write('"');
+		xmlWriter.writeDecimal(value);
+		writer.write('"');
 	}
 
 	/**
@@ -241,7 +230,7 @@ public class XMLElement {
 		if (lastchild != null) {
 			lastchild.close();
 		}
-		quote(text);
+		xmlWriter.writeQuoted(text);
 	}
 
 	/**
@@ -15,7 +15,7 @@ package org.jacoco.report.internal.xml;
 
 import java.io.IOException;
 
-import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.ISourceFileLocator;
 import org.jacoco.report.internal.AbstractGroupVisitor;
 
@@ -46,10 +46,10 @@ public class XMLGroupVisitor extends AbstractGroupVisitor {
 	}
 
 	@Override
-	protected void handleBundle(final IBundleCoverage bundle,
+	protected IReportBundleVisitor handleBundle(final String name,
 			final ISourceFileLocator locator) throws IOException {
-		final ReportElement child = element.group(bundle.getName());
-		XMLCoverageWriter.writeBundle(bundle, child);
+		final ReportElement child = element.group(name);
+		return XMLCoverageWriter.writeBundle(child);
 	}
 
 	@Override
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.report.internal.xml;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Buffered {@link Writer} for XML documents. Other than
+ * {@link java.io.BufferedWriter} this writer is not synchronized and offers
+ * methods to write quoted text and decimal numbers without creating temporary
+ * strings. The characters are passed to the underlying writer in large
+ * blocks.
+ */
+final class XMLWriter extends Writer {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Maximum number of characters of a decimal long value */
+	private static final int MAX_DIGITS = 20;
+
+	private final Writer out;
+
+	private final char[] buffer;
+
+	private int pos;
+
+	/**
+	 * Creates a new writer.
+	 *
+	 * @param out
+	 *            underlying writer
+	 */
+	XMLWriter(final Writer out) {
+		this.out = out;
+		this.buffer = new char[BUFFER_SIZE];
+		this.pos = 0;
+	}
+
+	@Override
+	public void write(final int c) throws IOException {
+		if (pos == BUFFER_SIZE) {
+			flushBuffer();
+		}
+		buffer[pos++] = (char) c;
+	}
+
+	@Override
+	public void write(final char[] cbuf, final int off, final int len)
+			throws IOException {
+		if (len >= BUFFER_SIZE) {
+			flushBuffer();
+			out.write(cbuf, off, len);
+			return;
+		}
+		if (len > BUFFER_SIZE - pos) {
+			flushBuffer();
+		}
+		System.arraycopy(cbuf, off, buffer, pos, len);
+		pos += len;
+	}
+
+	@Override
+	public void write(final String str, final int off, final int len)
+			throws IOException {
+		int start = off;
+		final int end = off + len;
+		while (start < end) {
+			if (pos == BUFFER_SIZE) {
+				flushBuffer();
+			}
+			final int n = Math.min(BUFFER_SIZE - pos, end - start);
+			str.getChars(start, start + n, buffer, pos);
+			pos += n;
+			start += n;
+		}
+	}
+
+	/**
+	 * Writes the given text where the XML special characters
+	 * <code>&lt;</code>, <code>&gt;</code>, <code>&quot;</code> and
+	 * <code>&amp;</code> are replaced by entities.
+	 *
+	 * @param text
+	 *            text to write
+	 * @throws IOException
+	 *             in case of problems with the underlying writer
+	 */
+	void writeQuoted(final String text) throws IOException {
+		final int len = text.length();
+		int start = 0;
+		for (int i = 0; i < len; i++) {
+			final String entity;
+			switch (text.charAt(i)) {
+			case '<':
+				entity = "&lt;";
+				break;
+			case '>':
+				entity = "&gt;";
+				break;
+			case '"':
+				entity = "&quot;";
+				break;
+			case '&':
+				entity = "&amp;";
+				break;
+			default:
+				continue;
+			}
+			write(text, start, i - start);
+			write(entity, 0, entity.length());
+			start = i + 1;
+		}
+		write(text, start, len - start);
+	}
+
+	/**
+	 * Writes the decimal representation of the given value.
+	 *
+	 * @param value
+	 *            value to write
+	 * @throws IOException
+	 *             in case of problems with the underlying writer
+	 */
+	void writeDecimal(final long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			write(String.valueOf(value));
+			return;
+		}
+		if (BUFFER_SIZE - pos < MAX_DIGITS) {
+			flushBuffer();
+		}
+		long v = value;
+		if (v < 0) {
+			buffer[pos++] = '-';
+			v = -v;
+		}
+		int digits = 1;
+		for (long t = v; t >= 10; t /= 10) {
+			digits++;
+		}
+		for (int i = pos + digits - 1; i >= pos; i--) {
+			buffer[i] = (char) ('0' + (int) (v % 10));
+			v /= 10;
+		}
+		pos += digits;
+	}
+
+	private void flushBuffer() throws IOException {
+		if (pos > 0) {
+			out.write(buffer, 0, pos);
+			pos = 0;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flushBuffer();
+		out.close();
+	}
+
+}
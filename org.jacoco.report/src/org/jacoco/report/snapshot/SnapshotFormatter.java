@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+
+import org.jacoco.core.analysis.BundleCoverageWriter;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.IReportBundleVisitor;
+import org.jacoco.report.IReportGroupVisitor;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+
+/**
+ * Report formatter that writes the coverage model in a compact binary format.
+ * Such a snapshot contains the session infos, the execution data, the group
+ * structure and all bundles of a report. It can be replayed with a
+ * {@link SnapshotLoader} into any other {@link IReportVisitor}, for example to
+ * create additional report formats or to check coverage rules without
+ * analyzing the class files again. Source files are not part of the snapshot.
+ * <p>
+ * The header of a snapshot contains an arbitrary fingerprint of the
+ * configuration it has been created with, see {@link #setFingerprint(String)}.
+ * Tools which reuse snapshots can check it with
+ * {@link SnapshotLoader#readFingerprint()} before the snapshot is replayed.
+ */
+public class SnapshotFormatter {
+
+	/** Magic number in header for file format identification. */
+	static final char MAGIC_NUMBER = 0xC0C5;
+
+	/** File format version, will be incremented for each incompatible change. */
+	static final char FORMAT_VERSION = 0x1003;
+
+	/** Block identifier for file headers. */
+	static final byte BLOCK_HEADER = 0x01;
+
+	/** Block identifier for session infos and execution data. */
+	static final byte BLOCK_INFO = 0x10;
+
+	/** Block identifier for a new group. */
+	static final byte BLOCK_GROUP = 0x20;
+
+	/** Block identifier for a bundle. */
+	static final byte BLOCK_BUNDLE = 0x21;
+
+	/** Block identifier for the end of the report. */
+	static final byte BLOCK_END = 0x7F;
+
+	private String fingerprint = "";
+
+	/**
+	 * Sets the fingerprint which is stored in the header of the snapshot.
+	 * Default is the empty string.
+	 * 
+	 * @param fingerprint
+	 *            fingerprint of the configuration the snapshot is created with
+	 */
+	public void setFingerprint(final String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Creates a new visitor to write a snapshot to the given stream.
+	 * 
+	 * @param output
+	 *            output stream to write the snapshot to
+	 * @return visitor to emit the report data to
+	 * @throws IOException
+	 *             in case of problems with the output stream
+	 */
+	public IReportVisitor createVisitor(final OutputStream output)
+			throws IOException {
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(output));
+		final BundleCoverageWriter bundleWriter = new BundleCoverageWriter(out);
+		out.writeByte(BLOCK_HEADER);
+		out.writeChar(MAGIC_NUMBER);
+		out.writeChar(FORMAT_VERSION);
+		// Not limited in length other than writeUTF():
+		final byte[] fingerprintBytes = fingerprint.getBytes("UTF-8");
+		out.writeInt(fingerprintBytes.length);
+		out.write(fingerprintBytes);
+
+		// Groups are numbered in the order of creation, the root is 0:
+		final int[] groupCount = new int[1];
+
+		class GroupVisitor implements IReportGroupVisitor {
+
+			private final int index;
+
+			GroupVisitor(final int index) {
+				this.index = index;
+			}
+
+			public void visitBundle(final IBundleCoverage bundle,
+					final ISourceFileLocator locator) throws IOException {
+				out.writeByte(BLOCK_BUNDLE);
+				out.writeInt(index);
+				bundleWriter.write(bundle);
+			}
+
+			public IReportBundleVisitor visitBundle(final String name,
+					final ISourceFileLocator locator) throws IOException {
+				out.writeByte(BLOCK_BUNDLE);
+				out.writeInt(index);
+				bundleWriter.writeStart(name);
+				return new IReportBundleVisitor() {
+
+					public void visitPackage(final IPackageCoverage coverage)
+							throws IOException {
+						bundleWriter.writePackage(coverage);
+					}
+
+					public void visitEnd(final ICoverageNode bundle)
+							throws IOException {
+						bundleWriter.writeEnd();
+					}
+				};
+			}
+
+			public IReportGroupVisitor visitGroup(final String name)
+					throws IOException {
+				out.writeByte(BLOCK_GROUP);
+				out.writeInt(index);
+				out.writeUTF(name);
+				return new GroupVisitor(++groupCount[0]);
+			}
+		}
+
+		class Visitor extends GroupVisitor implements IReportVisitor {
+
+			Visitor() {
+				super(0);
+			}
+
+			public void visitInfo(final List<SessionInfo> sessionInfos,
+					final Collection<ExecutionData> executionData)
+					throws IOException {
+				out.writeByte(BLOCK_INFO);
+				out.writeInt(sessionInfos.size());
+				for (final SessionInfo info : sessionInfos) {
+					out.writeUTF(info.getId());
+					out.writeLong(info.getStartTimeStamp());
+					out.writeLong(info.getDumpTimeStamp());
+				}
+				out.writeInt(executionData.size());
+				for (final ExecutionData data : executionData) {
+					out.writeLong(data.getId());
+					out.writeUTF(data.getName());
+					writeProbes(out, data.getProbes());
+				}
+			}
+
+			public void visitEnd() throws IOException {
+				out.writeByte(BLOCK_END);
+				out.close();
+			}
+		}
+
+		return new Visitor();
+	}
+
+	private static void writeProbes(final DataOutputStream out,
+			final boolean[] probes) throws IOException {
+		out.writeInt(probes.length);
+		int buffer = 0;
+		for (int i = 0; i < probes.length; i++) {
+			if (probes[i]) {
+				buffer |= 0x01 << (i & 7);
+			}
+			if ((i & 7) == 7) {
+				out.writeByte(buffer);
+				buffer = 0;
+			}
+		}
+		if ((probes.length & 7) != 0) {
+			out.writeByte(buffer);
+		}
+	}
+
+}
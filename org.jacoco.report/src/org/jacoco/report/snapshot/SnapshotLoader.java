@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    agent <agent@local> - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report.snapshot;
+
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.analysis.BundleCoverageReader;
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.IReportBundleVisitor;
+import org.jacoco.report.IReportGroupVisitor;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+
+/**
+ * Replays snapshots written by {@link SnapshotFormatter} into arbitrary report
+ * visitors. The visitor receives the same sequence of calls as the snapshot
+ * formatter when the snapshot was written.
+ */
+public class SnapshotLoader {
+
+	private final DataInputStream in;
+
+	private String fingerprint;
+
+	/**
+	 * Creates a new loader for the given snapshot stream.
+	 * 
+	 * @param input
+	 *            stream to read the snapshot from
+	 */
+	public SnapshotLoader(final InputStream input) {
+		this.in = new DataInputStream(new BufferedInputStream(input));
+	}
+
+	/**
+	 * Reads the header of the snapshot and returns the fingerprint stored in
+	 * it. The snapshot can still be replayed afterwards.
+	 * 
+	 * @return fingerprint of the snapshot, empty if none has been set
+	 * @throws IOException
+	 *             if the snapshot can't be read or is invalid
+	 * @see SnapshotFormatter#setFingerprint(String)
+	 */
+	public String readFingerprint() throws IOException {
+		if (fingerprint == null) {
+			readHeader();
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Replays the complete snapshot into the given visitor including the
+	 * final call of {@link IReportVisitor#visitEnd()}.
+	 * 
+	 * @param visitor
+	 *            visitor to emit the report data to
+	 * @param locator
+	 *            source file locator used for all bundles of the snapshot
+	 * @throws IOException
+	 *             if the snapshot can't be read or is invalid or if thrown by
+	 *             the visitor
+	 */
+	public void replay(final IReportVisitor visitor,
+			final ISourceFileLocator locator) throws IOException {
+		readFingerprint();
+		final BundleCoverageReader bundleReader = new BundleCoverageReader(in);
+		final List<IReportGroupVisitor> groups = new ArrayList<IReportGroupVisitor>();
+		groups.add(visitor);
+		while (true) {
+			final byte type = in.readByte();
+			switch (type) {
+			case SnapshotFormatter.BLOCK_INFO:
+				readInfo(visitor);
+				break;
+			case SnapshotFormatter.BLOCK_GROUP:
+				final IReportGroupVisitor parent = getGroup(groups);
+				groups.add(parent.visitGroup(in.readUTF()));
+				break;
+			case SnapshotFormatter.BLOCK_BUNDLE:
+				readBundle(getGroup(groups), bundleReader, locator);
+				break;
+			case SnapshotFormatter.BLOCK_END:
+				visitor.visitEnd();
+				return;
+			default:
+				throw new IOException(
+						format("Unknown block type %x.", Byte.valueOf(type)));
+			}
+		}
+	}
+
+	private void readHeader() throws IOException {
+		if (in.readByte() != SnapshotFormatter.BLOCK_HEADER
+				|| in.readChar() != SnapshotFormatter.MAGIC_NUMBER) {
+			throw new IOException("Invalid snapshot file.");
+		}
+		final char version = in.readChar();
+		if (version != SnapshotFormatter.FORMAT_VERSION) {
+			throw new IOException(format(
+					"Incompatible snapshot version 0x%x, expected 0x%x.",
+					Integer.valueOf(version),
+					Integer.valueOf(SnapshotFormatter.FORMAT_VERSION)));
+		}
+		final byte[] fingerprintBytes = new byte[in.readInt()];
+		in.readFully(fingerprintBytes);
+		fingerprint = new String(fingerprintBytes, "UTF-8");
+	}
+
+	/**
+	 * Bundles are replayed package by package, so the complete bundle is never
+	 * kept in memory.
+	 */
+	private static void readBundle(final IReportGroupVisitor group,
+			final BundleCoverageReader bundleReader,
+			final ISourceFileLocator locator) throws IOException {
+		final String name = bundleReader.readStart();
+		final IReportBundleVisitor visitor = group.visitBundle(name, locator);
+		final CoverageNodeImpl bundle = new CoverageNodeImpl(
+				ElementType.BUNDLE, name);
+		IPackageCoverage p;
+		while ((p = bundleReader.readPackage()) != null) {
+			bundle.increment(p);
+			visitor.visitPackage(p);
+		}
+		visitor.visitEnd(bundle);
+	}
+
+	private void readInfo(final IReportVisitor visitor) throws IOException {
+		final int sessionCount = in.readInt();
+		final List<SessionInfo> sessionInfos = new ArrayList<SessionInfo>(
+				sessionCount);
+		for (int i = 0; i < sessionCount; i++) {
+			sessionInfos.add(new SessionInfo(in.readUTF(), in.readLong(),
+					in.readLong()));
+		}
+		final int dataCount = in.readInt();
+		final List<ExecutionData> executionData = new ArrayList<ExecutionData>(
+				dataCount);
+		for (int i = 0; i < dataCount; i++) {
+			executionData.add(new ExecutionData(in.readLong(), in.readUTF(),
+					readProbes()));
+		}
+		visitor.visitInfo(sessionInfos, executionData);
+	}
+
+	private boolean[] readProbes() throws IOException {
+		final boolean[] probes = new boolean[in.readInt()];
+		int buffer = 0;
+		for (int i = 0; i < probes.length; i++) {
+			if ((i & 7) == 0) {
+				buffer = in.readByte();
+			}
+			probes[i] = (buffer & 0x01 << (i & 7)) != 0;
+		}
+		return probes;
+	}
+
+	private IReportGroupVisitor getGroup(final List<IReportGroupVisitor> groups)
+			throws IOException {
+		final int index = in.readInt();
+		if (index < 0 || index >= groups.size()) {
+			throw new IOException(format("Unknown group %s.",
+					Integer.valueOf(index)));
+		}
+		return groups.get(index);
+	}
+
+}
@@ -16,10 +16,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collection;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.IReportBundleVisitor;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.ISourceFileLocator;
@@ -32,8 +35,14 @@ import org.jacoco.report.internal.xml.XMLGroupVisitor;
  */
 public class XMLFormatter {
 
+	private static final int BUFFER_SIZE = 0x10000;
+
 	private String outputEncoding = "UTF-8";
 
+	private boolean gzip = false;
+
+	private boolean compact = false;
+
 	/**
 	 * Sets the encoding used for generated XML document. Default is UTF-8.
 	 * 
@@ -44,6 +53,30 @@ public class XMLFormatter {
 		this.outputEncoding = outputEncoding;
 	}
 
+	/**
+	 * Sets whether the XML document is compressed with gzip. Default is
+	 * <code>false</code>.
+	 * 
+	 * @param gzip
+	 *            <code>true</code> to write a gzip compressed document
+	 */
+	public void setGzip(final boolean gzip) {
+		this.gzip = gzip;
+	}
+
+	/**
+	 * Sets whether the <code>line</code> elements of source files are
+	 * omitted. Compact reports only contain the counters of all elements,
+	 * which reduces the report size considerably. Default is
+	 * <code>false</code>.
+	 * 
+	 * @param compact
+	 *            <code>true</code> to omit line elements
+	 */
+	public void setCompact(final boolean compact) {
+		this.compact = compact;
+	}
+
 	/**
 	 * Creates a new visitor to write a report to the given stream.
 	 * 
@@ -69,8 +102,18 @@ public class XMLFormatter {
 
 			public void visitBundle(final IBundleCoverage bundle,
 					final ISourceFileLocator locator) throws IOException {
-				createRootElement(bundle.getName());
-				XMLCoverageWriter.writeBundle(bundle, report);
+				final IReportBundleVisitor visitor = visitBundle(
+						bundle.getName(), locator);
+				for (final IPackageCoverage p : bundle.getPackages()) {
+					visitor.visitPackage(p);
+				}
+				visitor.visitEnd(bundle);
+			}
+
+			public IReportBundleVisitor visitBundle(final String name,
+					final ISourceFileLocator locator) throws IOException {
+				createRootElement(name);
+				return XMLCoverageWriter.writeBundle(report);
 			}
 
 			public IReportGroupVisitor visitGroup(final String name)
@@ -82,7 +125,11 @@ public class XMLFormatter {
 
 			private void createRootElement(final String name)
 					throws IOException {
-				report = new ReportElement(name, output, outputEncoding);
+				final OutputStream out = gzip
+						? new GZIPOutputStream(output, BUFFER_SIZE)
+						: output;
+				report = new ReportElement(name, out, outputEncoding,
+						!compact);
 				for (final SessionInfo i : sessionInfos) {
 					report.sessioninfo(i);
 				}